@@ -26,6 +26,8 @@ Optional environment variables:
   GCP_REGION                  Defaults to us-east1
   BINARY_REPO_NAME            Artifact Registry repo, defaults to scrabble-game
   CLOUD_RUN_SERVICE_ACCOUNT   Service account name (without @... suffix)
+  MIN_INSTANCES               Defaults to 0; 1 keeps an instance up so background jobs
+                              keep running with no requests coming in
 
 Examples:
   ./deploy.sh standard
@@ -206,13 +208,17 @@ if [ -n "$CLOUD_RUN_SERVICE_ACCOUNT" ]; then
   echo "Using service account: $SERVICE_ACCOUNT_EMAIL"
 fi
 
+# Background jobs run on worker threads between requests, so the CPU stays allocated
+# (--no-cpu-throttling). With MIN_INSTANCES=0 an idle instance can still be stopped;
+# its jobs then resume when the next instance starts.
 gcloud run deploy "$SERVICE_NAME" \
   --image "$IMAGE_TAG" \
   --region "$GCP_REGION" \
   --platform managed \
   --allow-unauthenticated \
   --concurrency 10 \
-  --min-instances 0 \
+  --min-instances "${MIN_INSTANCES:-0}" \
+  --no-cpu-throttling \
   --max-instances 1 \
   --memory "$MEMORY" \
   --cpu 1 \
@@ -2,6 +2,8 @@
 import React, { useMemo } from 'react'
 import { useQuery, useMutation, useQueryClient } from '@tanstack/react-query'
 import { api } from './client'
+import { syncSummaries } from './changes'
+import { catalogFeedLive } from './events'
 import { queryKeys } from '@/config/queryClient'
 import type { AuthorDto, AuthorSummaryDto, BookDto } from '@/types/dtos'
 
@@ -24,11 +26,17 @@ export function useAuthors(filter?: 'all' | 'without-description' | 'zero-books'
 
   // Step 1: Fetch summaries (ID + lastModified) from appropriate endpoint
   // For all filters including 'all', we use the summaries endpoint to enable caching
+  // The unfiltered list syncs with /authors/changes (only what changed since the last fetch)
   const filterEndpoint = getFilterEndpoint(filter)
+  const summariesKey = filter ? queryKeys.authors.filterSummaries(filter) : queryKeys.authors.summaries()
   const { data: summaries, isLoading: summariesLoading } = useQuery({
-    queryKey: filter ? queryKeys.authors.filterSummaries(filter) : queryKeys.authors.summaries(),
-    queryFn: () => api.get<AuthorSummaryDto[]>(filterEndpoint),
-    staleTime: 0, // Always check for fresh data when filter changes
+    queryKey: summariesKey,
+    queryFn: () => filterEndpoint === '/authors/summaries'
+      ? syncSummaries<AuthorSummaryDto>('authors', queryClient, summariesKey)
+      : api.get<AuthorSummaryDto[]>(filterEndpoint),
+    // Always check for fresh data when filter changes, unless the /api/events feed is
+    // connected: it invalidates summaries on change
+    staleTime: () => (catalogFeedLive() ? Infinity : 0),
     refetchOnMount: true, // Always refetch when component mounts or filter changes
   })
 
@@ -2,6 +2,9 @@
 import React, { useMemo, useRef } from 'react'
 import { useQuery, useMutation, useQueryClient, keepPreviousData } from '@tanstack/react-query'
 import { api } from './client'
+import { syncSummaries } from './changes'
+import { catalogFeedLive } from './events'
+import { runJob } from './jobs'
 import { queryKeys } from '@/config/queryClient'
 import type { BookDto, BookSummaryDto, BulkDeleteResultDto, GenreLookupResultDto } from '@/types/dtos'
 
@@ -19,13 +22,18 @@ export function useBooks(selectedLabels?: string[]) {
     : null
 
   // Step 1: Fetch summaries (ID + lastModified).
-  // Always use /books/summaries for the unfiltered case; client-side chips handle all other filtering.
+  // The unfiltered case syncs with /books/changes (only what changed since the last fetch);
+  // client-side chips handle all other filtering.
   const { data: summaries, isLoading: summariesLoading, isFetching: summariesFetching } = useQuery({
     queryKey: hasLabels
       ? queryKeys.books.labelSummaries(selectedLabels ?? [])
       : queryKeys.books.summaries(),
-    queryFn: () => api.get<BookSummaryDto[]>(hasLabels ? labelEndpoint! : '/books/summaries'),
-    staleTime: 30 * 1000, // 30 seconds: prevents duplicate fetches on rapid mounts/re-renders while keeping data reasonably fresh
+    queryFn: () => hasLabels
+      ? api.get<BookSummaryDto[]>(labelEndpoint!)
+      : syncSummaries<BookSummaryDto>('books', queryClient, queryKeys.books.summaries()),
+    // 30 seconds: prevents duplicate fetches on rapid mounts/re-renders while keeping data reasonably fresh.
+    // While the /api/events feed is connected it invalidates summaries on change, so no refetch is needed.
+    staleTime: () => (catalogFeedLive() ? Infinity : 30 * 1000),
     refetchOnMount: true, // Refetch on mount only if data is stale (older than staleTime)
     placeholderData: keepPreviousData, // Prevent summaries from becoming undefined during refetches
   })
@@ -120,12 +128,15 @@ export function useBooks(selectedLabels?: string[]) {
   }
 }
 
-// Hook to get a single book
+// Hook to get a single book, including the long-form text that list DTOs leave out.
+// The list copy (if cached) is shown while the full book loads.
 export function useBook(id: number) {
+  const queryClient = useQueryClient()
   return useQuery({
-    queryKey: queryKeys.books.detail(id),
+    queryKey: queryKeys.books.full(id),
     queryFn: () => api.get<BookDto>(`/books/${id}`),
     enabled: !!id,
+    placeholderData: () => queryClient.getQueryData<BookDto>(queryKeys.books.detail(id)),
   })
 }
 
@@ -293,6 +304,7 @@ export function useLookupGenres() {
     onSuccess: (data, id) => {
       if (data.updatedBook) {
         queryClient.setQueryData(queryKeys.books.detail(id), data.updatedBook)
+        queryClient.setQueryData(queryKeys.books.full(id), data.updatedBook)
       }
     },
   })
@@ -329,11 +341,16 @@ export function useBookFromTitleAuthor() {
   })
 }
 
-// Hook to lookup genres for multiple books using Grok AI
+// Hook to lookup genres for multiple books using Grok AI, as a background job
 export function useLookupGenresBulk() {
   const queryClient = useQueryClient()
   return useMutation({
-    mutationFn: (ids: number[]) => api.post<GenreLookupResultDto[]>('/books/lookup-genres-bulk', ids),
+    mutationFn: (ids: number[]) =>
+      runJob<GenreLookupResultDto>('GENRE_LOOKUP', ids, (bookId, errorMessage) => ({
+        bookId,
+        success: false,
+        errorMessage,
+      })),
     onSuccess: () => {
       queryClient.invalidateQueries({ queryKey: queryKeys.books.summaries() })
       queryClient.invalidateQueries({ queryKey: queryKeys.books.all })
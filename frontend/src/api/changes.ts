@@ -0,0 +1,42 @@
+// (c) Copyright 2025 by Muczynski
+import type { QueryClient, QueryKey } from '@tanstack/react-query'
+import { api } from './client'
+import type { ChangesDto, SummaryDto } from '@/types/dtos'
+
+// Sync token for each cached summaries list, keyed by its query key
+const syncTokens = new Map<string, number>()
+
+// Bring a cached summaries list up to date with GET /{entity}/changes?since=<token>, so a
+// steady-state refresh downloads only what changed instead of every summary. Without a
+// cached list (first load, or garbage-collected) this is a full sync from since=0.
+export async function syncSummaries<S extends SummaryDto>(
+  entity: 'books' | 'authors',
+  queryClient: QueryClient,
+  queryKey: QueryKey
+): Promise<S[]> {
+  const tokenKey = JSON.stringify(queryKey)
+  const previous = queryClient.getQueryData<S[]>(queryKey)
+  let token = previous ? (syncTokens.get(tokenKey) ?? 0) : 0
+
+  const byId = new Map<number, S>()
+  if (token > 0) {
+    previous?.forEach((summary) => byId.set(summary.id, summary))
+  }
+
+  for (;;) {
+    const changes = await api.get<ChangesDto<S>>(`/${entity}/changes?since=${token}`)
+    if (changes.resync) {
+      // Token is from another database (e.g. after a restore): start over
+      byId.clear()
+      token = 0
+      continue
+    }
+    changes.deleted.forEach((id) => byId.delete(id))
+    changes.upserted.forEach((summary) => byId.set(summary.id, summary))
+    token = changes.token
+    if (!changes.hasMore) break
+  }
+
+  syncTokens.set(tokenKey, token)
+  return Array.from(byId.values())
+}
@@ -0,0 +1,131 @@
+// (c) Copyright 2025 by Muczynski
+import { useEffect } from 'react'
+import { useQueryClient, type QueryClient } from '@tanstack/react-query'
+import { queryKeys } from '@/config/queryClient'
+import type { CatalogEventDto } from '@/types/dtos'
+
+// Events arriving within this window are handled together, so a bulk edit on the server
+// costs one refetch instead of one per entity
+const BATCH_MS = 300
+
+let live = false
+
+// True while the /api/events stream is connected. Summary queries don't poll then: the feed
+// invalidates them when something changes.
+export function catalogFeedLive(): boolean {
+  return live
+}
+
+// Subscribe to GET /api/events (Server-Sent Events) and invalidate the affected queries as
+// changes are committed. Mount once, near the root.
+export function useCatalogEvents() {
+  const queryClient = useQueryClient()
+
+  useEffect(() => {
+    if (typeof EventSource === 'undefined') return
+
+    const source = new EventSource(`${import.meta.env.VITE_API_BASE_URL || ''}/api/events`, {
+      withCredentials: true,
+    })
+    let pending: CatalogEventDto[] = []
+    let resync = false
+    let timer: ReturnType<typeof setTimeout> | undefined
+
+    const flush = () => {
+      timer = undefined
+      if (resync) {
+        invalidateAll(queryClient)
+      } else {
+        invalidateFor(queryClient, pending)
+      }
+      pending = []
+      resync = false
+    }
+    const schedule = () => {
+      if (timer === undefined) timer = setTimeout(flush, BATCH_MS)
+    }
+
+    source.onopen = () => {
+      // Changes may have been missed while disconnected (or before the first connect)
+      if (live) return
+      live = true
+      resync = true
+      schedule()
+    }
+    source.onerror = () => {
+      // EventSource reconnects on its own; poll as usual until it does
+      live = false
+    }
+    source.addEventListener('change', (event) => {
+      pending.push(JSON.parse((event as MessageEvent<string>).data) as CatalogEventDto)
+      schedule()
+    })
+    source.addEventListener('resync', () => {
+      // The server dropped events because this client fell behind
+      resync = true
+      schedule()
+    })
+
+    return () => {
+      source.close()
+      live = false
+      if (timer !== undefined) clearTimeout(timer)
+    }
+  }, [queryClient])
+}
+
+function invalidateSummaries(queryClient: QueryClient) {
+  const summaryKinds = ['summaries', 'filterSummaries', 'labelSummaries']
+  queryClient.invalidateQueries({
+    predicate: (query) => {
+      const [entity, kind] = query.queryKey as unknown[]
+      return (entity === 'books' || entity === 'authors') && summaryKinds.includes(kind as string)
+    },
+  })
+}
+
+function invalidateAll(queryClient: QueryClient) {
+  queryClient.invalidateQueries({ queryKey: queryKeys.books.all })
+  queryClient.invalidateQueries({ queryKey: queryKeys.authors.all })
+  queryClient.invalidateQueries({ queryKey: queryKeys.loans.all })
+  queryClient.invalidateQueries({ queryKey: queryKeys.photos.all })
+}
+
+function invalidateFor(queryClient: QueryClient, events: CatalogEventDto[]) {
+  // Book and author filters depend on each other (zero-books, author names), and summaries
+  // answer 304 when nothing in them changed, so refresh them all together
+  if (events.some((e) => e.type === 'book' || e.type === 'author')) {
+    invalidateSummaries(queryClient)
+  }
+  for (const event of events) {
+    switch (event.type) {
+      case 'book':
+        if (event.deleted) queryClient.removeQueries({ queryKey: queryKeys.books.detail(event.id) })
+        else queryClient.invalidateQueries({ queryKey: queryKeys.books.full(event.id) })
+        if (event.authorId != null) {
+          queryClient.invalidateQueries({ queryKey: queryKeys.authors.books(event.authorId) })
+        }
+        break
+      case 'author':
+        if (event.deleted) queryClient.removeQueries({ queryKey: queryKeys.authors.detail(event.id) })
+        break
+      case 'loan':
+        queryClient.invalidateQueries({ queryKey: queryKeys.loans.all })
+        if (event.bookId != null) {
+          queryClient.invalidateQueries({ queryKey: queryKeys.books.detail(event.bookId) })
+        }
+        break
+      case 'photo':
+        queryClient.invalidateQueries({ queryKey: queryKeys.photos.all })
+        if (event.bookId != null) {
+          queryClient.invalidateQueries({ queryKey: queryKeys.books.photos(event.bookId) })
+          queryClient.invalidateQueries({ queryKey: queryKeys.books.detail(event.bookId) })
+        }
+        if (event.authorId != null) {
+          queryClient.invalidateQueries({ queryKey: queryKeys.authors.photos(event.authorId) })
+          queryClient.invalidateQueries({ queryKey: queryKeys.authors.detail(event.authorId) })
+        }
+        break
+    }
+  }
+}
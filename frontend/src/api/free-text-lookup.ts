@@ -1,6 +1,7 @@
 // (c) Copyright 2025 by Muczynski
 import { useMutation, useQueryClient } from '@tanstack/react-query'
 import { api } from './client'
+import { runJob } from './jobs'
 import { queryKeys } from '@/config/queryClient'
 
 export interface FreeTextLookupResultDto {
@@ -32,11 +33,19 @@ export function useLookupSingleFreeText() {
   })
 }
 
+const freeTextError = (bookId: number, errorMessage: string): FreeTextLookupResultDto => ({
+  bookId,
+  bookTitle: `Book ${bookId}`,
+  success: false,
+  errorMessage,
+  providersSearched: [],
+})
+
 /**
  * Lookup free online text URLs for multiple books with progress tracking.
- * Processes books sequentially to provide definite progress indicator.
+ * Runs as a background job, so leaving the page doesn't stop it.
  *
- * @param onProgress - callback function called after each book is processed
+ * @param onProgress - callback function called as the job's progress is polled
  */
 export function useLookupBulkFreeTextWithProgress(
   onProgress?: (completed: number, total: number) => void
@@ -44,34 +53,8 @@ export function useLookupBulkFreeTextWithProgress(
   const queryClient = useQueryClient()
 
   return useMutation({
-    mutationFn: async (bookIds: number[]) => {
-      const results: FreeTextLookupResultDto[] = []
-      const total = bookIds.length
-
-      for (let i = 0; i < bookIds.length; i++) {
-        const bookId = bookIds[i]
-        try {
-          const result = await api.post<FreeTextLookupResultDto>(
-            `/free-text/lookup/${bookId}`
-          )
-          results.push(result)
-          // Update the individual book cache
-          queryClient.invalidateQueries({ queryKey: queryKeys.books.detail(bookId) })
-        } catch (error) {
-          results.push({
-            bookId,
-            bookTitle: `Book ${bookId}`,
-            success: false,
-            errorMessage: error instanceof Error ? error.message : 'Unknown error',
-            providersSearched: [],
-          })
-        }
-        // Report progress after each book
-        onProgress?.(i + 1, total)
-      }
-
-      return results
-    },
+    mutationFn: (bookIds: number[]) =>
+      runJob('FREE_TEXT_LOOKUP', bookIds, freeTextError, onProgress),
     onSuccess: () => {
       // Invalidate all book queries to refresh the UI with new URLs
       queryClient.invalidateQueries({ queryKey: queryKeys.books.all })
@@ -83,14 +66,13 @@ export function useLookupBulkFreeTextWithProgress(
 /**
  * Lookup free online text URLs for multiple books (bulk).
  * Searches across multiple providers like Project Gutenberg, Internet Archive, etc.
- * This version processes all books in a single request without progress updates.
+ * Runs as a background job without progress updates.
  */
 export function useLookupBulkFreeText() {
   const queryClient = useQueryClient()
 
   return useMutation({
-    mutationFn: (bookIds: number[]) =>
-      api.post<FreeTextLookupResultDto[]>('/free-text/lookup-bulk', bookIds),
+    mutationFn: (bookIds: number[]) => runJob('FREE_TEXT_LOOKUP', bookIds, freeTextError),
     onSuccess: () => {
       // Invalidate all book queries to refresh the UI with new URLs
       queryClient.invalidateQueries({ queryKey: queryKeys.books.all })
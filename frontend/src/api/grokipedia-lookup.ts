@@ -1,6 +1,7 @@
 // (c) Copyright 2025 by Muczynski
 import { useMutation, useQueryClient } from '@tanstack/react-query'
 import { api } from './client'
+import { runJob } from './jobs'
 import { queryKeys } from '@/config/queryClient'
 
 export interface GrokipediaLookupResultDto {
@@ -29,13 +30,26 @@ export function useLookupSingleBookGrokipedia() {
   })
 }
 
-// Lookup Grokipedia URLs for multiple books (bulk)
+const bookError = (bookId: number, errorMessage: string): GrokipediaLookupResultDto => ({
+  bookId,
+  name: `Book ${bookId}`,
+  success: false,
+  errorMessage,
+})
+
+const authorError = (authorId: number, errorMessage: string): GrokipediaLookupResultDto => ({
+  authorId,
+  name: `Author ${authorId}`,
+  success: false,
+  errorMessage,
+})
+
+// Lookup Grokipedia URLs for multiple books (bulk), as a background job
 export function useLookupBulkBooksGrokipedia() {
   const queryClient = useQueryClient()
 
   return useMutation({
-    mutationFn: (bookIds: number[]) =>
-      api.post<GrokipediaLookupResultDto[]>('/books/grokipedia-lookup-bulk', bookIds),
+    mutationFn: (bookIds: number[]) => runJob('GROKIPEDIA_BOOKS', bookIds, bookError),
     onSuccess: () => {
       // Invalidate all book queries
       queryClient.invalidateQueries({ queryKey: queryKeys.books.all })
@@ -43,13 +57,12 @@ export function useLookupBulkBooksGrokipedia() {
   })
 }
 
-// Lookup Grokipedia URLs for multiple authors (bulk)
+// Lookup Grokipedia URLs for multiple authors (bulk), as a background job
 export function useLookupBulkAuthorsGrokipedia() {
   const queryClient = useQueryClient()
 
   return useMutation({
-    mutationFn: (authorIds: number[]) =>
-      api.post<GrokipediaLookupResultDto[]>('/authors/grokipedia-lookup-bulk', authorIds),
+    mutationFn: (authorIds: number[]) => runJob('GROKIPEDIA_AUTHORS', authorIds, authorError),
     onSuccess: () => {
       // Invalidate all author queries
       queryClient.invalidateQueries({ queryKey: queryKeys.authors.all })
@@ -0,0 +1,88 @@
+// (c) Copyright 2025 by Muczynski
+import { api } from './client'
+
+export type BackgroundJobType =
+  | 'LOC_LOOKUP'
+  | 'FREE_TEXT_LOOKUP'
+  | 'GROKIPEDIA_BOOKS'
+  | 'GROKIPEDIA_AUTHORS'
+  | 'GENRE_LOOKUP'
+  | 'PROCESS_SAVED_PHOTOS'
+
+export type BackgroundJobStatus = 'QUEUED' | 'RUNNING' | 'COMPLETED' | 'FAILED' | 'CANCELLED'
+
+export interface BackgroundJobItemDto {
+  itemOrder: number
+  targetId: number
+  status: 'PENDING' | 'SUCCEEDED' | 'FAILED' | 'CANCELLED'
+  attempts: number
+  result?: unknown
+  errorMessage?: string
+  changeSeq: number
+}
+
+export interface BackgroundJobDto {
+  id: number
+  type: BackgroundJobType
+  status: BackgroundJobStatus
+  total: number
+  succeeded: number
+  failed: number
+  cancelled: number
+  cancelRequested: boolean
+  errorMessage?: string
+  createdAt: string
+  startedAt?: string
+  finishedAt?: string
+  items: BackgroundJobItemDto[]
+}
+
+const POLL_INTERVAL_MS = 2000
+
+const isFinished = (status: BackgroundJobStatus) =>
+  status === 'COMPLETED' || status === 'FAILED' || status === 'CANCELLED'
+
+/**
+ * Start a background job and poll it until it finishes, collecting each item's result in order.
+ * Items without a result (failed or cancelled) are filled in by toError.
+ *
+ * @param ids - the items, or null for the job type's own targets
+ * @param onProgress - called after each poll with the processed and total item counts
+ */
+export async function runJob<T>(
+  type: BackgroundJobType,
+  ids: number[] | null,
+  toError: (targetId: number, message: string) => T,
+  onProgress?: (completed: number, total: number) => void
+): Promise<T[]> {
+  let job = await api.post<BackgroundJobDto>('/jobs', { type, ids })
+  const results: T[] = []
+  let after = -1
+
+  for (;;) {
+    for (const item of job.items) {
+      results[item.itemOrder] = item.result != null
+        ? (item.result as T)
+        : toError(item.targetId, item.errorMessage || (item.status === 'CANCELLED' ? 'Cancelled' : 'Unknown error'))
+      after = Math.max(after, item.changeSeq)
+    }
+    onProgress?.(job.succeeded + job.failed + job.cancelled, job.total)
+
+    if (isFinished(job.status)) {
+      if (job.status === 'FAILED') {
+        throw new Error(job.errorMessage || 'Background job failed')
+      }
+      return results.filter((result) => result !== undefined)
+    }
+    await new Promise((resolve) => setTimeout(resolve, POLL_INTERVAL_MS))
+    job = await api.get<BackgroundJobDto>(`/jobs/${job.id}?after=${after}`)
+  }
+}
+
+export async function cancelJob(id: number): Promise<BackgroundJobDto> {
+  return api.post<BackgroundJobDto>(`/jobs/${id}/cancel`)
+}
+
+export async function retryJob(id: number): Promise<BackgroundJobDto> {
+  return api.post<BackgroundJobDto>(`/jobs/${id}/retry`)
+}
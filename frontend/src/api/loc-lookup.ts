@@ -1,6 +1,7 @@
 // (c) Copyright 2025 by Muczynski
 import { useQuery, useMutation, useQueryClient } from '@tanstack/react-query'
 import { api } from './client'
+import { runJob } from './jobs'
 import { queryKeys } from '@/config/queryClient'
 
 export interface BookLocStatusDto {
@@ -48,13 +49,19 @@ export function useLookupSingleBook() {
   })
 }
 
-// Lookup LOC for multiple books (bulk)
+const locError = (bookId: number, errorMessage: string): LocLookupResultDto => ({
+  bookId,
+  success: false,
+  errorMessage,
+  matchCount: 0,
+})
+
+// Lookup LOC for multiple books (bulk), as a background job
 export function useLookupBulkBooks() {
   const queryClient = useQueryClient()
 
   return useMutation({
-    mutationFn: (bookIds: number[]) =>
-      api.post<LocLookupResultDto[]>('/loc-bulk-lookup/lookup-bulk', bookIds),
+    mutationFn: (bookIds: number[]) => runJob('LOC_LOOKUP', bookIds, locError),
     onSuccess: () => {
       // Invalidate all book queries
       queryClient.invalidateQueries({ queryKey: queryKeys.books.all })
@@ -63,12 +70,12 @@ export function useLookupBulkBooks() {
   })
 }
 
-// Lookup LOC for all books missing LOC numbers
+// Lookup LOC for all books missing LOC numbers, as a background job
 export function useLookupAllMissing() {
   const queryClient = useQueryClient()
 
   return useMutation({
-    mutationFn: () => api.post<LocLookupResultDto[]>('/loc-bulk-lookup/lookup-all-missing', {}),
+    mutationFn: () => runJob('LOC_LOOKUP', null, locError),
     onSuccess: () => {
       // Invalidate all book queries
       queryClient.invalidateQueries({ queryKey: queryKeys.books.all })
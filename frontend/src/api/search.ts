@@ -18,6 +18,16 @@ export interface SearchResponse {
     currentPage: number
     pageSize: number
   }
+  facets?: SearchFacets
+}
+
+// How many of the current matches each filter chip / label would keep
+export interface SearchFacets {
+  inLibrary: number
+  electronic: number
+  freeText: number
+  audio: number
+  labels: { label: string; count: number }[]
 }
 
 export interface SearchFilters {
@@ -54,10 +64,31 @@ export function useSearch(
     queryKey: ['search', query, page, size, filters, selectedLabels ?? []],
     queryFn: () =>
       api.get<SearchResponse>(
-        `/search?query=${encodeURIComponent(query)}&page=${page}&size=${size}${filterParams}${labelsParam}`,
+        `/search?query=${encodeURIComponent(query)}&page=${page}&size=${size}${filterParams}${labelsParam}&facets=true`,
         { requireAuth: false },
       ),
     enabled,
     staleTime: 1000 * 60 * 5, // 5 minutes
   })
 }
+
+export interface SearchSuggestion {
+  text: string
+  type: 'title' | 'author' | 'label'
+  weight: number
+}
+
+// Typeahead completions from the in-memory index (empty while the index is warming up)
+export function useSearchSuggestions(prefix: string, limit = 8) {
+  const trimmed = prefix.trim()
+  return useQuery({
+    queryKey: ['search-suggest', trimmed, limit],
+    queryFn: () =>
+      api.get<SearchSuggestion[]>(
+        `/search/suggest?prefix=${encodeURIComponent(trimmed)}&limit=${limit}`,
+        { requireAuth: false },
+      ),
+    enabled: trimmed.length > 0,
+    staleTime: 1000 * 60, // 1 minute
+  })
+}
@@ -1,8 +1,11 @@
 // (c) Copyright 2025 by Muczynski
 import { Outlet } from 'react-router-dom'
 import { Navigation } from './Navigation'
+import { useCatalogEvents } from '@/api/events'
 
 export function AppLayout() {
+  useCatalogEvents()
+
   return (
     <div className="min-h-screen bg-gray-50">
       <Navigation />
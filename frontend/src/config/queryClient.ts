@@ -26,6 +26,8 @@ export const queryKeys = {
     byIds: (ids: number[], filter?: string) => [...queryKeys.books.all, 'byIds', ids.join(','), filter] as const,
     list: (filter?: string) => [...queryKeys.books.all, 'list', filter] as const,
     detail: (id: number) => [...queryKeys.books.all, 'detail', id] as const,
+    // Book with plot summary, related works and description (list DTOs in detail() omit them)
+    full: (id: number) => [...queryKeys.books.detail(id), 'full'] as const,
     photos: (id: number) => [...queryKeys.books.all, id, 'photos'] as const,
   },
   authors: {
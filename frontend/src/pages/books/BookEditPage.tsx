@@ -8,7 +8,7 @@ export function BookEditPage() {
   const navigate = useNavigate()
   const { id } = useParams<{ id: string }>()
   const bookId = id ? parseInt(id, 10) : 0
-  const { data: book, isLoading } = useBook(bookId)
+  const { data: book, isLoading, isPlaceholderData } = useBook(bookId)
 
   const handleSuccess = () => {
     navigate(`/books/${bookId}`)
@@ -18,7 +18,8 @@ export function BookEditPage() {
     navigate(`/books/${bookId}`)
   }
 
-  if (isLoading) {
+  // The list copy shown as placeholder lacks the long-form text; editing it would blank that text
+  if (isLoading || isPlaceholderData) {
     return (
       <div className="flex justify-center items-center min-h-[400px]">
         <Spinner size="lg" />
@@ -32,9 +32,11 @@ interface BookLabelFiltersProps {
   selectedLabels: string[]
   onToggleLabel: (label: string) => void
   onClearLabels: () => void
+  // Optional facet counts (label -> matching books); labels missing from the map show 0
+  counts?: Record<string, number>
 }
 
-export function BookLabelFilters({ selectedLabels, onToggleLabel, onClearLabels }: BookLabelFiltersProps) {
+export function BookLabelFilters({ selectedLabels, onToggleLabel, onClearLabels, counts }: BookLabelFiltersProps) {
   return (
     <div className="flex flex-wrap items-center gap-1.5 mt-3" data-test="book-label-filters">
       <span className="text-sm font-medium text-gray-700 mr-1 shrink-0">Genres:</span>
@@ -55,6 +57,7 @@ export function BookLabelFilters({ selectedLabels, onToggleLabel, onClearLabels
             aria-pressed={isSelected}
           >
             {label}
+            {counts && <span className="ml-1 opacity-70">{counts[label] ?? 0}</span>}
           </button>
         )
       })}
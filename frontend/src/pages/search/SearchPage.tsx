@@ -5,7 +5,7 @@ import { Input } from '@/components/ui/Input'
 import { Button } from '@/components/ui/Button'
 import { Spinner } from '@/components/progress/Spinner'
 import { ConfirmDialog } from '@/components/ui/ConfirmDialog'
-import { useSearch, type SearchFilters } from '@/api/search'
+import { useSearch, useSearchSuggestions, type SearchFilters } from '@/api/search'
 import { BookLabelFilters } from '@/pages/books/components/BookLabelFilters'
 import { LocLookupResultsModal } from '@/pages/books/components/LocLookupResultsModal'
 import { formatBookStatus, parseSpaceSeparatedUrls, extractDomain, isValidUrl } from '@/utils/formatters'
@@ -25,9 +25,10 @@ interface FilterChipProps {
   onClick: () => void
   tooltip: string
   dataTest: string
+  count?: number
 }
 
-function FilterChip({ label, active, onClick, tooltip, dataTest }: FilterChipProps) {
+function FilterChip({ label, active, onClick, tooltip, dataTest, count }: FilterChipProps) {
   return (
     <button
       type="button"
@@ -48,6 +49,11 @@ function FilterChip({ label, active, onClick, tooltip, dataTest }: FilterChipPro
         <PiFunnel className="hidden sm:block w-3.5 h-3.5 text-gray-400 shrink-0" />
       )}
       {label}
+      {count !== undefined && (
+        <span className="text-xs text-gray-500 shrink-0" data-test={`${dataTest}-count`}>
+          {count}
+        </span>
+      )}
       <span className="hidden sm:inline text-gray-400 text-xs shrink-0" aria-hidden="true">ⓘ</span>
     </button>
   )
@@ -95,6 +101,13 @@ export function SearchPage() {
     selectedLabels,
   )
   const isLibrarian = useIsLibrarian()
+  const { data: suggestions } = useSearchSuggestions(inputValue)
+
+  // Facet counts for the chips, so users can see what a chip would leave before clicking it
+  const facets = data?.facets
+  const labelCounts = facets
+    ? Object.fromEntries(facets.labels.map((f) => [f.label, f.count]))
+    : undefined
 
   // ── Helpers for building URL params ──────────────────────────────────────
 
@@ -170,7 +183,14 @@ export function SearchPage() {
               placeholder="Enter book title or author name..."
               data-test="search-input"
               className="text-lg"
+              list="search-suggestions"
+              autoComplete="off"
             />
+            <datalist id="search-suggestions" data-test="search-suggestions">
+              {suggestions?.map((s) => (
+                <option key={`${s.type}:${s.text}`} value={s.text} />
+              ))}
+            </datalist>
           </div>
           <Button
             type="submit"
@@ -203,6 +223,7 @@ export function SearchPage() {
             onClick={() => handleFilterToggle('inLib')}
             tooltip="Limit results to books with a Library of Congress call number — books physically in the collection"
             dataTest="filter-in-library"
+            count={facets?.inLibrary}
           />
           <FilterChip
             label="Electronic resource"
@@ -210,6 +231,7 @@ export function SearchPage() {
             onClick={() => handleFilterToggle('elec')}
             tooltip="Limit results to books marked as electronic resources"
             dataTest="filter-electronic"
+            count={facets?.electronic}
           />
           <FilterChip
             label="Has free online text"
@@ -217,6 +239,7 @@ export function SearchPage() {
             onClick={() => handleFilterToggle('freeText')}
             tooltip="Limit results to books that have a free online text URL (e.g., Project Gutenberg, Internet Archive)"
             dataTest="filter-free-text"
+            count={facets?.freeText}
           />
           <FilterChip
             label="Has free online audio"
@@ -224,6 +247,7 @@ export function SearchPage() {
             onClick={() => handleFilterToggle('audio')}
             tooltip="Limit results to books with a free LibriVox audio recording"
             dataTest="filter-audio"
+            count={facets?.audio}
           />
         </div>
 
@@ -232,6 +256,7 @@ export function SearchPage() {
           selectedLabels={selectedLabels}
           onToggleLabel={handleToggleLabel}
           onClearLabels={handleClearLabels}
+          counts={labelCounts}
         />
       </form>
 
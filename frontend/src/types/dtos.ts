@@ -31,6 +31,25 @@ export interface SummaryDto {
   lastModified: string
 }
 
+// GET /api/{books|authors}/changes?since=<token>
+export interface ChangesDto<S extends SummaryDto> {
+  token: number
+  upserted: S[]
+  deleted: number[]
+  hasMore: boolean
+  resync: boolean
+}
+
+// "change" event data on GET /api/events
+export interface CatalogEventDto {
+  type: 'book' | 'author' | 'loan' | 'photo'
+  id: number
+  lastModified: string | null
+  deleted: boolean
+  bookId: number | null
+  authorId: number | null
+}
+
 // Library DTOs
 export interface BranchDto {
   id: number
@@ -6,59 +6,81 @@ package com.muczynski.library.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.muczynski.library.freetext.ProviderRateLimitInterceptor;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Collections;
-
 @Configuration
 public class AppConfig {
 
+    @Value("${app.http.read-timeout-ms:60000}")
+    private long readTimeoutMs;
+
+    @Value("${app.http.provider.read-timeout-ms:10000}")
+    private long providerReadTimeoutMs;
+
+    @Value("${app.http.grok.read-timeout-ms:600000}")
+    private long grokReadTimeoutMs;
+
+    @Value("${app.http.google.read-timeout-ms:60000}")
+    private long googleReadTimeoutMs;
+
+    /**
+     * RestTemplate for author images and other general requests.
+     * Not cached: its image downloads would fill the cache directory.
+     */
     @Bean
     @Primary
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(60000); // 60 seconds
-        factory.setReadTimeout(60000); // 60 seconds
-        restTemplate.setRequestFactory(factory);
-
-        // Add User-Agent header for all requests to comply with sites like Wikimedia
-        ClientHttpRequestInterceptor interceptor = (request, body, execution) -> {
-            request.getHeaders().set("User-Agent", "library.muczynskifamily.com");
-            return execution.execute(request, body);
-        };
-        restTemplate.setInterceptors(Collections.singletonList(interceptor));
-
-        return restTemplate;
+    public RestTemplate restTemplate(OutboundHttpClient outboundHttpClient) {
+        return outboundHttpClient.restTemplate(Duration.ofMillis(readTimeoutMs));
+    }
+
+    /**
+     * RestTemplate for the Grokipedia page checks and the LOC call number SRU searches.
+     * Their GET and HEAD answers are small and kept in the HTTP response cache.
+     */
+    @Bean("lookupRestTemplate")
+    public RestTemplate lookupRestTemplate(OutboundHttpClient outboundHttpClient,
+                                           HttpResponseCache httpResponseCache) {
+        return outboundHttpClient.restTemplate(Duration.ofMillis(readTimeoutMs), httpResponseCache);
     }
 
     /**
      * RestTemplate for free text providers with shorter timeouts.
      * Uses 10-second read timeout to fail fast on slow/unresponsive sites.
+     * Requests made during a lookup are held to the provider's rate limit,
+     * and GET and HEAD answers are kept in the HTTP response cache.
      */
     @Bean("providerRestTemplate")
-    public RestTemplate providerRestTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(10000); // 10 seconds
-        factory.setReadTimeout(10000); // 10 seconds
-        restTemplate.setRequestFactory(factory);
-
-        // Add User-Agent header for all requests
-        ClientHttpRequestInterceptor interceptor = (request, body, execution) -> {
-            request.getHeaders().set("User-Agent", "library.muczynskifamily.com");
-            return execution.execute(request, body);
-        };
-        restTemplate.setInterceptors(Collections.singletonList(interceptor));
-
-        return restTemplate;
+    public RestTemplate providerRestTemplate(OutboundHttpClient outboundHttpClient,
+                                             HttpResponseCache httpResponseCache,
+                                             ProviderRateLimitInterceptor rateLimitInterceptor) {
+        // Cached answers skip the rate limit. The rate limit goes after the headers:
+        // it may send the request again after a 429
+        return outboundHttpClient.restTemplate(Duration.ofMillis(providerReadTimeoutMs),
+                httpResponseCache, rateLimitInterceptor);
+    }
+
+    /**
+     * RestTemplate for the xAI API. Vision and genre requests can take minutes to answer.
+     */
+    @Bean("grokRestTemplate")
+    public RestTemplate grokRestTemplate(OutboundHttpClient outboundHttpClient) {
+        return outboundHttpClient.restTemplate(Duration.ofMillis(grokReadTimeoutMs));
+    }
+
+    /**
+     * RestTemplate for Google OAuth and the Google Photos APIs.
+     */
+    @Bean("googleRestTemplate")
+    public RestTemplate googleRestTemplate(OutboundHttpClient outboundHttpClient) {
+        return outboundHttpClient.restTemplate(Duration.ofMillis(googleReadTimeoutMs));
     }
 
     /**
@@ -5,15 +5,18 @@ package com.muczynski.library.config;
 
 import com.muczynski.library.repository.BookRepository;
 import com.muczynski.library.repository.UserRepository;
+import com.muczynski.library.util.CallNumberSortKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -28,6 +31,7 @@ public class DatabaseMigration {
 
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     @Value("${app.migration.backfill-user-identifiers:false}")
     private boolean backfillUserIdentifiers;
@@ -35,6 +39,21 @@ public class DatabaseMigration {
     @Value("${app.migration.backfill-book-last-modified:false}")
     private boolean backfillBookLastModified;
 
+    @Value("${app.migration.move-book-text-to-detail:true}")
+    private boolean moveBookTextToDetail;
+
+    @Value("${app.migration.drop-legacy-book-text-columns:false}")
+    private boolean dropLegacyBookTextColumns;
+
+    @Value("${app.migration.create-filter-indexes:true}")
+    private boolean createFilterIndexes;
+
+    @Value("${app.migration.normalize-blank-filter-fields:true}")
+    private boolean normalizeBlankFilterFields;
+
+    @Value("${app.migration.backfill-call-number-sort-key:true}")
+    private boolean backfillCallNumberSortKey;
+
     /**
      * Generate UUIDs for existing users that don't have a userIdentifier.
      * Enable with app.migration.backfill-user-identifiers=true
@@ -85,4 +104,180 @@ public class DatabaseMigration {
             log.info("No books needed lastModified backfill");
         }
     }
+
+    /**
+     * Copy plotSummary, relatedWorks and detailedDescription from the book table into
+     * book_detail (see {@link com.muczynski.library.domain.BookDetail}). Hibernate's
+     * ddl-auto=update creates the new table and book.detail_id but never drops columns, so the
+     * old columns are left in place: the previous build can still be rolled back to, and the
+     * copy can be checked before they go.
+     * <p>
+     * On by default: the check is a single information_schema lookup, and the copy only touches
+     * books with legacy text and no detail row, so it runs once. Disable with
+     * app.migration.move-book-text-to-detail=false
+     * <p>
+     * Dropping the old columns is a separate, irreversible step for a later release. Enable with
+     * app.migration.drop-legacy-book-text-columns=true once the copy has been verified; it refuses
+     * while any book still has legacy text without a detail row.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void migrateBookTextToDetail() {
+        if (!moveBookTextToDetail) {
+            log.debug("Skipping book text migration (app.migration.move-book-text-to-detail=false)");
+            return;
+        }
+        List<String> legacyTypes = jdbcTemplate.queryForList(
+                "SELECT data_type FROM information_schema.columns WHERE table_schema = current_schema() " +
+                "AND table_name = 'book' AND column_name IN ('plot_summary', 'related_works', 'detailed_description')",
+                String.class);
+        if (legacyTypes.size() != 3) {
+            log.debug("No legacy book text columns to migrate");
+            return;
+        }
+        // Hibernate 6 stored @Lob strings as large objects (oid columns); book_detail uses text
+        boolean largeObjects = legacyTypes.contains("oid");
+        String[] columns = {"plot_summary", "related_works", "detailed_description"};
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = largeObjects ? "convert_from(lo_get(" + columns[i] + "), 'UTF8')" : columns[i];
+        }
+        String hasText = "detail_id IS NULL AND (plot_summary IS NOT NULL OR related_works IS NOT NULL " +
+                "OR detailed_description IS NOT NULL)";
+        // Detail rows reuse the book's id, which makes linking them a plain UPDATE
+        int copied = jdbcTemplate.update(
+                "INSERT INTO book_detail (id, plot_summary, related_works, detailed_description) " +
+                "SELECT id, " + String.join(", ", values) + " FROM book WHERE " + hasText);
+        if (copied > 0) {
+            jdbcTemplate.update("UPDATE book SET detail_id = id WHERE " + hasText);
+            jdbcTemplate.execute("SELECT setval(pg_get_serial_sequence('book_detail', 'id'), " +
+                    "COALESCE((SELECT MAX(id) FROM book_detail), 0) + 1, false)");
+            log.info("Migration complete: Copied text for {} books into book_detail; " +
+                    "the old book columns are kept", copied);
+        }
+
+        if (!dropLegacyBookTextColumns) {
+            return;
+        }
+        Integer uncopied = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book WHERE " + hasText, Integer.class);
+        if (uncopied != null && uncopied > 0) {
+            log.warn("Not dropping legacy book text columns: {} books have text without a book_detail row", uncopied);
+            return;
+        }
+        if (largeObjects) {
+            for (String column : columns) {
+                jdbcTemplate.execute("SELECT lo_unlink(" + column + ") FROM book WHERE " + column + " IS NOT NULL");
+            }
+        }
+        jdbcTemplate.execute("ALTER TABLE book DROP COLUMN plot_summary, DROP COLUMN related_works, " +
+                "DROP COLUMN detailed_description");
+        log.info("Dropped legacy book text columns");
+    }
+
+    /**
+     * Indexes behind the book and author filter endpoints. Hibernate can't declare partial or
+     * covering indexes, so they are created here. Each partial index repeats its query's
+     * predicate exactly (PostgreSQL only uses a partial index whose WHERE clause the query
+     * implies) and covers (id, last_modified), so the summaries queries are index-only scans
+     * that grow with the number of matching rows rather than with the table.
+     * <p>
+     * On by default: IF NOT EXISTS makes every startup after the first a catalog lookup.
+     * Disable with app.migration.create-filter-indexes=false
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createFilterIndexes() {
+        if (!createFilterIndexes) {
+            log.debug("Skipping filter indexes (app.migration.create-filter-indexes=false)");
+            return;
+        }
+        String[] indexes = {
+                // Most recent day, and the MAX() that finds it
+                "idx_book_date_added ON book (date_added_to_library) INCLUDE (id, last_modified)",
+                "idx_book_temporary_title ON book (id) INCLUDE (last_modified) WHERE temporary_title",
+                "idx_book_three_letter_loc ON book (id) INCLUDE (last_modified) WHERE three_letter_loc_class IS NOT NULL",
+                "idx_book_without_loc ON book (id) INCLUDE (last_modified) WHERE loc_number IS NULL OR loc_number = ''",
+                "idx_book_without_grokipedia ON book (id) INCLUDE (last_modified) " +
+                        "WHERE grokipedia_url IS NULL OR grokipedia_url = ''",
+                // Authors with zero books, and book counts
+                "idx_book_author_id ON book (author_id)",
+                // Shelf order, keyset pages and call number ranges
+                "idx_book_call_number_sort_key ON book (call_number_sort_key, id) INCLUDE (last_modified)",
+                "idx_author_without_description ON author (id) INCLUDE (last_modified) WHERE brief_biography IS NULL",
+                "idx_author_without_grokipedia ON author (id) INCLUDE (last_modified) " +
+                        "WHERE grokipedia_url IS NULL OR grokipedia_url = ''"
+        };
+        for (String index : indexes) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + index);
+        }
+        log.debug("Filter indexes in place");
+    }
+
+    /**
+     * Set blank LOC numbers, Grokipedia URLs and author biographies to null. The entities
+     * store null for blanks on every write; this catches rows written before they did, so
+     * the "without" filters, which test for null, find them. AuthorRepository's "without
+     * description" query tests for null only (its partial index needs the plain predicate), so
+     * an author with an old blank biography is missing from that filter until this has run.
+     * <p>
+     * On by default: each startup is one pass over the book and author tables, and once the
+     * old blanks are gone it changes nothing. Disable with app.migration.normalize-blank-filter-fields=false
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void migrateBlankFilterFields() {
+        if (!normalizeBlankFilterFields) {
+            log.debug("Skipping blank filter field migration (app.migration.normalize-blank-filter-fields=false)");
+            return;
+        }
+        int books = jdbcTemplate.update("UPDATE book SET " +
+                "loc_number = CASE WHEN btrim(loc_number) = '' THEN NULL ELSE loc_number END, " +
+                "grokipedia_url = CASE WHEN btrim(grokipedia_url) = '' THEN NULL ELSE grokipedia_url END " +
+                "WHERE btrim(loc_number) = '' OR btrim(grokipedia_url) = ''");
+        int authors = jdbcTemplate.update("UPDATE author SET grokipedia_url = NULL WHERE btrim(grokipedia_url) = ''");
+        String biographyType = jdbcTemplate.queryForObject(
+                "SELECT data_type FROM information_schema.columns WHERE table_schema = current_schema() " +
+                "AND table_name = 'author' AND column_name = 'brief_biography'", String.class);
+        int biographies;
+        if ("oid".equals(biographyType)) {
+            // Hibernate 6 stores @Lob strings as large objects; unlink the blank ones before dropping the reference
+            String blank = "brief_biography IS NOT NULL AND btrim(convert_from(lo_get(brief_biography), 'UTF8')) = ''";
+            jdbcTemplate.execute("SELECT lo_unlink(brief_biography) FROM author WHERE " + blank);
+            biographies = jdbcTemplate.update("UPDATE author SET brief_biography = NULL WHERE brief_biography IS NOT NULL " +
+                    "AND NOT EXISTS (SELECT 1 FROM pg_largeobject_metadata m WHERE m.oid = brief_biography)");
+        } else {
+            biographies = jdbcTemplate.update("UPDATE author SET brief_biography = NULL WHERE btrim(brief_biography) = ''");
+        }
+        if (books + authors + biographies > 0) {
+            log.info("Migration complete: Normalized {} books, {} author URLs and {} author biographies",
+                    books, authors, biographies);
+        }
+    }
+
+    /**
+     * Fill in Book.callNumberSortKey for books whose LOC number was written without going
+     * through the entity (before the column existed, or by SQL). Books saved through JPA get
+     * the key in @PrePersist/@PreUpdate.
+     * <p>
+     * On by default: once every key is filled in it finds no rows.
+     * Disable with app.migration.backfill-call-number-sort-key=false
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void migrateCallNumberSortKeys() {
+        if (!backfillCallNumberSortKey) {
+            log.debug("Skipping call number sort key backfill (app.migration.backfill-call-number-sort-key=false)");
+            return;
+        }
+        List<Object[]> updates = jdbcTemplate.query(
+                "SELECT id, loc_number FROM book WHERE call_number_sort_key IS NULL AND loc_number IS NOT NULL",
+                (rs, rowNum) -> new Object[]{CallNumberSortKey.of(rs.getString("loc_number")), rs.getLong("id")});
+        updates.removeIf(update -> update[0] == null);
+        if (updates.isEmpty()) {
+            log.debug("No call number sort keys to backfill");
+            return;
+        }
+        log.info("Backfilling call number sort keys for {} books...", updates.size());
+        jdbcTemplate.batchUpdate("UPDATE book SET call_number_sort_key = ? WHERE id = ?", updates);
+        log.info("Migration complete: Backfilled call number sort keys for {} books", updates.size());
+    }
 }
@@ -0,0 +1,574 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.config;
+
+import com.muczynski.library.dto.HttpCacheStatsDto;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of GET and HEAD responses, so repeated lookups of a title don't ask gutendex,
+ * archive.org or the LOC SRU server again. It sits on two RestTemplates: providerRestTemplate,
+ * for the free text provider searches, and lookupRestTemplate, for the Grokipedia page checks and
+ * the LOC call number searches. Image downloads and the Grok and Google calls don't go through
+ * it. Requests with credentials and other methods pass through. Modes ({@code app.http.cache.mode}):
+ * <ul>
+ *   <li>{@code off} - every request goes to the network;</li>
+ *   <li>{@code cache} - a fresh entry answers the request. Freshness follows Cache-Control
+ *       {@code max-age}/{@code no-cache}/{@code no-store} and Expires, and without them the
+ *       host's TTL from {@code app.http.cache.host-ttl-seconds} or
+ *       {@code app.http.cache.default-ttl-seconds}. A stale entry with an ETag or Last-Modified
+ *       is revalidated with a conditional request, and a 304 answer serves the stored body.
+ *       Once the directory passes {@code app.http.cache.max-bytes} the oldest entries go;</li>
+ *   <li>{@code record} - every request goes to the network and every answer is stored,
+ *       whatever its headers, to build fixtures;</li>
+ *   <li>{@code replay} - answers come only from the directory, fresh or not; a request with no
+ *       entry fails with an I/O error and nothing is sent.</li>
+ * </ul>
+ * Each entry is one file, {@code <host>/<method>-<hash>.http}: the normalized request line, the
+ * status, the stored and expiry times and the response headers, a blank line, then the body.
+ * Requests are normalized by lowercasing the scheme and host, dropping a default port and
+ * sorting the query parameters by name.
+ * <p>
+ * Goes before {@code ProviderRateLimitInterceptor} and {@link OutboundHttpInterceptor}, so an
+ * answer from the cache costs no rate limit token and no host slot.
+ */
+@Component
+@Slf4j
+public class HttpResponseCache implements ClientHttpRequestInterceptor {
+
+    public enum Mode { OFF, CACHE, RECORD, REPLAY }
+
+    private static final Set<Integer> CACHEABLE_STATUSES = Set.of(200, 203, 204, 300, 301, 308, 404, 410);
+    private static final Set<String> UNSTORED_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "set-cookie", "content-length");
+    private static final List<String> REVALIDATED_HEADERS = List.of(HttpHeaders.CACHE_CONTROL, HttpHeaders.DATE,
+            HttpHeaders.ETAG, HttpHeaders.EXPIRES, HttpHeaders.LAST_MODIFIED);
+    private static final String STORED = "X-Cache-Stored";
+    private static final String EXPIRES = "X-Cache-Expires";
+    private static final String SUFFIX = ".http";
+
+    @Value("${app.http.cache.mode:off}")
+    private String modeName;
+
+    @Value("${app.http.cache.dir:${java.io.tmpdir}/library-http-cache}")
+    private String dirName;
+
+    @Value("${app.http.cache.default-ttl-seconds:86400}")
+    private long defaultTtlSeconds;
+
+    @Value("${app.http.cache.host-ttl-seconds:}")
+    private String hostTtls;
+
+    @Value("${app.http.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${app.http.cache.max-entry-bytes:2097152}")
+    private int maxEntryBytes;
+
+    private Mode mode = Mode.OFF;
+    private Path dir;
+    private final Map<String, Long> hostTtlSeconds = new HashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        mode = modeName == null || modeName.isBlank()
+                ? Mode.OFF : Mode.valueOf(modeName.trim().toUpperCase(Locale.ROOT));
+        hostTtlSeconds.clear();
+        if (hostTtls != null && !hostTtls.isBlank()) {
+            for (String hostTtl : hostTtls.split(",")) {
+                int colon = hostTtl.lastIndexOf(':');
+                hostTtlSeconds.put(hostTtl.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                        Long.parseLong(hostTtl.substring(colon + 1).trim()));
+            }
+        }
+        if (mode != Mode.OFF) {
+            dir = Paths.get(dirName);
+            totalBytes.set(storedFiles().stream().mapToLong(StoredFile::size).sum());
+            log.info("HTTP response cache in {} mode at {} ({} bytes)", mode, dir, totalBytes.get());
+        }
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (mode == Mode.OFF) {
+            return execution.execute(request, body);
+        }
+        URI uri = request.getURI();
+        if (!isCacheable(request)) {
+            if (mode == Mode.REPLAY) {
+                throw new IOException("Replay mode: cannot replay " + request.getMethod() + " " + uri);
+            }
+            return execution.execute(request, body);
+        }
+        String key = key(request.getMethod(), uri);
+        Path file = fileFor(request.getMethod(), uri, key);
+        Instant now = Instant.now();
+        Entry entry = mode == Mode.RECORD ? null : load(file, key);
+
+        if (mode == Mode.REPLAY) {
+            if (entry == null) {
+                misses.increment();
+                throw new IOException("No recorded response for " + key);
+            }
+            hits.increment();
+            return entry.toResponse();
+        }
+        if (entry != null && now.isBefore(entry.expiresAt())) {
+            hits.increment();
+            return entry.toResponse();
+        }
+        misses.increment();
+        if (entry != null) {
+            addValidators(request.getHeaders(), entry.headers());
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+        if (entry != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            Entry refreshed = revalidated(entry, response.getHeaders(), uri, now);
+            response.close();
+            write(file, refreshed);
+            revalidated.increment();
+            return refreshed.toResponse();
+        }
+        return store(file, key, uri, response, now);
+    }
+
+    public HttpCacheStatsDto getStats() {
+        return new HttpCacheStatsDto(mode.name().toLowerCase(Locale.ROOT), totalBytes.get(),
+                hits.sum(), misses.sum(), revalidated.sum(), stored.sum());
+    }
+
+    private static boolean isCacheable(HttpRequest request) {
+        HttpMethod method = request.getMethod();
+        return (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method))
+                && request.getURI().getHost() != null
+                && !request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION);
+    }
+
+    /**
+     * The normalized request, e.g. {@code GET https://gutendex.com/books/?search=orthodoxy%20Chesterton}.
+     */
+    static String key(HttpMethod method, URI uri) {
+        StringBuilder key = new StringBuilder(method.name()).append(' ')
+                .append(uri.getScheme().toLowerCase(Locale.ROOT)).append("://")
+                .append(authority(uri));
+        String path = uri.getRawPath();
+        key.append(path == null || path.isEmpty() ? "/" : path);
+        String query = uri.getRawQuery();
+        if (query != null && !query.isEmpty()) {
+            // A stable sort, so repeated parameters keep their order
+            String[] params = Arrays.stream(query.split("&")).filter(param -> !param.isEmpty())
+                    .sorted(Comparator.comparing(HttpResponseCache::paramName))
+                    .toArray(String[]::new);
+            key.append('?').append(String.join("&", params));
+        }
+        return key.toString();
+    }
+
+    private static String paramName(String param) {
+        int equals = param.indexOf('=');
+        return equals < 0 ? param : param.substring(0, equals);
+    }
+
+    private static String authority(URI uri) {
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        boolean defaultPort = port == -1
+                || (port == 80 && "http".equalsIgnoreCase(uri.getScheme()))
+                || (port == 443 && "https".equalsIgnoreCase(uri.getScheme()));
+        return defaultPort ? host : host + ":" + port;
+    }
+
+    private Path fileFor(HttpMethod method, URI uri, String key) {
+        return dir.resolve(authority(uri).replace(':', '_'))
+                .resolve(method.name().toLowerCase(Locale.ROOT) + "-" + sha256(key).substring(0, 32) + SUFFIX);
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void addValidators(HttpHeaders request, HttpHeaders stored) {
+        String etag = stored.getETag();
+        if (etag != null && !request.containsKey(HttpHeaders.IF_NONE_MATCH)) {
+            request.set(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        String lastModified = stored.getFirst(HttpHeaders.LAST_MODIFIED);
+        if (lastModified != null && !request.containsKey(HttpHeaders.IF_MODIFIED_SINCE)) {
+            request.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+    }
+
+    private static boolean hasValidators(HttpHeaders headers) {
+        return headers.getETag() != null || headers.getFirst(HttpHeaders.LAST_MODIFIED) != null;
+    }
+
+    /**
+     * When a response received now stops being fresh, or null when it must not be stored.
+     */
+    private Instant expiresAt(HttpHeaders headers, URI uri, Instant now) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            Long maxAge = null;
+            for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                directive = directive.trim();
+                if (directive.equals("no-store")) {
+                    return null;
+                } else if (directive.equals("no-cache")) {
+                    maxAge = 0L;
+                } else if (directive.startsWith("max-age=") && maxAge == null) {
+                    try {
+                        maxAge = Long.parseLong(directive.substring("max-age=".length()).replace("\"", ""));
+                    } catch (NumberFormatException ignored) {
+                        maxAge = 0L;
+                    }
+                }
+            }
+            if (maxAge != null) {
+                return now.plusSeconds(Math.max(0, maxAge));
+            }
+        }
+        long expires = headers.getExpires();
+        if (expires != -1) {
+            long date = -1;
+            try {
+                date = headers.getDate();
+            } catch (IllegalArgumentException ignored) {
+                // Measure from now instead
+            }
+            long lifetime = expires - (date != -1 ? date : now.toEpochMilli());
+            return now.plusMillis(Math.max(0, lifetime));
+        }
+        return now.plusSeconds(hostTtlSeconds.getOrDefault(uri.getHost().toLowerCase(Locale.ROOT), defaultTtlSeconds));
+    }
+
+    /**
+     * The entry after a 304 answer: its validators and freshness headers replaced by the
+     * answer's, and its freshness counted again from now.
+     */
+    private Entry revalidated(Entry entry, HttpHeaders answer, URI uri, Instant now) {
+        HttpHeaders updated = new HttpHeaders();
+        updated.putAll(entry.headers());
+        for (String name : REVALIDATED_HEADERS) {
+            List<String> values = answer.get(name);
+            if (values != null) {
+                updated.put(name, new ArrayList<>(values));
+            }
+        }
+        Instant expiresAt = expiresAt(updated, uri, now);
+        return new Entry(entry.key(), entry.status(), updated, now, expiresAt != null ? expiresAt : now, entry.body());
+    }
+
+    private ClientHttpResponse store(Path file, String key, URI uri, ClientHttpResponse response, Instant now)
+            throws IOException {
+        int status = response.getStatusCode().value();
+        HttpHeaders headers = response.getHeaders();
+        Instant expiresAt = expiresAt(headers, uri, now);
+        if (mode == Mode.RECORD && expiresAt == null) {
+            expiresAt = now;
+        }
+        boolean keep = CACHEABLE_STATUSES.contains(status) && expiresAt != null
+                && (mode == Mode.RECORD || expiresAt.isAfter(now) || hasValidators(headers));
+        if (!keep || headers.getContentLength() > maxEntryBytes) {
+            return response;
+        }
+        byte[] bytes;
+        try {
+            InputStream body = response.getBody();
+            bytes = body.readNBytes(maxEntryBytes + 1);
+            if (bytes.length > maxEntryBytes) {
+                // Too big to keep: give the caller what was read and the rest
+                return new StoredResponse(response.getStatusCode(), headers,
+                        new SequenceInputStream(new ByteArrayInputStream(bytes), body), response);
+            }
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+        response.close();
+        Entry entry = new Entry(key, status, storedHeaders(headers), now, expiresAt, bytes);
+        write(file, entry);
+        stored.increment();
+        return entry.toResponse();
+    }
+
+    private static HttpHeaders storedHeaders(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (!name.startsWith(":") && !UNSTORED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                copy.put(name, new ArrayList<>(values));
+            }
+        });
+        return copy;
+    }
+
+    private Entry load(Path file, String key) {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Could not read HTTP cache entry {}: {}", file, e.getMessage());
+            return null;
+        }
+        try {
+            return Entry.parse(data, key);
+        } catch (RuntimeException e) {
+            log.warn("Ignoring unreadable HTTP cache entry {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(Path file, Entry entry) {
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), "entry", ".tmp");
+            byte[] data = entry.toBytes();
+            Files.write(temp, data);
+            // A revalidated or re-fetched entry replaces the old file, whose size no longer counts
+            long previous = Files.exists(file) ? Files.size(file) : 0;
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (totalBytes.addAndGet(data.length - previous) > maxBytes && mode == Mode.CACHE) {
+                evict();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write HTTP cache entry {}: {}", file, e.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Left for the next eviction
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the oldest entries until the cache is back to 90% of its size limit.
+     */
+    private synchronized void evict() {
+        List<StoredFile> files = new ArrayList<>(storedFiles());
+        long total = files.stream().mapToLong(StoredFile::size).sum();
+        if (total <= maxBytes) {
+            totalBytes.set(total);
+            return;
+        }
+        files.sort(Comparator.comparingLong(StoredFile::modified));
+        long target = maxBytes / 10 * 9;
+        int deleted = 0;
+        for (StoredFile file : files) {
+            if (total <= target) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(file.path());
+                total -= file.size();
+                deleted++;
+            } catch (IOException e) {
+                log.warn("Could not delete HTTP cache entry {}: {}", file.path(), e.getMessage());
+            }
+        }
+        totalBytes.set(total);
+        log.info("HTTP response cache evicted {} entries; {} bytes remain", deleted, total);
+    }
+
+    private List<StoredFile> storedFiles() {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(path -> path.toString().endsWith(SUFFIX))
+                    .map(path -> {
+                        try {
+                            return new StoredFile(path, Files.getLastModifiedTime(path).toMillis(), Files.size(path));
+                        } catch (IOException e) {
+                            return new StoredFile(path, 0, 0);
+                        }
+                    })
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Could not list HTTP cache directory {}: {}", dir, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private record StoredFile(Path path, long modified, long size) {
+    }
+
+    private record Entry(String key, int status, HttpHeaders headers, Instant storedAt, Instant expiresAt, byte[] body) {
+
+        ClientHttpResponse toResponse() {
+            HttpHeaders copy = new HttpHeaders();
+            headers.forEach((name, values) -> copy.put(name, new ArrayList<>(values)));
+            return new StoredResponse(HttpStatusCode.valueOf(status), copy, new ByteArrayInputStream(body), null);
+        }
+
+        byte[] toBytes() {
+            StringBuilder head = new StringBuilder();
+            head.append(key).append('\n');
+            head.append("HTTP ").append(status).append('\n');
+            head.append(STORED).append(": ").append(storedAt).append('\n');
+            head.append(EXPIRES).append(": ").append(expiresAt).append('\n');
+            headers.forEach((name, values) -> values.forEach(value ->
+                    head.append(name).append(": ").append(value).append('\n')));
+            head.append('\n');
+            ByteArrayOutputStream out = new ByteArrayOutputStream(head.length() + body.length);
+            out.writeBytes(head.toString().getBytes(StandardCharsets.UTF_8));
+            out.writeBytes(body);
+            return out.toByteArray();
+        }
+
+        /**
+         * The entry in a file, or null when the file is for another request (a hash collision).
+         * Lines may end in CRLF, so fixtures edited on any platform still load.
+         */
+        static Entry parse(byte[] data, String key) {
+            List<String> lines = new ArrayList<>();
+            int start = 0;
+            int bodyStart = -1;
+            for (int i = 0; i < data.length && bodyStart < 0; i++) {
+                if (data[i] == '\n') {
+                    int end = i > start && data[i - 1] == '\r' ? i - 1 : i;
+                    if (end == start) {
+                        bodyStart = i + 1;
+                    } else {
+                        lines.add(new String(data, start, end - start, StandardCharsets.UTF_8));
+                    }
+                    start = i + 1;
+                }
+            }
+            if (bodyStart < 0 || lines.size() < 2 || !lines.get(0).equals(key) || !lines.get(1).startsWith("HTTP ")) {
+                return null;
+            }
+            int status = Integer.parseInt(lines.get(1).substring("HTTP ".length()).trim());
+            Instant storedAt = Instant.EPOCH;
+            Instant expiresAt = Instant.EPOCH;
+            HttpHeaders headers = new HttpHeaders();
+            for (String line : lines.subList(2, lines.size())) {
+                int colon = line.indexOf(':');
+                if (colon <= 0) {
+                    continue;
+                }
+                String name = line.substring(0, colon).trim();
+                String value = line.substring(colon + 1).trim();
+                try {
+                    if (name.equalsIgnoreCase(STORED)) {
+                        storedAt = Instant.parse(value);
+                    } else if (name.equalsIgnoreCase(EXPIRES)) {
+                        expiresAt = Instant.parse(value);
+                    } else {
+                        headers.add(name, value);
+                    }
+                } catch (DateTimeParseException e) {
+                    // Treat as stale
+                }
+            }
+            return new Entry(key, status, headers, storedAt, expiresAt, Arrays.copyOfRange(data, bodyStart, data.length));
+        }
+    }
+
+    /**
+     * A response read from the cache, or one too big to keep whose body is partly read.
+     */
+    private static final class StoredResponse implements ClientHttpResponse {
+
+        private final HttpStatusCode status;
+        private final HttpHeaders headers;
+        private final InputStream body;
+        private final Closeable original;
+
+        StoredResponse(HttpStatusCode status, HttpHeaders headers, InputStream body, Closeable original) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.original = original;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus known = HttpStatus.resolve(status.value());
+            return known != null ? known.getReasonPhrase() : "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (original != null) {
+                    original.close();
+                }
+            } catch (IOException e) {
+                log.debug("Error closing response: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -17,11 +17,12 @@ public class LibraryNativeHints implements RuntimeHintsRegistrar {
     public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
 
         // JPA entities — Spring AOT usually detects these but being explicit is safer
-        for (Class<?> cls : new Class<?>[]{ Book.class, Author.class, Loan.class,
+        for (Class<?> cls : new Class<?>[]{ Book.class, BookDetail.class, Author.class, Loan.class,
                 User.class, Photo.class, Library.class, Applied.class,
                 GlobalSettings.class, Authority.class, PhotoUploadSession.class,
                 RandomBook.class, RandomAuthor.class, RandomLoan.class,
-                RandomPhoto.class, RandomUser.class }) {
+                RandomPhoto.class, RandomUser.class, CatalogEntityListener.class,
+                BackgroundJob.class, BackgroundJobItem.class, FreeTextCacheEntry.class }) {
             hints.reflection().registerType(cls,
                 MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
                 MemberCategory.INVOKE_DECLARED_METHODS,
@@ -33,6 +34,10 @@ public class LibraryNativeHints implements RuntimeHintsRegistrar {
         hints.reflection().registerType(LibraryCardDesign.class, MemberCategory.INVOKE_DECLARED_METHODS);
         hints.reflection().registerType(Photo.ExportStatus.class, MemberCategory.INVOKE_DECLARED_METHODS);
         hints.reflection().registerType(Applied.ApplicationStatus.class, MemberCategory.INVOKE_DECLARED_METHODS);
+        hints.reflection().registerType(BackgroundJob.Type.class, MemberCategory.INVOKE_DECLARED_METHODS);
+        hints.reflection().registerType(BackgroundJob.Status.class, MemberCategory.INVOKE_DECLARED_METHODS);
+        hints.reflection().registerType(BackgroundJobItem.Status.class, MemberCategory.INVOKE_DECLARED_METHODS);
+        hints.reflection().registerType(FreeTextCacheEntry.Source.class, MemberCategory.INVOKE_DECLARED_METHODS);
 
         // Spring Session JDBC serializes the full SecurityContext object graph to bytes.
         // Every class in the graph must be registered for Java serialization in native image.
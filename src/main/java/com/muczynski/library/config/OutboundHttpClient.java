@@ -0,0 +1,106 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one outbound HTTP layer: every RestTemplate that calls another site is built here, on
+ * shared JDK {@link HttpClient}s that keep connections to each host open between requests.
+ * HTTPS sites are spoken to over HTTP/2 where they offer it (so concurrent requests to one
+ * host share a connection) and HTTP/1.1 otherwise; plain HTTP sites such as the LOC SRU
+ * server get HTTP/1.1 without an h2c upgrade, which some older servers reject.
+ * <p>
+ * The connect timeout is shared; each integration passes its own read timeout, the longest
+ * wait for a response. Every template sends the library's User-Agent first and ends with
+ * {@link OutboundHttpInterceptor} for per-host limits, compression and metrics.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboundHttpClient {
+
+    private static final String USER_AGENT = "library.muczynskifamily.com";
+
+    private final OutboundHttpInterceptor outboundHttpInterceptor;
+
+    @Value("${app.http.connect-timeout-ms:10000}")
+    private long connectTimeoutMs;
+
+    private ExecutorService executor;
+    private HttpClient http2Client;
+    private HttpClient http11Client;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // The clients' own asynchronous work; callers block only their own thread
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "outbound-http-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        http2Client = newClient(HttpClient.Version.HTTP_2);
+        http11Client = newClient(HttpClient.Version.HTTP_1_1);
+        log.info("Outbound HTTP client ready (connect timeout {} ms)", connectTimeoutMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A RestTemplate on the shared clients with the given read timeout. The interceptors run
+     * after the User-Agent header and before {@link OutboundHttpInterceptor}.
+     */
+    public RestTemplate restTemplate(Duration readTimeout, ClientHttpRequestInterceptor... interceptors) {
+        JdkClientHttpRequestFactory http2 = new JdkClientHttpRequestFactory(http2Client);
+        http2.setReadTimeout(readTimeout);
+        JdkClientHttpRequestFactory http11 = new JdkClientHttpRequestFactory(http11Client);
+        http11.setReadTimeout(readTimeout);
+
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setRequestFactory((uri, method) ->
+                ("http".equalsIgnoreCase(uri.getScheme()) ? http11 : http2).createRequest(uri, method));
+
+        // Add User-Agent header for all requests to comply with sites like Wikimedia
+        List<ClientHttpRequestInterceptor> chain = new ArrayList<>();
+        chain.add((request, body, execution) -> {
+            request.getHeaders().set("User-Agent", USER_AGENT);
+            return execution.execute(request, body);
+        });
+        chain.addAll(List.of(interceptors));
+        chain.add(outboundHttpInterceptor);
+        restTemplate.setInterceptors(chain);
+        return restTemplate;
+    }
+
+    private HttpClient newClient(HttpClient.Version version) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+}
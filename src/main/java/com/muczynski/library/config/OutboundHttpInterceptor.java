@@ -0,0 +1,255 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.config;
+
+import com.muczynski.library.dto.OutboundHostStatsDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The last interceptor on every RestTemplate built by {@link OutboundHttpClient}. For each
+ * request actually sent it:
+ * <ul>
+ *   <li>holds one of the host's {@code app.http.max-per-host} slots until the response is
+ *       closed, waiting up to {@code app.http.host-wait-ms} for one;</li>
+ *   <li>asks for gzip and unzips gzip responses, since the JDK client does neither;</li>
+ *   <li>records the host's requests, errors (I/O failures and 5xx answers) and the time to
+ *       the response headers over its most recent requests.</li>
+ * </ul>
+ * Coming after {@code ProviderRateLimitInterceptor}, a retried request is counted once per try.
+ */
+@Component
+@Slf4j
+public class OutboundHttpInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String GZIP = "gzip";
+
+    @Value("${app.http.max-per-host:8}")
+    private int maxPerHost;
+
+    @Value("${app.http.host-wait-ms:30000}")
+    private long hostWaitMs;
+
+    @Value("${app.http.compression.enabled:true}")
+    private boolean compression;
+
+    @Value("${app.http.metrics-window:200}")
+    private int metricsWindow;
+
+    private final Map<String, HostStats> hosts = new ConcurrentHashMap<>();
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String host = hostOf(request.getURI());
+        HostStats stats = hosts.computeIfAbsent(host,
+                key -> new HostStats(Math.max(1, maxPerHost), Math.max(1, metricsWindow)));
+        stats.requests.increment();
+        acquire(host, stats);
+
+        if (compression && !request.getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+            request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+        }
+        long start = System.nanoTime();
+        ClientHttpResponse response = null;
+        try {
+            response = execution.execute(request, body);
+            HttpStatusCode status = response.getStatusCode();
+            stats.sample(System.nanoTime() - start);
+            if (status.is5xxServerError()) {
+                stats.error("HTTP " + status.value());
+            }
+            return new HostResponse(response, stats.permits);
+        } catch (IOException | RuntimeException e) {
+            stats.sample(System.nanoTime() - start);
+            stats.error(e.getClass().getSimpleName() + ": " + e.getMessage());
+            if (response != null) {
+                response.close();
+            }
+            stats.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Requests, errors and recent latency per host, by host name.
+     */
+    public List<OutboundHostStatsDto> getHostStats() {
+        return hosts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> entry.getValue().toDto(entry.getKey()))
+                .toList();
+    }
+
+    private void acquire(String host, HostStats stats) throws IOException {
+        try {
+            if (!stats.permits.tryAcquire(hostWaitMs, TimeUnit.MILLISECONDS)) {
+                String message = "Too many requests in flight to " + host + "; waited " + hostWaitMs + " ms";
+                stats.error(message);
+                log.warn(message);
+                throw new IOException(message);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection to " + host);
+        }
+    }
+
+    static String hostOf(URI uri) {
+        String host = uri.getHost();
+        if (host == null) {
+            return "unknown";
+        }
+        return uri.getPort() == -1 ? host : host + ":" + uri.getPort();
+    }
+
+    private static final class HostStats {
+
+        private final Semaphore permits;
+        private final int maxPerHost;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private volatile String lastError;
+
+        // Ring of the most recent times to the response headers; guarded by this
+        private final long[] recentNanos;
+        private int recentCount;
+        private int recentNext;
+
+        HostStats(int maxPerHost, int window) {
+            this.permits = new Semaphore(maxPerHost);
+            this.maxPerHost = maxPerHost;
+            this.recentNanos = new long[window];
+        }
+
+        synchronized void sample(long nanos) {
+            recentNanos[recentNext] = nanos;
+            recentNext = (recentNext + 1) % recentNanos.length;
+            recentCount = Math.min(recentCount + 1, recentNanos.length);
+        }
+
+        void error(String message) {
+            errors.increment();
+            lastError = message;
+        }
+
+        synchronized OutboundHostStatsDto toDto(String host) {
+            double meanMillis = 0.0;
+            double p95Millis = 0.0;
+            if (recentCount > 0) {
+                long[] sorted = Arrays.copyOf(recentNanos, recentCount);
+                Arrays.sort(sorted);
+                meanMillis = Arrays.stream(sorted).average().orElse(0.0) / 1e6;
+                p95Millis = sorted[(int) Math.ceil(recentCount * 0.95) - 1] / 1e6;
+            }
+            return new OutboundHostStatsDto(
+                    host,
+                    requests.sum(),
+                    errors.sum(),
+                    maxPerHost - permits.availablePermits(),
+                    recentCount,
+                    meanMillis,
+                    p95Millis,
+                    lastError);
+        }
+    }
+
+    /**
+     * The response, unzipped if the site sent gzip, that gives back the host slot when closed.
+     */
+    private static final class HostResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final Semaphore permits;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private HttpHeaders headers;
+        private InputStream body;
+
+        HostResponse(ClientHttpResponse response, Semaphore permits) {
+            this.response = response;
+            this.permits = permits;
+        }
+
+        private boolean gzipped() {
+            return GZIP.equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            if (!gzipped()) {
+                return response.getHeaders();
+            }
+            if (headers == null) {
+                // Describe the body as the caller reads it
+                headers = new HttpHeaders();
+                headers.putAll(response.getHeaders());
+                headers.remove(HttpHeaders.CONTENT_ENCODING);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+            }
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (!gzipped()) {
+                return response.getBody();
+            }
+            if (body == null) {
+                PushbackInputStream raw = new PushbackInputStream(response.getBody());
+                int first = raw.read();
+                if (first == -1) {
+                    // HEAD requests and 204/304 answers have no body to unzip
+                    body = raw;
+                } else {
+                    raw.unread(first);
+                    body = new GZIPInputStream(raw);
+                }
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                try {
+                    response.close();
+                } finally {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
@@ -3,30 +3,37 @@
  */
 package com.muczynski.library.controller;
 
+import com.muczynski.library.domain.CatalogChange;
 import com.muczynski.library.domain.User;
 import com.muczynski.library.dto.AuthorDto;
 import com.muczynski.library.dto.AuthorSummaryDto;
+import com.muczynski.library.dto.ChangesDto;
 import com.muczynski.library.dto.BookDto;
 import com.muczynski.library.dto.PhotoAddFromGooglePhotosResponse;
 import com.muczynski.library.dto.PhotoDto;
 import com.muczynski.library.exception.LibraryException;
 import com.muczynski.library.repository.UserRepository;
 import com.muczynski.library.service.AuthorService;
+import com.muczynski.library.service.CatalogChangeService;
 import com.muczynski.library.service.BookService;
 import com.muczynski.library.service.GooglePhotosService;
 import com.muczynski.library.service.GrokipediaLookupService;
 import com.muczynski.library.service.PhotoService;
+import com.muczynski.library.util.SummaryCodec;
 import com.muczynski.library.dto.GrokipediaLookupResultDto;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
@@ -40,6 +47,9 @@ public class AuthorController {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthorController.class);
 
+    @Autowired
+    private CatalogChangeService catalogChangeService;
+
     @Autowired
     private AuthorService authorService;
 
@@ -70,24 +80,68 @@ public class AuthorController {
         }
     }
 
+    /**
+     * Author summaries as JSON, or in the compact binary form of {@link SummaryCodec} when the
+     * Accept header asks for {@code application/vnd.library.summaries}.
+     */
     @GetMapping("/summaries")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<List<AuthorSummaryDto>> getAllAuthorSummaries() {
+    public ResponseEntity<?> getAllAuthorSummaries(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, WebRequest request) {
         try {
+            boolean binary = SummaryCodec.isAccepted(accept);
+            String etag = binary ? CatalogETag.binary(authorETag()) : authorETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
+            if (binary) {
+                return CatalogETag.ok(etag, SummaryCodec.MEDIA_TYPE, authorService.getAllAuthorSummariesEncoded());
+            }
             List<AuthorSummaryDto> summaries = authorService.getAllAuthorSummaries();
-            return ResponseEntity.ok(summaries);
+            return CatalogETag.ok(etag, summaries);
         } catch (Exception e) {
             logger.warn("Failed to retrieve author summaries: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Authors created, modified or deleted since the client's last sync. Pass the returned
+     * token as {@code since} next time; omit it (or pass 0) for a first sync.
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> getAuthorChanges(@RequestParam(defaultValue = "0") long since) {
+        try {
+            ChangesDto<AuthorSummaryDto> changes = catalogChangeService.getAuthorChanges(since);
+            return ResponseEntity.ok(changes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.warn("Failed to retrieve author changes since {}: {}", since, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    private String authorETag() {
+        return CatalogETag.of(catalogChangeService.version(CatalogChange.AUTHOR));
+    }
+
+    /**
+     * For filters that look at authors' books (zero-books, most-recent-day), which change
+     * without the author itself changing.
+     */
+    private String authorAndBookETag() {
+        return CatalogETag.of(catalogChangeService.version(CatalogChange.AUTHOR),
+                catalogChangeService.version(CatalogChange.BOOK));
+    }
+
     @PostMapping("/by-ids")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<List<AuthorDto>> getAuthorsByIds(@RequestBody List<Long> ids) {
+    public ResponseEntity<byte[]> getAuthorsByIds(@RequestBody List<Long> ids) {
         try {
-            List<AuthorDto> authors = authorService.getAuthorsByIds(ids);
-            return ResponseEntity.ok(authors);
+            byte[] authors = authorService.getAuthorsByIdsJson(ids);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(authors);
         } catch (Exception e) {
             logger.warn("Failed to retrieve authors by IDs {}: {}", ids, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -96,10 +150,14 @@ public class AuthorController {
 
     @GetMapping("/without-description")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<?> getAuthorsWithoutDescription() {
+    public ResponseEntity<?> getAuthorsWithoutDescription(WebRequest request) {
         try {
+            String etag = authorETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
             List<AuthorSummaryDto> summaries = authorService.getSummariesWithoutDescription();
-            return ResponseEntity.ok(summaries);
+            return CatalogETag.ok(etag, summaries);
         } catch (Exception e) {
             logger.warn("Failed to retrieve authors without description: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -108,10 +166,14 @@ public class AuthorController {
 
     @GetMapping("/zero-books")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<?> getAuthorsWithZeroBooks() {
+    public ResponseEntity<?> getAuthorsWithZeroBooks(WebRequest request) {
         try {
+            String etag = authorAndBookETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
             List<AuthorSummaryDto> summaries = authorService.getSummariesWithZeroBooks();
-            return ResponseEntity.ok(summaries);
+            return CatalogETag.ok(etag, summaries);
         } catch (Exception e) {
             logger.warn("Failed to retrieve authors with zero books: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -120,10 +182,14 @@ public class AuthorController {
 
     @GetMapping("/most-recent-day")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<?> getAuthorsFromMostRecentDay() {
+    public ResponseEntity<?> getAuthorsFromMostRecentDay(WebRequest request) {
         try {
+            String etag = authorAndBookETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
             List<AuthorSummaryDto> summaries = authorService.getSummariesFromMostRecentDay();
-            return ResponseEntity.ok(summaries);
+            return CatalogETag.ok(etag, summaries);
         } catch (Exception e) {
             logger.warn("Failed to retrieve authors from most recent day: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -132,10 +198,14 @@ public class AuthorController {
 
     @GetMapping("/without-grokipedia")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<?> getAuthorsWithoutGrokipedia() {
+    public ResponseEntity<?> getAuthorsWithoutGrokipedia(WebRequest request) {
         try {
+            String etag = authorETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
             List<AuthorSummaryDto> summaries = authorService.getSummariesWithoutGrokipedia();
-            return ResponseEntity.ok(summaries);
+            return CatalogETag.ok(etag, summaries);
         } catch (Exception e) {
             logger.warn("Failed to retrieve authors without grokipedia: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
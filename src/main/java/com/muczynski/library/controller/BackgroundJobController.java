@@ -0,0 +1,85 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.controller;
+
+import com.muczynski.library.dto.BackgroundJobDto;
+import com.muczynski.library.dto.BackgroundJobRequestDto;
+import com.muczynski.library.service.BackgroundJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * REST controller for background jobs.
+ * Bulk lookups run as jobs: starting one returns at once, and the client polls for progress.
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('LIBRARIAN')")
+public class BackgroundJobController {
+
+    private final BackgroundJobService backgroundJobService;
+
+    /**
+     * Start a job over the given IDs, or over the job type's own targets if none are given.
+     *
+     * @param request the job type and the book or author IDs
+     * @return 202 Accepted with the queued job and its location
+     */
+    @PostMapping
+    public ResponseEntity<BackgroundJobDto> startJob(@RequestBody BackgroundJobRequestDto request) {
+        BackgroundJobDto job = backgroundJobService.start(request.getType(), request.getIds());
+        return ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.getId())).body(job);
+    }
+
+    /**
+     * Get the most recent jobs, without their items.
+     *
+     * @return up to 50 jobs, newest first
+     */
+    @GetMapping
+    public ResponseEntity<List<BackgroundJobDto>> getRecentJobs() {
+        return ResponseEntity.ok(backgroundJobService.getRecentJobs());
+    }
+
+    /**
+     * Get a job's progress and the results of its processed items.
+     *
+     * @param id the job ID
+     * @param after only return items whose change sequence is greater than this, so polls fetch new results only
+     * @return the job with its processed items in the order they finished
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<BackgroundJobDto> getJob(@PathVariable Long id,
+                                                   @RequestParam(defaultValue = "-1") long after) {
+        return ResponseEntity.ok(backgroundJobService.getJob(id, after));
+    }
+
+    /**
+     * Cancel a job. A running job stops before its next item.
+     *
+     * @param id the job ID
+     * @return the job
+     */
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<BackgroundJobDto> cancelJob(@PathVariable Long id) {
+        return ResponseEntity.ok(backgroundJobService.cancel(id));
+    }
+
+    /**
+     * Run a finished job's failed and cancelled items again.
+     *
+     * @param id the job ID
+     * @return 202 Accepted with the queued job
+     */
+    @PostMapping("/{id}/retry")
+    public ResponseEntity<BackgroundJobDto> retryJob(@PathVariable Long id) {
+        return ResponseEntity.accepted().body(backgroundJobService.retry(id));
+    }
+}
@@ -3,32 +3,42 @@
  */
 package com.muczynski.library.controller;
 
+import com.muczynski.library.domain.CatalogChange;
 import com.muczynski.library.domain.User;
 import com.muczynski.library.dto.BookDto;
 import com.muczynski.library.dto.BookSummaryDto;
+import com.muczynski.library.dto.ChangesDto;
+import com.muczynski.library.dto.DtoCacheStatsDto;
 import com.muczynski.library.dto.BulkDeleteResultDto;
 import com.muczynski.library.dto.GenreLookupResultDto;
 import com.muczynski.library.dto.SavedBookDto;
+import com.muczynski.library.dto.ShelfPageDto;
 import com.muczynski.library.dto.PhotoAddFromGooglePhotosResponse;
 import com.muczynski.library.dto.PhotoDto;
 import com.muczynski.library.exception.LibraryException;
 import com.muczynski.library.repository.UserRepository;
 import com.muczynski.library.service.AskGrok;
 import com.muczynski.library.service.BookService;
+import com.muczynski.library.service.CatalogChangeService;
+import com.muczynski.library.service.CatalogDtoCache;
 import com.muczynski.library.service.GooglePhotosService;
 import com.muczynski.library.service.GrokipediaLookupService;
 import com.muczynski.library.service.PhotoService;
+import com.muczynski.library.util.SummaryCodec;
 import com.muczynski.library.dto.GrokipediaLookupResultDto;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
@@ -44,9 +54,15 @@ public class BookController {
 
     private static final Logger logger = LoggerFactory.getLogger(BookController.class);
 
+    @Autowired
+    private CatalogChangeService catalogChangeService;
+
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private CatalogDtoCache catalogDtoCache;
+
     @Autowired
     private PhotoService photoService;
 
@@ -76,10 +92,14 @@ public class BookController {
 
     @GetMapping("/without-loc")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<?> getBooksWithoutLocNumber() {
+    public ResponseEntity<?> getBooksWithoutLocNumber(WebRequest request) {
         try {
+            String etag = bookETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
             List<BookSummaryDto> summaries = bookService.getSummariesWithoutLocNumber();
-            return ResponseEntity.ok(summaries);
+            return CatalogETag.ok(etag, summaries);
         } catch (Exception e) {
             logger.warn("Failed to retrieve books without LOC number: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -92,10 +112,14 @@ public class BookController {
      */
     @GetMapping("/most-recent-day")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<?> getBooksFromMostRecentDay() {
+    public ResponseEntity<?> getBooksFromMostRecentDay(WebRequest request) {
         try {
+            String etag = bookETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
             List<BookSummaryDto> summaries = bookService.getSummariesFromMostRecentDay();
-            return ResponseEntity.ok(summaries);
+            return CatalogETag.ok(etag, summaries);
         } catch (Exception e) {
             logger.warn("Failed to retrieve books from most recent 2 days: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -104,24 +128,59 @@ public class BookController {
 
     @GetMapping("/by-3letter-loc")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<?> getBooksWith3LetterLocStart() {
+    public ResponseEntity<?> getBooksWith3LetterLocStart(WebRequest request) {
         try {
+            String etag = bookETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
             List<BookSummaryDto> summaries = bookService.getSummariesWith3LetterLocStart();
-            return ResponseEntity.ok(summaries);
+            return CatalogETag.ok(etag, summaries);
         } catch (Exception e) {
             logger.warn("Failed to retrieve books with 3-letter LOC start: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
     }
 
+    /**
+     * Books in shelf (call number) order, one keyset page at a time, optionally limited to a
+     * call number range: ?from=BX 4700&to=BX 4710 includes everything shelved under BX 4710.
+     * Pass the previous page's nextAfterKey and nextAfterId to continue.
+     * Returns BookSummaryDto for cache validation - use /books/by-ids to fetch full data.
+     */
+    @GetMapping("/shelf")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> getShelf(@RequestParam(required = false) String from,
+                                      @RequestParam(required = false) String to,
+                                      @RequestParam(required = false) String afterKey,
+                                      @RequestParam(required = false) Long afterId,
+                                      @RequestParam(defaultValue = "50") int size,
+                                      WebRequest request) {
+        try {
+            String etag = bookETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
+            ShelfPageDto page = bookService.getShelfPage(from, to, afterKey, afterId, size);
+            return CatalogETag.ok(etag, page);
+        } catch (Exception e) {
+            logger.warn("Failed to retrieve shelf page from '{}' to '{}': {}", from, to, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
     /**
      * Get book summaries for books that have ALL of the specified labels.
      * Labels should be passed as a comma-separated string, e.g. ?labels=fiction,history
      */
     @GetMapping("/by-labels")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<?> getBooksByLabels(@RequestParam(required = false) String labels) {
+    public ResponseEntity<?> getBooksByLabels(@RequestParam(required = false) String labels, WebRequest request) {
         try {
+            String etag = bookETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
             List<String> labelList = (labels == null || labels.isBlank())
                     ? List.of()
                     : Arrays.stream(labels.split(","))
@@ -129,7 +188,7 @@ public class BookController {
                             .filter(s -> !s.isEmpty())
                             .collect(Collectors.toList());
             List<BookSummaryDto> summaries = bookService.getSummariesByAllLabels(labelList);
-            return ResponseEntity.ok(summaries);
+            return CatalogETag.ok(etag, summaries);
         } catch (Exception e) {
             logger.warn("Failed to retrieve books by labels '{}': {}", labels, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -138,10 +197,14 @@ public class BookController {
 
     @GetMapping("/without-grokipedia")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<?> getBooksWithoutGrokipediaUrl() {
+    public ResponseEntity<?> getBooksWithoutGrokipediaUrl(WebRequest request) {
         try {
+            String etag = bookETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
             List<BookSummaryDto> summaries = bookService.getSummariesWithoutGrokipediaUrl();
-            return ResponseEntity.ok(summaries);
+            return CatalogETag.ok(etag, summaries);
         } catch (Exception e) {
             logger.warn("Failed to retrieve books without Grokipedia URL: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -449,30 +512,79 @@ public class BookController {
         }
     }
 
+    /**
+     * Book summaries as JSON, or in the compact binary form of {@link SummaryCodec} when the
+     * Accept header asks for {@code application/vnd.library.summaries}.
+     */
     @GetMapping("/summaries")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<?> getAllBookSummaries() {
+    public ResponseEntity<?> getAllBookSummaries(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, WebRequest request) {
         try {
+            boolean binary = SummaryCodec.isAccepted(accept);
+            String etag = binary ? CatalogETag.binary(bookETag()) : bookETag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304 already written
+            }
+            if (binary) {
+                return CatalogETag.ok(etag, SummaryCodec.MEDIA_TYPE, bookService.getAllBookSummariesEncoded());
+            }
             List<BookSummaryDto> summaries = bookService.getAllBookSummaries();
-            return ResponseEntity.ok(summaries);
+            return CatalogETag.ok(etag, summaries);
         } catch (Exception e) {
             logger.warn("Failed to retrieve book summaries: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
     }
 
+    /**
+     * Books created, modified or deleted since the client's last sync. Pass the returned
+     * token as {@code since} next time; omit it (or pass 0) for a first sync.
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> getBookChanges(@RequestParam(defaultValue = "0") long since) {
+        try {
+            ChangesDto<BookSummaryDto> changes = catalogChangeService.getBookChanges(since);
+            return ResponseEntity.ok(changes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.warn("Failed to retrieve book changes since {}: {}", since, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    /**
+     * ETag shared by the summary and filter endpoints: every one of them changes only when
+     * some book does. The most-recent-day window is anchored on the newest book, not today.
+     */
+    private String bookETag() {
+        return CatalogETag.of(catalogChangeService.version(CatalogChange.BOOK));
+    }
+
     @PostMapping("/by-ids")
     @PreAuthorize("permitAll()")
     public ResponseEntity<?> getBooksByIds(@RequestBody List<Long> ids) {
         try {
-            List<BookDto> books = bookService.getBooksByIds(ids);
-            return ResponseEntity.ok(books);
+            byte[] books = bookService.getBooksByIdsJson(ids);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(books);
         } catch (Exception e) {
             logger.warn("Failed to retrieve books by IDs: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
     }
 
+    /**
+     * Hit rate, evictions and estimated memory of the DTO cache behind the book and author
+     * by-ids endpoints.
+     */
+    @GetMapping("/by-ids/cache-stats")
+    @PreAuthorize("hasAuthority('LIBRARIAN')")
+    public ResponseEntity<List<DtoCacheStatsDto>> getByIdsCacheStats() {
+        return ResponseEntity.ok(catalogDtoCache.getStats());
+    }
+
     @PostMapping("/suggest-loc")
     @PreAuthorize("hasAuthority('LIBRARIAN')")
     public ResponseEntity<?> suggestLocNumber(@RequestBody Map<String, String> request) {
@@ -0,0 +1,70 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Weak ETags for the book and author summary/filter endpoints, derived from
+ * {@link com.muczynski.library.service.CatalogChangeService#version(String)} so a poll that
+ * finds nothing changed is answered with 304 before the projection query runs.
+ * <p>
+ * Each tag also carries the process start time: a restored or reset database can reuse
+ * sequence numbers, and a restart is the only time that can happen.
+ */
+final class CatalogETag {
+
+    private static final String BOOT = Long.toString(ManagementFactory.getRuntimeMXBean().getStartTime(), 36);
+
+    private CatalogETag() {
+    }
+
+    /**
+     * One tag per combination of versions, e.g. {@code W/"lqx3k2-42"} for a book-only
+     * endpoint or {@code W/"lqx3k2-42-7"} for one that also depends on authors. The query
+     * string is not part of the tag; caches key on the full URL already.
+     */
+    static String of(long... versions) {
+        StringBuilder tag = new StringBuilder("W/\"").append(BOOT);
+        for (long version : versions) {
+            tag.append('-').append(version);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * The tag for the binary ({@link com.muczynski.library.util.SummaryCodec}) form of the
+     * same list, which must not match the JSON form's.
+     */
+    static String binary(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-bin\"";
+    }
+
+    /**
+     * 200 with the tag. {@code no-cache} lets the browser keep the body and revalidate it
+     * with If-None-Match, where Spring Security's default headers would forbid storing it.
+     * {@code Vary: Accept} keeps the JSON and binary forms apart in the browser cache.
+     */
+    static <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    static ResponseEntity<byte[]> ok(String etag, MediaType contentType, byte[] body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(contentType)
+                .body(body);
+    }
+}
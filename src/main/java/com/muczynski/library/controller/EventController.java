@@ -0,0 +1,46 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.controller;
+
+import com.muczynski.library.service.CatalogEventService;
+import com.muczynski.library.util.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/api/events")
+public class EventController {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventController.class);
+
+    @Autowired
+    private CatalogEventService catalogEventService;
+
+    /**
+     * Server-Sent Events stream of catalog changes. Anonymous clients get book, author and
+     * photo changes; librarians also get loans.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("permitAll()")
+    public SseEmitter subscribe(Authentication authentication, HttpServletResponse response) {
+        // Stop nginx-style proxies from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        boolean isLibrarian = SecurityUtils.isLibrarian(authentication);
+        logger.debug("Catalog event subscriber connected (librarian={}), {} connected",
+                isLibrarian, catalogEventService.getSubscriberCount() + 1);
+        return catalogEventService.subscribe(isLibrarian);
+    }
+}
@@ -4,6 +4,8 @@
 package com.muczynski.library.controller;
 
 import com.muczynski.library.dto.FreeTextBulkLookupResultDto;
+import com.muczynski.library.dto.FreeTextProviderStateDto;
+import com.muczynski.library.dto.FreeTextProviderStatsDto;
 import com.muczynski.library.freetext.FreeTextLookupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -55,4 +57,24 @@ public class FreeTextLookupController {
     public ResponseEntity<List<String>> getProviders() {
         return ResponseEntity.ok(freeTextLookupService.getProviderNames());
     }
+
+    /**
+     * Get hit rate, latency, timeouts and cancellations per provider since startup.
+     *
+     * @return statistics per provider in priority order
+     */
+    @GetMapping("/provider-stats")
+    public ResponseEntity<List<FreeTextProviderStatsDto>> getProviderStats() {
+        return ResponseEntity.ok(freeTextLookupService.getProviderStats());
+    }
+
+    /**
+     * Get each provider's circuit breaker state, recent hit rate and p95 latency.
+     *
+     * @return state per provider in the order lookups prefer their matches
+     */
+    @GetMapping("/provider-state")
+    public ResponseEntity<List<FreeTextProviderStateDto>> getProviderStates() {
+        return ResponseEntity.ok(freeTextLookupService.getProviderStates());
+    }
 }
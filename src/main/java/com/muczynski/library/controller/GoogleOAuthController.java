@@ -10,6 +10,7 @@ import com.muczynski.library.service.GlobalSettingsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.security.core.Authentication;
@@ -48,17 +49,9 @@ public class GoogleOAuthController {
     @Autowired
     private GlobalSettingsService globalSettingsService;
 
-    private final RestTemplate restTemplate;
-
-    {
-        // Configure RestTemplate with 60-second timeouts
-        restTemplate = new RestTemplate();
-        org.springframework.http.client.SimpleClientHttpRequestFactory factory =
-                new org.springframework.http.client.SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(60000); // 60 seconds
-        factory.setReadTimeout(60000); // 60 seconds
-        restTemplate.setRequestFactory(factory);
-    }
+    @Autowired
+    @Qualifier("googleRestTemplate")
+    private RestTemplate restTemplate;
 
     // Store state tokens temporarily (in production, use Redis or similar)
     // Maps state token to "username:origin"
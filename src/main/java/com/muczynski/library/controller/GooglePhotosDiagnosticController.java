@@ -9,6 +9,7 @@ import com.muczynski.library.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -33,17 +34,9 @@ public class GooglePhotosDiagnosticController {
     @Autowired
     private UserRepository userRepository;
 
-    private final RestTemplate restTemplate;
-
-    {
-        // Configure RestTemplate with 60-second timeouts
-        restTemplate = new RestTemplate();
-        org.springframework.http.client.SimpleClientHttpRequestFactory factory =
-                new org.springframework.http.client.SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(60000); // 60 seconds
-        factory.setReadTimeout(60000); // 60 seconds
-        restTemplate.setRequestFactory(factory);
-    }
+    @Autowired
+    @Qualifier("googleRestTemplate")
+    private RestTemplate restTemplate;
 
     /**
      * Test basic authentication by getting token info
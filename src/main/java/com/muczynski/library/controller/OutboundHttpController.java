@@ -0,0 +1,50 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.controller;
+
+import com.muczynski.library.config.HttpResponseCache;
+import com.muczynski.library.config.OutboundHttpInterceptor;
+import com.muczynski.library.dto.HttpCacheStatsDto;
+import com.muczynski.library.dto.OutboundHostStatsDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for the shared outbound HTTP client's per-host metrics and response cache.
+ */
+@RestController
+@RequestMapping("/api/outbound-http")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('LIBRARIAN')")
+public class OutboundHttpController {
+
+    private final OutboundHttpInterceptor outboundHttpInterceptor;
+    private final HttpResponseCache httpResponseCache;
+
+    /**
+     * Get requests, errors and recent latency for each host the application has called.
+     *
+     * @return per-host statistics since startup, by host name
+     */
+    @GetMapping("/hosts")
+    public ResponseEntity<List<OutboundHostStatsDto>> getHostStats() {
+        return ResponseEntity.ok(outboundHttpInterceptor.getHostStats());
+    }
+
+    /**
+     * Get the response cache's mode, size and hit counts.
+     *
+     * @return cache statistics since startup
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<HttpCacheStatsDto> getCacheStats() {
+        return ResponseEntity.ok(httpResponseCache.getStats());
+    }
+}
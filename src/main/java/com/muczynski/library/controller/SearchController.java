@@ -4,6 +4,7 @@
 package com.muczynski.library.controller;
 
 import com.muczynski.library.dto.SearchResponseDto;
+import com.muczynski.library.dto.SearchSuggestionDto;
 import com.muczynski.library.service.SearchService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,13 +34,16 @@ public class SearchController {
     @PreAuthorize("permitAll()")
     public ResponseEntity<SearchResponseDto> search(
             @RequestParam(defaultValue = "") String query,
-            @RequestParam int page,
+            @RequestParam(required = false) Integer page,
             @RequestParam int size,
             @RequestParam(defaultValue = "false") boolean filterInLibrary,
             @RequestParam(defaultValue = "false") boolean filterElectronic,
             @RequestParam(defaultValue = "false") boolean filterFreeText,
             @RequestParam(defaultValue = "false") boolean filterAudio,
-            @RequestParam(required = false) String labels) {
+            @RequestParam(required = false) String labels,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotals) {
         try {
             List<String> labelList = (labels == null || labels.isBlank())
                     ? null
@@ -47,13 +51,45 @@ public class SearchController {
                             .map(String::trim)
                             .filter(s -> !s.isEmpty())
                             .collect(Collectors.toList());
-            SearchResponseDto results = searchService.search(query, page, size,
-                    filterInLibrary, filterElectronic, filterFreeText, filterAudio, labelList);
+            SearchResponseDto results;
+            if (cursor != null) {
+                // Keyset mode: present-but-empty cursor asks for the first page
+                results = searchService.searchAfter(query, cursor, size,
+                        filterInLibrary, filterElectronic, filterFreeText, filterAudio, labelList, includeTotals);
+            } else if (page == null) {
+                return ResponseEntity.badRequest().build();
+            } else {
+                results = searchService.search(query, page, size,
+                        filterInLibrary, filterElectronic, filterFreeText, filterAudio, labelList);
+            }
+            if (facets) {
+                results.setFacets(searchService.facets(query,
+                        filterInLibrary, filterElectronic, filterFreeText, filterAudio, labelList));
+            }
             return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected search request with query '{}', cursor '{}': {}", query, cursor, e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.warn("Failed to perform search with query '{}', page {}, size {}: {}",
                     query, page, size, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
+
+    /**
+     * Typeahead completions (book titles, author names, labels) whose words start with the prefix.
+     */
+    @GetMapping("/suggest")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<List<SearchSuggestionDto>> suggest(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(searchService.suggest(prefix, limit));
+        } catch (Exception e) {
+            logger.warn("Failed to get search suggestions for prefix '{}': {}", prefix, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
 }
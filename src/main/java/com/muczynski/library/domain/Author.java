@@ -9,9 +9,11 @@ import lombok.Setter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(
     indexes = {
         @Index(name = "idx_author_name", columnList = "name")
@@ -58,6 +60,14 @@ public class Author {
     @PreUpdate
     @PrePersist
     protected void onUpdate() {
-        lastModified = LocalDateTime.now();
+        // UTC like Book, since the catalog change log compares it with its own UTC stamps
+        lastModified = LocalDateTime.now(ZoneOffset.UTC);
+        // Stored as null rather than blank, so the "without" filters test a single value
+        if (briefBiography != null && briefBiography.isBlank()) {
+            briefBiography = null;
+        }
+        if (grokipediaUrl != null && grokipediaUrl.isBlank()) {
+            grokipediaUrl = null;
+        }
     }
 }
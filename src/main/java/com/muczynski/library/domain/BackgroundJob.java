@@ -0,0 +1,90 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A bulk operation (LOC lookup, free text lookup, AI enrichment...) queued to run in the
+ * background, one {@link BackgroundJobItem} per book or author. Persisted so progress
+ * survives a restart: a job whose owner stops sending heartbeats is picked up again by any
+ * instance and carries on from its first pending item.
+ * <p>
+ * Claimed, run and finished by {@link com.muczynski.library.service.BackgroundJobService}.
+ */
+@Entity
+@Table(name = "background_job", indexes = {
+    @Index(name = "idx_background_job_status", columnList = "status, id")
+})
+@Getter
+@Setter
+public class BackgroundJob {
+
+    public enum Type {
+        LOC_LOOKUP,
+        FREE_TEXT_LOOKUP,
+        GROKIPEDIA_BOOKS,
+        GROKIPEDIA_AUTHORS,
+        GENRE_LOOKUP,
+        PROCESS_SAVED_PHOTOS
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Type type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    /** The user who started the job; AI jobs run with their xAI key */
+    private Long userId;
+
+    private int total;
+    private int succeeded;
+    private int failed;
+    private int cancelled;
+
+    /** Set while RUNNING; the worker stops before its next item */
+    private boolean cancelRequested;
+
+    /** Instance running the job, or null when not RUNNING */
+    @Column(length = 64)
+    private String owner;
+
+    private Instant heartbeatAt;
+
+    /** Set when the job itself failed, rather than some of its items */
+    @Column(length = 1000)
+    private String errorMessage;
+
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    /** Incremented whenever items finish; see {@link BackgroundJobItem#getChangeSeq()} */
+    @Column(columnDefinition = "bigint default 0 not null")
+    private long lastChange;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = Instant.now();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * One book or author in a {@link BackgroundJob}, with its outcome once processed. Items are
+ * processed in item order; the result is the JSON of the lookup's result DTO, the same
+ * one the synchronous endpoint returns. The change sequence is the job's change number when
+ * the item last finished, so polls can ask for what changed since the last one they saw.
+ */
+@Entity
+@Table(name = "background_job_item", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_background_job_item_order", columnNames = {"jobId", "itemOrder"})
+}, indexes = {
+    @Index(name = "idx_background_job_item_status", columnList = "jobId, status, itemOrder"),
+    @Index(name = "idx_background_job_item_change", columnList = "jobId, changeSeq")
+})
+@Getter
+@Setter
+public class BackgroundJobItem {
+
+    public enum Status {
+        PENDING,
+        SUCCEEDED,
+        FAILED,
+        CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long jobId;
+
+    private int itemOrder;
+
+    /** Book or author id, depending on the job type */
+    @Column(nullable = false)
+    private Long targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    private int attempts;
+
+    @Lob
+    @org.hibernate.annotations.JdbcTypeCode(java.sql.Types.LONGVARCHAR)
+    private String result;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    private Instant finishedAt;
+
+    /** The job's {@link BackgroundJob#getLastChange()} when this item last finished */
+    @Column(columnDefinition = "bigint default 0 not null")
+    private long changeSeq;
+}
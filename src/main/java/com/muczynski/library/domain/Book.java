@@ -3,14 +3,18 @@
  */
 package com.muczynski.library.domain;
 
+import com.muczynski.library.util.CallNumberSortKey;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Objects;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(
     indexes = {
         @Index(name = "idx_book_title", columnList = "title")
@@ -32,14 +36,13 @@ public class Book {
 
     private String publisher;
 
-    @Lob
-    private String plotSummary;
-
-    @Lob
-    private String relatedWorks;
-
-    @Lob
-    private String detailedDescription;
+    /**
+     * Plot summary, related works and detailed description, in a separate row so that
+     * loading books for lists doesn't read them. Use the delegating accessors below.
+     */
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "detail_id")
+    private BookDetail detail;
 
     private String grokipediaUrl;
 
@@ -61,6 +64,38 @@ public class Book {
 
     private String locNumber;
 
+    /**
+     * Shelf-order key derived from locNumber on every save (see {@link CallNumberSortKey});
+     * null when there is no LOC number. Compared byte by byte ({@code COLLATE "C"}) so the
+     * index on it is in shelf order.
+     */
+    @Column(length = CallNumberSortKey.MAX_LENGTH,
+            columnDefinition = "varchar(" + CallNumberSortKey.MAX_LENGTH + ") COLLATE \"C\"")
+    @Setter(AccessLevel.NONE)
+    private String callNumberSortKey;
+
+    /**
+     * True while the title is still the date placeholder (YYYY-M-D...) given to books created
+     * from photos. Computed by the database on every write, so the filter that lists these
+     * books is a plain boolean test backed by a partial index.
+     */
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "boolean GENERATED ALWAYS AS " +
+                    "(COALESCE(title ~ '^[0-9]{4}-[0-9]{1,2}-[0-9]{1,2}', false)) STORED")
+    @org.hibernate.annotations.Generated(event = {
+            org.hibernate.generator.EventType.INSERT, org.hibernate.generator.EventType.UPDATE})
+    private Boolean temporaryTitle;
+
+    /**
+     * The LOC number's leading three-letter class (e.g. "BXS"), or null when it doesn't start
+     * with three capital letters. Computed by the database, like {@link #temporaryTitle}.
+     */
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "varchar(3) GENERATED ALWAYS AS (substring(loc_number from '^[A-Z]{3}')) STORED")
+    @org.hibernate.annotations.Generated(event = {
+            org.hibernate.generator.EventType.INSERT, org.hibernate.generator.EventType.UPDATE})
+    private String threeLetterLocClass;
+
     private Boolean electronicResource = false;
 
     private String statusReason;
@@ -83,6 +118,46 @@ public class Book {
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, orphanRemoval = true)
     private java.util.List<Photo> photos;
 
+    public String getPlotSummary() {
+        return detail == null ? null : detail.getPlotSummary();
+    }
+
+    public void setPlotSummary(String plotSummary) {
+        if (!Objects.equals(getPlotSummary(), plotSummary)) {
+            detailForWrite().setPlotSummary(plotSummary);
+        }
+    }
+
+    public String getRelatedWorks() {
+        return detail == null ? null : detail.getRelatedWorks();
+    }
+
+    public void setRelatedWorks(String relatedWorks) {
+        if (!Objects.equals(getRelatedWorks(), relatedWorks)) {
+            detailForWrite().setRelatedWorks(relatedWorks);
+        }
+    }
+
+    public String getDetailedDescription() {
+        return detail == null ? null : detail.getDetailedDescription();
+    }
+
+    public void setDetailedDescription(String detailedDescription) {
+        if (!Objects.equals(getDetailedDescription(), detailedDescription)) {
+            detailForWrite().setDetailedDescription(detailedDescription);
+        }
+    }
+
+    private BookDetail detailForWrite() {
+        if (detail == null) {
+            detail = new BookDetail();
+        }
+        // A text edit alone leaves the book row unchanged; touching lastModified makes it dirty,
+        // so @PreUpdate, the catalog listeners and the lastModified-based caches see the edit
+        lastModified = LocalDateTime.now(ZoneOffset.UTC);
+        return detail;
+    }
+
     @PrePersist
     protected void onCreate() {
         LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
@@ -90,10 +165,27 @@ public class Book {
             dateAddedToLibrary = now;
         }
         lastModified = now;
+        normalizeBlankFields();
+        callNumberSortKey = CallNumberSortKey.of(locNumber);
     }
 
     @PreUpdate
     protected void onUpdate() {
         lastModified = LocalDateTime.now(ZoneOffset.UTC);
+        normalizeBlankFields();
+        callNumberSortKey = CallNumberSortKey.of(locNumber);
+    }
+
+    /**
+     * A missing LOC number or Grokipedia URL is stored as null, never as an empty string, so
+     * the "without" filters test a single value. See {@code DatabaseMigration.createFilterIndexes}.
+     */
+    private void normalizeBlankFields() {
+        if (locNumber != null && locNumber.isBlank()) {
+            locNumber = null;
+        }
+        if (grokipediaUrl != null && grokipediaUrl.isBlank()) {
+            grokipediaUrl = null;
+        }
     }
 }
@@ -0,0 +1,37 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Long-form text of a {@link Book}, kept in its own table so that list, search and summary
+ * queries on books don't read it. Loaded on first access through {@link Book#getDetail()};
+ * callers normally go through the book's own getters and setters.
+ * <p>
+ * Stored as text columns (LONGVARCHAR, like {@code Book.freeTextUrl}) rather than Hibernate 6's
+ * default of PostgreSQL large objects, so reading them needs no extra large object calls.
+ */
+@Entity
+@Getter
+@Setter
+public class BookDetail {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Lob
+    @org.hibernate.annotations.JdbcTypeCode(java.sql.Types.LONGVARCHAR)
+    private String plotSummary;
+
+    @Lob
+    @org.hibernate.annotations.JdbcTypeCode(java.sql.Types.LONGVARCHAR)
+    private String relatedWorks;
+
+    @Lob
+    @org.hibernate.annotations.JdbcTypeCode(java.sql.Types.LONGVARCHAR)
+    private String detailedDescription;
+}
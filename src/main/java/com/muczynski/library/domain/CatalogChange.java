@@ -0,0 +1,52 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Latest change to one catalog entity, for delta sync. There is one row per entity; each
+ * change moves the row to a new, higher {@code seq}. Rows with {@code deleted} set are
+ * tombstones: they outlive the entity so clients learn about the delete.
+ * <p>
+ * Maintained by {@link com.muczynski.library.service.CatalogChangeService}.
+ */
+@Entity
+@Table(
+    indexes = {
+        @Index(name = "idx_catalog_change_type_seq", columnList = "entityType, seq")
+    },
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_catalog_change_entity", columnNames = {"entityType", "entityId"})
+    }
+)
+@Getter
+@Setter
+public class CatalogChange {
+
+    public static final String BOOK = "book";
+    public static final String AUTHOR = "author";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    private String entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false)
+    private long seq;
+
+    private boolean deleted;
+
+    // UTC, comparable with Book.lastModified when reconciling
+    private LocalDateTime changedAt;
+}
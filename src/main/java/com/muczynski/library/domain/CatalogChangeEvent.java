@@ -0,0 +1,18 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.domain;
+
+/**
+ * Spring application event published by {@link CatalogEntityListener} whenever a catalog
+ * entity is inserted, updated or deleted.
+ * <p>
+ * Consumers should listen with {@code @TransactionalEventListener} so they only observe
+ * changes that actually committed. The entity is the managed instance that was flushed;
+ * read what you need from it and don't keep a reference.
+ *
+ * @param entity  the entity that changed (Book, Author, Photo, Loan or Library)
+ * @param deleted true when the entity was removed
+ */
+public record CatalogChangeEvent(Object entity, boolean deleted) {
+}
@@ -0,0 +1,33 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One materialized count, such as the books in a branch or a user's open loans, so
+ * dashboards and user lists read a row instead of counting. Names are built by
+ * {@link com.muczynski.library.service.CatalogCounterService}; a missing row means zero.
+ * <p>
+ * Kept current by database triggers in the same transaction as the write, and checked
+ * against the tables by {@link com.muczynski.library.service.CatalogCounterService#reconcile()}.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class CatalogCounter {
+
+    @Id
+    @Column(length = 128)
+    private String name;
+
+    @Column(nullable = false)
+    private long value;
+}
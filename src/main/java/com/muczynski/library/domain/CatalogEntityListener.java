@@ -0,0 +1,40 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.domain;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that republishes lifecycle callbacks as {@link CatalogChangeEvent}s.
+ * <p>
+ * Hibernate instantiates this class through Spring's bean container (configured by
+ * Spring Boot), so field injection works even though it is not a {@code @Component}.
+ * Writes made with raw SQL bypass this listener.
+ */
+public class CatalogEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        publish(entity, false);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, true);
+    }
+
+    private void publish(Object entity, boolean deleted) {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new CatalogChangeEvent(entity, deleted));
+        }
+    }
+}
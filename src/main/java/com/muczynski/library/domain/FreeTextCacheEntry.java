@@ -0,0 +1,62 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * What a free text lookup found for one normalized (author, title), so the same book is never
+ * searched twice. Keys use {@code FreeTextLookupCache.normalizeAuthor/normalizeTitle}; the
+ * author is empty for books without one.
+ * <p>
+ * A hit keeps its URLs for good. A miss ({@code urls} null) expires at {@code expiresAt}, and
+ * is also ignored once the provider version changes, since a new or changed provider may find
+ * the book.
+ */
+@Entity
+@Table(name = "free_text_cache", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_free_text_cache_key", columnNames = {"normalizedAuthor", "normalizedTitle"})
+})
+@Getter
+@Setter
+public class FreeTextCacheEntry {
+
+    public enum Source {
+        SEED,
+        LOOKUP
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String normalizedAuthor;
+
+    @Column(nullable = false, length = 500)
+    private String normalizedTitle;
+
+    // Space-separated URLs; null when nothing was found
+    @Column(length = 2000)
+    private String urls;
+
+    @Column(length = 64)
+    private String providerName;
+
+    @Column(nullable = false, length = 32)
+    private String providerVersion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Source source;
+
+    @Column(nullable = false)
+    private Instant checkedAt;
+
+    private Instant expiresAt;
+}
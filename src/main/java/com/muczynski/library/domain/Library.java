@@ -8,6 +8,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(uniqueConstraints = {
     @UniqueConstraint(name = "uk_library_branch_name", columnNames = "name")
 })
@@ -11,6 +11,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(
     indexes = {
         @Index(name = "idx_loan_book_return", columnList = "book_id, return_date"),
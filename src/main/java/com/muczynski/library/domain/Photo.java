@@ -10,6 +10,7 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Getter
 @Setter
 public class Photo {
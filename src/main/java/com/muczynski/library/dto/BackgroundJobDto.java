@@ -0,0 +1,37 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import com.muczynski.library.domain.BackgroundJob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A background job's progress, with the items processed since the {@code after} item
+ * order the client asked for.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackgroundJobDto {
+    private Long id;
+    private BackgroundJob.Type type;
+    private BackgroundJob.Status status;
+    private int total;
+    private int succeeded;
+    private int failed;
+    private int cancelled;
+    private boolean cancelRequested;
+    private String errorMessage;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private List<BackgroundJobItemDto> items;
+}
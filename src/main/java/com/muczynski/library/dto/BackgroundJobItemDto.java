@@ -0,0 +1,29 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.muczynski.library.domain.BackgroundJobItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One processed item of a background job.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackgroundJobItemDto {
+    private int itemOrder;
+    private Long targetId;
+    private BackgroundJobItem.Status status;
+    private int attempts;
+    // The lookup's result DTO, as stored; null when the lookup threw
+    @JsonRawValue
+    private String result;
+    private String errorMessage;
+    // Pass the highest one seen as the next poll's "after"
+    private long changeSeq;
+}
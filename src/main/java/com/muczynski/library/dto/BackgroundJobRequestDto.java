@@ -0,0 +1,23 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import com.muczynski.library.domain.BackgroundJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /api/jobs}. Without ids, LOC lookups run for every book missing a
+ * call number, and saved photo processing for every book with a temporary title.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackgroundJobRequestDto {
+    private BackgroundJob.Type type;
+    private List<Long> ids;
+}
@@ -20,6 +20,7 @@ public class BookDto {
 
     private Integer publicationYear;
     private String publisher;
+    // Long-form text: only filled in by GET /api/books/{id} and write responses, null in lists
     private String plotSummary;
     private String relatedWorks;
     private String detailedDescription;
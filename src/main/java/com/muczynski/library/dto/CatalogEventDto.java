@@ -0,0 +1,27 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change pushed by {@code GET /api/events}: enough for a client to decide what to
+ * refetch, not the entity itself. Loans and photos also name the book or author they belong
+ * to, since those change what the book or author shows.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogEventDto {
+    private String type;   // "book", "author", "loan" or "photo"
+    private Long id;
+    private LocalDateTime lastModified;  // null for photos, which have none
+    private boolean deleted;
+    private Long bookId;
+    private Long authorId;
+}
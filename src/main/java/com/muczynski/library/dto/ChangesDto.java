@@ -0,0 +1,31 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response of {@code GET /api/{entity}/changes?since=<token>}: the entities created or
+ * modified and the IDs deleted since the client's token.
+ *
+ * @param <S> the entity's summary DTO (id + lastModified)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangesDto<S> {
+    // Pass as "since" on the next request
+    private long token;
+    private List<S> upserted;
+    private List<Long> deleted;
+    // More changes are waiting; request again with the new token straight away
+    private boolean hasMore;
+    // The token is from a different database (e.g. after a restore); discard the local
+    // copy and sync again from since=0
+    private boolean resync;
+}
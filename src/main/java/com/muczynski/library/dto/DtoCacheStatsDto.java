@@ -0,0 +1,26 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counters for one region of the by-ids DTO cache. Weights are estimated heap bytes.
+ * Hits and misses count ids since startup; a stale entry counts as a miss.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DtoCacheStatsDto {
+    private String name;
+    private long entries;
+    private long weightedBytes;
+    private long maxWeightedBytes;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+}
@@ -0,0 +1,29 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Current state of one free text provider: its place in the search order, its circuit
+ * breaker, and its hit rate and 95th percentile latency over its most recent searches.
+ * Skipped counts searches not made since startup because the circuit was open.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FreeTextProviderStateDto {
+    private String providerName;
+    private int priority;
+    private int position;
+    private String circuitState;
+    private int consecutiveFailures;
+    private long retryInMillis;
+    private long skipped;
+    private int recentSamples;
+    private double recentHitRate;
+    private double p95Millis;
+}
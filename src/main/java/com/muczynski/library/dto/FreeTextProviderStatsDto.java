@@ -0,0 +1,33 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counters for one free text provider since startup. Calls are searches that finished
+ * (hits, misses and errors), with their latency. Timeouts are searches still waiting for the
+ * site at the fan-out deadline; cancelled are searches dropped because a higher-priority
+ * provider had already matched, or that had not reached the site by the deadline. Rate
+ * limited are searches our own rate limit refused.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FreeTextProviderStatsDto {
+    private String providerName;
+    private int priority;
+    private long calls;
+    private long hits;
+    private long misses;
+    private long errors;
+    private long timeouts;
+    private long cancelled;
+    private long rateLimited;
+    private double hitRate;
+    private double averageMillis;
+    private double maxMillis;
+}
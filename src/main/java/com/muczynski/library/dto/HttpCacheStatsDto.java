@@ -0,0 +1,25 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outbound HTTP response cache since startup: its mode, the bytes it holds on disk, and
+ * how many requests it answered (hits), sent on (misses), confirmed with a 304 answer
+ * (revalidated) and stored.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HttpCacheStatsDto {
+    private String mode;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long revalidated;
+    private long stored;
+}
@@ -0,0 +1,27 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outbound HTTP traffic to one host since startup: requests sent, errors (I/O failures and
+ * 5xx answers), requests in flight now, and the mean and 95th percentile time to the
+ * response headers over the most recent requests.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboundHostStatsDto {
+    private String host;
+    private long requests;
+    private long errors;
+    private int inFlight;
+    private int recentSamples;
+    private double meanMillis;
+    private double p95Millis;
+    private String lastError;
+}
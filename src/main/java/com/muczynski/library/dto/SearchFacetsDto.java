@@ -0,0 +1,27 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Facet counts for the current search: how many of the matching books satisfy each
+ * filter chip and carry each label, i.e. how many would remain if that chip or label
+ * were added to the current selection.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchFacetsDto {
+    private long inLibrary;
+    private long electronic;
+    private long freeText;
+    private long audio;
+    // Labels present among the matching books, sorted by label; labels with no matches are omitted
+    private List<LabelCountDto> labels;
+}
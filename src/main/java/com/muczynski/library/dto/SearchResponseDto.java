@@ -3,6 +3,7 @@
  */
 package com.muczynski.library.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,4 +18,15 @@ public class SearchResponseDto {
     private List<AuthorDto> authors;
     private PageInfoDto bookPage;
     private PageInfoDto authorPage;
+    // Only filled in when the request asks for facets=true
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private SearchFacetsDto facets;
+    // Cursor mode only: opaque position of the next page, absent on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public SearchResponseDto(List<BookDto> books, List<AuthorDto> authors,
+                             PageInfoDto bookPage, PageInfoDto authorPage) {
+        this(books, authors, bookPage, authorPage, null, null);
+    }
 }
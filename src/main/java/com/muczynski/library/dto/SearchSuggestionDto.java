@@ -0,0 +1,22 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A typeahead completion returned by /api/search/suggest.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchSuggestionDto {
+    private String text;
+    // "title", "author" or "label"
+    private String type;
+    // Number of catalog entries behind the suggestion (books with the title or label, 1 + books by the author)
+    private int weight;
+}
@@ -0,0 +1,23 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response of {@code GET /api/books/shelf}: one page of books in shelf (call number) order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShelfPageDto {
+    private List<BookSummaryDto> books;
+    // Pass as afterKey and afterId for the next page; both null on the last page
+    private String nextAfterKey;
+    private Long nextAfterId;
+}
@@ -0,0 +1,240 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext;
+
+import com.muczynski.library.domain.FreeTextCacheEntry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers what free text lookups found, in the {@link FreeTextCacheEntry} table with an
+ * in-memory copy in front, so a book already searched (here or on another instance) costs
+ * no network calls. {@link FreeTextLookupService} records every search's hit or miss.
+ * <p>
+ * Hits are kept for good. A book is answered by its own author's entry first; another
+ * spelling of the author's name matches on last name, and only seeded hits answer for a book
+ * by any author, so a generic title such as "Poems" found for one author is not served for
+ * another's. Misses expire after {@code app.free-text.cache.miss-ttl-days}, and
+ * are ignored once the provider version changes: the configured
+ * {@code app.free-text.cache.provider-version} plus the set of provider names, so adding or
+ * removing a provider re-searches earlier misses.
+ * <p>
+ * The table is seeded from {@link FreeTextLookupCache} the first time it starts empty.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FreeTextCacheService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<FreeTextProvider> providers;
+
+    @Value("${app.free-text.cache.miss-ttl-days:90}")
+    private int missTtlDays;
+
+    @Value("${app.free-text.cache.provider-version:1}")
+    private String configuredVersion;
+
+    /**
+     * normalizedTitle -> (normalizedAuthor -> entry). Keyed by title first, since every
+     * lookup knows its title but the author match may be fuzzy.
+     */
+    private final Map<String, Map<String, Entry>> entries = new ConcurrentHashMap<>();
+
+    // Rows checked after this were written since the last load, possibly by another instance
+    private volatile Instant loadedUpTo = Instant.EPOCH;
+
+    // checked_at is the writing transaction's start time, so a row can commit after later ones
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private record Entry(String urls, String providerVersion, Instant expiresAt, boolean seeded) {
+
+        boolean isHit() {
+            return urls != null;
+        }
+    }
+
+    /**
+     * Seed the table on first start, then load it into memory.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            seedIfEmpty();
+            refresh();
+            log.info("Free text cache loaded {} titles", entries.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to load the free text cache: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pick up entries written by other instances since the last load.
+     */
+    @Scheduled(initialDelayString = "${app.free-text.cache.refresh-ms:300000}",
+            fixedDelayString = "${app.free-text.cache.refresh-ms:300000}")
+    public void refresh() {
+        Instant since = loadedUpTo;
+        Instant[] latest = {since};
+        jdbcTemplate.query("SELECT normalized_author, normalized_title, urls, provider_version, source, "
+                + "checked_at, expires_at FROM free_text_cache WHERE checked_at > ?", rs -> {
+            Instant checkedAt = rs.getTimestamp("checked_at").toInstant();
+            Timestamp expiresAt = rs.getTimestamp("expires_at");
+            put(rs.getString("normalized_author"), rs.getString("normalized_title"),
+                    new Entry(rs.getString("urls"), rs.getString("provider_version"),
+                            expiresAt == null ? null : expiresAt.toInstant(), "SEED".equals(rs.getString("source"))));
+            if (checkedAt.isAfter(latest[0])) {
+                latest[0] = checkedAt;
+            }
+        }, Timestamp.from(since.equals(Instant.EPOCH) ? since : since.minus(REFRESH_OVERLAP)));
+        loadedUpTo = latest[0];
+    }
+
+    /**
+     * Cached URLs for a book.
+     *
+     * @return space-separated URLs for a hit, an empty string for a current miss, or null if
+     *         the book must be searched
+     */
+    public String lookup(String author, String title) {
+        if (title == null || title.isBlank()) {
+            return null;
+        }
+        Map<String, Entry> byAuthor = entries.get(FreeTextLookupCache.normalizeTitle(title));
+        if (byAuthor == null) {
+            return null;
+        }
+        String normalizedAuthor = normalizedAuthor(author);
+        Entry exact = byAuthor.get(normalizedAuthor);
+        if (exact != null) {
+            if (exact.isHit()) {
+                return exact.urls();
+            }
+            if (isCurrentMiss(exact)) {
+                return "";
+            }
+        }
+
+        // Another spelling of the author's name, matched on last name, then any author's seeded hit
+        String lastName = lastName(normalizedAuthor);
+        Entry fallback = null;
+        for (Map.Entry<String, Entry> candidate : byAuthor.entrySet()) {
+            Entry entry = candidate.getValue();
+            if (!entry.isHit()) {
+                continue;
+            }
+            if (!lastName.isEmpty() && lastName.equals(lastName(candidate.getKey()))) {
+                return entry.urls();
+            }
+            if (fallback == null && entry.seeded()) {
+                fallback = entry;
+            }
+        }
+        return fallback != null ? fallback.urls() : null;
+    }
+
+    /**
+     * Remember that a provider found the book at these URLs.
+     */
+    public void recordHit(String author, String title, String urls, String providerName) {
+        record(author, title, urls, providerName, null);
+    }
+
+    /**
+     * Remember that no provider found the book, until the miss expires.
+     */
+    public void recordMiss(String author, String title) {
+        record(author, title, null, null, Instant.now().plus(Duration.ofDays(missTtlDays)));
+    }
+
+    /**
+     * The stamp written on new entries: misses under any other stamp are searched again.
+     */
+    public String getProviderVersion() {
+        List<String> names = providers.stream().map(FreeTextProvider::getProviderName).sorted().toList();
+        return configuredVersion + "-" + Integer.toHexString(names.hashCode());
+    }
+
+    public int getTitleCount() {
+        return entries.size();
+    }
+
+    private void record(String author, String title, String urls, String providerName, Instant expiresAt) {
+        if (title == null || title.isBlank()) {
+            return;
+        }
+        String normalizedAuthor = normalizedAuthor(author);
+        String normalizedTitle = FreeTextLookupCache.normalizeTitle(title);
+        String providerVersion = getProviderVersion();
+        try {
+            jdbcTemplate.update("""
+                    INSERT INTO free_text_cache (normalized_author, normalized_title, urls, provider_name,
+                        provider_version, source, checked_at, expires_at)
+                    VALUES (?, ?, ?, ?, ?, 'LOOKUP', now(), ?)
+                    ON CONFLICT (normalized_author, normalized_title) DO UPDATE SET urls = EXCLUDED.urls,
+                        provider_name = EXCLUDED.provider_name, provider_version = EXCLUDED.provider_version,
+                        source = EXCLUDED.source, checked_at = EXCLUDED.checked_at, expires_at = EXCLUDED.expires_at
+                    """, normalizedAuthor, normalizedTitle, urls, providerName, providerVersion,
+                    expiresAt == null ? null : Timestamp.from(expiresAt));
+        } catch (RuntimeException e) {
+            // The lookup's result is saved on the book either way
+            log.warn("Could not cache free text result for '{}': {}", title, e.getMessage());
+        }
+        put(normalizedAuthor, normalizedTitle, new Entry(urls, providerVersion, expiresAt, false));
+    }
+
+    private void seedIfEmpty() {
+        Boolean seeded = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM free_text_cache)", Boolean.class);
+        if (Boolean.TRUE.equals(seeded)) {
+            return;
+        }
+        String providerVersion = getProviderVersion();
+        Timestamp missExpiresAt = Timestamp.from(Instant.now().plus(Duration.ofDays(missTtlDays)));
+        List<Object[]> rows = new ArrayList<>();
+        for (FreeTextLookupCache.SeedEntry seed : FreeTextLookupCache.seedEntries()) {
+            boolean hit = !seed.urls().isEmpty();
+            rows.add(new Object[]{normalizedAuthor(seed.author()), FreeTextLookupCache.normalizeTitle(seed.title()),
+                    hit ? seed.urls() : null, providerVersion, hit ? null : missExpiresAt});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO free_text_cache (normalized_author, normalized_title, urls, provider_version, source,
+                    checked_at, expires_at)
+                VALUES (?, ?, ?, ?, 'SEED', now(), ?)
+                ON CONFLICT (normalized_author, normalized_title) DO NOTHING
+                """, rows);
+        log.info("Seeded the free text cache with {} known lookups", rows.size());
+    }
+
+    private boolean isCurrentMiss(Entry entry) {
+        return entry.expiresAt() != null && entry.expiresAt().isAfter(Instant.now())
+                && getProviderVersion().equals(entry.providerVersion());
+    }
+
+    private void put(String normalizedAuthor, String normalizedTitle, Entry entry) {
+        entries.computeIfAbsent(normalizedTitle, title -> new ConcurrentHashMap<>()).put(normalizedAuthor, entry);
+    }
+
+    private static String normalizedAuthor(String author) {
+        return author == null || author.isBlank() ? "" : FreeTextLookupCache.normalizeAuthor(author);
+    }
+
+    private static String lastName(String normalizedAuthor) {
+        int space = normalizedAuthor.lastIndexOf(' ');
+        return space < 0 ? normalizedAuthor : normalizedAuthor.substring(space + 1);
+    }
+}
@@ -3,19 +3,27 @@
  */
 package com.muczynski.library.freetext;
 
+import com.muczynski.library.util.TextNormalizer;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
- * Global cache of known free text URLs for books.
- * Uses pre-computed lookup results to avoid redundant provider queries.
+ * Known free text URLs for books, gathered from provider lookup logs before lookups were
+ * cached in the database. These entries seed {@link FreeTextCacheService}'s table on first
+ * start; lookups go through that service, which also learns from every new search.
+ * <p>
+ * The entries are kept as written and only normalized when first needed, so loading the
+ * class costs nothing on a cold start.
  *
- * The cache stores normalized author names mapped to normalized titles,
+ * The lookup index stores normalized author names mapped to normalized titles,
  * which then map to space-separated URL strings.
  *
- * Normalization uses the same algorithms as {@link TitleMatcher}:
+ * Normalization (shared with {@link FreeTextCacheService}) is {@link TextNormalizer}'s, as in {@link TitleMatcher}:
  * - Lowercase conversion
  * - Punctuation removal (except spaces)
  * - Trailing parenthetical content removal
@@ -26,9 +34,12 @@ import java.util.Map;
 public final class FreeTextLookupCache {
 
     /**
-     * Map structure: normalizedAuthor -> (normalizedTitle -> space-separated URLs)
+     * One known lookup result as written: space-separated URLs, or empty if not found.
      */
-    private static final Map<String, Map<String, String>> CACHE = new HashMap<>();
+    public record SeedEntry(String author, String title, String urls) {
+    }
+
+    private static final List<SeedEntry> SEEDS = new ArrayList<>();
 
     static {
         // Data extracted from book-lookup-reference-backup/*.log HITs
@@ -513,7 +524,24 @@ public final class FreeTextLookupCache {
         addNotFound("William J. Bennett", "The Children's Book of Faith");
         addNotFound("William John Bennett", "The Children's Book of Virtues");
 
-        log.info("FreeTextLookupCache initialized with {} authors", CACHE.size());
+    }
+
+    /**
+     * Map structure: normalizedAuthor -> (normalizedTitle -> space-separated URLs),
+     * built on first use.
+     */
+    private static final class Index {
+        private static final Map<String, Map<String, String>> CACHE = build();
+
+        private static Map<String, Map<String, String>> build() {
+            Map<String, Map<String, String>> cache = new HashMap<>();
+            for (SeedEntry seed : SEEDS) {
+                cache.computeIfAbsent(normalizeAuthor(seed.author()), k -> new HashMap<>())
+                        .put(normalizeTitle(seed.title()), seed.urls());
+            }
+            log.info("FreeTextLookupCache index built with {} authors", cache.size());
+            return cache;
+        }
     }
 
     private FreeTextLookupCache() {
@@ -524,12 +552,14 @@ public final class FreeTextLookupCache {
      * Add an entry to the cache with multiple URLs.
      */
     private static void add(String author, String title, String... urls) {
-        String normalizedAuthor = normalizeAuthor(author);
-        String normalizedTitle = normalizeTitle(title);
-        String urlString = String.join(" ", urls);
+        SEEDS.add(new SeedEntry(author, title, String.join(" ", urls)));
+    }
 
-        CACHE.computeIfAbsent(normalizedAuthor, k -> new HashMap<>())
-             .put(normalizedTitle, urlString);
+    /**
+     * Every known entry, in the order written.
+     */
+    public static List<SeedEntry> seedEntries() {
+        return Collections.unmodifiableList(SEEDS);
     }
 
     /**
@@ -559,7 +589,7 @@ public final class FreeTextLookupCache {
         if (author != null && !author.isBlank()) {
             String normalizedAuthor = normalizeAuthor(author);
 
-            Map<String, String> authorCache = CACHE.get(normalizedAuthor);
+            Map<String, String> authorCache = Index.CACHE.get(normalizedAuthor);
             if (authorCache != null) {
                 String urls = authorCache.get(normalizedTitle);
                 if (urls != null) {
@@ -570,7 +600,7 @@ public final class FreeTextLookupCache {
 
             // Try fuzzy author matching (last name match)
             String authorLastName = getLastName(normalizedAuthor);
-            for (Map.Entry<String, Map<String, String>> entry : CACHE.entrySet()) {
+            for (Map.Entry<String, Map<String, String>> entry : Index.CACHE.entrySet()) {
                 String cachedLastName = getLastName(entry.getKey());
                 if (cachedLastName.equals(authorLastName)) {
                     String urls = entry.getValue().get(normalizedTitle);
@@ -583,7 +613,7 @@ public final class FreeTextLookupCache {
         }
 
         // Fall back to title-only search across all authors
-        for (Map<String, String> authorCache : CACHE.values()) {
+        for (Map<String, String> authorCache : Index.CACHE.values()) {
             String urls = authorCache.get(normalizedTitle);
             if (urls != null) {
                 log.debug("Cache hit for title='{}' (title-only)", title);
@@ -619,12 +649,7 @@ public final class FreeTextLookupCache {
      * - Collapse multiple spaces
      */
     static String normalizeTitle(String title) {
-        return title.toLowerCase()
-                .replaceAll("\\s*\\([^)]*\\)\\s*$", "") // Remove trailing (date), (edition), etc.
-                .replaceAll("^(the|a|an)\\s+", "")
-                .replaceAll("[^a-z0-9\\s]", "")
-                .replaceAll("\\s+", " ")
-                .trim();
+        return TextNormalizer.normalizeTitle(title);
     }
 
     /**
@@ -634,10 +659,7 @@ public final class FreeTextLookupCache {
      * - Collapse multiple spaces
      */
     static String normalizeAuthor(String author) {
-        return author.toLowerCase()
-                .replaceAll("[^a-z\\s]", "")
-                .replaceAll("\\s+", " ")
-                .trim();
+        return TextNormalizer.normalizeAuthor(author);
     }
 
     /**
@@ -658,7 +680,7 @@ public final class FreeTextLookupCache {
      * @return number of unique authors in cache
      */
     public static int getAuthorCount() {
-        return CACHE.size();
+        return Index.CACHE.size();
     }
 
     /**
@@ -667,7 +689,7 @@ public final class FreeTextLookupCache {
      * @return total number of author/title combinations
      */
     public static int getBookCount() {
-        return CACHE.values().stream()
+        return Index.CACHE.values().stream()
                 .mapToInt(Map::size)
                 .sum();
     }
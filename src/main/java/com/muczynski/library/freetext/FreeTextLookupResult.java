@@ -9,7 +9,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
- * Result from a single provider's search for free online text.
+ * Result from a single provider's search for free online text. The outcome tells a miss
+ * (the provider searched and had nothing) from a search that didn't happen or didn't get
+ * an answer, whatever the error message says.
  */
 @Data
 @Builder
@@ -17,6 +19,19 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class FreeTextLookupResult {
 
+    public enum Outcome {
+        /** The provider has the book */
+        FOUND,
+        /** The provider searched and doesn't have it */
+        NOT_FOUND,
+        /** The search failed or the provider didn't answer */
+        ERROR,
+        /** Our own throttle refused the search */
+        RATE_LIMITED,
+        /** Skipped because the provider's circuit breaker is open */
+        CIRCUIT_OPEN
+    }
+
     /**
      * Name of the provider that performed the search
      */
@@ -38,15 +53,34 @@ public class FreeTextLookupResult {
      */
     private String errorMessage;
 
+    private Outcome outcome;
+
+    /**
+     * Create a result for a search that completed without finding the book.
+     */
+    public static FreeTextLookupResult notFound(String providerName, String errorMessage) {
+        return failure(providerName, Outcome.NOT_FOUND, errorMessage);
+    }
+
     /**
-     * Create an error result with the given message.
+     * Create an error result for a search that failed or got no answer.
      */
     public static FreeTextLookupResult error(String providerName, String errorMessage) {
-        return FreeTextLookupResult.builder()
-                .providerName(providerName)
-                .found(false)
-                .errorMessage(errorMessage)
-                .build();
+        return failure(providerName, Outcome.ERROR, errorMessage);
+    }
+
+    /**
+     * Create a result for a search our own throttle refused.
+     */
+    public static FreeTextLookupResult rateLimited(String providerName, String errorMessage) {
+        return failure(providerName, Outcome.RATE_LIMITED, errorMessage);
+    }
+
+    /**
+     * Create a result for a search skipped by an open circuit breaker.
+     */
+    public static FreeTextLookupResult circuitOpen(String providerName, String errorMessage) {
+        return failure(providerName, Outcome.CIRCUIT_OPEN, errorMessage);
     }
 
     /**
@@ -57,6 +91,16 @@ public class FreeTextLookupResult {
                 .providerName(providerName)
                 .found(true)
                 .url(url)
+                .outcome(Outcome.FOUND)
+                .build();
+    }
+
+    private static FreeTextLookupResult failure(String providerName, Outcome outcome, String errorMessage) {
+        return FreeTextLookupResult.builder()
+                .providerName(providerName)
+                .found(false)
+                .errorMessage(errorMessage)
+                .outcome(outcome)
                 .build();
     }
 }
@@ -3,87 +3,204 @@
  */
 package com.muczynski.library.freetext;
 
-import com.muczynski.library.domain.Book;
 import com.muczynski.library.dto.FreeTextBulkLookupResultDto;
+import com.muczynski.library.dto.FreeTextProviderStateDto;
+import com.muczynski.library.dto.FreeTextProviderStatsDto;
 import com.muczynski.library.exception.LibraryException;
 import com.muczynski.library.repository.BookRepository;
 import com.muczynski.library.service.BooksFromFeedService;
+import com.muczynski.library.service.LookupTransactions;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.net.URI;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service that orchestrates free text lookup across multiple providers.
- * Tries providers in priority order until one finds a match.
+ * The highest-priority provider with a match wins. By default every provider is asked at
+ * once under an overall deadline ({@code app.free-text.fan-out.*}); with fan-out disabled
+ * they are tried one after another until one finds a match.
+ * <p>
+ * Not transactional: a lookup can spend many seconds on provider calls, and the pool has only
+ * a few connections. The book is read in one short transaction, the providers are searched
+ * with no connection held, and a match is saved in another short transaction.
+ * <p>
+ * Each provider's site is protected by a {@link ProviderThrottle} built from its
+ * {@link FreeTextProvider#getRateLimit()}, so bulk lookups can run several books at once
+ * ({@code app.free-text.bulk.parallelism}) without exceeding any site's limits. A bulk
+ * lookup then goes as fast as the slowest provider's rate allows.
+ * <p>
+ * A {@link ProviderCircuitBreaker} per provider skips a site that keeps failing or timing out
+ * ({@code app.free-text.circuit-breaker.*}). With {@code app.free-text.adaptive-order.enabled}
+ * the providers are ranked by their recent hit rate and 95th percentile latency instead of
+ * their fixed priority.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class FreeTextLookupService {
 
     private final BookRepository bookRepository;
     private final List<FreeTextProvider> providers;
+    private final LookupTransactions transactions;
+    private final FreeTextCacheService cacheService;
+
+    @Value("${app.free-text.fan-out.enabled:true}")
+    private boolean fanOut;
+
+    @Value("${app.free-text.fan-out.deadline-ms:20000}")
+    private long fanOutDeadlineMs;
+
+    // Enough for a bulk lookup's four books to ask all nine providers at once
+    @Value("${app.free-text.fan-out.threads:36}")
+    private int fanOutThreads;
+
+    @Value("${app.free-text.rate-limit.enabled:true}")
+    private boolean rateLimit;
+
+    @Value("${app.free-text.rate-limit.max-wait-ms:30000}")
+    private long rateLimitMaxWaitMs;
+
+    @Value("${app.free-text.bulk.parallelism:4}")
+    private int bulkParallelism;
+
+    @Value("${app.free-text.circuit-breaker.enabled:true}")
+    private boolean circuitBreaker;
+
+    @Value("${app.free-text.circuit-breaker.failure-threshold:3}")
+    private int circuitFailureThreshold;
+
+    @Value("${app.free-text.circuit-breaker.open-ms:120000}")
+    private long circuitOpenMs;
+
+    @Value("${app.free-text.adaptive-order.enabled:false}")
+    private boolean adaptiveOrder;
+
+    // Recent searches per provider kept for the hit rate and p95 latency
+    @Value("${app.free-text.adaptive-order.window:100}")
+    private int adaptiveWindow;
+
+    @Value("${app.free-text.adaptive-order.min-samples:20}")
+    private int adaptiveMinSamples;
+
+    private final Map<String, ProviderStats> stats = new ConcurrentHashMap<>();
+
+    private final Map<String, ProviderCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private final Map<String, ProviderThrottle> throttles = new ConcurrentHashMap<>();
+
+    private ExecutorService fanOutExecutor;
+
+    private ExecutorService bulkExecutor;
 
     @PostConstruct
     public void init() {
         // Sort providers by priority (lower = higher priority)
         providers.sort(Comparator.comparingInt(FreeTextProvider::getPriority));
+        if (fanOut) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            fanOutExecutor = Executors.newFixedThreadPool(fanOutThreads, runnable -> {
+                Thread thread = new Thread(runnable, "free-text-lookup-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (rateLimit) {
+            for (FreeTextProvider provider : providers) {
+                throttles.put(provider.getProviderName(),
+                        new ProviderThrottle(provider.getProviderName(), provider.getRateLimit(), rateLimitMaxWaitMs));
+            }
+        }
+        if (circuitBreaker) {
+            for (FreeTextProvider provider : providers) {
+                breakers.put(provider.getProviderName(), new ProviderCircuitBreaker(
+                        provider.getProviderName(), circuitFailureThreshold, circuitOpenMs));
+            }
+        }
+        if (bulkParallelism > 1) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            bulkExecutor = Executors.newFixedThreadPool(bulkParallelism, runnable -> {
+                Thread thread = new Thread(runnable, "free-text-bulk-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
         log.info("Initialized {} free text providers: {}",
                 providers.size(),
                 providers.stream().map(FreeTextProvider::getProviderName).toList());
-        log.info("Free text cache contains {} authors with {} books",
-                FreeTextLookupCache.getAuthorCount(),
-                FreeTextLookupCache.getBookCount());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdownNow();
+        }
+        if (bulkExecutor != null) {
+            bulkExecutor.shutdownNow();
+        }
     }
 
     /**
      * Look up free online text for a single book.
-     * First checks the global cache, then tries all providers in priority order until one finds a match.
+     * First checks the cache, then searches the providers; the highest-priority match wins.
+     * The outcome is cached: a match for good, and a miss for a while if every provider answered.
      *
      * @param bookId the book ID to look up
      * @return result with URL if found, or error message if not
      */
     public FreeTextBulkLookupResultDto lookupBook(Long bookId) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new LibraryException("Book not found: " + bookId));
+        BookSnapshot book = transactions.read(status -> bookRepository.findById(bookId)
+                .map(found -> new BookSnapshot(found.getTitle(),
+                        found.getAuthor() != null ? found.getAuthor().getName() : null))
+                .orElseThrow(() -> new LibraryException("Book not found: " + bookId)));
 
         // Skip temporary titles
-        if (BooksFromFeedService.isTemporaryTitle(book.getTitle())) {
+        if (BooksFromFeedService.isTemporaryTitle(book.title())) {
             return FreeTextBulkLookupResultDto.builder()
                     .bookId(bookId)
-                    .bookTitle(book.getTitle())
+                    .bookTitle(book.title())
                     .success(false)
                     .errorMessage("Temporary title - skipped")
                     .providersSearched(List.of())
                     .build();
         }
 
-        String authorName = book.getAuthor() != null ? book.getAuthor().getName() : null;
+        String authorName = book.authorName();
 
-        // Check global cache first (may return multiple space-separated URLs)
+        // Check the cache first (may return multiple space-separated URLs)
         // Empty string "" means "searched but not found" - don't search again
-        String cachedUrls = FreeTextLookupCache.lookup(authorName, book.getTitle());
+        String cachedUrls = cacheService.lookup(authorName, book.title());
         if (cachedUrls != null) {
             if (!cachedUrls.isBlank()) {
                 // Found URLs in cache
-                book.setFreeTextUrl(cachedUrls);
-                book.setLastModified(LocalDateTime.now());
-                bookRepository.save(book);
+                saveFreeTextUrl(bookId, cachedUrls);
 
                 log.info("Found free text for book {} in cache: {}", bookId, cachedUrls);
 
                 return FreeTextBulkLookupResultDto.builder()
                         .bookId(bookId)
-                        .bookTitle(book.getTitle())
+                        .bookTitle(book.title())
                         .authorName(authorName)
                         .success(true)
                         .freeTextUrl(cachedUrls)
@@ -96,7 +213,7 @@ public class FreeTextLookupService {
 
                 return FreeTextBulkLookupResultDto.builder()
                         .bookId(bookId)
-                        .bookTitle(book.getTitle())
+                        .bookTitle(book.title())
                         .authorName(authorName)
                         .success(false)
                         .errorMessage("Previously searched - not found (cached)")
@@ -107,65 +224,40 @@ public class FreeTextLookupService {
         }
 
         List<String> searchedProviders = new ArrayList<>();
+        Search search = fanOut
+                ? searchConcurrently(book.title(), authorName, searchedProviders)
+                : searchInOrder(book.title(), authorName, searchedProviders);
+        Match match = search.match();
 
-        for (FreeTextProvider provider : providers) {
-            searchedProviders.add(provider.getProviderName());
+        if (match != null) {
+            // Update the book with the found URL
+            saveFreeTextUrl(bookId, match.url());
+            cacheService.recordHit(authorName, book.title(), match.url(), match.provider().getProviderName());
 
-            try {
-                log.debug("Searching {} for book '{}' by '{}'",
-                        provider.getProviderName(), book.getTitle(), authorName);
-
-                FreeTextLookupResult result = provider.search(book.getTitle(), authorName);
-
-                if (result.isFound()) {
-                    // Validate domain if provider specifies expected domains
-                    List<String> expectedDomains = provider.getExpectedDomains();
-                    if (!expectedDomains.isEmpty()) {
-                        String urlDomain = extractDomain(result.getUrl());
-                        boolean domainMatches = expectedDomains.stream()
-                                .anyMatch(expected -> urlDomain != null && urlDomain.contains(expected));
-                        if (!domainMatches) {
-                            log.error("Provider {} returned URL with unexpected domain: {} (expected one of: {})",
-                                    provider.getProviderName(), result.getUrl(), expectedDomains);
-                            // Skip this result and continue to next provider
-                            continue;
-                        }
-                    }
+            log.info("Found free text for book {}: {} via {}",
+                    bookId, match.url(), match.provider().getProviderName());
 
-                    // Update the book with the found URL
-                    book.setFreeTextUrl(result.getUrl());
-                    book.setLastModified(LocalDateTime.now());
-                    bookRepository.save(book);
-
-                    log.info("Found free text for book {}: {} via {}",
-                            bookId, result.getUrl(), provider.getProviderName());
-
-                    return FreeTextBulkLookupResultDto.builder()
-                            .bookId(bookId)
-                            .bookTitle(book.getTitle())
-                            .authorName(authorName)
-                            .success(true)
-                            .freeTextUrl(result.getUrl())
-                            .providerName(provider.getProviderName())
-                            .providersSearched(searchedProviders)
-                            .build();
-                } else {
-                    log.debug("Provider {} did not find book: {}",
-                            provider.getProviderName(), result.getErrorMessage());
-                }
-            } catch (Exception e) {
-                log.warn("Provider {} failed for book {}: {}",
-                        provider.getProviderName(), bookId, e.getMessage());
-            }
+            return FreeTextBulkLookupResultDto.builder()
+                    .bookId(bookId)
+                    .bookTitle(book.title())
+                    .authorName(authorName)
+                    .success(true)
+                    .freeTextUrl(match.url())
+                    .providerName(match.provider().getProviderName())
+                    .providersSearched(searchedProviders)
+                    .build();
         }
 
-        // No provider found a match
+        // No provider found a match; only cache that if none failed or ran out of time
+        if (search.complete()) {
+            cacheService.recordMiss(authorName, book.title());
+        }
         log.info("No free text found for book {} '{}' after searching {} providers",
-                bookId, book.getTitle(), searchedProviders.size());
+                bookId, book.title(), searchedProviders.size());
 
         return FreeTextBulkLookupResultDto.builder()
                 .bookId(bookId)
-                .bookTitle(book.getTitle())
+                .bookTitle(book.title())
                 .authorName(authorName)
                 .success(false)
                 .errorMessage("Not found in any provider")
@@ -174,29 +266,281 @@ public class FreeTextLookupService {
     }
 
     /**
-     * Look up free online text for multiple books.
+     * Save a found URL in its own short transaction, on the current state of the book.
+     */
+    private void saveFreeTextUrl(Long bookId, String url) {
+        transactions.updateBook(bookId, book -> book.setFreeTextUrl(url));
+    }
+
+    /**
+     * Ask one provider at a time, in search order, until one has a match.
+     */
+    private Search searchInOrder(String title, String authorName, List<String> searchedProviders) {
+        boolean complete = true;
+        for (FreeTextProvider provider : searchOrder()) {
+            searchedProviders.add(provider.getProviderName());
+            FreeTextLookupResult result = search(provider, title, authorName, new Attempt());
+            complete &= answered(result);
+            String url = acceptedUrl(provider, result);
+            if (url != null) {
+                return new Search(new Match(provider, url), complete);
+            }
+        }
+        return new Search(null, complete);
+    }
+
+    /**
+     * Ask every provider at once, then take results in search order: a provider's match
+     * wins once every higher-ranked provider has answered without one or run out of time.
+     * Searches still running when the winner is known are cancelled, and any still running
+     * at the deadline are given up on. A lookup takes about as long as its slowest
+     * higher-priority provider, rather than the sum of all of them.
+     */
+    private Search searchConcurrently(String title, String authorName, List<String> searchedProviders) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fanOutDeadlineMs);
+        List<FreeTextProvider> order = searchOrder();
+        List<Future<FreeTextLookupResult>> futures = new ArrayList<>(order.size());
+        List<Attempt> attempts = new ArrayList<>(order.size());
+        for (FreeTextProvider provider : order) {
+            Attempt attempt = new Attempt();
+            attempts.add(attempt);
+            futures.add(fanOutExecutor.submit(() -> search(provider, title, authorName, attempt)));
+        }
+        try {
+            boolean complete = true;
+            for (int i = 0; i < order.size(); i++) {
+                FreeTextProvider provider = order.get(i);
+                searchedProviders.add(provider.getProviderName());
+                FreeTextLookupResult result = await(provider, futures.get(i), attempts.get(i), deadline);
+                complete &= answered(result);
+                String url = acceptedUrl(provider, result);
+                if (url != null) {
+                    return new Search(new Match(provider, url), complete);
+                }
+            }
+            return new Search(null, complete);
+        } finally {
+            for (int i = 0; i < futures.size(); i++) {
+                if (futures.get(i).cancel(true)) {
+                    statsFor(order.get(i)).cancelled.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait until the deadline for a search started by searchConcurrently(). A search still
+     * running then is cancelled. It counts as a timeout, and a failure for the circuit breaker,
+     * only if a request had been sent to the site; one still queued for a thread, a search slot
+     * or a request token says nothing about the site and counts as cancelled.
+     */
+    private FreeTextLookupResult await(FreeTextProvider provider, Future<FreeTextLookupResult> future,
+                                       Attempt attempt, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            ProviderStats providerStats = statsFor(provider);
+            if (!attempt.started()) {
+                providerStats.cancelled.increment();
+                log.warn("Provider {} was not reached within the {} ms lookup deadline",
+                        provider.getProviderName(), fanOutDeadlineMs);
+                return null;
+            }
+            providerStats.timeouts.increment();
+            providerStats.sample(false, System.nanoTime() - attempt.startedAt);
+            ProviderCircuitBreaker breaker = breakers.get(provider.getProviderName());
+            if (breaker != null) {
+                breaker.recordFailure();
+            }
+            log.warn("Provider {} did not answer within the {} ms lookup deadline",
+                    provider.getProviderName(), fanOutDeadlineMs);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LibraryException("Interrupted while searching free text providers");
+        } catch (ExecutionException e) {
+            // search() handles provider failures; anything else is a bug in this class
+            log.error("Unexpected failure searching {}", provider.getProviderName(), e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Run one provider's search, recording its outcome and latency. A provider whose circuit
+     * is open is not searched. The attempt is marked started when the search is let through
+     * to the site: at once without a rate limit, otherwise when its first request gets a token.
+     *
+     * @return the provider's result, or null if it threw
+     */
+    private FreeTextLookupResult search(FreeTextProvider provider, String title, String authorName,
+                                        Attempt attempt) {
+        ProviderStats providerStats = statsFor(provider);
+        ProviderCircuitBreaker breaker = breakers.get(provider.getProviderName());
+        if (breaker != null && !breaker.tryAcquire()) {
+            providerStats.skipped.increment();
+            log.debug("Skipping {}: circuit open", provider.getProviderName());
+            return FreeTextLookupResult.circuitOpen(provider.getProviderName(),
+                    "Circuit open: skipped after repeated failures");
+        }
+        long start = System.nanoTime();
+        try {
+            log.debug("Searching {} for book '{}' by '{}'", provider.getProviderName(), title, authorName);
+            ProviderThrottle throttle = throttles.get(provider.getProviderName());
+            FreeTextLookupResult result;
+            if (throttle != null) {
+                result = throttle.search(() -> provider.search(title, authorName), attempt::start);
+            } else {
+                attempt.start();
+                result = provider.search(title, authorName);
+            }
+            long nanos = System.nanoTime() - start;
+            if (!result.isFound()) {
+                log.debug("Provider {} did not find book: {}", provider.getProviderName(), result.getErrorMessage());
+            }
+            if (result.getOutcome() == FreeTextLookupResult.Outcome.RATE_LIMITED
+                    || (!answered(result) && !attempt.started())) {
+                // Our own throttle refused the search or its first request; says nothing about the site
+                providerStats.rateLimited.increment();
+                if (breaker != null) {
+                    breaker.release();
+                }
+            } else {
+                providerStats.record(result.isFound() ? providerStats.hits : providerStats.misses, nanos);
+                providerStats.sample(result.isFound(), nanos);
+                if (breaker != null) {
+                    // A miss is an answer; an error result is a failure whatever its message
+                    if (answered(result)) {
+                        breaker.recordSuccess();
+                    } else {
+                        breaker.recordFailure();
+                    }
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                // Cancelled by searchConcurrently(), which has already counted it
+                log.debug("Search of {} cancelled", provider.getProviderName());
+                if (breaker != null) {
+                    breaker.release();
+                }
+                return null;
+            }
+            long nanos = System.nanoTime() - start;
+            providerStats.record(providerStats.errors, nanos);
+            providerStats.sample(false, nanos);
+            if (breaker != null) {
+                breaker.recordFailure();
+            }
+            log.warn("Provider {} failed for book '{}': {}", provider.getProviderName(), title, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether the provider really searched and answered, with a match or a miss: not a
+     * timeout or exception, nor a failed, rate limited or skipped search.
+     */
+    private static boolean answered(FreeTextLookupResult result) {
+        return result != null && (result.getOutcome() == FreeTextLookupResult.Outcome.FOUND
+                || result.getOutcome() == FreeTextLookupResult.Outcome.NOT_FOUND);
+    }
+
+    /**
+     * The providers in the order their matches are preferred: by fixed priority or, with
+     * adaptive ordering, by recent hit rate (in 5% steps, so noise does not reshuffle them),
+     * then p95 latency, then priority. A provider with fewer than
+     * {@code app.free-text.adaptive-order.min-samples} recent searches keeps its place.
+     */
+    private List<FreeTextProvider> searchOrder() {
+        if (!adaptiveOrder) {
+            return providers;
+        }
+        Map<FreeTextProvider, Recent> recent = new HashMap<>();
+        for (FreeTextProvider provider : providers) {
+            recent.put(provider, statsFor(provider).recent());
+        }
+        Iterator<FreeTextProvider> ranked = providers.stream()
+                .filter(provider -> recent.get(provider).samples() >= adaptiveMinSamples)
+                .sorted(Comparator.<FreeTextProvider>comparingLong(provider -> -Math.round(recent.get(provider).hitRate() * 20))
+                        .thenComparingDouble(provider -> recent.get(provider).p95Millis())
+                        .thenComparingInt(FreeTextProvider::getPriority))
+                .iterator();
+        List<FreeTextProvider> order = new ArrayList<>(providers.size());
+        for (FreeTextProvider provider : providers) {
+            order.add(recent.get(provider).samples() >= adaptiveMinSamples ? ranked.next() : provider);
+        }
+        return order;
+    }
+
+    /**
+     * The result's URL if it is a match from one of the provider's expected domains.
+     */
+    private String acceptedUrl(FreeTextProvider provider, FreeTextLookupResult result) {
+        if (result == null || !result.isFound()) {
+            return null;
+        }
+        // Validate domain if provider specifies expected domains
+        List<String> expectedDomains = provider.getExpectedDomains();
+        if (!expectedDomains.isEmpty()) {
+            String urlDomain = extractDomain(result.getUrl());
+            boolean domainMatches = expectedDomains.stream()
+                    .anyMatch(expected -> urlDomain != null && urlDomain.contains(expected));
+            if (!domainMatches) {
+                log.error("Provider {} returned URL with unexpected domain: {} (expected one of: {})",
+                        provider.getProviderName(), result.getUrl(), expectedDomains);
+                return null;
+            }
+        }
+        return result.getUrl();
+    }
+
+    /**
+     * Look up free online text for multiple books, up to {@code app.free-text.bulk.parallelism}
+     * at a time. The providers' rate limits, not the number of books in flight, bound how
+     * fast each site is called.
      *
      * @param bookIds list of book IDs to look up
-     * @return list of results for each book
+     * @return list of results for each book, in the order given
      */
     public List<FreeTextBulkLookupResultDto> lookupBooks(List<Long> bookIds) {
-        List<FreeTextBulkLookupResultDto> results = new ArrayList<>();
-
+        if (bulkExecutor == null || bookIds.size() < 2) {
+            return bookIds.stream().map(this::lookupBookOrError).toList();
+        }
+        List<Future<FreeTextBulkLookupResultDto>> futures = new ArrayList<>(bookIds.size());
         for (Long bookId : bookIds) {
-            try {
-                results.add(lookupBook(bookId));
-            } catch (Exception e) {
-                log.error("Error looking up free text for book {}: {}", bookId, e.getMessage());
-                results.add(FreeTextBulkLookupResultDto.builder()
-                        .bookId(bookId)
-                        .success(false)
-                        .errorMessage("Error: " + e.getMessage())
-                        .providersSearched(List.of())
-                        .build());
+            futures.add(bulkExecutor.submit(() -> lookupBookOrError(bookId)));
+        }
+        List<FreeTextBulkLookupResultDto> results = new ArrayList<>(bookIds.size());
+        try {
+            for (Future<FreeTextBulkLookupResultDto> future : futures) {
+                results.add(future.get());
             }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LibraryException("Interrupted during bulk free text lookup");
+        } catch (ExecutionException e) {
+            // lookupBookOrError() turns every failure into a result; anything else is a bug
+            throw new LibraryException("Bulk free text lookup failed: " + e.getCause().getMessage());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
         }
+    }
 
-        return results;
+    private FreeTextBulkLookupResultDto lookupBookOrError(Long bookId) {
+        try {
+            return lookupBook(bookId);
+        } catch (Exception e) {
+            log.error("Error looking up free text for book {}: {}", bookId, e.getMessage());
+            return FreeTextBulkLookupResultDto.builder()
+                    .bookId(bookId)
+                    .success(false)
+                    .errorMessage("Error: " + e.getMessage())
+                    .providersSearched(List.of())
+                    .build();
+        }
     }
 
     /**
@@ -210,6 +554,47 @@ public class FreeTextLookupService {
                 .toList();
     }
 
+    /**
+     * Hits, misses, errors, timeouts, rate limit refusals and latency per provider since startup,
+     * in priority order.
+     */
+    public List<FreeTextProviderStatsDto> getProviderStats() {
+        return providers.stream()
+                .map(provider -> statsFor(provider).toDto(provider))
+                .toList();
+    }
+
+    /**
+     * Each provider's place in the search order, circuit breaker state, and recent hit rate
+     * and p95 latency.
+     */
+    public List<FreeTextProviderStateDto> getProviderStates() {
+        List<FreeTextProvider> order = searchOrder();
+        List<FreeTextProviderStateDto> states = new ArrayList<>(order.size());
+        for (int i = 0; i < order.size(); i++) {
+            FreeTextProvider provider = order.get(i);
+            ProviderStats providerStats = statsFor(provider);
+            Recent recent = providerStats.recent();
+            ProviderCircuitBreaker breaker = breakers.get(provider.getProviderName());
+            states.add(new FreeTextProviderStateDto(
+                    provider.getProviderName(),
+                    provider.getPriority(),
+                    i + 1,
+                    breaker != null ? breaker.getState().name() : "DISABLED",
+                    breaker != null ? breaker.getConsecutiveFailures() : 0,
+                    breaker != null ? breaker.getRetryInMillis() : 0,
+                    providerStats.skipped.sum(),
+                    recent.samples(),
+                    recent.hitRate(),
+                    recent.p95Millis()));
+        }
+        return states;
+    }
+
+    private ProviderStats statsFor(FreeTextProvider provider) {
+        return stats.computeIfAbsent(provider.getProviderName(), name -> new ProviderStats(Math.max(1, adaptiveWindow)));
+    }
+
     /**
      * Extract the domain from a URL.
      *
@@ -228,4 +613,112 @@ public class FreeTextLookupService {
             return null;
         }
     }
+
+    private record BookSnapshot(String title, String authorName) {
+    }
+
+    private record Match(FreeTextProvider provider, String url) {
+    }
+
+    /**
+     * A lookup's match, if any, and whether every provider searched gave an answer.
+     */
+    private record Search(Match match, boolean complete) {
+    }
+
+    /**
+     * When a search was let through to the provider's site, or NOT_STARTED while it is still
+     * waiting for a thread, a search slot or a request token.
+     */
+    private static final class Attempt {
+
+        static final long NOT_STARTED = Long.MIN_VALUE;
+
+        private volatile long startedAt = NOT_STARTED;
+
+        void start() {
+            if (startedAt == NOT_STARTED) {
+                startedAt = System.nanoTime();
+            }
+        }
+
+        boolean started() {
+            return startedAt != NOT_STARTED;
+        }
+    }
+
+    /**
+     * Hit rate and 95th percentile latency over a provider's most recent searches.
+     */
+    private record Recent(int samples, double hitRate, double p95Millis) {
+    }
+
+    private static final class ProviderStats {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder cancelled = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder skipped = new LongAdder();
+
+        // Ring of the most recent searches; guarded by this
+        private final boolean[] recentHits;
+        private final long[] recentNanos;
+        private int recentCount;
+        private int recentNext;
+
+        ProviderStats(int window) {
+            recentHits = new boolean[window];
+            recentNanos = new long[window];
+        }
+
+        synchronized void sample(boolean hit, long nanos) {
+            recentHits[recentNext] = hit;
+            recentNanos[recentNext] = nanos;
+            recentNext = (recentNext + 1) % recentNanos.length;
+            recentCount = Math.min(recentCount + 1, recentNanos.length);
+        }
+
+        synchronized Recent recent() {
+            if (recentCount == 0) {
+                return new Recent(0, 0.0, 0.0);
+            }
+            int hitCount = 0;
+            for (int i = 0; i < recentCount; i++) {
+                hitCount += recentHits[i] ? 1 : 0;
+            }
+            long[] sorted = Arrays.copyOf(recentNanos, recentCount);
+            Arrays.sort(sorted);
+            long p95 = sorted[(int) Math.ceil(recentCount * 0.95) - 1];
+            return new Recent(recentCount, (double) hitCount / recentCount, p95 / 1e6);
+        }
+
+        void record(LongAdder outcome, long nanos) {
+            outcome.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        FreeTextProviderStatsDto toDto(FreeTextProvider provider) {
+            long hitCount = hits.sum();
+            long calls = hitCount + misses.sum() + errors.sum();
+            return new FreeTextProviderStatsDto(
+                    provider.getProviderName(),
+                    provider.getPriority(),
+                    calls,
+                    hitCount,
+                    misses.sum(),
+                    errors.sum(),
+                    timeouts.sum(),
+                    cancelled.sum(),
+                    rateLimited.sum(),
+                    calls == 0 ? 0.0 : (double) hitCount / calls,
+                    calls == 0 ? 0.0 : totalNanos.sum() / 1e6 / calls,
+                    maxNanos.get() / 1e6);
+        }
+    }
 }
@@ -47,4 +47,27 @@ public interface FreeTextProvider {
     default List<String> getExpectedDomains() {
         return List.of();  // Default: no validation (for backwards compatibility)
     }
+
+    /**
+     * Get how hard this provider's site may be used. Every HTTP request the provider makes
+     * through {@code providerRestTemplate} during a lookup takes a token, and at most
+     * {@code maxConcurrent} lookups search the provider at once.
+     *
+     * @return the provider's rate limit
+     */
+    default RateLimit getRateLimit() {
+        return RateLimit.DEFAULT;
+    }
+
+    /**
+     * Token bucket refilled at {@code requestsPerSecond} holding up to {@code burst} tokens,
+     * and a cap on concurrent searches.
+     */
+    record RateLimit(double requestsPerSecond, int burst, int maxConcurrent) {
+
+        /**
+         * One request a second, for small sites that publish no limits.
+         */
+        public static final RateLimit DEFAULT = new RateLimit(1.0, 2, 2);
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker for one free text provider, so lookups stop waiting on a site that is down.
+ * <p>
+ * Closed: every search goes through. After {@code failureThreshold} failures in a row (errors
+ * and timeouts; a miss is an answer) the breaker opens and the provider is skipped. Once
+ * {@code openMs} has passed it is half-open: one search is let through as a probe, and its
+ * outcome closes the breaker or opens it again.
+ * <p>
+ * {@link FreeTextLookupService} calls {@link #tryAcquire()} before each search and then
+ * exactly one of {@link #recordSuccess()}, {@link #recordFailure()} or {@link #release()}.
+ */
+@Slf4j
+public final class ProviderCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String providerName;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    // Guarded by this; times are System.nanoTime()
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+
+    public ProviderCircuitBreaker(String providerName, int failureThreshold, long openMs) {
+        this.providerName = providerName;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+    }
+
+    /**
+     * Whether a search may go ahead: always while closed, never while open, and for a single
+     * probe at a time while half-open.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+        }
+        if (probing) {
+            return false;
+        }
+        probing = true;
+        return true;
+    }
+
+    /**
+     * The provider answered, with or without a match.
+     */
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit for {} closed after a successful probe", providerName);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probing = false;
+    }
+
+    /**
+     * The provider failed or timed out.
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        probing = false;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            log.warn("Circuit for {} opened after {} failures in a row; skipping it for {} s",
+                    providerName, consecutiveFailures, TimeUnit.NANOSECONDS.toSeconds(openNanos));
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * The search ended without telling anything about the provider (cancelled or rate
+     * limited), so a half-open probe can be tried again.
+     */
+    public synchronized void release() {
+        probing = false;
+    }
+
+    public String getProviderName() {
+        return providerName;
+    }
+
+    /**
+     * The current state; an open breaker whose wait is over reports half-open.
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Milliseconds until an open breaker lets a probe through, or 0 if it is not open.
+     */
+    public synchronized long getRetryInMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(openNanos - (System.nanoTime() - openedAt)));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Applies the searching provider's {@link ProviderThrottle} to each request made through
+ * {@code providerRestTemplate}: waits for a token, and on 429 Too Many Requests pauses the
+ * provider for the Retry-After time (or an increasing default) and tries again.
+ * Requests made outside a throttled search pass straight through.
+ * <p>
+ * Must come after the interceptors that set headers, so that executing the request again sends
+ * it again. {@code OutboundHttpInterceptor}, after it, counts each try as a request.
+ */
+@Component
+@Slf4j
+public class ProviderRateLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Duration DEFAULT_BACKOFF = Duration.ofSeconds(2);
+
+    @Value("${app.free-text.rate-limit.max-retries:2}")
+    private int maxRetries;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        ProviderThrottle throttle = ProviderThrottle.current();
+        if (throttle == null) {
+            return execution.execute(request, body);
+        }
+        for (int attempt = 0; ; attempt++) {
+            throttle.acquire();
+            ClientHttpResponse response = execution.execute(request, body);
+            if (response.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                return response;
+            }
+            Duration backoff = retryAfter(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER), attempt);
+            throttle.pause(backoff);
+            log.warn("{} answered 429 Too Many Requests; pausing it for {} s",
+                    throttle.getProviderName(), backoff.toSeconds());
+            if (attempt >= maxRetries) {
+                return response;
+            }
+            response.close();
+        }
+    }
+
+    /**
+     * The wait a Retry-After header asks for, in seconds or as an HTTP date. Without one,
+     * 2, 4, 8... seconds.
+     */
+    static Duration retryAfter(String header, int attempt) {
+        if (header != null && !header.isBlank()) {
+            String value = header.trim();
+            try {
+                return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+            } catch (NumberFormatException e) {
+                try {
+                    Instant until = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                    Duration wait = Duration.between(Instant.now(), until);
+                    return wait.isNegative() ? Duration.ZERO : wait;
+                } catch (DateTimeParseException ignored) {
+                    // Fall back to the default backoff
+                }
+            }
+        }
+        return DEFAULT_BACKOFF.multipliedBy(1L << Math.min(attempt, 5));
+    }
+}
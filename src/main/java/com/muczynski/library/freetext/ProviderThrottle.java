@@ -0,0 +1,141 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Rate limit for one free text provider's site: a token bucket for its HTTP requests, a cap
+ * on concurrent searches, and a pause while the site has asked us to back off.
+ * <p>
+ * {@link FreeTextLookupService} runs each search of the provider through {@link #search},
+ * which binds the throttle to the thread. {@link ProviderRateLimitInterceptor} then takes a
+ * token for every request the search makes through {@code providerRestTemplate}, so a
+ * provider that makes two requests per search is charged for two.
+ * <p>
+ * Tokens are reserved: a caller that has to wait takes the next token ahead of time and
+ * sleeps until it is due, so waiting callers are served in order without polling.
+ */
+public final class ProviderThrottle {
+
+    private static final ThreadLocal<ProviderThrottle> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Runnable> ON_REQUEST = new ThreadLocal<>();
+
+    private final String providerName;
+    private final double tokensPerNano;
+    private final int burst;
+    private final long maxWaitNanos;
+    private final Semaphore searches;
+
+    // Guarded by this; times are System.nanoTime()
+    private double tokens;
+    private long refilledAt;
+    private long pausedUntil;
+
+    /**
+     * @param maxWaitMs the longest a request or search waits for its turn before giving up
+     */
+    public ProviderThrottle(String providerName, FreeTextProvider.RateLimit limit, long maxWaitMs) {
+        this.providerName = providerName;
+        this.tokensPerNano = limit.requestsPerSecond() / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, limit.burst());
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.searches = new Semaphore(Math.max(1, limit.maxConcurrent()), true);
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+        this.pausedUntil = refilledAt;
+    }
+
+    /**
+     * The throttle of the provider searching on this thread, or null outside a search.
+     */
+    public static ProviderThrottle current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run one search of the provider once a search slot is free, with this throttle bound
+     * to the thread.
+     *
+     * @return the search's result, or an error result if no slot was free in time
+     */
+    public FreeTextLookupResult search(Supplier<FreeTextLookupResult> search) throws InterruptedException {
+        return search(search, () -> { });
+    }
+
+    /**
+     * Run one search of the provider once a search slot is free, with this throttle bound
+     * to the thread.
+     *
+     * @param onRequest run each time a request of the search is let through to the site
+     * @return the search's result, or an error result if no slot was free in time
+     */
+    public FreeTextLookupResult search(Supplier<FreeTextLookupResult> search, Runnable onRequest)
+            throws InterruptedException {
+        if (!searches.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+            return FreeTextLookupResult.rateLimited(providerName, "Rate limited: too many searches waiting");
+        }
+        ProviderThrottle outer = CURRENT.get();
+        Runnable outerOnRequest = ON_REQUEST.get();
+        CURRENT.set(this);
+        ON_REQUEST.set(onRequest);
+        try {
+            return search.get();
+        } finally {
+            CURRENT.set(outer);
+            ON_REQUEST.set(outerOnRequest);
+            searches.release();
+        }
+    }
+
+    /**
+     * Wait for the next request token, and for any pause to end.
+     *
+     * @throws IOException if the wait would be longer than the maximum, so the request fails
+     *                     like any other network error instead of tying up a thread
+     */
+    public void acquire() throws IOException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            long tokenDue = tokens >= 1 ? now : now + (long) Math.ceil((1 - tokens) / tokensPerNano);
+            waitNanos = Math.max(tokenDue, pausedUntil) - now;
+            if (waitNanos > maxWaitNanos) {
+                throw new IOException(providerName + " is rate limited for another "
+                        + TimeUnit.NANOSECONDS.toSeconds(waitNanos) + " s");
+            }
+            tokens -= 1;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting to call " + providerName);
+            }
+        }
+        Runnable onRequest = ON_REQUEST.get();
+        if (onRequest != null) {
+            onRequest.run();
+        }
+    }
+
+    /**
+     * Hold back every request to the provider for the given time, as after a 429 response.
+     */
+    public synchronized void pause(Duration duration) {
+        pausedUntil = Math.max(pausedUntil, System.nanoTime() + duration.toNanos());
+    }
+
+    public String getProviderName() {
+        return providerName;
+    }
+}
@@ -3,25 +3,21 @@
  */
 package com.muczynski.library.freetext;
 
-import java.util.Set;
+import com.muczynski.library.util.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Utility class for matching book titles with various normalization strategies.
  * Handles case differences, subtitles, articles, and punctuation variations.
+ * <p>
+ * Normalization is done by {@link TextNormalizer}. Matching walks the words of the
+ * normalized strings in place rather than splitting them, since it runs for every
+ * candidate of every provider result.
  */
 public final class TitleMatcher {
 
-    /**
-     * Common words to remove from search queries.
-     * Includes articles and short prepositions that often differ between title variations.
-     */
-    private static final Set<String> STOP_WORDS = Set.of(
-            "the", "a", "an",           // Articles
-            "in", "at", "to", "of",     // Common prepositions
-            "on", "by", "for", "and",   // More prepositions/conjunctions
-            "or", "with", "from"        // Additional common words
-    );
-
     private TitleMatcher() {
         // Utility class
     }
@@ -41,24 +37,7 @@ public final class TitleMatcher {
         if (title == null || title.isBlank()) {
             return "";
         }
-
-        // Remove punctuation, convert to lowercase, split into words
-        String[] words = title.toLowerCase()
-                .replaceAll("[^a-z0-9\\s]", "")
-                .split("\\s+");
-
-        // Keep only significant words (not in stop words list and not pure numbers)
-        StringBuilder result = new StringBuilder();
-        for (String word : words) {
-            if (!word.isEmpty() && !STOP_WORDS.contains(word) && !word.matches("\\d+")) {
-                if (result.length() > 0) {
-                    result.append(" ");
-                }
-                result.append(word);
-            }
-        }
-
-        return result.toString();
+        return TextNormalizer.searchTerms(title);
     }
 
     /**
@@ -108,7 +87,7 @@ public final class TitleMatcher {
             // Only accept if the shorter one has at least 2 significant words
             // to prevent single words from matching everything
             String shorter = normalizedCandidate.length() <= normalizedTarget.length() ? normalizedCandidate : normalizedTarget;
-            if (countSignificantWords(shorter.split("\\s+")) >= 2) {
+            if (countSignificantWords(shorter) >= 2) {
                 return true;
             }
         }
@@ -124,14 +103,12 @@ public final class TitleMatcher {
      * - Remove leading articles (the, a, an)
      * - Remove punctuation except spaces
      * - Collapse multiple spaces
+     * <p>
+     * Also used for the search suggestion keys, so typed prefixes and catalog entries
+     * are normalized the same way.
      */
-    private static String normalize(String title) {
-        return title.toLowerCase()
-                .replaceAll("\\s*\\([^)]*\\)\\s*$", "") // Remove trailing (date), (edition), etc.
-                .replaceAll("^(the|a|an)\\s+", "")
-                .replaceAll("[^a-z0-9\\s]", "")
-                .replaceAll("\\s+", " ")
-                .trim();
+    public static String normalize(String title) {
+        return TextNormalizer.normalizeTitle(title);
     }
 
     /**
@@ -149,12 +126,9 @@ public final class TitleMatcher {
      * a short title (like "Christmas") matches a long title containing that word.
      */
     private static boolean wordsMatch(String title1, String title2) {
-        String[] words1 = title1.split("\\s+");
-        String[] words2 = title2.split("\\s+");
-
         // Count significant words in each title
-        int significant1 = countSignificantWords(words1);
-        int significant2 = countSignificantWords(words2);
+        int significant1 = countSignificantWords(title1);
+        int significant2 = countSignificantWords(title2);
 
         // If either has no significant words, no match
         if (significant1 == 0 || significant2 == 0) {
@@ -162,10 +136,10 @@ public final class TitleMatcher {
         }
 
         // Count how many significant words from title1 appear in title2
-        int matchCount1to2 = countMatchingWords(words1, words2);
+        int matchCount1to2 = countMatchingWords(title1, title2);
 
         // Count how many significant words from title2 appear in title1
-        int matchCount2to1 = countMatchingWords(words2, words1);
+        int matchCount2to1 = countMatchingWords(title2, title1);
 
         // Calculate match percentages in both directions
         double ratio1to2 = (double) matchCount1to2 / significant1;
@@ -177,28 +151,49 @@ public final class TitleMatcher {
         return ratio1to2 >= 0.7 && ratio2to1 >= 0.7;
     }
 
+    /**
+     * The significant words of a normalized title, in order, as the word-based match counts them.
+     * Used to index catalog titles so only titles sharing a word need to be compared.
+     */
+    public static List<String> significantWords(String normalizedTitle) {
+        List<String> words = new ArrayList<>();
+        for (int start = 0; start < normalizedTitle.length(); start = wordEnd(normalizedTitle, start) + 1) {
+            int end = wordEnd(normalizedTitle, start);
+            if (isSignificantWord(normalizedTitle, start, end)) {
+                words.add(normalizedTitle.substring(start, end));
+            }
+        }
+        return words;
+    }
+
     /**
      * Check if a word is significant for matching purposes.
      * A word is significant if:
      * - It has more than 2 characters
      * - It is NOT a pure number (like publication years 1952, 1999)
      */
-    private static boolean isSignificantWord(String word) {
-        if (word.length() <= 2) {
+    private static boolean isSignificantWord(String text, int start, int end) {
+        if (end - start <= 2) {
             return false;
         }
         // Treat pure numbers as insignificant (publication years, edition numbers, etc.)
-        return !word.matches("\\d+");
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Count significant words in a word array.
+     * Count significant words in a normalized title.
      * Significant words have length > 2 and are not pure numbers.
      */
-    private static int countSignificantWords(String[] words) {
+    private static int countSignificantWords(String text) {
         int count = 0;
-        for (String word : words) {
-            if (isSignificantWord(word)) {
+        for (int start = 0; start < text.length(); start = wordEnd(text, start) + 1) {
+            if (isSignificantWord(text, start, wordEnd(text, start))) {
                 count++;
             }
         }
@@ -208,21 +203,38 @@ public final class TitleMatcher {
     /**
      * Count how many significant words from source appear in target.
      */
-    private static int countMatchingWords(String[] source, String[] target) {
+    private static int countMatchingWords(String source, String target) {
         int matchCount = 0;
-        for (String word : source) {
-            if (isSignificantWord(word)) { // Only count significant words
-                for (String targetWord : target) {
-                    if (word.equals(targetWord)) {
-                        matchCount++;
-                        break;
-                    }
-                }
+        for (int start = 0; start < source.length(); start = wordEnd(source, start) + 1) {
+            int end = wordEnd(source, start);
+            if (isSignificantWord(source, start, end) && containsWord(target, source, start, end)) {
+                matchCount++;
             }
         }
         return matchCount;
     }
 
+    /**
+     * Whether one of the space-separated words of text is word[start, end).
+     */
+    private static boolean containsWord(String text, String word, int start, int end) {
+        for (int textStart = 0; textStart < text.length(); textStart = wordEnd(text, textStart) + 1) {
+            if (sameWord(text, textStart, wordEnd(text, textStart), word, start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int wordEnd(String text, int start) {
+        int space = text.indexOf(' ', start);
+        return space < 0 ? text.length() : space;
+    }
+
+    private static boolean sameWord(String text1, int start1, int end1, String text2, int start2, int end2) {
+        return end1 - start1 == end2 - start2 && text1.regionMatches(start1, text2, start2, end1 - start1);
+    }
+
     /**
      * Check if an author name matches, accounting for:
      * - Last name only matches
@@ -240,8 +252,8 @@ public final class TitleMatcher {
             return false;
         }
 
-        String normalizedCandidate = normalizeAuthor(candidate);
-        String normalizedTarget = normalizeAuthor(target);
+        String normalizedCandidate = TextNormalizer.normalizeAuthor(candidate);
+        String normalizedTarget = TextNormalizer.normalizeAuthor(target);
 
         // Exact match
         if (normalizedCandidate.equals(normalizedTarget)) {
@@ -249,69 +261,56 @@ public final class TitleMatcher {
         }
 
         // Check if last names match
-        String candidateLastName = getLastName(normalizedCandidate);
-        String targetLastName = getLastName(normalizedTarget);
+        int candidateLastName = lastNameStart(normalizedCandidate);
+        int targetLastName = lastNameStart(normalizedTarget);
 
-        if (candidateLastName.equals(targetLastName)) {
+        if (sameWord(normalizedCandidate, candidateLastName, normalizedCandidate.length(),
+                normalizedTarget, targetLastName, normalizedTarget.length())) {
             return true;
         }
 
         // Check if target last name matches any of the last few names in candidate
         // This handles cases like "Gabriel García Márquez" vs "García"
-        if (lastNameInFinalNames(normalizedCandidate, targetLastName)) {
+        if (lastNameInFinalNames(normalizedCandidate, normalizedTarget, targetLastName)) {
             return true;
         }
 
         // Check the reverse: candidate last name in target's final names
         // This handles cases like "García" vs "Gabriel García Márquez"
-        return lastNameInFinalNames(normalizedTarget, candidateLastName);
+        return lastNameInFinalNames(normalizedTarget, normalizedCandidate, candidateLastName);
     }
 
     /**
      * Check if a last name appears in the final 2-3 names of a full name.
      * Handles multi-part surnames common in Spanish, Portuguese, etc.
      *
-     * @param fullName the full author name (normalized)
-     * @param lastName the last name to search for
-     * @return true if lastName is found in the final names
+     * @param fullName      the full author name (normalized)
+     * @param otherName     the other author name (normalized)
+     * @param lastNameStart where the last name starts in otherName
+     * @return true if the last name is found in the final names
      */
-    private static boolean lastNameInFinalNames(String fullName, String lastName) {
-        String[] parts = fullName.split("\\s+");
-        if (parts.length <= 1) {
+    private static boolean lastNameInFinalNames(String fullName, String otherName, int lastNameStart) {
+        if (fullName.indexOf(' ') < 0) {
             return false;
         }
 
         // Check the last 3 names (or fewer if the name is shorter)
-        int startIndex = Math.max(0, parts.length - 3);
-        for (int i = startIndex; i < parts.length; i++) {
-            if (parts[i].equals(lastName)) {
+        int end = fullName.length();
+        for (int i = 0; i < 3 && end > 0; i++) {
+            int start = fullName.lastIndexOf(' ', end - 1) + 1;
+            if (sameWord(fullName, start, end, otherName, lastNameStart, otherName.length())) {
                 return true;
             }
+            end = start - 1;
         }
         return false;
     }
 
     /**
-     * Normalize an author name for comparison.
+     * Where the last name starts in a normalized author name, which has neither commas nor
+     * repeated spaces, so "Last, First" names have already become "last first".
      */
-    private static String normalizeAuthor(String author) {
-        return author.toLowerCase()
-                .replaceAll("[^a-z\\s]", "")
-                .replaceAll("\\s+", " ")
-                .trim();
-    }
-
-    /**
-     * Extract the last name from an author string.
-     * Handles both "First Last" and "Last, First" formats.
-     */
-    private static String getLastName(String author) {
-        // Handle "Last, First" format
-        if (author.contains(",")) {
-            return author.split(",")[0].trim();
-        }
-        // Handle "First Last" format
-        String[] parts = author.split("\\s+");
-        return parts.length > 0 ? parts[parts.length - 1] : author;
+    private static int lastNameStart(String normalizedAuthor) {
+        return normalizedAuthor.lastIndexOf(' ') + 1;
     }
 }
@@ -89,7 +89,7 @@ public class CatholicPlanetProvider implements FreeTextProvider {
                 }
             }
 
-            return FreeTextLookupResult.error(getProviderName(), "Title not found in Catholic Planet eLibrary");
+            return FreeTextLookupResult.notFound(getProviderName(), "Title not found in Catholic Planet eLibrary");
 
         } catch (Exception e) {
             // Get root cause for better error messages (e.g., SocketTimeoutException)
@@ -118,7 +118,7 @@ public class CcelProvider implements FreeTextProvider {
                 }
             }
 
-            return FreeTextLookupResult.error(getProviderName(), "Not found in CCEL");
+            return FreeTextLookupResult.notFound(getProviderName(), "Not found in CCEL");
 
         } catch (Exception e) {
             // Get root cause for better error messages (e.g., SocketTimeoutException)
@@ -0,0 +1,319 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext.providers;
+
+import com.muczynski.library.freetext.TitleMatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Offline index of Project Gutenberg's catalog, so {@link GutenbergProvider} can match most
+ * titles without calling Gutendex.
+ * <p>
+ * It loads a local copy of pg_catalog.csv (https://www.gutenberg.org/cache/epub/feeds/pg_catalog.csv.gz,
+ * gzipped or not) from app.free-text.gutenberg-catalog.file, keeping the "Text" rows. Each
+ * significant word of a book's normalized title points at the books whose title has it, and a
+ * title without one is indexed whole, so a lookup only compares the titles sharing a word with
+ * the one searched for. The file is checked every refresh-ms and reloaded when it changes; the
+ * new index replaces the old one in a single write, so lookups never wait for a reload.
+ */
+@Component
+@Slf4j
+public class GutenbergCatalog {
+
+    /** Trailing ", 1874-1936", ", active 13th century" and the like after an author's name. */
+    private static final Pattern AUTHOR_DATES = Pattern.compile(",[^,]*\\d[^,]*$");
+
+    @Value("${app.free-text.gutenberg-catalog.file:}")
+    private String fileName;
+
+    private volatile Index index = Index.EMPTY;
+    private String loadedVersion;
+
+    /**
+     * Runs at startup and every refresh-ms; reloads the catalog if the file has changed.
+     */
+    @Scheduled(fixedDelayString = "${app.free-text.gutenberg-catalog.refresh-ms:600000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * Load the catalog file if it changed since the last load.
+     *
+     * @return true if a new index was loaded
+     */
+    public synchronized boolean refresh() {
+        if (fileName == null || fileName.isBlank()) {
+            return false;
+        }
+        Path file = Path.of(fileName);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            String version = attributes.lastModifiedTime() + "/" + attributes.size();
+            if (version.equals(loadedVersion)) {
+                return false;
+            }
+            long start = System.currentTimeMillis();
+            Index fresh = load(file);
+            index = fresh;
+            loadedVersion = version;
+            log.info("Gutenberg catalog loaded in {}ms: {} books from {}",
+                    System.currentTimeMillis() - start, fresh.ids.length, file);
+            return true;
+        } catch (NoSuchFileException e) {
+            if (!"missing".equals(loadedVersion)) {
+                log.warn("Gutenberg catalog {} not found; searching Gutendex only", file);
+                loadedVersion = "missing";
+            }
+            return false;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to load Gutenberg catalog {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Number of books in the loaded catalog; 0 when none is loaded.
+     */
+    public int size() {
+        return index.ids.length;
+    }
+
+    /**
+     * Find the first book in catalog order whose title matches and, when an author is given,
+     * one of whose authors matches, using the same {@link TitleMatcher} rules as the API results.
+     *
+     * @param title      the title to look for
+     * @param authorName the author's name, or null/blank to match on title alone
+     * @return the ebook number, or empty if the catalog has no such book or isn't loaded
+     */
+    public OptionalInt find(String title, String authorName) {
+        Index current = index;
+        if (current.ids.length == 0 || title == null || title.isBlank()) {
+            return OptionalInt.empty();
+        }
+        for (int row : current.candidates(TitleMatcher.normalize(title))) {
+            if (TitleMatcher.titleMatches(current.titles[row], title)
+                    && authorMatches(current.authors[row], authorName)) {
+                return OptionalInt.of(current.ids[row]);
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    /**
+     * Whether one of the authors in a catalog Authors field matches. Entries with a role such
+     * as "[Translator]" or "[Editor]" are skipped, as Gutendex leaves them out of a book's authors,
+     * and the dates are dropped so "Austen, Jane, 1775-1817" is compared as "Austen, Jane".
+     */
+    private static boolean authorMatches(String authors, String authorName) {
+        if (authorName == null || authorName.isBlank()) {
+            return true;
+        }
+        for (String author : authors.split(";")) {
+            String name = author.trim();
+            if (!name.isEmpty() && !name.endsWith("]")
+                    && TitleMatcher.authorMatches(AUTHOR_DATES.matcher(name).replaceFirst(""), authorName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Index load(Path file) throws IOException {
+        try (InputStream raw = Files.newInputStream(file);
+             Reader in = new BufferedReader(new InputStreamReader(
+                     file.toString().endsWith(".gz") ? new GZIPInputStream(raw, 65536) : raw,
+                     StandardCharsets.UTF_8), 65536)) {
+            List<String> header = readRecord(in);
+            if (header == null) {
+                throw new IOException("Catalog file is empty");
+            }
+            header.set(0, header.get(0).replace("\uFEFF", ""));
+            int idColumn = column(header, "Text#");
+            int typeColumn = column(header, "Type");
+            int titleColumn = column(header, "Title");
+            int authorsColumn = column(header, "Authors");
+            int width = Math.max(Math.max(idColumn, typeColumn), Math.max(titleColumn, authorsColumn)) + 1;
+
+            Index.Builder builder = new Index.Builder();
+            for (List<String> record = readRecord(in); record != null; record = readRecord(in)) {
+                if (record.size() < width || !"Text".equals(record.get(typeColumn))) {
+                    continue;
+                }
+                int id;
+                try {
+                    id = Integer.parseInt(record.get(idColumn).trim());
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                // Multi-line titles put the subtitle on its own line
+                String title = record.get(titleColumn).replaceAll("\\s*[\\r\\n]+\\s*", " ").trim();
+                if (!title.isEmpty()) {
+                    builder.add(id, title, record.get(authorsColumn));
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    private static int column(List<String> header, String name) throws IOException {
+        int column = header.indexOf(name);
+        if (column < 0) {
+            throw new IOException("Catalog has no " + name + " column");
+        }
+        return column;
+    }
+
+    /**
+     * Read one CSV record, or null at the end of the input. Quoted fields may hold commas,
+     * doubled quotes and line breaks, as the catalog's titles do.
+     */
+    static List<String> readRecord(Reader in) throws IOException {
+        int c = in.read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (; ; c = in.read()) {
+            if (quoted) {
+                if (c == '"') {
+                    c = in.read();
+                    if (c == '"') {
+                        field.append('"');
+                        continue;
+                    }
+                    // Closing quote: handle the character after it below
+                    quoted = false;
+                } else if (c >= 0) {
+                    field.append((char) c);
+                    continue;
+                }
+            }
+            if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c < 0) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * The loaded catalog: parallel arrays of ebook numbers, titles and Authors fields, and the
+     * rows for each index key in ascending order.
+     */
+    private static final class Index {
+
+        static final Index EMPTY = new Index(new int[0], new String[0], new String[0], Map.of());
+
+        final int[] ids;
+        final String[] titles;
+        final String[] authors;
+        final Map<String, int[]> rows;
+
+        Index(int[] ids, String[] titles, String[] authors, Map<String, int[]> rows) {
+            this.ids = ids;
+            this.titles = titles;
+            this.authors = authors;
+            this.rows = rows;
+        }
+
+        /**
+         * Rows of the books sharing a significant word (or, without one, the whole title) with
+         * a normalized title, ascending and without repeats.
+         */
+        int[] candidates(String normalizedTitle) {
+            List<int[]> lists = new ArrayList<>();
+            int total = 0;
+            for (String key : keys(normalizedTitle)) {
+                int[] list = rows.get(key);
+                if (list != null) {
+                    lists.add(list);
+                    total += list.length;
+                }
+            }
+            if (lists.size() == 1) {
+                return lists.get(0);
+            }
+            int[] merged = new int[total];
+            int size = 0;
+            for (int[] list : lists) {
+                System.arraycopy(list, 0, merged, size, list.length);
+                size += list.length;
+            }
+            Arrays.sort(merged);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || merged[i] != merged[unique - 1]) {
+                    merged[unique++] = merged[i];
+                }
+            }
+            return Arrays.copyOf(merged, unique);
+        }
+
+        static List<String> keys(String normalizedTitle) {
+            List<String> words = TitleMatcher.significantWords(normalizedTitle);
+            return words.isEmpty() && !normalizedTitle.isEmpty() ? List.of(normalizedTitle) : words;
+        }
+
+        static final class Builder {
+
+            private final List<Integer> ids = new ArrayList<>();
+            private final List<String> titles = new ArrayList<>();
+            private final List<String> authors = new ArrayList<>();
+            private final Map<String, List<Integer>> rows = new HashMap<>();
+
+            void add(int id, String title, String authorsField) {
+                int row = ids.size();
+                ids.add(id);
+                titles.add(title);
+                authors.add(authorsField);
+                for (String key : keys(TitleMatcher.normalize(title))) {
+                    List<Integer> list = rows.computeIfAbsent(key, k -> new ArrayList<>(2));
+                    // A word repeated in a title is listed once
+                    if (list.isEmpty() || list.get(list.size() - 1) != row) {
+                        list.add(row);
+                    }
+                }
+            }
+
+            Index build() {
+                Map<String, int[]> compact = new HashMap<>(rows.size() * 4 / 3 + 1);
+                rows.forEach((key, list) -> compact.put(key, list.stream().mapToInt(Integer::intValue).toArray()));
+                return new Index(ids.stream().mapToInt(Integer::intValue).toArray(),
+                        titles.toArray(new String[0]), authors.toArray(new String[0]), compact);
+            }
+        }
+    }
+}
@@ -17,10 +17,14 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.List;
+import java.util.OptionalInt;
 
 /**
  * Provider for Project Gutenberg using the Gutendex API.
  * Gutenberg offers free ebooks that are in the public domain.
+ * <p>
+ * Titles are matched against the local {@link GutenbergCatalog} first, when one is loaded;
+ * the API is only searched when the catalog has no matching book.
  *
  * API documentation: https://gutendex.com/
  */
@@ -35,6 +39,9 @@ public class GutenbergProvider implements FreeTextProvider {
     @Qualifier("providerRestTemplate")
     private RestTemplate restTemplate;
 
+    @Autowired
+    private GutenbergCatalog catalog;
+
     @Override
     public String getProviderName() {
         return "Project Gutenberg";
@@ -45,6 +52,14 @@ public class GutenbergProvider implements FreeTextProvider {
         return 10;
     }
 
+    /**
+     * Gutendex is a volunteer-run server, so stay at the default of one request a second.
+     */
+    @Override
+    public RateLimit getRateLimit() {
+        return new RateLimit(1.0, 2, 2);
+    }
+
     @Override
     public List<String> getExpectedDomains() {
         return List.of("gutenberg.org");
@@ -52,6 +67,10 @@ public class GutenbergProvider implements FreeTextProvider {
 
     @Override
     public FreeTextLookupResult search(String title, String authorName) {
+        OptionalInt local = catalog.find(title, authorName);
+        if (local.isPresent()) {
+            return FreeTextLookupResult.success(getProviderName(), String.format(EBOOK_URL_TEMPLATE, local.getAsInt()));
+        }
         try {
             // Normalize title for API search (removes articles, short words, punctuation)
             String searchQuery = TitleMatcher.normalizeForSearch(title);
@@ -70,7 +89,7 @@ public class GutenbergProvider implements FreeTextProvider {
             GutendexResponse response = restTemplate.getForObject(url, GutendexResponse.class);
 
             if (response == null || response.getResults() == null || response.getResults().isEmpty()) {
-                return FreeTextLookupResult.error(getProviderName(), "No results found");
+                return FreeTextLookupResult.notFound(getProviderName(), "No results found");
             }
 
             // Find best title match
@@ -97,7 +116,7 @@ public class GutenbergProvider implements FreeTextProvider {
                 }
             }
 
-            return FreeTextLookupResult.error(getProviderName(), "Title not found in results");
+            return FreeTextLookupResult.notFound(getProviderName(), "Title not found in results");
 
         } catch (Exception e) {
             // Get root cause for better error messages (e.g., SocketTimeoutException)
@@ -45,6 +45,15 @@ public class InternetArchiveProvider implements FreeTextProvider {
         return 5;
     }
 
+    /**
+     * The advanced search API handles more than the small sites, but asks clients to keep
+     * request rates modest.
+     */
+    @Override
+    public RateLimit getRateLimit() {
+        return new RateLimit(2.0, 4, 4);
+    }
+
     @Override
     public List<String> getExpectedDomains() {
         return List.of("archive.org");
@@ -78,7 +87,7 @@ public class InternetArchiveProvider implements FreeTextProvider {
             if (response == null || response.getResponse() == null ||
                 response.getResponse().getDocs() == null ||
                 response.getResponse().getDocs().isEmpty()) {
-                return FreeTextLookupResult.error(getProviderName(), "No results found");
+                return FreeTextLookupResult.notFound(getProviderName(), "No results found");
             }
 
             // Find best match - only return if title AND author actually match
@@ -106,7 +115,7 @@ public class InternetArchiveProvider implements FreeTextProvider {
                 }
             }
 
-            return FreeTextLookupResult.error(getProviderName(), "No matching title found");
+            return FreeTextLookupResult.notFound(getProviderName(), "No matching title found");
 
         } catch (Exception e) {
             // Get root cause for better error messages (e.g., SocketTimeoutException)
@@ -65,7 +65,7 @@ public class LibriVoxProvider implements FreeTextProvider {
             LibriVoxResponse response = restTemplate.getForObject(url, LibriVoxResponse.class);
 
             if (response == null || response.getBooks() == null || response.getBooks().isEmpty()) {
-                return FreeTextLookupResult.error(getProviderName(), "No audiobooks found");
+                return FreeTextLookupResult.notFound(getProviderName(), "No audiobooks found");
             }
 
             log.debug("LibriVox: Got {} results for '{}'", response.getBooks().size(), title);
@@ -79,7 +79,7 @@ public class LibriVoxProvider implements FreeTextProvider {
                 }
             }
 
-            return FreeTextLookupResult.error(getProviderName(), "Title not found in audiobooks");
+            return FreeTextLookupResult.notFound(getProviderName(), "Title not found in audiobooks");
 
         } catch (Exception e) {
             // Get root cause for better error messages (e.g., SocketTimeoutException)
@@ -46,6 +46,14 @@ public class LocCatalogOnlineProvider implements FreeTextProvider {
         return 20;
     }
 
+    /**
+     * The LC catalog SRU server is shared with other libraries' cataloging tools.
+     */
+    @Override
+    public RateLimit getRateLimit() {
+        return new RateLimit(0.5, 2, 1);
+    }
+
     @Override
     public FreeTextLookupResult search(String title, String authorName) {
         try {
@@ -62,7 +70,7 @@ public class LocCatalogOnlineProvider implements FreeTextProvider {
                 return FreeTextLookupResult.success(getProviderName(), onlineUrl);
             }
 
-            return FreeTextLookupResult.error(getProviderName(), "No online version available");
+            return FreeTextLookupResult.notFound(getProviderName(), "No online version available");
 
         } catch (Exception e) {
             // Get root cause for better error messages (e.g., SocketTimeoutException)
@@ -44,6 +44,14 @@ public class LocOnlineBooksPageProvider implements FreeTextProvider {
         return 12;
     }
 
+    /**
+     * The Online Books Page is one university server; a search may make two requests.
+     */
+    @Override
+    public RateLimit getRateLimit() {
+        return new RateLimit(1.0, 2, 1);
+    }
+
     @Override
     public FreeTextLookupResult search(String title, String authorName) {
         try {
@@ -51,7 +59,7 @@ public class LocOnlineBooksPageProvider implements FreeTextProvider {
             // The lookupname endpoint shows authors matching the search,
             // then we need to follow the link to the author's page
             if (authorName == null || authorName.isBlank()) {
-                return FreeTextLookupResult.error(getProviderName(), "Author name required for search");
+                return FreeTextLookupResult.notFound(getProviderName(), "Author name required for search");
             }
 
             // Convert author name to OBP format (Last, First or just Last)
@@ -110,10 +118,10 @@ public class LocOnlineBooksPageProvider implements FreeTextProvider {
 
             // Check if author was found at all
             if (html.contains("did not match any author in our database")) {
-                return FreeTextLookupResult.error(getProviderName(), "Author not found");
+                return FreeTextLookupResult.notFound(getProviderName(), "Author not found");
             }
 
-            return FreeTextLookupResult.error(getProviderName(), "Title not found for this author");
+            return FreeTextLookupResult.notFound(getProviderName(), "Title not found for this author");
 
         } catch (Exception e) {
             // Get root cause for better error messages (e.g., SocketTimeoutException)
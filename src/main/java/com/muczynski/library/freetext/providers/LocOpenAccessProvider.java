@@ -45,6 +45,15 @@ public class LocOpenAccessProvider implements FreeTextProvider {
         return 15;
     }
 
+    /**
+     * loc.gov blocks clients for five minutes after more than 20 requests in 10 seconds
+     * or 80 in a minute, so stay under the per-minute limit and allow a small burst.
+     */
+    @Override
+    public RateLimit getRateLimit() {
+        return new RateLimit(1.0, 5, 2);
+    }
+
     @Override
     public List<String> getExpectedDomains() {
         return List.of("loc.gov");
@@ -76,7 +85,7 @@ public class LocOpenAccessProvider implements FreeTextProvider {
 
             if (response == null || response.getResults() == null || response.getResults().isEmpty()) {
                 log.debug("LOC Open Access: No results returned for '{}'", title);
-                return FreeTextLookupResult.error(getProviderName(), "No open access books found");
+                return FreeTextLookupResult.notFound(getProviderName(), "No open access books found");
             }
 
             log.debug("LOC Open Access: Got {} results for '{}'", response.getResults().size(), title);
@@ -108,7 +117,7 @@ public class LocOpenAccessProvider implements FreeTextProvider {
             }
 
             log.debug("LOC Open Access: No matching title with online text found for '{}'", title);
-            return FreeTextLookupResult.error(getProviderName(), "No matching title with online text found");
+            return FreeTextLookupResult.notFound(getProviderName(), "No matching title with online text found");
 
         } catch (Exception e) {
             // Get root cause for better error messages (e.g., SocketTimeoutException)
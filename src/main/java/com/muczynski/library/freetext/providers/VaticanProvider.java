@@ -98,6 +98,7 @@ public class VaticanProvider implements FreeTextProvider {
         try {
             // First, try to identify the pope from the author name
             String popeSlug = identifyPope(authorName);
+            FreeTextLookupResult failure = null;
 
             if (popeSlug != null) {
                 // Search that pope's encyclicals index
@@ -105,6 +106,9 @@ public class VaticanProvider implements FreeTextProvider {
                 if (result.isFound()) {
                     return result;
                 }
+                if (result.getOutcome() == FreeTextLookupResult.Outcome.ERROR) {
+                    failure = result;
+                }
             }
 
             // If no pope identified or not found, try all recent popes
@@ -115,10 +119,17 @@ public class VaticanProvider implements FreeTextProvider {
                     if (result.isFound()) {
                         return result;
                     }
+                    if (failure == null && result.getOutcome() == FreeTextLookupResult.Outcome.ERROR) {
+                        failure = result;
+                    }
                 }
             }
 
-            return FreeTextLookupResult.error(getProviderName(), "Document not found on Vatican.va");
+            // An index that couldn't be read might have listed it
+            if (failure != null) {
+                return failure;
+            }
+            return FreeTextLookupResult.notFound(getProviderName(), "Document not found on Vatican.va");
 
         } catch (Exception e) {
             // Get root cause for better error messages (e.g., SocketTimeoutException)
@@ -200,7 +211,7 @@ public class VaticanProvider implements FreeTextProvider {
                 }
             }
 
-            return FreeTextLookupResult.error(getProviderName(), "Not found in " + popeSlug + " encyclicals");
+            return FreeTextLookupResult.notFound(getProviderName(), "Not found in " + popeSlug + " encyclicals");
 
         } catch (Exception e) {
             log.debug("Vatican: Failed to search {}: {}", popeSlug, e.getMessage());
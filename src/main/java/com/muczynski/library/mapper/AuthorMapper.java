@@ -6,9 +6,15 @@ package com.muczynski.library.mapper;
 import com.muczynski.library.domain.Author;
 import com.muczynski.library.dto.AuthorDto;
 import com.muczynski.library.repository.PhotoRepository;
+import com.muczynski.library.util.BatchUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,17 +35,7 @@ public class AuthorMapper {
             return null;
         }
 
-        AuthorDto dto = new AuthorDto();
-        dto.setId(author.getId());
-        dto.setName(author.getName());
-        dto.setDateOfBirth(author.getDateOfBirth());
-        dto.setDateOfDeath(author.getDateOfDeath());
-        dto.setReligiousAffiliation(author.getReligiousAffiliation());
-        dto.setBirthCountry(author.getBirthCountry());
-        dto.setNationality(author.getNationality());
-        dto.setBriefBiography(author.getBriefBiography());
-        dto.setGrokipediaUrl(author.getGrokipediaUrl());
-        dto.setLastModified(author.getLastModified());
+        AuthorDto dto = toDtoWithoutPhoto(author);
 
         // Use efficient queries to get first photo ID and checksum without loading photos collection
         Long firstPhotoId = photoRepository.findFirstPhotoIdByAuthorId(author.getId());
@@ -53,11 +49,62 @@ public class AuthorMapper {
 
         // Map books if requested and collection is initialized
         if (includeBooks && author.getBooks() != null) {
-            dto.setBooks(author.getBooks().stream()
-                    .map(bookMapper::toDto)
-                    .collect(Collectors.toList()));
+            dto.setBooks(bookMapper.toDtos(new ArrayList<>(author.getBooks())));
+        }
+
+        return dto;
+    }
+
+    /**
+     * Map a list of authors (without their books) with one photo query per
+     * {@value BatchUtils#IN_LIST_SIZE} authors instead of two per author. The result is in the same
+     * order as the input and may be modified by the caller.
+     */
+    public List<AuthorDto> toDtos(List<Author> authors) {
+        if (authors == null || authors.isEmpty()) {
+            return new ArrayList<>();
         }
+        List<Long> ids = authors.stream()
+                .filter(Objects::nonNull)
+                .map(Author::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<Long, Long> photoIdByAuthor = new HashMap<>();
+        Map<Long, String> photoChecksumByAuthor = new HashMap<>();
+        BatchUtils.inChunks(ids, batchIds ->
+                photoRepository.findFirstPhotoDataForAuthorIds(batchIds).forEach(row -> {
+                    Long authorId = ((Number) row[0]).longValue();
+                    photoIdByAuthor.put(authorId, ((Number) row[1]).longValue());
+                    photoChecksumByAuthor.put(authorId, (String) row[2]);
+                }));
+
+        return authors.stream()
+                .map(author -> {
+                    if (author == null) {
+                        return null;
+                    }
+                    AuthorDto dto = toDtoWithoutPhoto(author);
+                    dto.setFirstPhotoId(photoIdByAuthor.get(author.getId()));
+                    dto.setFirstPhotoChecksum(photoChecksumByAuthor.get(author.getId()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
 
+    private AuthorDto toDtoWithoutPhoto(Author author) {
+        AuthorDto dto = new AuthorDto();
+        dto.setId(author.getId());
+        dto.setName(author.getName());
+        dto.setDateOfBirth(author.getDateOfBirth());
+        dto.setDateOfDeath(author.getDateOfDeath());
+        dto.setReligiousAffiliation(author.getReligiousAffiliation());
+        dto.setBirthCountry(author.getBirthCountry());
+        dto.setNationality(author.getNationality());
+        dto.setBriefBiography(author.getBriefBiography());
+        dto.setGrokipediaUrl(author.getGrokipediaUrl());
+        dto.setLastModified(author.getLastModified());
         return dto;
     }
 
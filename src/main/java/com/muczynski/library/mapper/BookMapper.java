@@ -12,6 +12,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.muczynski.library.repository.LoanRepository;
 import com.muczynski.library.repository.PhotoRepository;
+import com.muczynski.library.util.BatchUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
 public class BookMapper {
@@ -71,7 +79,48 @@ public class BookMapper {
         return bookDto;
     }
 
-    // Used by getBooksByIds() — pre-fetched data avoids N+1 repository calls
+    /**
+     * Map a list of books with a fixed number of queries: first photos and open loan counts
+     * are fetched for the whole list at once instead of three queries per book. The result
+     * is in the same order as the input and may be modified by the caller.
+     * <p>
+     * List DTOs leave plotSummary, relatedWorks and detailedDescription null, so the books'
+     * {@link com.muczynski.library.domain.BookDetail} rows are never read; {@link #toDto}
+     * (the single-book endpoint) fills them in.
+     */
+    public List<BookDto> toDtos(List<Book> books) {
+        if (books == null || books.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = books.stream()
+                .filter(Objects::nonNull)
+                .map(Book::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<Long, Long> photoIdByBook = new HashMap<>();
+        Map<Long, String> photoChecksumByBook = new HashMap<>();
+        Map<Long, Long> loanCountByBook = new HashMap<>();
+        BatchUtils.inChunks(ids, batchIds -> {
+            photoRepository.findFirstPhotoDataForBookIds(batchIds).forEach(row -> {
+                Long bookId = ((Number) row[0]).longValue();
+                photoIdByBook.put(bookId, ((Number) row[1]).longValue());
+                photoChecksumByBook.put(bookId, (String) row[2]);
+            });
+            loanRepository.countOpenLoansByBookIds(batchIds).forEach(row ->
+                    loanCountByBook.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+        });
+
+        return books.stream()
+                .map(book -> book == null ? null : toDtoWithData(book,
+                        photoIdByBook.get(book.getId()),
+                        photoChecksumByBook.get(book.getId()),
+                        loanCountByBook.getOrDefault(book.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
+
+    // Pre-fetched data avoids N+1 repository calls; see toDtos(). Leaves the long-form text out.
     public BookDto toDtoWithData(Book book, Long firstPhotoId, String firstPhotoChecksum, long loanCount) {
         if (book == null) {
             return null;
@@ -81,9 +130,6 @@ public class BookMapper {
         bookDto.setTitle(book.getTitle());
         bookDto.setPublicationYear(book.getPublicationYear());
         bookDto.setPublisher(book.getPublisher());
-        bookDto.setPlotSummary(book.getPlotSummary());
-        bookDto.setRelatedWorks(book.getRelatedWorks());
-        bookDto.setDetailedDescription(book.getDetailedDescription());
         bookDto.setGrokipediaUrl(book.getGrokipediaUrl());
         bookDto.setFreeTextUrl(book.getFreeTextUrl());
         bookDto.setDateAddedToLibrary(book.getDateAddedToLibrary());
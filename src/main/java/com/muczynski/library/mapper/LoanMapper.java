@@ -4,15 +4,23 @@
 package com.muczynski.library.mapper;
 
 import com.muczynski.library.domain.Loan;
-import com.muczynski.library.domain.Photo;
 import com.muczynski.library.dto.LoanDto;
 import com.muczynski.library.repository.PhotoRepository;
+import com.muczynski.library.util.BatchUtils;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
 @Mapper(componentModel = "spring")
 public abstract class LoanMapper {
 
@@ -29,6 +37,53 @@ public abstract class LoanMapper {
     @Mapping(target = "photoChecksum", expression = "java(getPhotoChecksum(loan))")
     public abstract LoanDto toDto(Loan loan);
 
+    // Same as toDto() without the per-loan photo queries; toDtos() fills the photo in bulk
+    @Named("withoutPhoto")
+    @Mapping(target = "bookId", expression = "java(getBookId(loan))")
+    @Mapping(target = "bookTitle", expression = "java(getBookTitle(loan))")
+    @Mapping(target = "userId", expression = "java(getUserId(loan))")
+    @Mapping(target = "userName", expression = "java(getUserName(loan))")
+    @Mapping(target = "photoId", ignore = true)
+    @Mapping(target = "photoChecksum", ignore = true)
+    protected abstract LoanDto toDtoWithoutPhoto(Loan loan);
+
+    /**
+     * Map a list of loans with one photo query per {@value BatchUtils#IN_LIST_SIZE} loans instead of
+     * two per loan. The result is in the same order as the input.
+     */
+    public List<LoanDto> toDtos(List<Loan> loans) {
+        if (loans == null || loans.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = loans.stream()
+                .filter(Objects::nonNull)
+                .map(Loan::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<Long, Long> photoIdByLoan = new HashMap<>();
+        Map<Long, String> photoChecksumByLoan = new HashMap<>();
+        BatchUtils.inChunks(ids, batchIds ->
+                photoRepository.findFirstPhotoDataForLoanIds(batchIds).forEach(row -> {
+                    Long loanId = ((Number) row[0]).longValue();
+                    photoIdByLoan.put(loanId, ((Number) row[1]).longValue());
+                    photoChecksumByLoan.put(loanId, (String) row[2]);
+                }));
+
+        return loans.stream()
+                .map(loan -> {
+                    if (loan == null) {
+                        return null;
+                    }
+                    LoanDto dto = toDtoWithoutPhoto(loan);
+                    dto.setPhotoId(photoIdByLoan.get(loan.getId()));
+                    dto.setPhotoChecksum(photoChecksumByLoan.get(loan.getId()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
     protected Long getBookId(Loan loan) {
         if (loan == null || loan.getBook() == null) {
             logger.warn("Loan or book is null when mapping to DTO - loan ID: {}", loan != null ? loan.getId() : "null");
@@ -63,17 +118,14 @@ public abstract class LoanMapper {
         if (loan == null || loan.getId() == null) {
             return null;
         }
-        return photoRepository.findByLoanId(loan.getId())
-                .map(Photo::getId)
-                .orElse(null);
+        // Scalar query: loading the Photo entity would pull in its image bytes
+        return photoRepository.findFirstPhotoIdByLoanId(loan.getId());
     }
 
     protected String getPhotoChecksum(Loan loan) {
         if (loan == null || loan.getId() == null) {
             return null;
         }
-        return photoRepository.findByLoanId(loan.getId())
-                .map(Photo::getImageChecksum)
-                .orElse(null);
+        return photoRepository.findFirstPhotoChecksumByLoanId(loan.getId());
     }
 }
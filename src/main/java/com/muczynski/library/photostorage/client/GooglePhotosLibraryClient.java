@@ -6,8 +6,8 @@ import com.muczynski.library.exception.LibraryException;
 
 import com.muczynski.library.photostorage.config.PhotoStorageConfig;
 import com.muczynski.library.photostorage.dto.*;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
@@ -24,13 +24,18 @@ import java.util.List;
  * - https://www.googleapis.com/auth/photoslibrary.edit.appcreateddata
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class GooglePhotosLibraryClient {
 
     private final RestTemplate restTemplate;
     private final PhotoStorageConfig config;
 
+    public GooglePhotosLibraryClient(@Qualifier("googleRestTemplate") RestTemplate restTemplate,
+                                     PhotoStorageConfig config) {
+        this.restTemplate = restTemplate;
+        this.config = config;
+    }
+
     /**
      * Create HTTP headers with Bearer token authentication
      */
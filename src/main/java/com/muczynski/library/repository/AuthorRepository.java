@@ -4,15 +4,21 @@
 package com.muczynski.library.repository;
 
 import com.muczynski.library.domain.Author;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Long> {
@@ -26,6 +32,53 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
     // Lightweight projection for photo ZIP import — skips @Lob fields (briefBiography, etc.)
     List<AuthorZipImportProjection> findBy();
 
+    /**
+     * Rows of (id, name) for building the in-memory search index.
+     */
+    @Query("SELECT a.id, a.name FROM Author a")
+    List<Object[]> findSearchIndexRows();
+
+    /**
+     * Rows of (id, lastModified) for the given author IDs, to validate cached DTOs.
+     */
+    @Query("SELECT a.id, a.lastModified FROM Author a WHERE a.id IN :ids")
+    List<Object[]> findLastModifiedByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Interface projection for author summaries (id + lastModified), used by the filter
+     * endpoints. Each filter below is a predicate backed by an index; see
+     * {@code DatabaseMigration.createFilterIndexes}.
+     */
+    interface AuthorSummaryProjection {
+        Long getId();
+        LocalDateTime getLastModified();
+    }
+
+    @Query("SELECT a.id as id, a.lastModified as lastModified FROM Author a WHERE a.briefBiography IS NULL")
+    List<AuthorSummaryProjection> findSummariesWithoutDescription();
+
+    @Query("SELECT a.id as id, a.lastModified as lastModified FROM Author a WHERE a.grokipediaUrl IS NULL OR a.grokipediaUrl = ''")
+    List<AuthorSummaryProjection> findSummariesWithoutGrokipediaUrl();
+
+    @Query("SELECT a.id as id, a.lastModified as lastModified FROM Author a WHERE NOT EXISTS (SELECT 1 FROM Book b WHERE b.author = a)")
+    List<AuthorSummaryProjection> findSummariesWithZeroBooks();
+
+    /**
+     * Summaries of authors with a book added in [start, end).
+     */
+    @Query("SELECT DISTINCT a.id as id, a.lastModified as lastModified FROM Book b JOIN b.author a " +
+            "WHERE b.dateAddedToLibrary >= :start AND b.dateAddedToLibrary < :end")
+    List<AuthorSummaryProjection> findSummariesWithBooksAddedBetween(@Param("start") LocalDateTime start,
+                                                                     @Param("end") LocalDateTime end);
+
+    /**
+     * Rows of (id, lastModified) in id order, streamed for the binary summaries encoding.
+     * Must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.id, a.lastModified FROM Author a ORDER BY a.id")
+    Stream<Object[]> streamSummaryRows();
+
     /**
      * Find authors who have at least one book matching ALL active type filters (no labels).
      * Used by SearchService when any filter chip is active; mirrors the WHERE conditions in
@@ -72,4 +125,67 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
         @Param("labels") List<String> labels,
         @Param("labelCount") long labelCount,
         Pageable pageable);
+
+    /**
+     * Keyset variant of {@link #findAuthorsOfBooksMatchingFilters}: authors ordered by (name, id)
+     * that sort after (:afterName, :afterId). Pass ('', -1) for the first page.
+     */
+    @Query("SELECT a FROM Author a WHERE " +
+        "(a.name > :afterName OR (a.name = :afterName AND a.id > :afterId)) AND EXISTS (" +
+        "SELECT 1 FROM Book b WHERE b.author = a AND " +
+        "(:query = '' OR LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
+        "(:filterInLibrary = false OR (b.locNumber IS NOT NULL AND b.locNumber <> '')) AND " +
+        "(:filterElectronic = false OR b.electronicResource = true) AND " +
+        "(:filterFreeText = false OR b.freeTextUrl IS NOT NULL) AND " +
+        "(:filterAudio = false OR (b.freeTextUrl IS NOT NULL AND LOWER(b.freeTextUrl) LIKE '%librivox%'))) " +
+        "ORDER BY a.name, a.id")
+    List<Author> findAuthorsOfBooksMatchingFiltersAfter(
+        @Param("query") String query,
+        @Param("filterInLibrary") boolean filterInLibrary,
+        @Param("filterElectronic") boolean filterElectronic,
+        @Param("filterFreeText") boolean filterFreeText,
+        @Param("filterAudio") boolean filterAudio,
+        @Param("afterName") String afterName,
+        @Param("afterId") long afterId,
+        Pageable pageable);
+
+    /**
+     * Keyset variant of {@link #findAuthorsOfBooksMatchingFiltersAndLabels}; see
+     * {@link #findAuthorsOfBooksMatchingFiltersAfter}.
+     */
+    @Query("SELECT a FROM Author a WHERE " +
+        "(a.name > :afterName OR (a.name = :afterName AND a.id > :afterId)) AND EXISTS (" +
+        "SELECT 1 FROM Book b WHERE b.author = a AND " +
+        "(:query = '' OR LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
+        "(SELECT COUNT(t) FROM Book b2 JOIN b2.tagsList t WHERE b2 = b AND t IN :labels) = :labelCount AND " +
+        "(:filterInLibrary = false OR (b.locNumber IS NOT NULL AND b.locNumber <> '')) AND " +
+        "(:filterElectronic = false OR b.electronicResource = true) AND " +
+        "(:filterFreeText = false OR b.freeTextUrl IS NOT NULL) AND " +
+        "(:filterAudio = false OR (b.freeTextUrl IS NOT NULL AND LOWER(b.freeTextUrl) LIKE '%librivox%'))) " +
+        "ORDER BY a.name, a.id")
+    List<Author> findAuthorsOfBooksMatchingFiltersAndLabelsAfter(
+        @Param("query") String query,
+        @Param("filterInLibrary") boolean filterInLibrary,
+        @Param("filterElectronic") boolean filterElectronic,
+        @Param("filterFreeText") boolean filterFreeText,
+        @Param("filterAudio") boolean filterAudio,
+        @Param("labels") List<String> labels,
+        @Param("labelCount") long labelCount,
+        @Param("afterName") String afterName,
+        @Param("afterId") long afterId,
+        Pageable pageable);
+
+    /**
+     * Keyset name search (all authors for a blank query): authors ordered by (name, id) that
+     * sort after (:afterName, :afterId).
+     */
+    @Query("SELECT a FROM Author a WHERE " +
+        "(a.name > :afterName OR (a.name = :afterName AND a.id > :afterId)) AND " +
+        "(:query = '' OR LOWER(a.name) LIKE LOWER(CONCAT('%', :query, '%'))) " +
+        "ORDER BY a.name, a.id")
+    List<Author> findByNameContainingAfter(
+        @Param("query") String query,
+        @Param("afterName") String afterName,
+        @Param("afterId") long afterId,
+        Pageable pageable);
 }
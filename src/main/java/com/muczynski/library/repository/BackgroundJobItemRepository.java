@@ -0,0 +1,24 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.repository;
+
+import com.muczynski.library.domain.BackgroundJobItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface BackgroundJobItemRepository extends JpaRepository<BackgroundJobItem, Long> {
+
+    /**
+     * The next items for a worker to process.
+     */
+    List<BackgroundJobItem> findTop20ByJobIdAndStatusOrderByItemOrderAsc(Long jobId, BackgroundJobItem.Status status);
+
+    /**
+     * Items that finished after change {@code changeSeq}: the results a client hasn't seen yet,
+     * including items below its last one that were retried since.
+     */
+    List<BackgroundJobItem> findByJobIdAndChangeSeqGreaterThanAndStatusNotOrderByChangeSeqAscItemOrderAsc(
+            Long jobId, long changeSeq, BackgroundJobItem.Status status);
+}
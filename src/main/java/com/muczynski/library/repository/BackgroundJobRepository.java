@@ -0,0 +1,14 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.repository;
+
+import com.muczynski.library.domain.BackgroundJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface BackgroundJobRepository extends JpaRepository<BackgroundJob, Long> {
+
+    List<BackgroundJob> findTop50ByOrderByIdDesc();
+}
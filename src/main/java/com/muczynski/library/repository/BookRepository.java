@@ -4,17 +4,22 @@
 package com.muczynski.library.repository;
 
 import com.muczynski.library.domain.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
@@ -45,13 +50,10 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     /**
      * Find books from most recent 2 days OR with temporary titles (date-pattern titles).
-     * Uses native query for regex support and efficient projection.
-     * Temporary titles match pattern: YYYY-M-D or YYYY-MM-DD at start of title.
+     * Both conditions are indexable: a range on date_added_to_library starting at midnight of
+     * the day before the latest addition, and the generated temporary_title flag.
      */
     @Query(value = """
-        WITH most_recent_date AS (
-            SELECT DATE(MAX(date_added_to_library)) as max_date FROM book
-        )
         SELECT
             b.id as id,
             b.title as title,
@@ -70,9 +72,9 @@ public interface BookRepository extends JpaRepository<Book, Long> {
             WHERE book_id IS NOT NULL
             GROUP BY book_id
         ) p ON b.id = p.book_id
-        CROSS JOIN most_recent_date mrd
-        WHERE DATE(b.date_added_to_library) >= mrd.max_date - INTERVAL '1 day'
-           OR b.title ~ '^[0-9]{4}-[0-9]{1,2}-[0-9]{1,2}'
+        WHERE b.date_added_to_library >= (
+                SELECT date_trunc('day', MAX(date_added_to_library)) - INTERVAL '1 day' FROM book)
+           OR b.temporary_title
         ORDER BY b.date_added_to_library DESC
         """, nativeQuery = true)
     List<SavedBookProjection> findSavedBooksWithProjection();
@@ -81,17 +83,33 @@ public interface BookRepository extends JpaRepository<Book, Long> {
      * Find book IDs with temporary titles (date-pattern titles like YYYY-M-D).
      * Efficient query that only returns IDs for batch processing.
      */
-    @Query(value = "SELECT id FROM book WHERE title ~ '^[0-9]{4}-[0-9]{1,2}-[0-9]{1,2}'", nativeQuery = true)
+    @Query("SELECT b.id FROM Book b WHERE b.temporaryTitle = true")
     List<Long> findBookIdsWithTemporaryTitles();
 
     @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.library")
     List<Book> findAllWithAuthorAndLibrary();
+
+    /**
+     * Every book with its author, branch and long-form text, for the JSON export.
+     */
+    @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.library LEFT JOIN FETCH b.detail")
+    List<Book> findAllWithAuthorLibraryAndDetail();
+
+    /**
+     * One book with its long-form text in the same query, for the detail endpoint.
+     */
+    @Query("SELECT b FROM Book b LEFT JOIN FETCH b.detail WHERE b.id = :id")
+    Optional<Book> findWithDetailById(@Param("id") Long id);
     Page<Book> findByTitleContainingIgnoreCase(String title, Pageable pageable);
     Page<Book> findByTitleContainingIgnoreCaseAndFreeTextUrlIsNotNull(String title, Pageable pageable);
     Page<Book> findByTitleContainingIgnoreCaseAndElectronicResourceTrue(String title, Pageable pageable);
     Page<Book> findByTitleContainingIgnoreCaseAndLocNumberIsNotNull(String title, Pageable pageable);
     void deleteByPublisher(String publisher);
     long countByAuthorId(Long authorId);
+
+    // Batch: book counts for multiple authors in one query — avoids N+1 in author listings
+    @Query("SELECT b.author.id, COUNT(b) FROM Book b WHERE b.author.id IN :authorIds GROUP BY b.author.id")
+    List<Object[]> countBooksByAuthorIds(@Param("authorIds") List<Long> authorIds);
     List<Book> findByAuthorIdOrderByTitleAsc(Long authorId);
     /** @deprecated Use findAllByTitleAndAuthor_NameOrderByIdAsc() instead to handle duplicates safely. */
     @Deprecated
@@ -113,7 +131,7 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b FROM Book b WHERE b.dateAddedToLibrary >= :startOfDay AND b.dateAddedToLibrary < :endOfDay ORDER BY b.dateAddedToLibrary DESC")
     List<Book> findByDateAddedToLibraryBetweenOrderByDateAddedDesc(LocalDateTime startOfDay, LocalDateTime endOfDay);
 
-    @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.library WHERE b.locNumber IS NOT NULL AND b.locNumber != '' AND LENGTH(SUBSTRING(b.locNumber, 1, 3)) = 3 AND SUBSTRING(b.locNumber, 1, 1) BETWEEN 'A' AND 'Z' AND SUBSTRING(b.locNumber, 2, 1) BETWEEN 'A' AND 'Z' AND SUBSTRING(b.locNumber, 3, 1) BETWEEN 'A' AND 'Z' ORDER BY b.dateAddedToLibrary DESC")
+    @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.library WHERE b.threeLetterLocClass IS NOT NULL ORDER BY b.dateAddedToLibrary DESC")
     List<Book> findBooksWith3LetterLocStart();
 
     @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.author LEFT JOIN FETCH b.library WHERE b.locNumber IS NULL OR b.locNumber = ''")
@@ -128,7 +146,6 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b.title FROM Book b WHERE b.title = :title OR b.title LIKE :titlePattern")
     List<String> findTitlesByBasePattern(String title, String titlePattern);
 
-    long countByLibraryId(Long libraryId);
     List<Book> findAllByLibraryId(Long libraryId);
 
     /**
@@ -138,6 +155,14 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b.id as id, b.lastModified as lastModified FROM Book b")
     List<BookSummaryProjection> findAllSummaries();
 
+    /**
+     * Rows of (id, lastModified) in id order, streamed for the binary summaries encoding.
+     * Must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id, b.lastModified FROM Book b ORDER BY b.id")
+    Stream<Object[]> streamSummaryRows();
+
     /**
      * Get summaries (id + lastModified) for books without LOC number.
      */
@@ -147,7 +172,7 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     /**
      * Get summaries (id + lastModified) for books with 3-letter LOC start.
      */
-    @Query("SELECT b.id as id, b.lastModified as lastModified FROM Book b WHERE b.locNumber IS NOT NULL AND b.locNumber != '' AND LENGTH(SUBSTRING(b.locNumber, 1, 3)) = 3 AND SUBSTRING(b.locNumber, 1, 1) BETWEEN 'A' AND 'Z' AND SUBSTRING(b.locNumber, 2, 1) BETWEEN 'A' AND 'Z' AND SUBSTRING(b.locNumber, 3, 1) BETWEEN 'A' AND 'Z'")
+    @Query("SELECT b.id as id, b.lastModified as lastModified FROM Book b WHERE b.threeLetterLocClass IS NOT NULL")
     List<BookSummaryProjection> findSummariesWith3LetterLocStart();
 
     /**
@@ -158,20 +183,43 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     /**
      * Get summaries (id + lastModified) for books from most recent 2 days OR with temporary titles.
-     * Uses native query for regex support and PostgreSQL compatibility.
+     * Native for date_trunc; see {@link #findSavedBooksWithProjection()} for the predicate.
      */
     @Query(value = """
-        WITH most_recent_date AS (
-            SELECT DATE(MAX(date_added_to_library)) as max_date FROM book
-        )
         SELECT b.id as id, b.last_modified as lastModified
         FROM book b
-        CROSS JOIN most_recent_date mrd
-        WHERE DATE(b.date_added_to_library) >= mrd.max_date - INTERVAL '1 day'
-           OR b.title ~ '^[0-9]{4}-[0-9]{1,2}-[0-9]{1,2}'
+        WHERE b.date_added_to_library >= (
+                SELECT date_trunc('day', MAX(date_added_to_library)) - INTERVAL '1 day' FROM book)
+           OR b.temporary_title
         """, nativeQuery = true)
     List<BookSummaryProjection> findSummariesFromMostRecentDay();
 
+    /**
+     * Interface projection for a shelf page entry: the summary plus its keyset position.
+     */
+    interface ShelfEntryProjection {
+        Long getId();
+        LocalDateTime getLastModified();
+        String getCallNumberSortKey();
+    }
+
+    /**
+     * Books with call number sort keys in [from, to), in shelf order, starting after the
+     * keyset position (afterKey, afterId). Reads idx_book_call_number_sort_key in order and
+     * stops after {@code limit} rows, however deep the page.
+     */
+    @Query(value = """
+        SELECT b.id as id, b.last_modified as lastModified, b.call_number_sort_key as callNumberSortKey
+        FROM book b
+        WHERE b.call_number_sort_key >= :from AND b.call_number_sort_key < :to
+          AND (b.call_number_sort_key, b.id) > (:afterKey, :afterId)
+        ORDER BY b.call_number_sort_key, b.id
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<ShelfEntryProjection> findShelfPage(@Param("from") String from, @Param("to") String to,
+                                             @Param("afterKey") String afterKey, @Param("afterId") long afterId,
+                                             @Param("limit") int limit);
+
     /**
      * Get summaries (id + lastModified) for books that have ALL of the given labels.
      * Books are matched only if their tagsList contains every label in the provided list.
@@ -179,6 +227,13 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b.id as id, b.lastModified as lastModified FROM Book b WHERE (SELECT COUNT(t) FROM Book b2 JOIN b2.tagsList t WHERE b2 = b AND t IN :labels) = :labelCount")
     List<BookSummaryProjection> findSummariesByAllLabels(@Param("labels") List<String> labels, @Param("labelCount") long labelCount);
 
+    /**
+     * Get summaries (id + lastModified) for the given book IDs.
+     * Used with ID sets computed by the in-memory search index.
+     */
+    @Query("SELECT b.id as id, b.lastModified as lastModified FROM Book b WHERE b.id IN :ids")
+    List<BookSummaryProjection> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Find books that have ALL of the given labels, filtered by title query.
      * Returns books whose tagsList contains every label in the provided list.
@@ -259,11 +314,150 @@ public interface BookRepository extends JpaRepository<Book, Long> {
         Pageable pageable);
 
     /**
-     * Count books that have the specified tag in their tagsList.
+     * Keyset variant of {@link #findWithFilters}: books ordered by (title, id) that sort after
+     * (:afterTitle, :afterId). Pass ('', -1) for the first page and a Pageable of
+     * (0, size + 1) to learn whether another page follows; no COUNT query is issued.
+     */
+    @Query("SELECT b FROM Book b WHERE " +
+        "(b.title > :afterTitle OR (b.title = :afterTitle AND b.id > :afterId)) AND " +
+        "(:query = '' OR LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
+        "(:filterInLibrary = false OR (b.locNumber IS NOT NULL AND b.locNumber <> '')) AND " +
+        "(:filterElectronic = false OR b.electronicResource = true) AND " +
+        "(:filterFreeText = false OR b.freeTextUrl IS NOT NULL) AND " +
+        "(:filterAudio = false OR (b.freeTextUrl IS NOT NULL AND LOWER(b.freeTextUrl) LIKE '%librivox%')) " +
+        "ORDER BY b.title, b.id")
+    List<Book> findWithFiltersAfter(
+        @Param("query") String query,
+        @Param("filterInLibrary") boolean filterInLibrary,
+        @Param("filterElectronic") boolean filterElectronic,
+        @Param("filterFreeText") boolean filterFreeText,
+        @Param("filterAudio") boolean filterAudio,
+        @Param("afterTitle") String afterTitle,
+        @Param("afterId") long afterId,
+        Pageable pageable);
+
+    /**
+     * Keyset variant of {@link #findWithFiltersAndLabels}; see {@link #findWithFiltersAfter}.
+     */
+    @Query("SELECT b FROM Book b WHERE " +
+        "(b.title > :afterTitle OR (b.title = :afterTitle AND b.id > :afterId)) AND " +
+        "(:query = '' OR LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
+        "(SELECT COUNT(t) FROM Book b2 JOIN b2.tagsList t WHERE b2 = b AND t IN :labels) = :labelCount AND " +
+        "(:filterInLibrary = false OR (b.locNumber IS NOT NULL AND b.locNumber <> '')) AND " +
+        "(:filterElectronic = false OR b.electronicResource = true) AND " +
+        "(:filterFreeText = false OR b.freeTextUrl IS NOT NULL) AND " +
+        "(:filterAudio = false OR (b.freeTextUrl IS NOT NULL AND LOWER(b.freeTextUrl) LIKE '%librivox%')) " +
+        "ORDER BY b.title, b.id")
+    List<Book> findWithFiltersAndLabelsAfter(
+        @Param("query") String query,
+        @Param("filterInLibrary") boolean filterInLibrary,
+        @Param("filterElectronic") boolean filterElectronic,
+        @Param("filterFreeText") boolean filterFreeText,
+        @Param("filterAudio") boolean filterAudio,
+        @Param("labels") List<String> labels,
+        @Param("labelCount") long labelCount,
+        @Param("afterTitle") String afterTitle,
+        @Param("afterId") long afterId,
+        Pageable pageable);
+
+    /**
+     * Facet counts for a search in one aggregate: a single row of
+     * [matching, inLibrary, electronic, freeText, audio] over the books matched by
+     * {@link #findWithFilters}.
+     */
+    @Query("SELECT COUNT(b), " +
+        "SUM(CASE WHEN b.locNumber IS NOT NULL AND b.locNumber <> '' THEN 1 ELSE 0 END), " +
+        "SUM(CASE WHEN b.electronicResource = true THEN 1 ELSE 0 END), " +
+        "SUM(CASE WHEN b.freeTextUrl IS NOT NULL THEN 1 ELSE 0 END), " +
+        "SUM(CASE WHEN b.freeTextUrl IS NOT NULL AND LOWER(b.freeTextUrl) LIKE '%librivox%' THEN 1 ELSE 0 END) " +
+        "FROM Book b WHERE " +
+        "(:query = '' OR LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
+        "(:filterInLibrary = false OR (b.locNumber IS NOT NULL AND b.locNumber <> '')) AND " +
+        "(:filterElectronic = false OR b.electronicResource = true) AND " +
+        "(:filterFreeText = false OR b.freeTextUrl IS NOT NULL) AND " +
+        "(:filterAudio = false OR (b.freeTextUrl IS NOT NULL AND LOWER(b.freeTextUrl) LIKE '%librivox%'))")
+    List<Object[]> countFacets(
+        @Param("query") String query,
+        @Param("filterInLibrary") boolean filterInLibrary,
+        @Param("filterElectronic") boolean filterElectronic,
+        @Param("filterFreeText") boolean filterFreeText,
+        @Param("filterAudio") boolean filterAudio);
+
+    /**
+     * Same as {@link #countFacets} over the books matched by {@link #findWithFiltersAndLabels}.
      */
-    @Query("SELECT COUNT(DISTINCT b) FROM Book b JOIN b.tagsList t WHERE t = :tag")
-    long countByTag(@Param("tag") String tag);
+    @Query("SELECT COUNT(b), " +
+        "SUM(CASE WHEN b.locNumber IS NOT NULL AND b.locNumber <> '' THEN 1 ELSE 0 END), " +
+        "SUM(CASE WHEN b.electronicResource = true THEN 1 ELSE 0 END), " +
+        "SUM(CASE WHEN b.freeTextUrl IS NOT NULL THEN 1 ELSE 0 END), " +
+        "SUM(CASE WHEN b.freeTextUrl IS NOT NULL AND LOWER(b.freeTextUrl) LIKE '%librivox%' THEN 1 ELSE 0 END) " +
+        "FROM Book b WHERE " +
+        "(:query = '' OR LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
+        "(SELECT COUNT(t) FROM Book b2 JOIN b2.tagsList t WHERE b2 = b AND t IN :labels) = :labelCount AND " +
+        "(:filterInLibrary = false OR (b.locNumber IS NOT NULL AND b.locNumber <> '')) AND " +
+        "(:filterElectronic = false OR b.electronicResource = true) AND " +
+        "(:filterFreeText = false OR b.freeTextUrl IS NOT NULL) AND " +
+        "(:filterAudio = false OR (b.freeTextUrl IS NOT NULL AND LOWER(b.freeTextUrl) LIKE '%librivox%'))")
+    List<Object[]> countFacetsWithLabels(
+        @Param("query") String query,
+        @Param("filterInLibrary") boolean filterInLibrary,
+        @Param("filterElectronic") boolean filterElectronic,
+        @Param("filterFreeText") boolean filterFreeText,
+        @Param("filterAudio") boolean filterAudio,
+        @Param("labels") List<String> labels,
+        @Param("labelCount") long labelCount);
+
+    /**
+     * Label facet counts: [label, bookCount] rows for every label carried by the books
+     * matched by {@link #findWithFilters}, ordered by label.
+     */
+    @Query("SELECT t, COUNT(DISTINCT b) FROM Book b JOIN b.tagsList t WHERE " +
+        "(:query = '' OR LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
+        "(:filterInLibrary = false OR (b.locNumber IS NOT NULL AND b.locNumber <> '')) AND " +
+        "(:filterElectronic = false OR b.electronicResource = true) AND " +
+        "(:filterFreeText = false OR b.freeTextUrl IS NOT NULL) AND " +
+        "(:filterAudio = false OR (b.freeTextUrl IS NOT NULL AND LOWER(b.freeTextUrl) LIKE '%librivox%')) " +
+        "GROUP BY t ORDER BY t")
+    List<Object[]> countLabelFacets(
+        @Param("query") String query,
+        @Param("filterInLibrary") boolean filterInLibrary,
+        @Param("filterElectronic") boolean filterElectronic,
+        @Param("filterFreeText") boolean filterFreeText,
+        @Param("filterAudio") boolean filterAudio);
+
+    /**
+     * Same as {@link #countLabelFacets} over the books matched by {@link #findWithFiltersAndLabels}.
+     */
+    @Query("SELECT t, COUNT(DISTINCT b) FROM Book b JOIN b.tagsList t WHERE " +
+        "(:query = '' OR LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
+        "(SELECT COUNT(t2) FROM Book b2 JOIN b2.tagsList t2 WHERE b2 = b AND t2 IN :labels) = :labelCount AND " +
+        "(:filterInLibrary = false OR (b.locNumber IS NOT NULL AND b.locNumber <> '')) AND " +
+        "(:filterElectronic = false OR b.electronicResource = true) AND " +
+        "(:filterFreeText = false OR b.freeTextUrl IS NOT NULL) AND " +
+        "(:filterAudio = false OR (b.freeTextUrl IS NOT NULL AND LOWER(b.freeTextUrl) LIKE '%librivox%')) " +
+        "GROUP BY t ORDER BY t")
+    List<Object[]> countLabelFacetsWithLabels(
+        @Param("query") String query,
+        @Param("filterInLibrary") boolean filterInLibrary,
+        @Param("filterElectronic") boolean filterElectronic,
+        @Param("filterFreeText") boolean filterFreeText,
+        @Param("filterAudio") boolean filterAudio,
+        @Param("labels") List<String> labels,
+        @Param("labelCount") long labelCount);
 
     // Lightweight projection for photo ZIP import — skips @Lob fields (plotSummary, etc.)
     List<BookZipImportProjection> findBy();
+
+    /**
+     * Rows of (id, title, authorId, locNumber, electronicResource, freeTextUrl) for building
+     * the in-memory search index. Skips the @Lob description fields so the scan stays light.
+     */
+    @Query("SELECT b.id, b.title, a.id, b.locNumber, b.electronicResource, b.freeTextUrl FROM Book b LEFT JOIN b.author a")
+    List<Object[]> findSearchIndexRows();
+
+    /**
+     * Rows of (bookId, tag) for every tag on every book.
+     */
+    @Query("SELECT b.id, t FROM Book b JOIN b.tagsList t")
+    List<Object[]> findAllBookTags();
 }
@@ -0,0 +1,57 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.repository;
+
+import com.muczynski.library.domain.CatalogChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    List<CatalogChange> findByEntityTypeAndEntityIdIn(String entityType, Collection<Long> entityIds);
+
+    @Query("SELECT COALESCE(MAX(c.seq), 0) FROM CatalogChange c")
+    long findMaxSeq();
+
+    @Query("SELECT COALESCE(MAX(c.seq), 0) FROM CatalogChange c WHERE c.entityType = :entityType")
+    long findMaxSeqByEntityType(@Param("entityType") String entityType);
+
+    // Rows: [entityId, seq, deleted, joined entity id, lastModified]; the joined id is null
+    // once the entity is gone
+    @Query("SELECT c.entityId, c.seq, c.deleted, b.id, b.lastModified FROM CatalogChange c " +
+           "LEFT JOIN Book b ON b.id = c.entityId " +
+           "WHERE c.entityType = 'book' AND c.seq > :since ORDER BY c.seq")
+    List<Object[]> findBookChangesSince(@Param("since") long since, Pageable pageable);
+
+    @Query("SELECT c.entityId, c.seq, c.deleted, a.id, a.lastModified FROM CatalogChange c " +
+           "LEFT JOIN Author a ON a.id = c.entityId " +
+           "WHERE c.entityType = 'author' AND c.seq > :since ORDER BY c.seq")
+    List<Object[]> findAuthorChangesSince(@Param("since") long since, Pageable pageable);
+
+    // Reconciliation: entities written without passing through the JPA listener (raw SQL
+    // imports, db-copy scripts, or changes lost when the process stopped before flushing)
+
+    @Query(value = "SELECT b.id FROM book b LEFT JOIN catalog_change c " +
+                   "ON c.entity_type = 'book' AND c.entity_id = b.id " +
+                   "WHERE c.id IS NULL OR c.deleted OR b.last_modified > c.changed_at", nativeQuery = true)
+    List<Long> findUnrecordedBookIds();
+
+    @Query(value = "SELECT c.entity_id FROM catalog_change c WHERE c.entity_type = 'book' AND NOT c.deleted " +
+                   "AND NOT EXISTS (SELECT 1 FROM book b WHERE b.id = c.entity_id)", nativeQuery = true)
+    List<Long> findUnrecordedBookDeletes();
+
+    @Query(value = "SELECT a.id FROM author a LEFT JOIN catalog_change c " +
+                   "ON c.entity_type = 'author' AND c.entity_id = a.id " +
+                   "WHERE c.id IS NULL OR c.deleted OR a.last_modified > c.changed_at", nativeQuery = true)
+    List<Long> findUnrecordedAuthorIds();
+
+    @Query(value = "SELECT c.entity_id FROM catalog_change c WHERE c.entity_type = 'author' AND NOT c.deleted " +
+                   "AND NOT EXISTS (SELECT 1 FROM author a WHERE a.id = c.entity_id)", nativeQuery = true)
+    List<Long> findUnrecordedAuthorDeletes();
+}
@@ -0,0 +1,10 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.repository;
+
+import com.muczynski.library.domain.CatalogCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CatalogCounterRepository extends JpaRepository<CatalogCounter, String> {
+}
@@ -84,7 +84,6 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     Optional<Loan> findByBookIdAndUserIdAndLoanDate(Long bookId, Long userId, LocalDate loanDate);
     List<Loan> findAllByBookIdAndUserIdAndLoanDateOrderByIdAsc(Long bookId, Long userId, LocalDate loanDate);
     long countByReturnDateIsNull();
-    long countByBookLibraryIdAndReturnDateIsNull(Long libraryId);
 
     // Alternative methods using userId directly (for debugging comparison with count methods)
     @Query("SELECT DISTINCT l FROM Loan l " +
@@ -27,6 +27,10 @@ public interface PhotoRepository extends JpaRepository<Photo, Long> {
     // Get first photo checksum for a loan without loading the photo
     @Query("SELECT p.imageChecksum FROM Photo p WHERE p.loan.id = :loanId ORDER BY p.id ASC LIMIT 1")
     String findFirstPhotoChecksumByLoanId(@Param("loanId") Long loanId);
+
+    // Batch: get first photo (id + checksum) for each loan in one query, without loading image bytes
+    @Query(value = "SELECT DISTINCT ON (loan_id) loan_id, id, image_checksum FROM photo WHERE loan_id IN :loanIds ORDER BY loan_id, id ASC", nativeQuery = true)
+    List<Object[]> findFirstPhotoDataForLoanIds(@Param("loanIds") List<Long> loanIds);
     /** @deprecated Use findAllByPermanentIdOrderByIdAsc() instead to handle duplicates safely. */
     @Deprecated
     Optional<Photo> findByPermanentId(String permanentId);
@@ -50,31 +54,6 @@ public interface PhotoRepository extends JpaRepository<Photo, Long> {
     @Query("SELECT p.id FROM Photo p WHERE p.imageChecksum IS NULL")
     List<Long> findIdsWithoutChecksum();
 
-    // Count queries for export stats (avoid loading image bytes)
-    @Query("SELECT COUNT(p) FROM Photo p WHERE p.deletedAt IS NULL")
-    long countActivePhotos();
-
-    @Query("SELECT COUNT(p) FROM Photo p WHERE p.deletedAt IS NULL AND p.permanentId IS NOT NULL AND p.permanentId <> ''")
-    long countExportedPhotos();
-
-    @Query("SELECT COUNT(p) FROM Photo p WHERE p.deletedAt IS NULL AND p.permanentId IS NOT NULL AND p.permanentId <> '' AND p.imageChecksum IS NOT NULL")
-    long countImportedPhotos();
-
-    // Pending Export: has checksum (local image) but no permanentId (not uploaded), excluding FAILED
-    @Query("SELECT COUNT(p) FROM Photo p WHERE p.deletedAt IS NULL AND p.imageChecksum IS NOT NULL " +
-           "AND (p.permanentId IS NULL OR p.permanentId = '') " +
-           "AND (p.exportStatus IS NULL OR p.exportStatus <> com.muczynski.library.domain.Photo$ExportStatus.FAILED)")
-    long countPendingExportPhotos();
-
-    // Pending Import: has permanentId (uploaded) but no checksum (no local image), excluding FAILED
-    @Query("SELECT COUNT(p) FROM Photo p WHERE p.deletedAt IS NULL AND p.permanentId IS NOT NULL AND p.permanentId <> '' " +
-           "AND p.imageChecksum IS NULL " +
-           "AND (p.exportStatus IS NULL OR p.exportStatus <> com.muczynski.library.domain.Photo$ExportStatus.FAILED)")
-    long countPendingImportPhotos();
-
-    @Query("SELECT COUNT(p) FROM Photo p WHERE p.deletedAt IS NULL AND p.exportStatus = :status")
-    long countByExportStatus(@Param("status") Photo.ExportStatus status);
-
     // Find photo IDs needing export (have checksum but no permanentId)
     @Query("SELECT p.id FROM Photo p WHERE p.deletedAt IS NULL AND p.imageChecksum IS NOT NULL " +
            "AND (p.permanentId IS NULL OR p.permanentId = '') " +
@@ -104,6 +83,10 @@ public interface PhotoRepository extends JpaRepository<Photo, Long> {
     @Query(value = "SELECT DISTINCT ON (book_id) book_id, id, image_checksum FROM photo WHERE book_id IN :bookIds ORDER BY book_id, photo_order ASC NULLS LAST", nativeQuery = true)
     List<Object[]> findFirstPhotoDataForBookIds(@Param("bookIds") List<Long> bookIds);
 
+    // Batch: get first author-only photo (id + checksum) for each author in one query
+    @Query(value = "SELECT DISTINCT ON (author_id) author_id, id, image_checksum FROM photo WHERE author_id IN :authorIds AND book_id IS NULL ORDER BY author_id, photo_order ASC NULLS LAST", nativeQuery = true)
+    List<Object[]> findFirstPhotoDataForAuthorIds(@Param("authorIds") List<Long> authorIds);
+
     // Get first photo ID for an author without loading the photos collection
     @Query("SELECT p.id FROM Photo p WHERE p.author.id = :authorId AND p.book IS NULL ORDER BY p.photoOrder ASC LIMIT 1")
     Long findFirstPhotoIdByAuthorId(@Param("authorId") Long authorId);
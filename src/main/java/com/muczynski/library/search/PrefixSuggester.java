@@ -0,0 +1,107 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.search;
+
+import com.muczynski.library.freetext.TitleMatcher;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Frequency-weighted prefix lookup over book titles, author names and labels.
+ * <p>
+ * Every text is normalized with {@link TitleMatcher#normalize} and stored under one key per
+ * word start ("city of god" is also found under "of god" and "god") in a sorted map, so a
+ * prefix is a range scan. Each key holds the weight of every suggestion that produced it:
+ * books sharing a title, books carrying a label, and 1 + books written for an author.
+ * Results for one- and two-character prefixes, whose ranges are the widest, are cached
+ * until the next change.
+ * <p>
+ * Not thread-safe; {@link SearchIndex} guards every instance with its lock. The cache is
+ * concurrent because readers share the read lock.
+ */
+final class PrefixSuggester {
+
+    static final int MAX_LIMIT = 20;
+
+    private static final int CACHED_PREFIX_LENGTH = 2;
+
+    private static final Comparator<SearchIndex.Suggestion> ORDER =
+            Comparator.comparingInt(SearchIndex.Suggestion::weight).reversed()
+                    .thenComparingInt(s -> s.text().length())
+                    .thenComparing(SearchIndex.Suggestion::text);
+
+    private record Id(String type, String text) {
+    }
+
+    private final TreeMap<String, Map<Id, Integer>> byKey = new TreeMap<>();
+    private final Map<String, List<SearchIndex.Suggestion>> shortPrefixCache = new ConcurrentHashMap<>();
+
+    /**
+     * Adjust the weight of a suggestion by {@code delta}; it disappears when its weight
+     * drops to zero.
+     */
+    void add(String type, String text, int delta) {
+        if (text == null || text.isBlank() || delta == 0) {
+            return;
+        }
+        Id id = new Id(type, text.trim());
+        for (String key : keys(TitleMatcher.normalize(text))) {
+            Map<Id, Integer> weights = byKey.computeIfAbsent(key, k -> new HashMap<>());
+            if (weights.merge(id, delta, Integer::sum) <= 0) {
+                weights.remove(id);
+                if (weights.isEmpty()) {
+                    byKey.remove(key);
+                }
+            }
+        }
+        shortPrefixCache.clear();
+    }
+
+    /**
+     * The heaviest suggestions with a word starting with {@code prefix}, at most
+     * {@code limit} (capped at {@value #MAX_LIMIT}).
+     */
+    List<SearchIndex.Suggestion> suggest(String prefix, int limit) {
+        String normalized = prefix == null ? "" : TitleMatcher.normalize(prefix);
+        int capped = Math.min(limit, MAX_LIMIT);
+        if (normalized.isEmpty() || capped <= 0) {
+            return List.of();
+        }
+        if (normalized.length() <= CACHED_PREFIX_LENGTH) {
+            List<SearchIndex.Suggestion> top = shortPrefixCache.computeIfAbsent(normalized,
+                    p -> collect(p, MAX_LIMIT));
+            return top.subList(0, Math.min(capped, top.size()));
+        }
+        return collect(normalized, capped);
+    }
+
+    private List<SearchIndex.Suggestion> collect(String prefix, int limit) {
+        // A suggestion with two words sharing the prefix appears under both keys; count it once
+        Map<Id, Integer> matches = new HashMap<>();
+        for (Map<Id, Integer> weights : byKey.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            matches.putAll(weights);
+        }
+        return matches.entrySet().stream()
+                .map(e -> new SearchIndex.Suggestion(e.getKey().text(), e.getKey().type(), e.getValue()))
+                .sorted(ORDER)
+                .limit(limit)
+                .toList();
+    }
+
+    static List<String> keys(String normalized) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            if ((i == 0 || normalized.charAt(i - 1) == ' ') && normalized.charAt(i) != ' ') {
+                keys.add(normalized.substring(i));
+            }
+        }
+        return keys;
+    }
+}
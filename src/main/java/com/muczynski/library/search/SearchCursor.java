@@ -0,0 +1,71 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.search;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated search: the sort key and ID of the last book and the last
+ * author returned so far, and whether either list is exhausted.
+ * <p>
+ * Sort keys are only comparable within the path that issued them (the in-memory index sorts
+ * by lowercase text in Java order, the database by its collation), so the cursor records
+ * which one it came from and the next page is served by the same path when possible.
+ * Clients treat the encoded form as opaque.
+ */
+public record SearchCursor(boolean fromIndex,
+                           String bookKey, long bookId, boolean booksDone,
+                           String authorKey, long authorId, boolean authorsDone) {
+
+    private static final int VERSION = 1;
+
+    /**
+     * Cursor for the first page: before every key.
+     */
+    public static SearchCursor start(boolean fromIndex) {
+        return new SearchCursor(fromIndex, "", -1, false, "", -1, false);
+    }
+
+    public boolean isDone() {
+        return booksDone && authorsDone;
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeBoolean(fromIndex);
+            out.writeUTF(bookKey);
+            out.writeLong(bookId);
+            out.writeBoolean(booksDone);
+            out.writeUTF(authorKey);
+            out.writeLong(authorId);
+            out.writeBoolean(authorsDone);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode search cursor", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not a cursor issued by {@link #encode()}
+     */
+    public static SearchCursor decode(String encoded) {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(encoded)))) {
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unsupported search cursor");
+            }
+            return new SearchCursor(in.readBoolean(), in.readUTF(), in.readLong(), in.readBoolean(),
+                    in.readUTF(), in.readLong(), in.readBoolean());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
+    }
+}
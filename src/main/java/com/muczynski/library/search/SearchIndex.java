@@ -0,0 +1,774 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.search;
+
+import com.muczynski.library.domain.Author;
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.domain.CatalogChangeEvent;
+import com.muczynski.library.repository.AuthorRepository;
+import com.muczynski.library.repository.BookRepository;
+import com.muczynski.library.util.TextNormalizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * In-memory index that answers {@code /api/search} matching, filtering, counting and
+ * pagination without querying the database.
+ * <p>
+ * Book titles and author names are indexed as lowercase trigrams (gram → bitset of IDs);
+ * a query's trigrams are intersected and the survivors verified with {@code contains},
+ * so results are identical to the {@code LOWER(title) LIKE '%query%'} used by the
+ * repository queries. Filter chips are plain bitsets keyed by book ID; labels are
+ * {@link IdBitmap}s so an AND of labels costs as much as the smallest label, not the catalog.
+ * <p>
+ * The index is built in the background at startup and kept current from
+ * {@link CatalogChangeEvent}s after each commit. Until the first build completes
+ * {@link #isReady()} is false and {@code SearchService} uses the database.
+ * A periodic rebuild repairs anything written with raw SQL.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SearchIndex {
+
+    private static final int GRAM = 3;
+
+    static final String SUGGEST_TITLE = "title";
+    static final String SUGGEST_AUTHOR = "author";
+    static final String SUGGEST_LABEL = "label";
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+
+    @Value("${app.search.index.enabled:true}")
+    private boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private State state = new State();
+
+    // Changes applied while a rebuild is loading; replayed onto the fresh state. Guarded by lock.
+    private List<Consumer<State>> pending;
+
+    private volatile boolean ready;
+
+    /**
+     * One page of matching IDs plus the total number of matches.
+     */
+    public record IdPage(List<Long> ids, long total) {
+    }
+
+    /**
+     * One keyset page: the IDs after the cursor position, the total number of matches,
+     * whether more follow, and the sort key of the last ID (for the next cursor).
+     */
+    public record KeysetPage(List<Long> ids, long total, boolean hasMore, String lastKey) {
+    }
+
+    /**
+     * A book as seen by the index. {@code tags} is null when the tags were not loaded
+     * (lazy collection) and the previous value should be kept.
+     */
+    record BookEntry(long id, String title, String lowerTitle, Long authorId, boolean inLibrary,
+                     boolean electronic, boolean freeText, boolean audio, List<String> tags) {
+
+        BookEntry withTags(List<String> newTags) {
+            return new BookEntry(id, title, lowerTitle, authorId, inLibrary, electronic, freeText, audio, newTags);
+        }
+    }
+
+    record AuthorEntry(long id, String name, String lowerName) {
+    }
+
+    /**
+     * A typeahead completion: the text to show, what it is ({@code title}, {@code author}
+     * or {@code label}) and how many catalog entries back it.
+     */
+    public record Suggestion(String text, String type, int weight) {
+    }
+
+    /**
+     * How many of the matching books satisfy each filter chip and carry each label.
+     */
+    public record FacetCounts(long inLibrary, long electronic, long freeText, long audio,
+                              SortedMap<String, Long> labels) {
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Books matching the query, type filters and labels, in ascending ID order.
+     * Mirrors {@code BookRepository.findWithFilters}/{@code findWithFiltersAndLabels}.
+     */
+    public IdPage findBooks(String query, boolean filterInLibrary, boolean filterElectronic,
+                            boolean filterFreeText, boolean filterAudio, List<String> labels,
+                            int page, int size) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = state.matchBooks(normalize(query), filterInLibrary, filterElectronic,
+                    filterFreeText, filterAudio, labels);
+            return pageInIdOrder(matches, page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Books matching like {@link #findBooks}, ordered by (lowercase title, ID), starting after
+     * {@code afterKey}/{@code afterId}. Cost follows the page size, not the depth.
+     */
+    public KeysetPage findBooksAfter(String query, boolean filterInLibrary, boolean filterElectronic,
+                                     boolean filterFreeText, boolean filterAudio, List<String> labels,
+                                     String afterKey, long afterId, int size) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = state.matchBooks(normalize(query), filterInLibrary, filterElectronic,
+                    filterFreeText, filterAudio, labels);
+            return seek(state.booksByTitle(), id -> state.books.get(id).lowerTitle(), matches, afterKey, afterId, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Authors like {@link #findAuthorsOfMatchingBooks}, ordered by (lowercase name, ID),
+     * starting after {@code afterKey}/{@code afterId}.
+     */
+    public KeysetPage findAuthorsOfMatchingBooksAfter(String query, boolean filterInLibrary, boolean filterElectronic,
+                                                      boolean filterFreeText, boolean filterAudio, List<String> labels,
+                                                      String afterKey, long afterId, int size) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = state.matchBooks(normalize(query), filterInLibrary, filterElectronic,
+                    filterFreeText, filterAudio, labels);
+            BitSet authorIds = state.authorsOf(matches);
+            authorIds.and(state.allAuthors);
+            return seek(state.authorsByName(), id -> state.authors.get(id).lowerName(), authorIds, afterKey, afterId, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Authors like {@link #findAuthorsByName}, ordered by (lowercase name, ID), starting after
+     * {@code afterKey}/{@code afterId}.
+     */
+    public KeysetPage findAuthorsByNameAfter(String query, String afterKey, long afterId, int size) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = state.matchAuthors(normalize(query));
+            return seek(state.authorsByName(), id -> state.authors.get(id).lowerName(), matches, afterKey, afterId, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Facet counts over the books {@link #findBooks} would match, computed in a single pass
+     * over the matches.
+     */
+    public FacetCounts countFacets(String query, boolean filterInLibrary, boolean filterElectronic,
+                                   boolean filterFreeText, boolean filterAudio, List<String> labels) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = state.matchBooks(normalize(query), filterInLibrary, filterElectronic,
+                    filterFreeText, filterAudio, labels);
+            long inLibrary = 0;
+            long electronic = 0;
+            long freeText = 0;
+            long audio = 0;
+            SortedMap<String, Long> labelCounts = new TreeMap<>();
+            for (int bit = matches.nextSetBit(0); bit >= 0; bit = matches.nextSetBit(bit + 1)) {
+                BookEntry entry = state.books.get((long) bit);
+                inLibrary += entry.inLibrary() ? 1 : 0;
+                electronic += entry.electronic() ? 1 : 0;
+                freeText += entry.freeText() ? 1 : 0;
+                audio += entry.audio() ? 1 : 0;
+                List<String> tags = entry.tags();
+                for (String tag : tags.size() > 1 ? new HashSet<>(tags) : tags) {
+                    if (tag != null) {
+                        labelCounts.merge(tag, 1L, Long::sum);
+                    }
+                }
+            }
+            return new FacetCounts(inLibrary, electronic, freeText, audio, labelCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Authors with at least one book matching the query, type filters and labels, ordered by
+     * lowercase name. Mirrors {@code AuthorRepository.findAuthorsOfBooksMatchingFilters}.
+     */
+    public IdPage findAuthorsOfMatchingBooks(String query, boolean filterInLibrary, boolean filterElectronic,
+                                             boolean filterFreeText, boolean filterAudio, List<String> labels,
+                                             int page, int size) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = state.matchBooks(normalize(query), filterInLibrary, filterElectronic,
+                    filterFreeText, filterAudio, labels);
+            return state.pageInNameOrder(state.authorsOf(matches), page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Authors whose name contains the query (all authors for a blank query), ordered by
+     * lowercase name.
+     */
+    public IdPage findAuthorsByName(String query, int page, int size) {
+        lock.readLock().lock();
+        try {
+            return state.pageInNameOrder(state.matchAuthors(normalize(query)), page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} titles, author names and labels with a word starting with
+     * {@code prefix}, heaviest first. Never touches the database.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return state.suggester.suggest(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of books tagged with every one of the labels, ascending. Mirrors
+     * {@code BookRepository.findSummariesByAllLabels}; an empty list matches nothing.
+     */
+    public List<Long> findBookIdsWithAllLabels(List<String> labels) {
+        lock.readLock().lock();
+        try {
+            IdBitmap matches = state.booksWithAllLabels(labels);
+            List<Long> ids = new ArrayList<>(matches.cardinality());
+            matches.forEach(id -> ids.add((long) id));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            log.debug("Skipping search index build (app.search.index.enabled=false)");
+            return;
+        }
+        rebuildInBackground();
+    }
+
+    /**
+     * Periodic full rebuild to pick up writes that bypassed JPA (imports via SQL, db-copy scripts).
+     */
+    @Scheduled(initialDelayString = "${app.search.index.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${app.search.index.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reload the whole index from the database and swap it in. Changes that commit while
+     * the load is running are replayed onto the new state, so nothing is lost.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            State fresh = load();
+            lock.writeLock().lock();
+            try {
+                pending.forEach(change -> change.accept(fresh));
+                state = fresh;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Search index built in {}ms: {} books, {} authors",
+                    System.currentTimeMillis() - start, fresh.books.size(), fresh.authors.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to build search index; searches will use the database: {}", e.getMessage(), e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (event.entity() instanceof Book book && book.getId() != null) {
+                long id = book.getId();
+                if (event.deleted()) {
+                    apply(s -> s.removeBook(id));
+                } else {
+                    BookEntry entry = toEntry(book);
+                    apply(s -> s.putBook(entry));
+                }
+            } else if (event.entity() instanceof Author author && author.getId() != null) {
+                long id = author.getId();
+                if (event.deleted()) {
+                    apply(s -> s.removeAuthor(id));
+                } else {
+                    AuthorEntry entry = new AuthorEntry(id, author.getName(), normalize(author.getName()));
+                    apply(s -> s.putAuthor(entry));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to update search index for {}; rebuilding: {}", event.entity(), e.getMessage(), e);
+            ready = false;
+            rebuildInBackground();
+        }
+    }
+
+    private void rebuildInBackground() {
+        Thread thread = new Thread(this::rebuild, "search-index-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void apply(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private State load() {
+        Map<Long, List<String>> tagsByBook = new HashMap<>();
+        for (Object[] row : bookRepository.findAllBookTags()) {
+            tagsByBook.computeIfAbsent(((Number) row[0]).longValue(), id -> new ArrayList<>()).add((String) row[1]);
+        }
+        State fresh = new State();
+        for (Object[] row : bookRepository.findSearchIndexRows()) {
+            long id = ((Number) row[0]).longValue();
+            fresh.putBook(toEntry(id, (String) row[1], row[2] != null ? ((Number) row[2]).longValue() : null,
+                    (String) row[3], (Boolean) row[4], (String) row[5],
+                    tagsByBook.getOrDefault(id, List.of())));
+        }
+        for (Object[] row : authorRepository.findSearchIndexRows()) {
+            fresh.putAuthor(new AuthorEntry(((Number) row[0]).longValue(), (String) row[1], normalize((String) row[1])));
+        }
+        return fresh;
+    }
+
+    static BookEntry toEntry(Book book) {
+        List<String> tags = Hibernate.isInitialized(book.getTagsList()) && book.getTagsList() != null
+                ? new ArrayList<>(book.getTagsList())
+                : null;
+        return toEntry(book.getId(), book.getTitle(),
+                book.getAuthor() != null ? book.getAuthor().getId() : null,
+                book.getLocNumber(), book.getElectronicResource(), book.getFreeTextUrl(), tags);
+    }
+
+    static BookEntry toEntry(long id, String title, Long authorId, String locNumber,
+                             Boolean electronicResource, String freeTextUrl, List<String> tags) {
+        return new BookEntry(id, title, normalize(title), authorId,
+                locNumber != null && !locNumber.isEmpty(),
+                Boolean.TRUE.equals(electronicResource),
+                freeTextUrl != null,
+                freeTextUrl != null && freeTextUrl.toLowerCase(Locale.ROOT).contains("librivox"),
+                tags);
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : TextNormalizer.lowerTrim(text);
+    }
+
+    static Set<String> grams(String lowerText) {
+        if (lowerText.length() < GRAM) {
+            return Set.of();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= lowerText.length(); i++) {
+            grams.add(lowerText.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static int bit(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalStateException("ID out of range for search index: " + id);
+        }
+        return (int) id;
+    }
+
+    /**
+     * IDs that may contain the query: every ID for short queries, otherwise the intersection
+     * of the query's trigram postings. Callers verify with {@code contains}.
+     */
+    private static BitSet candidates(String lowerQuery, Map<String, BitSet> postings, BitSet all) {
+        BitSet result = (BitSet) all.clone();
+        if (lowerQuery.length() < GRAM) {
+            return result;
+        }
+        for (String gram : grams(lowerQuery)) {
+            BitSet ids = postings.get(gram);
+            if (ids == null) {
+                result.clear();
+                return result;
+            }
+            result.and(ids);
+        }
+        return result;
+    }
+
+    /**
+     * Walk {@code order} (IDs sorted by (key, ID)) from the first entry after
+     * {@code afterKey}/{@code afterId}, collecting up to {@code size} members.
+     */
+    private static KeysetPage seek(long[] order, LongFunction<String> keyOf, BitSet members,
+                                   String afterKey, long afterId, int size) {
+        int lo = 0;
+        int hi = order.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = keyOf.apply(order[mid]).compareTo(afterKey);
+            if (c < 0 || (c == 0 && order[mid] <= afterId)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        List<Long> ids = new ArrayList<>();
+        String lastKey = null;
+        boolean hasMore = false;
+        for (int i = lo; i < order.length; i++) {
+            long id = order[i];
+            if (!members.get((int) id)) {
+                continue;
+            }
+            if (ids.size() >= size) {
+                hasMore = true;
+                break;
+            }
+            ids.add(id);
+            lastKey = keyOf.apply(id);
+        }
+        return new KeysetPage(ids, members.cardinality(), hasMore, lastKey);
+    }
+
+    private static IdPage pageInIdOrder(BitSet members, int page, int size) {
+        long offset = (long) page * size;
+        List<Long> ids = new ArrayList<>();
+        int bit = members.nextSetBit(0);
+        for (long skipped = 0; bit >= 0 && skipped < offset; skipped++) {
+            bit = members.nextSetBit(bit + 1);
+        }
+        while (bit >= 0 && ids.size() < size) {
+            ids.add((long) bit);
+            bit = members.nextSetBit(bit + 1);
+        }
+        return new IdPage(ids, members.cardinality());
+    }
+
+    /**
+     * Mutable index contents. All access goes through {@link SearchIndex#lock}, except while
+     * a rebuild fills a fresh instance that nobody else can see yet.
+     */
+    static final class State {
+        final Map<Long, BookEntry> books = new HashMap<>();
+        final Map<Long, AuthorEntry> authors = new HashMap<>();
+        final Map<String, BitSet> titleGrams = new HashMap<>();
+        final Map<String, BitSet> nameGrams = new HashMap<>();
+        final Map<String, IdBitmap> labels = new HashMap<>();
+        final BitSet allBooks = new BitSet();
+        final BitSet allAuthors = new BitSet();
+        final BitSet inLibrary = new BitSet();
+        final BitSet electronic = new BitSet();
+        final BitSet freeText = new BitSet();
+        final BitSet audio = new BitSet();
+        final PrefixSuggester suggester = new PrefixSuggester();
+        // Number of indexed books per author ID, for the author suggestion weights
+        final Map<Long, Integer> booksPerAuthor = new HashMap<>();
+
+        // Author IDs sorted by lowercase name, and book IDs by lowercase title; null when an
+        // entry changed since the last sort. Computed lazily by readers, which is safe because
+        // writers hold the write lock.
+        volatile long[] authorsByName;
+        volatile long[] booksByTitle;
+
+        void putBook(BookEntry entry) {
+            BookEntry previous = books.remove(entry.id());
+            if (previous != null) {
+                unindexBook(previous);
+            }
+            if (entry.tags() == null) {
+                entry = entry.withTags(previous != null ? previous.tags() : List.of());
+            }
+            int bit = bit(entry.id());
+            books.put(entry.id(), entry);
+            allBooks.set(bit);
+            addTo(titleGrams, grams(entry.lowerTitle()), bit);
+            for (String tag : entry.tags()) {
+                if (tag != null) {
+                    labels.computeIfAbsent(tag, k -> new IdBitmap()).add(bit);
+                }
+            }
+            inLibrary.set(bit, entry.inLibrary());
+            electronic.set(bit, entry.electronic());
+            freeText.set(bit, entry.freeText());
+            audio.set(bit, entry.audio());
+            suggestBook(entry, 1);
+            booksByTitle = null;
+        }
+
+        void removeBook(long id) {
+            BookEntry previous = books.remove(id);
+            if (previous != null) {
+                unindexBook(previous);
+                booksByTitle = null;
+            }
+        }
+
+        void putAuthor(AuthorEntry entry) {
+            removeAuthor(entry.id());
+            int bit = bit(entry.id());
+            authors.put(entry.id(), entry);
+            allAuthors.set(bit);
+            addTo(nameGrams, grams(entry.lowerName()), bit);
+            authorsByName = null;
+            suggester.add(SUGGEST_AUTHOR, entry.name(), 1 + booksPerAuthor.getOrDefault(entry.id(), 0));
+        }
+
+        void removeAuthor(long id) {
+            AuthorEntry previous = authors.remove(id);
+            if (previous != null) {
+                int bit = bit(id);
+                allAuthors.clear(bit);
+                removeFrom(nameGrams, grams(previous.lowerName()), bit);
+                authorsByName = null;
+                suggester.add(SUGGEST_AUTHOR, previous.name(), -(1 + booksPerAuthor.getOrDefault(id, 0)));
+            }
+        }
+
+        BitSet matchBooks(String lowerQuery, boolean filterInLibrary, boolean filterElectronic,
+                          boolean filterFreeText, boolean filterAudio, List<String> labelList) {
+            BitSet result = candidates(lowerQuery, titleGrams, allBooks);
+            if (filterInLibrary) {
+                result.and(inLibrary);
+            }
+            if (filterElectronic) {
+                result.and(electronic);
+            }
+            if (filterFreeText) {
+                result.and(freeText);
+            }
+            if (filterAudio) {
+                result.and(audio);
+            }
+            if (labelList != null && !labelList.isEmpty()) {
+                BitSet tagged = new BitSet();
+                booksWithAllLabels(labelList).forEach(tagged::set);
+                result.and(tagged);
+            }
+            if (!lowerQuery.isEmpty()) {
+                for (int bit = result.nextSetBit(0); bit >= 0; bit = result.nextSetBit(bit + 1)) {
+                    if (!books.get((long) bit).lowerTitle().contains(lowerQuery)) {
+                        result.clear(bit);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Intersect the labels' bitmaps, smallest first, stopping as soon as the result is
+         * empty. The returned bitmap may be one held by the index; callers must not modify it.
+         */
+        IdBitmap booksWithAllLabels(Collection<String> labelList) {
+            List<IdBitmap> sets = new ArrayList<>();
+            for (String label : new LinkedHashSet<>(labelList)) {
+                IdBitmap tagged = labels.get(label);
+                if (tagged == null) {
+                    return new IdBitmap();
+                }
+                sets.add(tagged);
+            }
+            if (sets.isEmpty()) {
+                return new IdBitmap();
+            }
+            sets.sort(Comparator.comparingInt(IdBitmap::cardinality));
+            IdBitmap result = sets.get(0);
+            for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+                result = IdBitmap.and(result, sets.get(i));
+            }
+            return result;
+        }
+
+        BitSet matchAuthors(String lowerQuery) {
+            BitSet matches = candidates(lowerQuery, nameGrams, allAuthors);
+            if (!lowerQuery.isEmpty()) {
+                for (int bit = matches.nextSetBit(0); bit >= 0; bit = matches.nextSetBit(bit + 1)) {
+                    if (!authors.get((long) bit).lowerName().contains(lowerQuery)) {
+                        matches.clear(bit);
+                    }
+                }
+            }
+            return matches;
+        }
+
+        BitSet authorsOf(BitSet bookIds) {
+            BitSet authorIds = new BitSet();
+            for (int bit = bookIds.nextSetBit(0); bit >= 0; bit = bookIds.nextSetBit(bit + 1)) {
+                Long authorId = books.get((long) bit).authorId();
+                if (authorId != null) {
+                    authorIds.set(bit(authorId));
+                }
+            }
+            return authorIds;
+        }
+
+        IdPage pageInNameOrder(BitSet members, int page, int size) {
+            members.and(allAuthors);
+            long offset = (long) page * size;
+            long seen = 0;
+            List<Long> ids = new ArrayList<>();
+            for (long id : authorsByName()) {
+                if (ids.size() >= size) {
+                    break;
+                }
+                if (members.get((int) id) && seen++ >= offset) {
+                    ids.add(id);
+                }
+            }
+            return new IdPage(ids, members.cardinality());
+        }
+
+        long[] booksByTitle() {
+            long[] order = booksByTitle;
+            if (order == null) {
+                order = books.values().stream()
+                        .sorted(Comparator.comparing(BookEntry::lowerTitle).thenComparingLong(BookEntry::id))
+                        .mapToLong(BookEntry::id)
+                        .toArray();
+                booksByTitle = order;
+            }
+            return order;
+        }
+
+        long[] authorsByName() {
+            long[] order = authorsByName;
+            if (order == null) {
+                order = authors.values().stream()
+                        .sorted(Comparator.comparing(AuthorEntry::lowerName).thenComparingLong(AuthorEntry::id))
+                        .mapToLong(AuthorEntry::id)
+                        .toArray();
+                authorsByName = order;
+            }
+            return order;
+        }
+
+        private void unindexBook(BookEntry entry) {
+            int bit = bit(entry.id());
+            allBooks.clear(bit);
+            removeFrom(titleGrams, grams(entry.lowerTitle()), bit);
+            for (String tag : entry.tags()) {
+                IdBitmap tagged = tag != null ? labels.get(tag) : null;
+                if (tagged != null) {
+                    tagged.remove(bit);
+                    if (tagged.isEmpty()) {
+                        labels.remove(tag);
+                    }
+                }
+            }
+            inLibrary.clear(bit);
+            electronic.clear(bit);
+            freeText.clear(bit);
+            audio.clear(bit);
+            suggestBook(entry, -1);
+        }
+
+        /**
+         * Add ({@code delta} = 1) or withdraw (-1) a book's weight from the suggestions for its
+         * title, its labels and its author.
+         */
+        private void suggestBook(BookEntry entry, int delta) {
+            suggester.add(SUGGEST_TITLE, entry.title(), delta);
+            for (String tag : new LinkedHashSet<>(entry.tags())) {
+                suggester.add(SUGGEST_LABEL, tag, delta);
+            }
+            if (entry.authorId() != null) {
+                booksPerAuthor.merge(entry.authorId(), delta, (a, b) -> a + b == 0 ? null : a + b);
+                AuthorEntry author = authors.get(entry.authorId());
+                if (author != null) {
+                    suggester.add(SUGGEST_AUTHOR, author.name(), delta);
+                }
+            }
+        }
+
+        private static void addTo(Map<String, BitSet> postings, Collection<String> keys, int bit) {
+            for (String key : keys) {
+                if (key != null) {
+                    postings.computeIfAbsent(key, k -> new BitSet()).set(bit);
+                }
+            }
+        }
+
+        private static void removeFrom(Map<String, BitSet> postings, Collection<String> keys, int bit) {
+            for (String key : keys) {
+                BitSet ids = key != null ? postings.get(key) : null;
+                if (ids != null) {
+                    ids.clear(bit);
+                    if (ids.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        }
+    }
+}
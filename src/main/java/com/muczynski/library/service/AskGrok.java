@@ -6,6 +6,7 @@ import com.muczynski.library.exception.LibraryException;
 
 import com.muczynski.library.dto.UserDto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,16 +21,10 @@ public class AskGrok {
     @Autowired
     private UserSettingsService userSettingsService;
 
-    private final RestTemplate restTemplate;
-
-    public AskGrok() {
-        this.restTemplate = new RestTemplate();
-        // Configure long timeout for xAI API calls (10 minutes)
-        org.springframework.http.client.SimpleClientHttpRequestFactory factory = new org.springframework.http.client.SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(600000); // 10 minutes
-        factory.setReadTimeout(600000); // 10 minutes
-        this.restTemplate.setRequestFactory(factory);
-    }
+    // Long read timeout for xAI API calls (app.http.grok.read-timeout-ms, 10 minutes)
+    @Autowired
+    @Qualifier("grokRestTemplate")
+    private RestTemplate restTemplate;
 
     // Model constants
     public static final String MODEL_GROK_4 = "grok-4";
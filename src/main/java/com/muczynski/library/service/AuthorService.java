@@ -10,14 +10,19 @@ import com.muczynski.library.dto.AuthorSummaryDto;
 import com.muczynski.library.mapper.AuthorMapper;
 import com.muczynski.library.repository.AuthorRepository;
 import com.muczynski.library.repository.BookRepository;
+import com.muczynski.library.util.BatchUtils;
+import com.muczynski.library.util.SummaryCodec;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -32,6 +37,9 @@ public class AuthorService {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private CatalogDtoCache catalogDtoCache;
+
     public AuthorDto createAuthor(AuthorDto authorDto) {
         String name = authorDto.getName();
         if (name != null && !authorRepository.findAllByNameOrderByIdAsc(name).isEmpty()) {
@@ -43,12 +51,7 @@ public class AuthorService {
     }
 
     public List<AuthorDto> getAllAuthors() {
-        return authorRepository.findAll().stream()
-                .map(author -> {
-                    AuthorDto dto = authorMapper.toDto(author);
-                    dto.setBookCount(bookRepository.countByAuthorId(author.getId()));
-                    return dto;
-                })
+        return toDtosWithBookCounts(authorRepository.findAll()).stream()
                 .sorted(Comparator.comparing(author -> {
                     if (author == null || author.getName() == null || author.getName().trim().isEmpty()) {
                         return null;
@@ -134,13 +137,9 @@ public class AuthorService {
      * Get authors without a brief biography
      */
     public List<AuthorDto> getAuthorsWithoutDescription() {
-        return authorRepository.findAll().stream()
+        return toDtosWithBookCounts(authorRepository.findAll().stream()
                 .filter(author -> author.getBriefBiography() == null || author.getBriefBiography().trim().isEmpty())
-                .map(author -> {
-                    AuthorDto dto = authorMapper.toDto(author);
-                    dto.setBookCount(bookRepository.countByAuthorId(author.getId()));
-                    return dto;
-                })
+                .collect(Collectors.toList())).stream()
                 .sorted(Comparator.comparing(author -> {
                     if (author == null || author.getName() == null || author.getName().trim().isEmpty()) {
                         return null;
@@ -155,13 +154,7 @@ public class AuthorService {
      * Get authors with zero books
      */
     public List<AuthorDto> getAuthorsWithZeroBooks() {
-        return authorRepository.findAll().stream()
-                .map(author -> {
-                    AuthorDto dto = authorMapper.toDto(author);
-                    long bookCount = bookRepository.countByAuthorId(author.getId());
-                    dto.setBookCount(bookCount);
-                    return dto;
-                })
+        return toDtosWithBookCounts(authorRepository.findAll()).stream()
                 .filter(dto -> dto.getBookCount() == 0)
                 .sorted(Comparator.comparing(author -> {
                     if (author == null || author.getName() == null || author.getName().trim().isEmpty()) {
@@ -177,13 +170,9 @@ public class AuthorService {
      * Get authors without a Grokipedia URL
      */
     public List<AuthorDto> getAuthorsWithoutGrokipedia() {
-        return authorRepository.findAll().stream()
+        return toDtosWithBookCounts(authorRepository.findAll().stream()
                 .filter(author -> author.getGrokipediaUrl() == null || author.getGrokipediaUrl().trim().isEmpty())
-                .map(author -> {
-                    AuthorDto dto = authorMapper.toDto(author);
-                    dto.setBookCount(bookRepository.countByAuthorId(author.getId()));
-                    return dto;
-                })
+                .collect(Collectors.toList())).stream()
                 .sorted(Comparator.comparing(author -> {
                     if (author == null || author.getName() == null || author.getName().trim().isEmpty()) {
                         return null;
@@ -214,12 +203,7 @@ public class AuthorService {
                 .collect(Collectors.toList());
 
         // Get authors for these IDs
-        return authorRepository.findAllById(authorIds).stream()
-                .map(author -> {
-                    AuthorDto dto = authorMapper.toDto(author);
-                    dto.setBookCount(bookRepository.countByAuthorId(author.getId()));
-                    return dto;
-                })
+        return toDtosWithBookCounts(authorRepository.findAllById(authorIds)).stream()
                 .sorted(Comparator.comparing(author -> {
                     if (author == null || author.getName() == null || author.getName().trim().isEmpty()) {
                         return null;
@@ -244,49 +228,38 @@ public class AuthorService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * All author summaries in the binary encoding of {@link SummaryCodec}, written as the rows
+     * stream in rather than through a DTO list.
+     */
+    @Transactional(readOnly = true)
+    public byte[] getAllAuthorSummariesEncoded() {
+        SummaryCodec codec = new SummaryCodec();
+        try (Stream<Object[]> rows = authorRepository.streamSummaryRows()) {
+            rows.forEach(row -> codec.add(((Number) row[0]).longValue(), (LocalDateTime) row[1]));
+        }
+        return codec.toByteArray();
+    }
+
     /**
      * Get summaries for authors without a brief biography.
      */
     public List<AuthorSummaryDto> getSummariesWithoutDescription() {
-        return authorRepository.findAll().stream()
-                .filter(author -> author.getBriefBiography() == null || author.getBriefBiography().trim().isEmpty())
-                .map(author -> {
-                    AuthorSummaryDto dto = new AuthorSummaryDto();
-                    dto.setId(author.getId());
-                    dto.setLastModified(author.getLastModified());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        return toSummaryDtos(authorRepository.findSummariesWithoutDescription());
     }
 
     /**
      * Get summaries for authors with zero books.
      */
     public List<AuthorSummaryDto> getSummariesWithZeroBooks() {
-        return authorRepository.findAll().stream()
-                .filter(author -> bookRepository.countByAuthorId(author.getId()) == 0)
-                .map(author -> {
-                    AuthorSummaryDto dto = new AuthorSummaryDto();
-                    dto.setId(author.getId());
-                    dto.setLastModified(author.getLastModified());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        return toSummaryDtos(authorRepository.findSummariesWithZeroBooks());
     }
 
     /**
      * Get summaries for authors without a Grokipedia URL.
      */
     public List<AuthorSummaryDto> getSummariesWithoutGrokipedia() {
-        return authorRepository.findAll().stream()
-                .filter(author -> author.getGrokipediaUrl() == null || author.getGrokipediaUrl().trim().isEmpty())
-                .map(author -> {
-                    AuthorSummaryDto dto = new AuthorSummaryDto();
-                    dto.setId(author.getId());
-                    dto.setLastModified(author.getLastModified());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        return toSummaryDtos(authorRepository.findSummariesWithoutGrokipediaUrl());
     }
 
     /**
@@ -298,19 +271,15 @@ public class AuthorService {
             return List.of();
         }
         LocalDateTime startOfDay = maxDateTime.toLocalDate().atStartOfDay();
-        LocalDateTime endOfDay = startOfDay.plusDays(1);
-
-        List<Long> authorIds = bookRepository.findByDateAddedToLibraryBetweenOrderByDateAddedDesc(startOfDay, endOfDay).stream()
-                .map(book -> book.getAuthor() != null ? book.getAuthor().getId() : null)
-                .filter(id -> id != null)
-                .distinct()
-                .collect(Collectors.toList());
+        return toSummaryDtos(authorRepository.findSummariesWithBooksAddedBetween(startOfDay, startOfDay.plusDays(1)));
+    }
 
-        return authorRepository.findAllById(authorIds).stream()
-                .map(author -> {
+    private static List<AuthorSummaryDto> toSummaryDtos(List<AuthorRepository.AuthorSummaryProjection> projections) {
+        return projections.stream()
+                .map(projection -> {
                     AuthorSummaryDto dto = new AuthorSummaryDto();
-                    dto.setId(author.getId());
-                    dto.setLastModified(author.getLastModified());
+                    dto.setId(projection.getId());
+                    dto.setLastModified(projection.getLastModified());
                     return dto;
                 })
                 .collect(Collectors.toList());
@@ -320,16 +289,30 @@ public class AuthorService {
      * Get authors by IDs for batch fetching.
      */
     public List<AuthorDto> getAuthorsByIds(List<Long> ids) {
+        return getAuthorEntriesByIds(ids).stream()
+                .map(CatalogDtoCache.Entry::dto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The same authors as {@link #getAuthorsByIds}, as a JSON array joined from each
+     * author's cached JSON.
+     */
+    public byte[] getAuthorsByIdsJson(List<Long> ids) {
+        return CatalogDtoCache.toJsonArray(getAuthorEntriesByIds(ids));
+    }
+
+    private List<CatalogDtoCache.Entry<AuthorDto>> getAuthorEntriesByIds(List<Long> ids) {
         if (ids == null || ids.isEmpty()) {
             return List.of();
         }
-        return authorRepository.findAllById(ids).stream()
-                .map(author -> {
-                    AuthorDto dto = authorMapper.toDto(author);
-                    dto.setBookCount(bookRepository.countByAuthorId(author.getId()));
-                    return dto;
-                })
-                .sorted(Comparator.comparing(author -> {
+        Map<Long, LocalDateTime> lastModifiedById = new HashMap<>();
+        authorRepository.findLastModifiedByIdIn(ids)
+                .forEach(row -> lastModifiedById.put(((Number) row[0]).longValue(), (LocalDateTime) row[1]));
+        return catalogDtoCache.getAuthors(lastModifiedById, missing -> toDtosWithBookCounts(authorRepository.findAllById(missing)))
+                .stream()
+                .sorted(Comparator.comparing((CatalogDtoCache.Entry<AuthorDto> entry) -> {
+                    AuthorDto author = entry.dto();
                     if (author == null || author.getName() == null || author.getName().trim().isEmpty()) {
                         return null;
                     }
@@ -339,4 +322,22 @@ public class AuthorService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Map authors to DTOs with their book counts using a fixed number of grouped queries
+     * rather than a photo and a count query per author.
+     */
+    private List<AuthorDto> toDtosWithBookCounts(List<Author> authors) {
+        List<AuthorDto> dtos = authorMapper.toDtos(authors);
+        Map<Long, Long> bookCounts = countBooksByAuthor(authors);
+        dtos.forEach(dto -> dto.setBookCount(bookCounts.getOrDefault(dto.getId(), 0L)));
+        return dtos;
+    }
+
+    private Map<Long, Long> countBooksByAuthor(List<Author> authors) {
+        List<Long> ids = authors.stream().map(Author::getId).collect(Collectors.toList());
+        Map<Long, Long> counts = new HashMap<>();
+        BatchUtils.inChunks(ids, batchIds -> bookRepository.countBooksByAuthorIds(batchIds)
+                .forEach(row -> counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue())));
+        return counts;
+    }
 }
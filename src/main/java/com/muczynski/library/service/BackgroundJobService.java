@@ -0,0 +1,470 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muczynski.library.domain.BackgroundJob;
+import com.muczynski.library.domain.BackgroundJobItem;
+import com.muczynski.library.dto.BackgroundJobDto;
+import com.muczynski.library.dto.BackgroundJobItemDto;
+import com.muczynski.library.exception.LibraryException;
+import com.muczynski.library.exception.ResourceNotFoundException;
+import com.muczynski.library.repository.BackgroundJobItemRepository;
+import com.muczynski.library.repository.BackgroundJobRepository;
+import com.muczynski.library.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bulk lookups as {@link BackgroundJob}s instead of inside one HTTP request, which
+ * Cloud Run cuts off at its request timeout and which loses everything when it fails.
+ * <p>
+ * Jobs and their items are rows, so progress is committed item by item. A fixed pool of
+ * {@code app.jobs.workers} threads runs them. Workers claim a queued job with
+ * {@code FOR UPDATE SKIP LOCKED}, so instances never claim the same job, and process its
+ * pending items in order, each item's result and the job's counts committed together.
+ * A running job's owner refreshes its heartbeat; a job whose heartbeat is older than
+ * {@code app.jobs.lease-seconds} (its instance died) is claimed again by any instance and
+ * resumes at its first pending item. An item that was in progress then runs again, which
+ * the lookups tolerate.
+ * <p>
+ * Cancelling a running job stops it before its next item. Retrying a finished job queues
+ * its failed and cancelled items again.
+ * <p>
+ * Each time items finish, the job's change number goes up by one under its row lock and the
+ * items are stamped with it, so change numbers commit in order and a poll asking for the
+ * changes after the last one it saw misses nothing, retried items included.
+ * <p>
+ * Jobs run as the user who started them, so AI lookups use that user's xAI key.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BackgroundJobService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final BackgroundJobRepository jobRepository;
+    private final BackgroundJobItemRepository itemRepository;
+    private final BackgroundJobTasks tasks;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.jobs.workers:2}")
+    private int workers;
+
+    @Value("${app.jobs.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.jobs.retention-days:30}")
+    private int retentionDays;
+
+    // Owner of the jobs this instance runs
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean shuttingDown;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "background-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Hand this instance's running jobs back to the queue, so the next instance picks them up
+     * at once instead of waiting out the lease.
+     */
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        try {
+            int released = jdbcTemplate.update("UPDATE background_job SET status = 'QUEUED', owner = NULL, "
+                    + "heartbeat_at = NULL WHERE owner = ? AND status = 'RUNNING'", instanceId);
+            if (released > 0) {
+                log.info("Returned {} running background jobs to the queue", released);
+            }
+        } catch (Exception e) {
+            log.warn("Could not return running background jobs to the queue: {}", e.getMessage());
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue a job, one item per id in the given order, and start it if a worker is free.
+     * Without ids, the job type's own targets are used ({@link BackgroundJobTasks#findTargets}).
+     */
+    public BackgroundJobDto start(BackgroundJob.Type type, List<Long> ids) {
+        if (type == null) {
+            throw new IllegalArgumentException("Job type is required");
+        }
+        List<Long> targets = ids == null || ids.isEmpty() ? tasks.findTargets(type) : ids;
+        Long userId = currentUserId();
+
+        BackgroundJob job = new TransactionTemplate(transactionManager).execute(status -> {
+            BackgroundJob newJob = new BackgroundJob();
+            newJob.setType(type);
+            newJob.setStatus(targets.isEmpty() ? BackgroundJob.Status.COMPLETED : BackgroundJob.Status.QUEUED);
+            newJob.setUserId(userId);
+            newJob.setTotal(targets.size());
+            if (targets.isEmpty()) {
+                newJob.setFinishedAt(Instant.now());
+            }
+            BackgroundJob saved = jobRepository.save(newJob);
+
+            List<Object[]> rows = new ArrayList<>(targets.size());
+            for (int i = 0; i < targets.size(); i++) {
+                rows.add(new Object[]{saved.getId(), i, targets.get(i)});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO background_job_item (job_id, item_order, target_id, status, attempts) "
+                    + "VALUES (?, ?, ?, 'PENDING', 0)", rows);
+            return saved;
+        });
+        log.info("Queued {} job {} with {} items", type, job.getId(), targets.size());
+
+        dispatch();
+        return toDto(job, List.of());
+    }
+
+    /**
+     * The job's progress, with the processed items whose change sequence is greater than
+     * {@code after} (pass -1 for all of them).
+     */
+    public BackgroundJobDto getJob(Long jobId, long after) {
+        BackgroundJob job = findJob(jobId);
+        List<BackgroundJobItem> items = itemRepository
+                .findByJobIdAndChangeSeqGreaterThanAndStatusNotOrderByChangeSeqAscItemOrderAsc(
+                        jobId, after, BackgroundJobItem.Status.PENDING);
+        return toDto(job, items);
+    }
+
+    /**
+     * The 50 most recent jobs, without their items.
+     */
+    public List<BackgroundJobDto> getRecentJobs() {
+        return jobRepository.findTop50ByOrderByIdDesc().stream()
+                .map(job -> toDto(job, List.of()))
+                .toList();
+    }
+
+    /**
+     * Cancel a queued job at once, or ask a running one to stop before its next item.
+     * Finished jobs are left as they are.
+     */
+    public BackgroundJobDto cancel(Long jobId) {
+        findJob(jobId);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            int queued = jdbcTemplate.update("UPDATE background_job SET status = 'CANCELLED', finished_at = now() "
+                    + "WHERE id = ? AND status = 'QUEUED'", jobId);
+            if (queued > 0) {
+                int cancelled = cancelPendingItems(jobId);
+                jdbcTemplate.update("UPDATE background_job SET cancelled = cancelled + ? WHERE id = ?", cancelled, jobId);
+            } else {
+                jdbcTemplate.update("UPDATE background_job SET cancel_requested = true "
+                        + "WHERE id = ? AND status = 'RUNNING'", jobId);
+            }
+        });
+        log.info("Cancel requested for background job {}", jobId);
+        return toDto(findJob(jobId), List.of());
+    }
+
+    /**
+     * Queue a finished job's failed and cancelled items again. A job that failed as a whole
+     * resumes at its first pending item.
+     */
+    public BackgroundJobDto retry(Long jobId) {
+        findJob(jobId);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            int requeued = jdbcTemplate.update("UPDATE background_job SET status = 'QUEUED', owner = NULL, "
+                    + "heartbeat_at = NULL, cancel_requested = false, error_message = NULL, finished_at = NULL "
+                    + "WHERE id = ? AND status IN ('COMPLETED', 'FAILED', 'CANCELLED')", jobId);
+            if (requeued == 0) {
+                throw new LibraryException("Background job " + jobId + " has not finished");
+            }
+            int failed = resetItems(jobId, BackgroundJobItem.Status.FAILED);
+            int cancelled = resetItems(jobId, BackgroundJobItem.Status.CANCELLED);
+            jdbcTemplate.update("UPDATE background_job SET failed = failed - ?, cancelled = cancelled - ? WHERE id = ?",
+                    failed, cancelled, jobId);
+            log.info("Retrying background job {}: {} failed and {} cancelled items queued", jobId, failed, cancelled);
+        });
+        dispatch();
+        return toDto(findJob(jobId), List.of());
+    }
+
+    /**
+     * Give each free worker a job: queued ones first come first served, and running ones
+     * whose owner stopped sending heartbeats.
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.poll-interval-ms:5000}",
+            initialDelayString = "${app.jobs.poll-interval-ms:5000}")
+    public synchronized void dispatch() {
+        while (!shuttingDown && running.size() < workers) {
+            Long jobId = claimNextJob();
+            if (jobId == null) {
+                return;
+            }
+            running.add(jobId);
+            try {
+                executor.execute(() -> run(jobId));
+            } catch (RejectedExecutionException e) {
+                running.remove(jobId);
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-ms:30000}")
+    public void heartbeat() {
+        if (!running.isEmpty()) {
+            jdbcTemplate.update("UPDATE background_job SET heartbeat_at = now() WHERE owner = ? AND status = 'RUNNING'",
+                    instanceId);
+        }
+    }
+
+    /**
+     * Delete jobs that finished more than {@code app.jobs.retention-days} ago.
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.purge-interval-ms:86400000}")
+    public void purgeFinishedJobs() {
+        String finished = "SELECT id FROM background_job WHERE status IN ('COMPLETED', 'FAILED', 'CANCELLED') "
+                + "AND finished_at < now() - ? * interval '1 day'";
+        Integer deleted = new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.update("DELETE FROM background_job_item WHERE job_id IN (" + finished + ")", retentionDays);
+            return jdbcTemplate.update("DELETE FROM background_job WHERE id IN (" + finished + ")", retentionDays);
+        });
+        if (deleted != null && deleted > 0) {
+            log.info("Deleted {} background jobs finished over {} days ago", deleted, retentionDays);
+        }
+    }
+
+    private Long claimNextJob() {
+        List<Long> claimed = jdbcTemplate.queryForList("""
+                UPDATE background_job SET status = 'RUNNING', owner = ?, heartbeat_at = now(),
+                    started_at = COALESCE(started_at, now())
+                WHERE id = (SELECT id FROM background_job
+                            WHERE status = 'QUEUED'
+                               OR (status = 'RUNNING' AND owner <> ? AND heartbeat_at < now() - ? * interval '1 second')
+                            ORDER BY id
+                            LIMIT 1
+                            FOR UPDATE SKIP LOCKED)
+                RETURNING id""", Long.class, instanceId, instanceId, leaseSeconds);
+        return claimed.isEmpty() ? null : claimed.get(0);
+    }
+
+    private void run(Long jobId) {
+        try {
+            BackgroundJob job = findJob(jobId);
+            SecurityContextHolder.getContext().setAuthentication(authenticationFor(job.getUserId()));
+            log.info("Running {} job {}: {} of {} items already processed",
+                    job.getType(), jobId, job.getSucceeded() + job.getFailed(), job.getTotal());
+            while (processNextItems(job)) {
+                // Until the job is finished, cancelled or no longer ours
+            }
+        } catch (Exception e) {
+            log.error("Background job {} failed: {}", jobId, e.getMessage(), e);
+            jdbcTemplate.update("UPDATE background_job SET status = 'FAILED', error_message = ?, finished_at = now(), "
+                    + "owner = NULL WHERE id = ? AND owner = ? AND status = 'RUNNING'",
+                    truncate(e.getMessage()), jobId, instanceId);
+        } finally {
+            SecurityContextHolder.clearContext();
+            running.remove(jobId);
+        }
+        dispatch();
+    }
+
+    /**
+     * Process the job's next batch of pending items.
+     *
+     * @return false once the job has finished, was cancelled or is no longer owned here
+     */
+    private boolean processNextItems(BackgroundJob job) {
+        Long jobId = job.getId();
+        List<BackgroundJobItem> items = itemRepository.findTop20ByJobIdAndStatusOrderByItemOrderAsc(
+                jobId, BackgroundJobItem.Status.PENDING);
+        if (items.isEmpty()) {
+            jdbcTemplate.update("UPDATE background_job SET status = 'COMPLETED', finished_at = now(), owner = NULL "
+                    + "WHERE id = ? AND owner = ? AND status = 'RUNNING'", jobId, instanceId);
+            log.info("Background job {} completed", jobId);
+            return false;
+        }
+        for (BackgroundJobItem item : items) {
+            if (shuttingDown) {
+                return false;
+            }
+            List<Boolean> cancelRequested = jdbcTemplate.queryForList("SELECT cancel_requested FROM background_job "
+                    + "WHERE id = ? AND owner = ? AND status = 'RUNNING'", Boolean.class, jobId, instanceId);
+            if (cancelRequested.isEmpty()) {
+                log.warn("Background job {} is no longer run by this instance", jobId);
+                return false;
+            }
+            if (cancelRequested.get(0)) {
+                finishCancelled(jobId);
+                return false;
+            }
+
+            BackgroundJobTasks.Outcome outcome;
+            try {
+                outcome = tasks.process(job.getType(), item.getTargetId());
+            } catch (Exception e) {
+                log.warn("Background job {} item {} failed: {}", jobId, item.getTargetId(), e.getMessage());
+                outcome = new BackgroundJobTasks.Outcome(false, null, e.getMessage());
+            }
+            if (!recordOutcome(jobId, item.getId(), outcome)) {
+                log.warn("Background job {} is no longer run by this instance", jobId);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Commit an item's outcome and the job's counts together, if the job is still ours.
+     */
+    private boolean recordOutcome(Long jobId, Long itemId, BackgroundJobTasks.Outcome outcome) {
+        String result = toJson(outcome.result());
+        return Boolean.TRUE.equals(new TransactionTemplate(transactionManager).execute(status -> {
+            List<Long> change = jdbcTemplate.queryForList("UPDATE background_job SET succeeded = succeeded + ?, "
+                    + "failed = failed + ?, last_change = last_change + 1, heartbeat_at = now() "
+                    + "WHERE id = ? AND owner = ? AND status = 'RUNNING' RETURNING last_change", Long.class,
+                    outcome.success() ? 1 : 0, outcome.success() ? 0 : 1, jobId, instanceId);
+            if (change.isEmpty()) {
+                return false;
+            }
+            jdbcTemplate.update("UPDATE background_job_item SET status = ?, result = ?, error_message = ?, "
+                    + "attempts = attempts + 1, finished_at = now(), change_seq = ? WHERE id = ?",
+                    (outcome.success() ? BackgroundJobItem.Status.SUCCEEDED : BackgroundJobItem.Status.FAILED).name(),
+                    result, outcome.success() ? null : truncate(outcome.errorMessage()), change.get(0), itemId);
+            return true;
+        }));
+    }
+
+    private void finishCancelled(Long jobId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            int cancelled = cancelPendingItems(jobId);
+            int updated = jdbcTemplate.update("UPDATE background_job SET status = 'CANCELLED', cancelled = cancelled + ?, "
+                    + "cancel_requested = false, finished_at = now(), owner = NULL "
+                    + "WHERE id = ? AND owner = ? AND status = 'RUNNING'", cancelled, jobId, instanceId);
+            if (updated == 0) {
+                status.setRollbackOnly();
+            }
+        });
+        log.info("Background job {} cancelled", jobId);
+    }
+
+    private int cancelPendingItems(Long jobId) {
+        Long change = jdbcTemplate.queryForObject("UPDATE background_job SET last_change = last_change + 1 "
+                + "WHERE id = ? RETURNING last_change", Long.class, jobId);
+        return jdbcTemplate.update("UPDATE background_job_item SET status = 'CANCELLED', finished_at = now(), "
+                + "change_seq = ? WHERE job_id = ? AND status = 'PENDING'", change, jobId);
+    }
+
+    private int resetItems(Long jobId, BackgroundJobItem.Status from) {
+        return jdbcTemplate.update("UPDATE background_job_item SET status = 'PENDING', result = NULL, "
+                + "error_message = NULL, finished_at = NULL WHERE job_id = ? AND status = ?", jobId, from.name());
+    }
+
+    private BackgroundJob findJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Background job", jobId));
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        // The principal name is the database user ID (not username)
+        try {
+            return Long.parseLong(authentication.getName());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The same authentication a login gives the user, or null if they no longer exist.
+     */
+    private Authentication authenticationFor(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        return userRepository.findById(userId)
+                .map(user -> new UsernamePasswordAuthenticationToken(
+                        user.getId().toString(),
+                        null,
+                        user.getAuthorities().stream()
+                                .map(authority -> new SimpleGrantedAuthority(authority.getName()))
+                                .toList()))
+                .orElse(null);
+    }
+
+    private String toJson(Object result) {
+        if (result == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize background job result: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private static BackgroundJobDto toDto(BackgroundJob job, List<BackgroundJobItem> items) {
+        return BackgroundJobDto.builder()
+                .id(job.getId())
+                .type(job.getType())
+                .status(job.getStatus())
+                .total(job.getTotal())
+                .succeeded(job.getSucceeded())
+                .failed(job.getFailed())
+                .cancelled(job.getCancelled())
+                .cancelRequested(job.isCancelRequested())
+                .errorMessage(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .items(items.stream()
+                        .map(item -> new BackgroundJobItemDto(item.getItemOrder(), item.getTargetId(), item.getStatus(),
+                                item.getAttempts(), item.getResult(), item.getErrorMessage(), item.getChangeSeq()))
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.domain.BackgroundJob;
+import com.muczynski.library.dto.FreeTextBulkLookupResultDto;
+import com.muczynski.library.dto.GenreLookupResultDto;
+import com.muczynski.library.dto.GrokipediaLookupResultDto;
+import com.muczynski.library.dto.LocLookupResultDto;
+import com.muczynski.library.exception.LibraryException;
+import com.muczynski.library.freetext.FreeTextLookupService;
+import com.muczynski.library.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What each {@link BackgroundJob.Type} does with one item, using the same single-item
+ * lookups as the synchronous endpoints.
+ */
+@Service
+@RequiredArgsConstructor
+public class BackgroundJobTasks {
+
+    private final LocBulkLookupService locBulkLookupService;
+    private final FreeTextLookupService freeTextLookupService;
+    private final GrokipediaLookupService grokipediaLookupService;
+    private final BookService bookService;
+    private final BooksFromFeedService booksFromFeedService;
+    private final BookRepository bookRepository;
+
+    /**
+     * The result DTO of one item, and whether the lookup succeeded.
+     */
+    public record Outcome(boolean success, Object result, String errorMessage) {
+    }
+
+    public Outcome process(BackgroundJob.Type type, Long targetId) {
+        return switch (type) {
+            case LOC_LOOKUP -> {
+                LocLookupResultDto result = locBulkLookupService.lookupAndUpdateBook(targetId);
+                yield new Outcome(result.isSuccess(), result, result.getErrorMessage());
+            }
+            case FREE_TEXT_LOOKUP -> {
+                FreeTextBulkLookupResultDto result = freeTextLookupService.lookupBook(targetId);
+                yield new Outcome(result.isSuccess(), result, result.getErrorMessage());
+            }
+            case GROKIPEDIA_BOOKS -> {
+                GrokipediaLookupResultDto result = grokipediaLookupService.lookupBook(targetId);
+                yield new Outcome(result.isSuccess(), result, result.getErrorMessage());
+            }
+            case GROKIPEDIA_AUTHORS -> {
+                GrokipediaLookupResultDto result = grokipediaLookupService.lookupAuthor(targetId);
+                yield new Outcome(result.isSuccess(), result, result.getErrorMessage());
+            }
+            case GENRE_LOOKUP -> {
+                GenreLookupResultDto result = bookService.lookupGenresForBook(targetId);
+                yield new Outcome(result.isSuccess(), result, result.getErrorMessage());
+            }
+            case PROCESS_SAVED_PHOTOS -> {
+                Map<String, Object> result = booksFromFeedService.processSingleBook(targetId);
+                yield new Outcome(Boolean.TRUE.equals(result.get("success")), result, (String) result.get("error"));
+            }
+        };
+    }
+
+    /**
+     * The items for a job started without ids.
+     */
+    public List<Long> findTargets(BackgroundJob.Type type) {
+        return switch (type) {
+            case LOC_LOOKUP -> bookRepository.findSummariesWithoutLocNumber().stream()
+                    .map(BookRepository.BookSummaryProjection::getId)
+                    .sorted()
+                    .toList();
+            case PROCESS_SAVED_PHOTOS -> bookRepository.findBookIdsWithTemporaryTitles().stream()
+                    .sorted()
+                    .toList();
+            default -> throw new LibraryException("A " + type + " job needs a list of ids");
+        };
+    }
+}
@@ -16,12 +16,17 @@ import com.muczynski.library.dto.BookSummaryDto;
 import com.muczynski.library.dto.BulkDeleteResultDto;
 import com.muczynski.library.dto.GenreLookupResultDto;
 import com.muczynski.library.dto.SavedBookDto;
+import com.muczynski.library.dto.ShelfPageDto;
 import com.muczynski.library.mapper.BookMapper;
 import com.muczynski.library.repository.AuthorRepository;
 import com.muczynski.library.repository.BookRepository;
 import com.muczynski.library.repository.BranchRepository;
 import com.muczynski.library.repository.LoanRepository;
 import com.muczynski.library.repository.PhotoRepository;
+import com.muczynski.library.search.SearchIndex;
+import com.muczynski.library.util.BatchUtils;
+import com.muczynski.library.util.CallNumberSortKey;
+import com.muczynski.library.util.SummaryCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,6 +50,7 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -52,6 +58,8 @@ public class BookService {
 
     private static final Logger logger = LoggerFactory.getLogger(BookService.class);
 
+    static final int MAX_SHELF_PAGE_SIZE = 200;
+
     @Autowired
     private BookRepository bookRepository;
 
@@ -82,6 +90,12 @@ public class BookService {
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private CatalogDtoCache catalogDtoCache;
+
     public BookDto createBook(BookDto bookDto) {
         Book book = bookMapper.toEntity(bookDto);
 
@@ -141,16 +155,14 @@ public class BookService {
     }
 
     public List<BookDto> getAllBooks() {
-        return bookRepository.findAll().stream()
-                .map(bookMapper::toDto)
+        return bookMapper.toDtos(bookRepository.findAll()).stream()
                 .sorted(Comparator.comparing(BookDto::getDateAddedToLibrary,
                         Comparator.nullsLast(Comparator.reverseOrder())))
                 .collect(Collectors.toList());
     }
 
     public List<BookDto> getBooksWithoutLocNumber() {
-        return bookRepository.findBooksWithoutLocNumber().stream()
-                .map(bookMapper::toDto)
+        return bookMapper.toDtos(bookRepository.findBooksWithoutLocNumber()).stream()
                 .sorted(Comparator.comparing(BookDto::getDateAddedToLibrary,
                         Comparator.nullsLast(Comparator.reverseOrder())))
                 .collect(Collectors.toList());
@@ -200,37 +212,31 @@ public class BookService {
         if (ids.isEmpty()) {
             return List.of();
         }
-        return bookRepository.findAllById(ids).stream()
-                .map(bookMapper::toDto)
-                .collect(Collectors.toList());
+        return bookMapper.toDtos(bookRepository.findAllById(ids));
     }
 
     public List<BookDto> getBooksWith3LetterLocStart() {
-        return bookRepository.findBooksWith3LetterLocStart().stream()
-                .map(bookMapper::toDto)
+        return bookMapper.toDtos(bookRepository.findBooksWith3LetterLocStart()).stream()
                 .sorted(Comparator.comparing(BookDto::getDateAddedToLibrary,
                         Comparator.nullsLast(Comparator.reverseOrder())))
                 .collect(Collectors.toList());
     }
 
     public List<BookDto> getBooksWithoutGrokipediaUrl() {
-        return bookRepository.findBooksWithoutGrokipediaUrl().stream()
-                .map(bookMapper::toDto)
+        return bookMapper.toDtos(bookRepository.findBooksWithoutGrokipediaUrl()).stream()
                 .sorted(Comparator.comparing(BookDto::getDateAddedToLibrary,
                         Comparator.nullsLast(Comparator.reverseOrder())))
                 .collect(Collectors.toList());
     }
 
     public BookDto getBookById(Long id) {
-        return bookRepository.findById(id)
+        return bookRepository.findWithDetailById(id)
                 .map(bookMapper::toDto)
                 .orElse(null);
     }
 
     public List<BookDto> getBooksByAuthorId(Long authorId) {
-        return bookRepository.findByAuthorIdOrderByTitleAsc(authorId).stream()
-                .map(bookMapper::toDto)
-                .collect(Collectors.toList());
+        return bookMapper.toDtos(bookRepository.findByAuthorIdOrderByTitleAsc(authorId));
     }
 
     public BookDto updateBook(Long id, BookDto bookDto) {
@@ -1219,6 +1225,19 @@ public class BookService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * All book summaries in the binary encoding of {@link SummaryCodec}, written as the rows
+     * stream in rather than through a DTO list.
+     */
+    @Transactional(readOnly = true)
+    public byte[] getAllBookSummariesEncoded() {
+        SummaryCodec codec = new SummaryCodec();
+        try (Stream<Object[]> rows = bookRepository.streamSummaryRows()) {
+            rows.forEach(row -> codec.add(((Number) row[0]).longValue(), (LocalDateTime) row[1]));
+        }
+        return codec.toByteArray();
+    }
+
     /**
      * Get summaries (id + lastModified) for books without LOC number.
      * Used for cache validation in frontend.
@@ -1260,21 +1279,61 @@ public class BookService {
     }
 
     /**
-     * Get summaries (id + lastModified) for books that have ANY of the given labels.
-     * Used for label-based filtering in the frontend.
+     * One page of the virtual shelf: books in call number order, optionally limited to the
+     * call numbers from {@code from} through everything shelved under {@code to} (e.g.
+     * BX 4700 to BX 4710). Pass the previous page's nextAfterKey and nextAfterId to continue.
+     * Books without a LOC number aren't on the shelf.
+     */
+    public ShelfPageDto getShelfPage(String from, String to, String afterKey, Long afterId, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_SHELF_PAGE_SIZE));
+        String lower = from == null || from.isBlank() ? "" : CallNumberSortKey.of(from);
+        String upper = to == null || to.isBlank() ? CallNumberSortKey.MAX : CallNumberSortKey.upperBound(to);
+        List<BookRepository.ShelfEntryProjection> rows = bookRepository.findShelfPage(lower, upper,
+                afterKey != null ? afterKey : "", afterId != null ? afterId : 0L, limit);
+
+        List<BookSummaryDto> books = new ArrayList<>(rows.size());
+        for (BookRepository.ShelfEntryProjection row : rows) {
+            BookSummaryDto dto = new BookSummaryDto();
+            dto.setId(row.getId());
+            dto.setLastModified(row.getLastModified());
+            books.add(dto);
+        }
+        if (rows.size() < limit) {
+            return new ShelfPageDto(books, null, null);
+        }
+        BookRepository.ShelfEntryProjection last = rows.get(rows.size() - 1);
+        return new ShelfPageDto(books, last.getCallNumberSortKey(), last.getId());
+    }
+
+    /**
+     * Get summaries (id + lastModified) for books that have ALL of the given labels.
+     * Used for label-based filtering in the frontend. When the search index is ready the
+     * matching IDs come from its label bitmaps and only their lastModified is read from the
+     * database; otherwise the correlated-subquery JPQL query is used.
      *
-     * @param labels List of labels to filter by (book matches if it has at least one)
+     * @param labels List of labels to filter by (book matches only if it has every one)
      * @return List of BookSummaryDto for matching books
      */
     public List<BookSummaryDto> getSummariesByAllLabels(List<String> labels) {
         if (labels == null || labels.isEmpty()) {
             return getAllBookSummaries();
         }
+        if (searchIndex.isReady()) {
+            return getSummariesByIds(searchIndex.findBookIdsWithAllLabels(labels));
+        }
         return bookRepository.findSummariesByAllLabels(labels, labels.size()).stream()
                 .map(this::projectionToSummaryDto)
                 .collect(Collectors.toList());
     }
 
+    private List<BookSummaryDto> getSummariesByIds(List<Long> ids) {
+        List<BookSummaryDto> summaries = new ArrayList<>(ids.size());
+        BatchUtils.inChunks(ids, batchIds -> bookRepository.findSummariesByIdIn(batchIds).stream()
+                .map(this::projectionToSummaryDto)
+                .forEach(summaries::add));
+        return summaries;
+    }
+
     private BookSummaryDto projectionToSummaryDto(BookRepository.BookSummaryProjection projection) {
         BookSummaryDto dto = new BookSummaryDto();
         dto.setId(projection.getId());
@@ -1283,33 +1342,30 @@ public class BookService {
     }
 
     public List<BookDto> getBooksByIds(List<Long> ids) {
+        return getBookEntriesByIds(ids).stream()
+                .map(CatalogDtoCache.Entry::dto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The same books as {@link #getBooksByIds}, as a JSON array joined from each book's
+     * cached JSON.
+     */
+    public byte[] getBooksByIdsJson(List<Long> ids) {
+        return CatalogDtoCache.toJsonArray(getBookEntriesByIds(ids));
+    }
+
+    private List<CatalogDtoCache.Entry<BookDto>> getBookEntriesByIds(List<Long> ids) {
         if (ids == null || ids.isEmpty()) {
             return List.of();
         }
-        List<Book> books = bookRepository.findAllById(ids);
-
-        // Batch-fetch photo data (1 query instead of 2N)
-        Map<Long, Long> photoIdByBook = new HashMap<>();
-        Map<Long, String> photoChecksumByBook = new HashMap<>();
-        photoRepository.findFirstPhotoDataForBookIds(ids).forEach(row -> {
-            Long bookId = ((Number) row[0]).longValue();
-            photoIdByBook.put(bookId, ((Number) row[1]).longValue());
-            photoChecksumByBook.put(bookId, (String) row[2]);
-        });
-
-        // Batch-fetch open loan counts (1 query instead of N)
-        Map<Long, Long> loanCountByBook = new HashMap<>();
-        loanRepository.countOpenLoansByBookIds(ids).forEach(row -> {
-            Long bookId = ((Number) row[0]).longValue();
-            loanCountByBook.put(bookId, ((Number) row[1]).longValue());
-        });
-
-        return books.stream()
-                .map(book -> bookMapper.toDtoWithData(book,
-                        photoIdByBook.get(book.getId()),
-                        photoChecksumByBook.get(book.getId()),
-                        loanCountByBook.getOrDefault(book.getId(), 0L)))
-                .sorted(Comparator.comparing(BookDto::getDateAddedToLibrary,
+        Map<Long, LocalDateTime> lastModifiedById = new HashMap<>();
+        bookRepository.findSummariesByIdIn(ids)
+                .forEach(summary -> lastModifiedById.put(summary.getId(), summary.getLastModified()));
+        // Misses get photo data and open loan counts in bulk (2 queries instead of 3N)
+        return catalogDtoCache.getBooks(lastModifiedById, missing -> bookMapper.toDtos(bookRepository.findAllById(missing)))
+                .stream()
+                .sorted(Comparator.comparing((CatalogDtoCache.Entry<BookDto> entry) -> entry.dto().getDateAddedToLibrary(),
                         Comparator.nullsLast(Comparator.reverseOrder())))
                 .collect(Collectors.toList());
     }
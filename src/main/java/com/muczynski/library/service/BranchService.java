@@ -11,13 +11,13 @@ import com.muczynski.library.dto.BranchStatisticsDto;
 import com.muczynski.library.mapper.BranchMapper;
 import com.muczynski.library.repository.BookRepository;
 import com.muczynski.library.repository.BranchRepository;
-import com.muczynski.library.repository.LoanRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,7 +34,7 @@ public class BranchService {
     private BookRepository bookRepository;
 
     @Autowired
-    private LoanRepository loanRepository;
+    private CatalogCounterService catalogCounterService;
 
     public BranchDto createBranch(BranchDto branchDto) {
         Library branch = branchMapper.toEntity(branchDto);
@@ -119,15 +119,21 @@ public class BranchService {
     }
 
     /**
-     * Get statistics for all branches
+     * Get statistics for all branches, read from the catalog counters in one query
      */
     public List<BranchStatisticsDto> getBranchStatistics() {
         List<Library> branches = branchRepository.findAll();
+        List<String> counterNames = new ArrayList<>();
+        for (Library branch : branches) {
+            counterNames.add(CatalogCounterService.branchBooks(branch.getId()));
+            counterNames.add(CatalogCounterService.branchActiveLoans(branch.getId()));
+        }
+        Map<String, Long> counters = catalogCounterService.getAll(counterNames);
         List<BranchStatisticsDto> statistics = new ArrayList<>();
 
         for (Library branch : branches) {
-            Long bookCount = bookRepository.countByLibraryId(branch.getId());
-            Long activeLoansCount = loanRepository.countByBookLibraryIdAndReturnDateIsNull(branch.getId());
+            Long bookCount = counters.get(CatalogCounterService.branchBooks(branch.getId()));
+            Long activeLoansCount = counters.get(CatalogCounterService.branchActiveLoans(branch.getId()));
 
             BranchStatisticsDto stats = new BranchStatisticsDto(
                 branch.getId(),
@@ -0,0 +1,257 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.domain.Author;
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.domain.CatalogChange;
+import com.muczynski.library.domain.CatalogChangeEvent;
+import com.muczynski.library.dto.AuthorSummaryDto;
+import com.muczynski.library.dto.BookSummaryDto;
+import com.muczynski.library.dto.ChangesDto;
+import com.muczynski.library.repository.CatalogChangeRepository;
+import com.muczynski.library.util.BatchUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiFunction;
+
+/**
+ * Change sequence and tombstones behind {@code GET /api/books/changes} and
+ * {@code GET /api/authors/changes}, so clients can sync their caches without downloading
+ * every summary.
+ * <p>
+ * Committed changes are queued by {@link #onCatalogChange} and written to
+ * {@link CatalogChange} by {@link #flush()}, which runs periodically and before every read.
+ * Flushes are serialized and each commits before the next takes its sequence numbers, so a
+ * change can never become visible with a sequence number below a token already handed out.
+ * That relies on a single application instance, which is how the app is deployed.
+ * <p>
+ * Writes that bypass JPA, and changes queued when the process stopped, are picked up by
+ * {@link #reconcile()} at startup and hourly, like the search index rebuild.
+ * <p>
+ * The highest sequence number per entity type doubles as a version stamp for the summary
+ * and filter endpoints' ETags; see {@link #version(String)}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogChangeService {
+
+    static final int MAX_CHANGES_PER_RESPONSE = 10000;
+
+    private final CatalogChangeRepository catalogChangeRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ConcurrentLinkedQueue<PendingChange> pending = new ConcurrentLinkedQueue<>();
+
+    // Highest committed seq per entity type, loaded on first use and advanced by write()
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    private record PendingChange(String entityType, long entityId, boolean deleted) {
+    }
+
+    private record Key(String entityType, long entityId) {
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (event.entity() instanceof Book book && book.getId() != null) {
+            pending.add(new PendingChange(CatalogChange.BOOK, book.getId(), event.deleted()));
+        } else if (event.entity() instanceof Author author && author.getId() != null) {
+            pending.add(new PendingChange(CatalogChange.AUTHOR, author.getId(), event.deleted()));
+        }
+    }
+
+    public ChangesDto<BookSummaryDto> getBookChanges(long since) {
+        return changesSince(since, catalogChangeRepository::findBookChangesSince, (id, lastModified) -> {
+            BookSummaryDto dto = new BookSummaryDto();
+            dto.setId(id);
+            dto.setLastModified(lastModified);
+            return dto;
+        });
+    }
+
+    public ChangesDto<AuthorSummaryDto> getAuthorChanges(long since) {
+        return changesSince(since, catalogChangeRepository::findAuthorChangesSince, (id, lastModified) -> {
+            AuthorSummaryDto dto = new AuthorSummaryDto();
+            dto.setId(id);
+            dto.setLastModified(lastModified);
+            return dto;
+        });
+    }
+
+    /**
+     * Changes after {@code since}, oldest first. A client starting from scratch passes 0 and
+     * gets every live entity; tombstones are only reported to clients that have synced before.
+     */
+    private <S> ChangesDto<S> changesSince(long since,
+                                           BiFunction<Long, Pageable, List<Object[]>> query,
+                                           BiFunction<Long, LocalDateTime, S> toSummary) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since must not be negative: " + since);
+        }
+        flush();
+        if (since > catalogChangeRepository.findMaxSeq()) {
+            return new ChangesDto<>(0, List.of(), List.of(), false, true);
+        }
+
+        List<Object[]> rows = query.apply(since, PageRequest.of(0, MAX_CHANGES_PER_RESPONSE + 1));
+        boolean hasMore = rows.size() > MAX_CHANGES_PER_RESPONSE;
+        if (hasMore) {
+            rows = rows.subList(0, MAX_CHANGES_PER_RESPONSE);
+        }
+
+        long token = since;
+        List<S> upserted = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long entityId = ((Number) row[0]).longValue();
+            token = ((Number) row[1]).longValue();
+            if (Boolean.TRUE.equals(row[2])) {
+                if (since > 0) {
+                    deleted.add(entityId);
+                }
+            } else if (row[3] != null) {
+                upserted.add(toSummary.apply(entityId, (LocalDateTime) row[4]));
+            }
+            // else: deleted since, and its tombstone is still queued; it follows with a later seq
+        }
+        return new ChangesDto<>(token, upserted, deleted, hasMore, false);
+    }
+
+    /**
+     * Version stamp for one entity type: it changes whenever a book (or author) is created,
+     * modified or deleted. Queued changes are flushed first, so a client sees its own writes.
+     * Normally answered from memory, without touching the database.
+     */
+    public synchronized long version(String entityType) {
+        flush();
+        return versions.computeIfAbsent(entityType, catalogChangeRepository::findMaxSeqByEntityType);
+    }
+
+    @Scheduled(initialDelayString = "${app.sync.flush-interval-ms:2000}",
+            fixedDelayString = "${app.sync.flush-interval-ms:2000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Write queued changes, giving each entity the next sequence number. If the write fails
+     * the changes are queued again for the next attempt.
+     */
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Only the latest change per entity matters
+        Map<Key, Boolean> latest = new LinkedHashMap<>();
+        PendingChange change;
+        while ((change = pending.poll()) != null) {
+            latest.put(new Key(change.entityType(), change.entityId()), change.deleted());
+        }
+        try {
+            write(latest);
+        } catch (RuntimeException e) {
+            log.warn("Failed to record {} catalog changes; will retry: {}", latest.size(), e.getMessage(), e);
+            latest.forEach((key, deleted) -> pending.add(new PendingChange(key.entityType(), key.entityId(), deleted)));
+        }
+    }
+
+    private void write(Map<Key, Boolean> changes) {
+        Map<String, List<Long>> idsByType = new HashMap<>();
+        changes.keySet().forEach(key -> idsByType.computeIfAbsent(key.entityType(), t -> new ArrayList<>()).add(key.entityId()));
+
+        // A transaction of its own: flush() also runs from the scheduler and from read requests
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Map<String, Long> written = new HashMap<>();
+        transaction.executeWithoutResult(status -> {
+            long seq = catalogChangeRepository.findMaxSeq();
+            LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+            for (Map.Entry<String, List<Long>> entry : idsByType.entrySet()) {
+                String entityType = entry.getKey();
+                List<Long> ids = entry.getValue();
+                for (int i = 0; i < ids.size(); i += BatchUtils.IN_LIST_SIZE) {
+                    List<Long> batchIds = ids.subList(i, Math.min(i + BatchUtils.IN_LIST_SIZE, ids.size()));
+                    Map<Long, CatalogChange> existing = new HashMap<>();
+                    catalogChangeRepository.findByEntityTypeAndEntityIdIn(entityType, batchIds)
+                            .forEach(row -> existing.put(row.getEntityId(), row));
+                    List<CatalogChange> rows = new ArrayList<>(batchIds.size());
+                    for (Long id : batchIds) {
+                        CatalogChange row = existing.get(id);
+                        if (row == null) {
+                            row = new CatalogChange();
+                            row.setEntityType(entityType);
+                            row.setEntityId(id);
+                        }
+                        row.setSeq(++seq);
+                        row.setDeleted(changes.get(new Key(entityType, id)));
+                        row.setChangedAt(now);
+                        rows.add(row);
+                    }
+                    catalogChangeRepository.saveAll(rows);
+                }
+                written.put(entityType, seq);
+            }
+        });
+        // Only after commit, so a version is never handed out ahead of its rows
+        versions.putAll(written);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    @Scheduled(initialDelayString = "${app.sync.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${app.sync.reconcile-interval-ms:3600000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Record books and authors whose latest state is missing from the change table: new or
+     * modified without passing through JPA, or deleted without a tombstone. The first run
+     * against an existing database backfills every entity.
+     */
+    public void reconcile() {
+        try {
+            int count = enqueue(CatalogChange.BOOK, catalogChangeRepository.findUnrecordedBookIds(), false)
+                    + enqueue(CatalogChange.BOOK, catalogChangeRepository.findUnrecordedBookDeletes(), true)
+                    + enqueue(CatalogChange.AUTHOR, catalogChangeRepository.findUnrecordedAuthorIds(), false)
+                    + enqueue(CatalogChange.AUTHOR, catalogChangeRepository.findUnrecordedAuthorDeletes(), true);
+            if (count > 0) {
+                log.info("Recording {} catalog changes made outside JPA", count);
+                flush();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to reconcile catalog changes: {}", e.getMessage(), e);
+        }
+    }
+
+    private int enqueue(String entityType, List<Long> ids, boolean deleted) {
+        ids.forEach(id -> pending.add(new PendingChange(entityType, id, deleted)));
+        return ids.size();
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.domain.CatalogCounter;
+import com.muczynski.library.domain.Photo;
+import com.muczynski.library.repository.CatalogCounterRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Materialized counts for the dashboards and user lists (see {@link CatalogCounter}): books
+ * and open loans per branch, open loans per user, books per label, photos by export status,
+ * and row counts for the database stats. Reading any number of them is one primary key
+ * lookup, instead of a COUNT query per branch, user or label.
+ * <p>
+ * The counters are kept by database triggers installed at startup, so every write updates
+ * them in its own transaction: JPA saves, bulk JPQL updates, raw SQL backfills and
+ * {@code @Sql} test fixtures alike, and a transaction sees its own changes. A write that
+ * leaves its counters unchanged (most book and photo edits) touches no counter row; a write
+ * that changes one locks that row until it commits, which serializes concurrent inserts into
+ * the same branch. That is cheap for a single library's write rate.
+ * <p>
+ * TRUNCATE, and restores that disable triggers, bypass the counters. {@link #reconcile()}
+ * runs at startup and hourly, compares every counter with a fresh count from the same
+ * snapshot and applies the difference.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogCounterService {
+
+    public static final String BRANCHES = "branches";
+    public static final String BOOKS = "books";
+    public static final String AUTHORS = "authors";
+    public static final String USERS = "users";
+    public static final String LOANS = "loans";
+    public static final String PHOTOS = "photos";
+    public static final String PHOTOS_EXPORTED = "photos.exported";
+    public static final String PHOTOS_IMPORTED = "photos.imported";
+    public static final String PHOTOS_PENDING_EXPORT = "photos.pending-export";
+    public static final String PHOTOS_PENDING_IMPORT = "photos.pending-import";
+
+    private final CatalogCounterRepository catalogCounterRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    public static String branchBooks(Long branchId) {
+        return "books.branch." + branchId;
+    }
+
+    public static String branchActiveLoans(Long branchId) {
+        return "loans.active.branch." + branchId;
+    }
+
+    public static String userActiveLoans(Long userId) {
+        return "loans.active.user." + userId;
+    }
+
+    /**
+     * Books tagged with the label; a book that lists a tag twice counts once.
+     */
+    public static String label(String tag) {
+        return "label." + tag;
+    }
+
+    /**
+     * Photos, not soft-deleted, with the given export status.
+     */
+    public static String photoStatus(Photo.ExportStatus status) {
+        return "photos.status." + status.name();
+    }
+
+    public long get(String name) {
+        return catalogCounterRepository.findById(name).map(CatalogCounter::getValue).orElse(0L);
+    }
+
+    /**
+     * The named counters in one query. Every name is in the result; counters that were
+     * never incremented are zero.
+     */
+    public Map<String, Long> getAll(Collection<String> names) {
+        Map<String, Long> values = new HashMap<>();
+        for (String name : names) {
+            values.put(name, 0L);
+        }
+        for (CatalogCounter counter : catalogCounterRepository.findAllById(values.keySet())) {
+            values.put(counter.getName(), counter.getValue());
+        }
+        return values;
+    }
+
+    // ==================== Triggers ====================
+
+    /**
+     * Adds one for each name in {@code added} and subtracts one for each in {@code removed},
+     * in name order so concurrent writers lock counter rows in the same order. Null names,
+     * such as a branch counter for a book without a branch, are skipped, and so are counters
+     * whose additions and removals cancel out.
+     */
+    private static final String APPLY_FUNCTION = """
+            CREATE OR REPLACE FUNCTION catalog_counter_apply(removed text[], added text[]) RETURNS void AS $$
+                INSERT INTO catalog_counter (name, value)
+                SELECT name, sum(delta) FROM (
+                    SELECT unnest(removed) AS name, -1 AS delta
+                    UNION ALL
+                    SELECT unnest(added), 1
+                ) changes
+                WHERE name IS NOT NULL
+                GROUP BY name
+                HAVING sum(delta) <> 0
+                ORDER BY name
+                ON CONFLICT (name) DO UPDATE SET value = catalog_counter.value + EXCLUDED.value
+            $$ LANGUAGE sql
+            """;
+
+    // Rows in the table; the counter name is the trigger argument
+    private static final String ROWS_FUNCTION = """
+            CREATE OR REPLACE FUNCTION catalog_counter_rows() RETURNS trigger AS $$
+            BEGIN
+                IF TG_OP = 'INSERT' THEN
+                    PERFORM catalog_counter_apply('{}', ARRAY[TG_ARGV[0]]);
+                ELSE
+                    PERFORM catalog_counter_apply(ARRAY[TG_ARGV[0]], '{}');
+                END IF;
+                RETURN NULL;
+            END
+            $$ LANGUAGE plpgsql
+            """;
+
+    private static final String BOOK_FUNCTION = """
+            CREATE OR REPLACE FUNCTION catalog_counter_book() RETURNS trigger AS $$
+            DECLARE
+                removed text[] := '{}';
+                added text[] := '{}';
+                open_loans int;
+            BEGIN
+                IF TG_OP <> 'INSERT' THEN
+                    removed := ARRAY['books', 'books.branch.' || OLD.library_id];
+                END IF;
+                IF TG_OP <> 'DELETE' THEN
+                    added := ARRAY['books', 'books.branch.' || NEW.library_id];
+                END IF;
+                -- Open loans count toward their book's branch, so they move with the book
+                IF TG_OP = 'UPDATE' AND OLD.library_id IS DISTINCT FROM NEW.library_id THEN
+                    SELECT count(*) INTO open_loans FROM loan WHERE book_id = NEW.id AND return_date IS NULL;
+                    IF open_loans > 0 THEN
+                        removed := removed || array_fill('loans.active.branch.' || OLD.library_id, ARRAY[open_loans]);
+                        added := added || array_fill('loans.active.branch.' || NEW.library_id, ARRAY[open_loans]);
+                    END IF;
+                END IF;
+                PERFORM catalog_counter_apply(removed, added);
+                RETURN NULL;
+            END
+            $$ LANGUAGE plpgsql
+            """;
+
+    private static final String LOAN_FUNCTION = """
+            CREATE OR REPLACE FUNCTION catalog_counter_loan() RETURNS trigger AS $$
+            DECLARE
+                removed text[] := '{}';
+                added text[] := '{}';
+            BEGIN
+                IF TG_OP <> 'INSERT' THEN
+                    removed := ARRAY['loans'];
+                    IF OLD.return_date IS NULL THEN
+                        removed := removed || ARRAY['loans.active.user.' || OLD.user_id,
+                                'loans.active.branch.' || (SELECT library_id FROM book WHERE id = OLD.book_id)];
+                    END IF;
+                END IF;
+                IF TG_OP <> 'DELETE' THEN
+                    added := ARRAY['loans'];
+                    IF NEW.return_date IS NULL THEN
+                        added := added || ARRAY['loans.active.user.' || NEW.user_id,
+                                'loans.active.branch.' || (SELECT library_id FROM book WHERE id = NEW.book_id)];
+                    END IF;
+                END IF;
+                PERFORM catalog_counter_apply(removed, added);
+                RETURN NULL;
+            END
+            $$ LANGUAGE plpgsql
+            """;
+
+    // Export stats categories for one photo. Soft-deleted photos count in none; FAILED photos
+    // are not pending, so they aren't counted twice
+    private static final String PHOTO_KEYS_FUNCTION = """
+            CREATE OR REPLACE FUNCTION catalog_counter_photo_keys(deleted boolean, permanent_id text,
+                    image_checksum text, export_status text) RETURNS text[] AS $$
+                SELECT CASE WHEN deleted THEN '{}'::text[] ELSE ARRAY[
+                    'photos',
+                    CASE WHEN permanent_id <> '' THEN 'photos.exported' END,
+                    CASE WHEN permanent_id <> '' AND image_checksum IS NOT NULL THEN 'photos.imported' END,
+                    CASE WHEN coalesce(permanent_id, '') = '' AND image_checksum IS NOT NULL
+                         AND export_status IS DISTINCT FROM 'FAILED' THEN 'photos.pending-export' END,
+                    CASE WHEN permanent_id <> '' AND image_checksum IS NULL
+                         AND export_status IS DISTINCT FROM 'FAILED' THEN 'photos.pending-import' END,
+                    'photos.status.' || export_status] END
+            $$ LANGUAGE sql IMMUTABLE
+            """;
+
+    private static final String PHOTO_FUNCTION = """
+            CREATE OR REPLACE FUNCTION catalog_counter_photo() RETURNS trigger AS $$
+            DECLARE
+                removed text[] := '{}';
+                added text[] := '{}';
+            BEGIN
+                IF TG_OP <> 'INSERT' THEN
+                    removed := catalog_counter_photo_keys(OLD.deleted_at IS NOT NULL, OLD.permanent_id,
+                            OLD.image_checksum, OLD.export_status::text);
+                END IF;
+                IF TG_OP <> 'DELETE' THEN
+                    added := catalog_counter_photo_keys(NEW.deleted_at IS NOT NULL, NEW.permanent_id,
+                            NEW.image_checksum, NEW.export_status::text);
+                END IF;
+                PERFORM catalog_counter_apply(removed, added);
+                RETURN NULL;
+            END
+            $$ LANGUAGE plpgsql
+            """;
+
+    /**
+     * Label counters count books, not tag rows, so a label changes only when a book gains
+     * its first row for the tag or loses its last. Runs once per statement over the
+     * statement's changed rows: a pair's rows before the statement are its rows now, less
+     * the rows inserted, plus the rows deleted.
+     */
+    private static final String BOOK_TAGS_FUNCTION = """
+            CREATE OR REPLACE FUNCTION catalog_counter_book_tags_%1$s() RETURNS trigger AS $$
+            DECLARE
+                removed text[];
+                added text[];
+            BEGIN
+                SELECT coalesce(array_agg('label.' || tag) FILTER (WHERE now_rows - delta > 0 AND now_rows = 0), '{}'),
+                       coalesce(array_agg('label.' || tag) FILTER (WHERE now_rows - delta = 0 AND now_rows > 0), '{}')
+                INTO removed, added
+                FROM (
+                    SELECT c.tag, c.delta,
+                           (SELECT count(*) FROM book_tags t WHERE t.book_id = c.book_id AND t.tag = c.tag) AS now_rows
+                    FROM (
+                        SELECT book_id, tag, sum(delta) AS delta FROM (
+                            SELECT book_id, tag, 1 AS delta FROM %2$s
+                            UNION ALL
+                            SELECT book_id, tag, -1 FROM %3$s
+                        ) changed
+                        GROUP BY book_id, tag
+                    ) c
+                ) pairs;
+                PERFORM catalog_counter_apply(removed, added);
+                RETURN NULL;
+            END
+            $$ LANGUAGE plpgsql
+            """;
+
+    private static final String[][] TRIGGERS = {
+            {"catalog_counter_library", "library",
+                    "AFTER INSERT OR DELETE ON library FOR EACH ROW EXECUTE FUNCTION catalog_counter_rows('branches')"},
+            {"catalog_counter_author", "author",
+                    "AFTER INSERT OR DELETE ON author FOR EACH ROW EXECUTE FUNCTION catalog_counter_rows('authors')"},
+            {"catalog_counter_users", "users",
+                    "AFTER INSERT OR DELETE ON users FOR EACH ROW EXECUTE FUNCTION catalog_counter_rows('users')"},
+            {"catalog_counter_book", "book",
+                    "AFTER INSERT OR UPDATE OF library_id OR DELETE ON book " +
+                    "FOR EACH ROW EXECUTE FUNCTION catalog_counter_book()"},
+            {"catalog_counter_loan", "loan",
+                    "AFTER INSERT OR UPDATE OF book_id, user_id, return_date OR DELETE ON loan " +
+                    "FOR EACH ROW EXECUTE FUNCTION catalog_counter_loan()"},
+            {"catalog_counter_photo", "photo",
+                    "AFTER INSERT OR UPDATE OF deleted_at, permanent_id, image_checksum, export_status OR DELETE ON photo " +
+                    "FOR EACH ROW EXECUTE FUNCTION catalog_counter_photo()"},
+            {"catalog_counter_book_tags_insert", "book_tags",
+                    "AFTER INSERT ON book_tags REFERENCING NEW TABLE AS new_rows " +
+                    "FOR EACH STATEMENT EXECUTE FUNCTION catalog_counter_book_tags_insert()"},
+            {"catalog_counter_book_tags_update", "book_tags",
+                    "AFTER UPDATE ON book_tags REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows " +
+                    "FOR EACH STATEMENT EXECUTE FUNCTION catalog_counter_book_tags_update()"},
+            {"catalog_counter_book_tags_delete", "book_tags",
+                    "AFTER DELETE ON book_tags REFERENCING OLD TABLE AS old_rows " +
+                    "FOR EACH STATEMENT EXECUTE FUNCTION catalog_counter_book_tags_delete()"}
+    };
+
+    /**
+     * Every counter's true value, computed from the tables.
+     */
+    private static final String ACTUAL_COUNTS = """
+            SELECT 'branches', count(*) FROM library
+            UNION ALL SELECT 'authors', count(*) FROM author
+            UNION ALL SELECT 'users', count(*) FROM users
+            UNION ALL SELECT 'books', count(*) FROM book
+            UNION ALL SELECT 'loans', count(*) FROM loan
+            UNION ALL SELECT 'books.branch.' || library_id, count(*) FROM book
+                WHERE library_id IS NOT NULL GROUP BY library_id
+            UNION ALL SELECT 'loans.active.user.' || user_id, count(*) FROM loan
+                WHERE return_date IS NULL AND user_id IS NOT NULL GROUP BY user_id
+            UNION ALL SELECT 'loans.active.branch.' || b.library_id, count(*) FROM loan l JOIN book b ON b.id = l.book_id
+                WHERE l.return_date IS NULL AND b.library_id IS NOT NULL GROUP BY b.library_id
+            UNION ALL SELECT 'label.' || tag, count(DISTINCT book_id) FROM book_tags
+                WHERE tag IS NOT NULL GROUP BY tag
+            UNION ALL SELECT name, count(*) FROM photo,
+                unnest(catalog_counter_photo_keys(deleted_at IS NOT NULL, permanent_id, image_checksum, export_status::text)) AS keys(name)
+                WHERE name IS NOT NULL GROUP BY name
+            """;
+
+    /**
+     * Install the triggers (replacing any from an earlier version in one transaction, so no
+     * write goes uncounted), then bring the counters in line with the tables. The first run
+     * against an existing database fills in every counter.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void installOnStartup() {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> installTriggers());
+            log.debug("Catalog counter triggers in place");
+        } catch (RuntimeException e) {
+            log.error("Failed to install catalog counter triggers: {}", e.getMessage(), e);
+        }
+        reconcile();
+    }
+
+    private void installTriggers() {
+        jdbcTemplate.execute(APPLY_FUNCTION);
+        jdbcTemplate.execute(ROWS_FUNCTION);
+        jdbcTemplate.execute(BOOK_FUNCTION);
+        jdbcTemplate.execute(LOAN_FUNCTION);
+        jdbcTemplate.execute(PHOTO_KEYS_FUNCTION);
+        jdbcTemplate.execute(PHOTO_FUNCTION);
+        jdbcTemplate.execute(String.format(BOOK_TAGS_FUNCTION, "insert", "new_rows", "new_rows WHERE false"));
+        jdbcTemplate.execute(String.format(BOOK_TAGS_FUNCTION, "update", "new_rows", "old_rows"));
+        jdbcTemplate.execute(String.format(BOOK_TAGS_FUNCTION, "delete", "old_rows WHERE false", "old_rows"));
+        // The label triggers look up each changed (book, tag) pair
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_book_tags_book_tag ON book_tags (book_id, tag)");
+        for (String[] trigger : TRIGGERS) {
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + trigger[0] + " ON " + trigger[1]);
+            jdbcTemplate.execute("CREATE TRIGGER " + trigger[0] + " " + trigger[2]);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.counters.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${app.counters.reconcile-interval-ms:3600000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Correct counters that differ from the tables, and drop counters that reached zero.
+     * The counts and the counters are read in one snapshot, where the triggers keep them
+     * consistent, and each difference is applied as an increment, so writes committed in
+     * between are not lost. Takes no table locks.
+     *
+     * @return the number of counters corrected
+     */
+    public int reconcile() {
+        try {
+            TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+            snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            snapshot.setReadOnly(true);
+            Map<String, Long> drift = snapshot.execute(status -> {
+                Map<String, Long> differences = new TreeMap<>();
+                jdbcTemplate.query(ACTUAL_COUNTS, rs -> {
+                    differences.merge(rs.getString(1), rs.getLong(2), Long::sum);
+                });
+                jdbcTemplate.query("SELECT name, value FROM catalog_counter", rs -> {
+                    differences.merge(rs.getString(1), -rs.getLong(2), Long::sum);
+                });
+                differences.values().removeIf(difference -> difference == 0);
+                return differences;
+            });
+            if (!drift.isEmpty()) {
+                log.info("Correcting {} catalog counters that differ from the tables", drift.size());
+                List<Object[]> increments = drift.entrySet().stream()
+                        .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                        .toList();
+                jdbcTemplate.batchUpdate("INSERT INTO catalog_counter (name, value) VALUES (?, ?) " +
+                        "ON CONFLICT (name) DO UPDATE SET value = catalog_counter.value + EXCLUDED.value", increments);
+            }
+            jdbcTemplate.update("DELETE FROM catalog_counter WHERE value = 0");
+            return drift.size();
+        } catch (RuntimeException e) {
+            log.warn("Failed to reconcile catalog counters: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+}
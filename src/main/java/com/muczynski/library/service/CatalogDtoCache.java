@@ -0,0 +1,252 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.muczynski.library.domain.Author;
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.domain.CatalogChangeEvent;
+import com.muczynski.library.domain.Library;
+import com.muczynski.library.domain.Loan;
+import com.muczynski.library.domain.Photo;
+import com.muczynski.library.dto.AuthorDto;
+import com.muczynski.library.dto.BookDto;
+import com.muczynski.library.dto.DtoCacheStatsDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Assembled {@link BookDto}s and {@link AuthorDto}s, with their JSON, for the
+ * {@code POST /api/books/by-ids} and {@code POST /api/authors/by-ids} endpoints. Clients
+ * fetch the same recently edited entities over and over; a hit skips the entity read, the
+ * photo and loan lookups, and serialization.
+ * <p>
+ * Bounded by estimated memory with Caffeine (W-TinyLFU eviction). Entries are checked
+ * against the entity's current lastModified on every read, and evicted from
+ * {@link CatalogChangeEvent}s for changes that don't touch lastModified: photos, loans,
+ * author names shown on books, book counts shown on authors and branch names. Writes that
+ * bypass JPA and don't touch lastModified (the photo checksum backfill) are picked up when
+ * the entry expires.
+ */
+@Service
+@Slf4j
+public class CatalogDtoCache {
+
+    public record Entry<D>(D dto, LocalDateTime lastModified, byte[] json) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Region<BookDto> books;
+    private final Region<AuthorDto> authors;
+
+    public CatalogDtoCache(ObjectMapper objectMapper,
+                           @Value("${app.dto-cache.max-bytes:16777216}") long maxBytes,
+                           @Value("${app.dto-cache.expire-after-write-minutes:10}") long expireMinutes) {
+        this.objectMapper = objectMapper;
+        Duration expiry = Duration.ofMinutes(expireMinutes);
+        // Books get most of the budget: there are far more of them, and their descriptions are longer
+        this.books = new Region<>("books", maxBytes - maxBytes / 4, expiry);
+        this.authors = new Region<>("authors", maxBytes / 4, expiry);
+    }
+
+    /**
+     * Cached books for the given current lastModified values; the rest are loaded with
+     * {@code loader}, serialized and cached. Unknown ids are simply absent from the result,
+     * which is in no particular order.
+     */
+    public List<Entry<BookDto>> getBooks(Map<Long, LocalDateTime> lastModifiedById,
+                                         Function<List<Long>, List<BookDto>> loader) {
+        return books.get(lastModifiedById, loader, BookDto::getId, BookDto::getLastModified);
+    }
+
+    public List<Entry<AuthorDto>> getAuthors(Map<Long, LocalDateTime> lastModifiedById,
+                                             Function<List<Long>, List<AuthorDto>> loader) {
+        return authors.get(lastModifiedById, loader, AuthorDto::getId, AuthorDto::getLastModified);
+    }
+
+    /**
+     * The entries' JSON joined into a JSON array, in list order.
+     */
+    public static byte[] toJsonArray(List<? extends Entry<?>> entries) {
+        int size = 2 + Math.max(0, entries.size() - 1);
+        for (Entry<?> entry : entries) {
+            size += entry.json().length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        out.write('[');
+        for (int i = 0; i < entries.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(entries.get(i).json());
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        Object entity = event.entity();
+        if (entity instanceof Book book) {
+            books.invalidate(book.getId());
+            // Book counts
+            authors.invalidateAll();
+        } else if (entity instanceof Author author) {
+            authors.invalidate(author.getId());
+            // Author name shown on each book
+            books.invalidateIf(dto -> Objects.equals(dto.getAuthorId(), author.getId()));
+        } else if (entity instanceof Photo photo) {
+            // First photo id and checksum
+            if (photo.getBook() != null) {
+                books.invalidate(photo.getBook().getId());
+            }
+            if (photo.getAuthor() != null) {
+                authors.invalidate(photo.getAuthor().getId());
+            }
+        } else if (entity instanceof Loan loan) {
+            // Open loan count
+            if (loan.getBook() != null) {
+                books.invalidate(loan.getBook().getId());
+            }
+        } else if (entity instanceof Library) {
+            // Branch name shown on each book
+            books.invalidateAll();
+        }
+    }
+
+    public void invalidateAll() {
+        books.invalidateAll();
+        authors.invalidateAll();
+    }
+
+    public List<DtoCacheStatsDto> getStats() {
+        return List.of(books.stats(), authors.stats());
+    }
+
+    private byte[] serialize(Object dto) {
+        try {
+            return objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private final class Region<D> {
+
+        private final String name;
+        private final Cache<Long, Entry<D>> cache;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        // Bumped by every invalidation; a load that overlaps one is returned but not cached,
+        // since it may have read the state from before the change
+        private final AtomicLong generation = new AtomicLong();
+
+        Region(String name, long maxBytes, Duration expiry) {
+            this.name = name;
+            this.cache = Caffeine.newBuilder()
+                    .maximumWeight(maxBytes)
+                    .weigher((Long id, Entry<D> entry) -> weigh(entry))
+                    .expireAfterWrite(expiry)
+                    .recordStats()
+                    .build();
+        }
+
+        List<Entry<D>> get(Map<Long, LocalDateTime> lastModifiedById,
+                           Function<List<Long>, List<D>> loader,
+                           Function<D, Long> idOf,
+                           Function<D, LocalDateTime> lastModifiedOf) {
+            List<Entry<D>> result = new ArrayList<>(lastModifiedById.size());
+            List<Long> missing = new ArrayList<>();
+            for (Map.Entry<Long, LocalDateTime> current : lastModifiedById.entrySet()) {
+                Entry<D> entry = cache.getIfPresent(current.getKey());
+                if (entry != null && Objects.equals(entry.lastModified(), current.getValue())) {
+                    result.add(entry);
+                } else {
+                    missing.add(current.getKey());
+                }
+            }
+            hits.add(result.size());
+            misses.add(missing.size());
+            if (missing.isEmpty()) {
+                return result;
+            }
+
+            long loadGeneration = generation.get();
+            Map<Long, Entry<D>> loaded = new HashMap<>();
+            for (D dto : loader.apply(missing)) {
+                loaded.put(idOf.apply(dto), new Entry<>(dto, lastModifiedOf.apply(dto), serialize(dto)));
+            }
+            result.addAll(loaded.values());
+            if (generation.get() == loadGeneration) {
+                cache.putAll(loaded);
+                // An invalidation between the check and the put may have missed these entries
+                if (generation.get() != loadGeneration) {
+                    cache.invalidateAll(loaded.keySet());
+                }
+            }
+            return result;
+        }
+
+        void invalidate(Long id) {
+            if (id != null) {
+                generation.incrementAndGet();
+                cache.invalidate(id);
+            }
+        }
+
+        void invalidateIf(Predicate<D> predicate) {
+            generation.incrementAndGet();
+            cache.asMap().values().removeIf(entry -> predicate.test(entry.dto()));
+        }
+
+        void invalidateAll() {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        }
+
+        DtoCacheStatsDto stats() {
+            long hitCount = hits.sum();
+            long missCount = misses.sum();
+            long requests = hitCount + missCount;
+            Policy.Eviction<Long, Entry<D>> eviction = cache.policy().eviction().orElseThrow();
+            return new DtoCacheStatsDto(
+                    name,
+                    cache.estimatedSize(),
+                    eviction.weightedSize().orElse(0),
+                    eviction.getMaximum(),
+                    hitCount,
+                    missCount,
+                    requests == 0 ? 0.0 : (double) hitCount / requests,
+                    cache.stats().evictionCount());
+        }
+    }
+
+    /**
+     * Estimated heap bytes: the JSON, plus about twice that for the DTO, whose strings hold
+     * the same text as UTF-16.
+     */
+    private static int weigh(Entry<?> entry) {
+        return 3 * entry.json().length + 128;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.domain.Author;
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.domain.CatalogChangeEvent;
+import com.muczynski.library.domain.Loan;
+import com.muczynski.library.domain.Photo;
+import com.muczynski.library.dto.CatalogEventDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live change feed behind {@code GET /api/events} (Server-Sent Events), so clients can stop
+ * polling summaries and refetch only when something changed.
+ * <p>
+ * Committed {@link CatalogChangeEvent}s for books, authors, loans and photos are offered to
+ * every subscriber's bounded queue; the committing thread never writes to a socket. A fixed
+ * pool of {@link #SENDER_THREADS} threads drains the queues, one subscriber at a time each,
+ * however many clients are connected; idle connections hold no thread (servlet async).
+ * <p>
+ * Backpressure is per connection: a client that falls {@link #QUEUE_CAPACITY} events behind
+ * loses its queued events and gets a single {@code resync} event instead, telling it to
+ * refetch. Other clients are unaffected.
+ * <p>
+ * Loan events, and photos of loans, go only to librarians.
+ */
+@Service
+@Slf4j
+public class CatalogEventService {
+
+    static final int QUEUE_CAPACITY = 256;
+    static final int SENDER_THREADS = 2;
+    // Events written per turn before a subscriber yields its sender thread to the others
+    private static final int MAX_EVENTS_PER_DRAIN = 64;
+
+    private static final Object PING = new Object();
+
+    private final long timeoutMs;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+
+    public CatalogEventService(@Value("${app.events.timeout-ms:1800000}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(SENDER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-events-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Register a new connection. The emitter times out after {@code app.events.timeout-ms};
+     * EventSource clients reconnect on their own.
+     */
+    public SseEmitter subscribe(boolean librarian) {
+        return subscribe(new SseEmitter(timeoutMs), librarian);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, boolean librarian) {
+        Subscriber subscriber = new Subscriber(emitter, librarian);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // Flushes the response headers so the client sees the connection open
+        subscriber.offer(PING);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        CatalogEventDto dto = toDto(event);
+        if (dto == null) {
+            return;
+        }
+        boolean librarianOnly = isLibrarianOnly(event.entity());
+        for (Subscriber subscriber : subscribers) {
+            if (!librarianOnly || subscriber.librarian) {
+                subscriber.offer(dto);
+            }
+        }
+    }
+
+    /**
+     * Comment line every 25 seconds so proxies don't close idle connections, and so
+     * connections whose client went away are noticed.
+     */
+    @Scheduled(fixedRateString = "${app.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(PING));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    static CatalogEventDto toDto(CatalogChangeEvent event) {
+        Object entity = event.entity();
+        if (entity instanceof Book book && book.getId() != null) {
+            return new CatalogEventDto("book", book.getId(), book.getLastModified(), event.deleted(), null,
+                    book.getAuthor() != null ? book.getAuthor().getId() : null);
+        } else if (entity instanceof Author author && author.getId() != null) {
+            return new CatalogEventDto("author", author.getId(), author.getLastModified(), event.deleted(), null, null);
+        } else if (entity instanceof Loan loan && loan.getId() != null) {
+            return new CatalogEventDto("loan", loan.getId(), loan.getLastModified(), event.deleted(),
+                    loan.getBook() != null ? loan.getBook().getId() : null, null);
+        } else if (entity instanceof Photo photo && photo.getId() != null) {
+            return new CatalogEventDto("photo", photo.getId(), null, event.deleted(),
+                    photo.getBook() != null ? photo.getBook().getId() : null,
+                    photo.getAuthor() != null ? photo.getAuthor().getId() : null);
+        }
+        return null;
+    }
+
+    private static boolean isLibrarianOnly(Object entity) {
+        return entity instanceof Loan || (entity instanceof Photo photo && photo.getLoan() != null);
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final boolean librarian;
+        private final ArrayBlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicBoolean overflowed = new AtomicBoolean();
+        // At most one sender thread drains a subscriber at a time, which keeps its events in order
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, boolean librarian) {
+            this.emitter = emitter;
+            this.librarian = librarian;
+        }
+
+        void offer(Object event) {
+            if (!queue.offer(event) && event != PING) {
+                overflowed.set(true);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                if (overflowed.getAndSet(false)) {
+                    queue.clear();
+                    emitter.send(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+                }
+                Object event;
+                int sent = 0;
+                while (sent < MAX_EVENTS_PER_DRAIN && (event = queue.poll()) != null) {
+                    if (event == PING) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event().name("change").data(event, MediaType.APPLICATION_JSON));
+                    }
+                    sent++;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away, or the emitter already completed
+                log.debug("Dropping catalog event subscriber: {}", e.getMessage());
+                subscribers.remove(this);
+                queue.clear();
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if ((!queue.isEmpty() || overflowed.get()) && subscribers.contains(this)) {
+                schedule();
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.muczynski.library.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.security.core.Authentication;
@@ -44,17 +45,9 @@ public class GooglePhotosService {
     @Value("${google.oauth.token-uri}")
     private String tokenUri;
 
-    private final RestTemplate restTemplate;
-
-    public GooglePhotosService() {
-        this.restTemplate = new RestTemplate();
-        // Configure 60-second timeouts for all HTTP connections
-        org.springframework.http.client.SimpleClientHttpRequestFactory factory =
-                new org.springframework.http.client.SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(60000); // 60 seconds
-        factory.setReadTimeout(60000); // 60 seconds
-        this.restTemplate.setRequestFactory(factory);
-    }
+    @Autowired
+    @Qualifier("googleRestTemplate")
+    private RestTemplate restTemplate;
 
     /**
      * Get authenticated user from security context
@@ -612,29 +605,26 @@ public class GooglePhotosService {
 
         logger.debug("Downloading photo from URL: {}", url);
 
+        // Picker API requires OAuth bearer token for downloading baseUrl
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+
         try {
-            java.net.URL photoUrl = new java.net.URL(url);
-            java.net.HttpURLConnection connection = (java.net.HttpURLConnection) photoUrl.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(30000);
-
-            // Picker API requires OAuth bearer token for downloading baseUrl
-            connection.setRequestProperty("Authorization", "Bearer " + accessToken);
-
-            int responseCode = connection.getResponseCode();
-            logger.debug("HTTP response code: {}", responseCode);
-
-            if (responseCode == 200) {
-                java.io.InputStream inputStream = connection.getInputStream();
-                byte[] photoBytes = inputStream.readAllBytes();
-                inputStream.close();
-                logger.debug("Successfully downloaded {} bytes", photoBytes.length);
-                return photoBytes;
-            } else {
-                logger.error("Failed to download photo. HTTP response code: {}", responseCode);
-                throw new LibraryException("Failed to download photo: HTTP " + responseCode);
+            // Non-2xx answers throw, with the status in the message
+            ResponseEntity<byte[]> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.GET,
+                    new HttpEntity<Void>(headers),
+                    byte[].class
+            );
+            logger.debug("HTTP response status: {}", response.getStatusCode());
+
+            byte[] photoBytes = response.getBody();
+            if (photoBytes == null) {
+                throw new LibraryException("Photo download returned no content");
             }
+            logger.debug("Successfully downloaded {} bytes", photoBytes.length);
+            return photoBytes;
         } catch (Exception e) {
             logger.error("Error downloading photo from URL: {}", e.getMessage(), e);
             throw new LibraryException("Failed to download photo: " + e.getMessage(), e);
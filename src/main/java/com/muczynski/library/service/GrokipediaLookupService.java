@@ -4,22 +4,19 @@
 package com.muczynski.library.service;
 
 import com.muczynski.library.domain.Author;
-import com.muczynski.library.domain.Book;
 import com.muczynski.library.dto.GrokipediaLookupResultDto;
 import com.muczynski.library.exception.LibraryException;
 import com.muczynski.library.repository.AuthorRepository;
 import com.muczynski.library.repository.BookRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,11 +24,11 @@ import java.util.List;
  * Service for looking up Grokipedia URLs for books and authors.
  * Generates URLs by converting names/titles to the Grokipedia format
  * (spaces become underscores) and verifies they exist via HTTP request.
+ * No database connection is held during the HTTP request: the title or name is read in one
+ * short transaction, and a URL that exists is saved in another.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class GrokipediaLookupService {
 
     private static final String GROKIPEDIA_BASE_URL = "https://grokipedia.com/page/";
@@ -39,15 +36,26 @@ public class GrokipediaLookupService {
     private final BookRepository bookRepository;
     private final AuthorRepository authorRepository;
     private final RestTemplate restTemplate;
+    private final LookupTransactions transactions;
+
+    public GrokipediaLookupService(BookRepository bookRepository, AuthorRepository authorRepository,
+                                   @Qualifier("lookupRestTemplate") RestTemplate restTemplate,
+                                   LookupTransactions transactions) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.restTemplate = restTemplate;
+        this.transactions = transactions;
+    }
 
     /**
      * Lookup and update Grokipedia URL for a single book
      */
     public GrokipediaLookupResultDto lookupBook(Long bookId) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new LibraryException("Book not found: " + bookId));
+        String title = transactions.read(status -> bookRepository.findById(bookId)
+                .orElseThrow(() -> new LibraryException("Book not found: " + bookId))
+                .getTitle());
 
-        return performBookLookup(book);
+        return performBookLookup(bookId, title);
     }
 
     /**
@@ -77,10 +85,11 @@ public class GrokipediaLookupService {
      * Lookup and update Grokipedia URL for a single author
      */
     public GrokipediaLookupResultDto lookupAuthor(Long authorId) {
-        Author author = authorRepository.findById(authorId)
-                .orElseThrow(() -> new LibraryException("Author not found: " + authorId));
+        String name = transactions.read(status -> authorRepository.findById(authorId)
+                .orElseThrow(() -> new LibraryException("Author not found: " + authorId))
+                .getName());
 
-        return performAuthorLookup(author);
+        return performAuthorLookup(authorId, name);
     }
 
     /**
@@ -109,11 +118,10 @@ public class GrokipediaLookupService {
     /**
      * Perform Grokipedia URL lookup for a book
      */
-    private GrokipediaLookupResultDto performBookLookup(Book book) {
-        String title = book.getTitle();
+    private GrokipediaLookupResultDto performBookLookup(Long bookId, String title) {
         if (title == null || title.trim().isEmpty()) {
             return GrokipediaLookupResultDto.builder()
-                    .bookId(book.getId())
+                    .bookId(bookId)
                     .name(title)
                     .success(false)
                     .errorMessage("Book has no title")
@@ -124,14 +132,12 @@ public class GrokipediaLookupService {
         boolean exists = checkUrlExists(grokipediaUrl);
 
         if (exists) {
-            book.setGrokipediaUrl(grokipediaUrl);
-            book.setLastModified(LocalDateTime.now());
-            bookRepository.save(book);
+            transactions.updateBook(bookId, book -> book.setGrokipediaUrl(grokipediaUrl));
 
-            log.info("Successfully found Grokipedia URL for book {}: {}", book.getId(), grokipediaUrl);
+            log.info("Successfully found Grokipedia URL for book {}: {}", bookId, grokipediaUrl);
 
             return GrokipediaLookupResultDto.builder()
-                    .bookId(book.getId())
+                    .bookId(bookId)
                     .name(title)
                     .success(true)
                     .grokipediaUrl(grokipediaUrl)
@@ -139,7 +145,7 @@ public class GrokipediaLookupService {
         } else {
             log.info("No Grokipedia page found for book '{}' at URL: {}", title, grokipediaUrl);
             return GrokipediaLookupResultDto.builder()
-                    .bookId(book.getId())
+                    .bookId(bookId)
                     .name(title)
                     .success(false)
                     .errorMessage("No Grokipedia page found at " + grokipediaUrl)
@@ -150,11 +156,10 @@ public class GrokipediaLookupService {
     /**
      * Perform Grokipedia URL lookup for an author
      */
-    private GrokipediaLookupResultDto performAuthorLookup(Author author) {
-        String name = author.getName();
+    private GrokipediaLookupResultDto performAuthorLookup(Long authorId, String name) {
         if (name == null || name.trim().isEmpty()) {
             return GrokipediaLookupResultDto.builder()
-                    .authorId(author.getId())
+                    .authorId(authorId)
                     .name(name)
                     .success(false)
                     .errorMessage("Author has no name")
@@ -165,13 +170,17 @@ public class GrokipediaLookupService {
         boolean exists = checkUrlExists(grokipediaUrl);
 
         if (exists) {
-            author.setGrokipediaUrl(grokipediaUrl);
-            authorRepository.save(author);
+            transactions.write(status -> {
+                Author author = authorRepository.findById(authorId)
+                        .orElseThrow(() -> new LibraryException("Author not found: " + authorId));
+                author.setGrokipediaUrl(grokipediaUrl);
+                authorRepository.save(author);
+            });
 
-            log.info("Successfully found Grokipedia URL for author {}: {}", author.getId(), grokipediaUrl);
+            log.info("Successfully found Grokipedia URL for author {}: {}", authorId, grokipediaUrl);
 
             return GrokipediaLookupResultDto.builder()
-                    .authorId(author.getId())
+                    .authorId(authorId)
                     .name(name)
                     .success(true)
                     .grokipediaUrl(grokipediaUrl)
@@ -179,7 +188,7 @@ public class GrokipediaLookupService {
         } else {
             log.info("No Grokipedia page found for author '{}' at URL: {}", name, grokipediaUrl);
             return GrokipediaLookupResultDto.builder()
-                    .authorId(author.getId())
+                    .authorId(authorId)
                     .name(name)
                     .success(false)
                     .errorMessage("No Grokipedia page found at " + grokipediaUrl)
@@ -44,6 +44,7 @@ public class ImportService {
     private final LoanRepository loanRepository;
     private final AuthorityRepository authorityRepository;
     private final PhotoRepository photoRepository;
+    private final CatalogCounterService catalogCounterService;
     private final BranchMapper branchMapper;
     private final PasswordEncoder passwordEncoder;
 
@@ -606,7 +607,7 @@ public class ImportService {
         // Export books (new format: authorName reference instead of embedded author object)
         // Note: lastModified is NOT exported because it gets updated during import
         List<ImportBookDto> bookDtos = new ArrayList<>();
-        for (Book book : bookRepository.findAllWithAuthorAndLibrary()) {
+        for (Book book : bookRepository.findAllWithAuthorLibraryAndDetail()) {
             ImportBookDto bDto = new ImportBookDto();
             bDto.setTitle(book.getTitle());
             bDto.setPublicationYear(book.getPublicationYear());
@@ -723,12 +724,15 @@ public class ImportService {
      */
     @Transactional(readOnly = true)
     public DatabaseStatsDto getDatabaseStats() {
+        Map<String, Long> counters = catalogCounterService.getAll(List.of(
+            CatalogCounterService.BRANCHES, CatalogCounterService.BOOKS, CatalogCounterService.AUTHORS,
+            CatalogCounterService.USERS, CatalogCounterService.LOANS));
         return new DatabaseStatsDto(
-            branchRepository.count(),
-            bookRepository.count(),
-            authorRepository.count(),
-            userRepository.count(),
-            loanRepository.count()
+            counters.get(CatalogCounterService.BRANCHES),
+            counters.get(CatalogCounterService.BOOKS),
+            counters.get(CatalogCounterService.AUTHORS),
+            counters.get(CatalogCounterService.USERS),
+            counters.get(CatalogCounterService.LOANS)
         );
     }
 
@@ -744,8 +748,11 @@ public class ImportService {
             "biography", "history", "prayer", "classic", "poetry", "science", "music",
             "mystery", "adventure", "romance", "humor"
         );
+        Map<String, Long> counters = catalogCounterService.getAll(labels.stream()
+            .map(CatalogCounterService::label)
+            .toList());
         return labels.stream()
-            .map(label -> new LabelCountDto(label, bookRepository.countByTag(label)))
+            .map(label -> new LabelCountDto(label, counters.get(CatalogCounterService.label(label))))
             .sorted(Comparator.comparingLong(LabelCountDto::getCount).reversed()
                 .thenComparing(LabelCountDto::getLabel))
             .collect(Collectors.toList());
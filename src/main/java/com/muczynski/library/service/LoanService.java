@@ -24,7 +24,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -210,9 +209,7 @@ public class LoanService {
                 loans.get(0).getUser() != null ? loans.get(0).getUser().getId() : null,
                 loans.get(0).getReturnDate());
         }
-        List<LoanDto> result = loans.stream()
-                .map(loanMapper::toDto)
-                .collect(Collectors.toList());
+        List<LoanDto> result = loanMapper.toDtos(loans);
         logger.info("LoanService.getAllLoans: Returning {} loan DTOs", result.size());
         return result;
     }
@@ -256,9 +253,7 @@ public class LoanService {
                 firstLoan.getReturnDate());
         }
 
-        List<LoanDto> result = loans.stream()
-                .map(loanMapper::toDto)
-                .collect(Collectors.toList());
+        List<LoanDto> result = loanMapper.toDtos(loans);
         logger.info("LoanService.getLoansByUserId: Returning {} loan DTOs", result.size());
         return result;
     }
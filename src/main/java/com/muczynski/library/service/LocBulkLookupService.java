@@ -9,8 +9,6 @@ import com.muczynski.library.model.LocCallNumberResponse;
 import com.muczynski.library.model.LocSearchRequest;
 import com.muczynski.library.repository.BookRepository;
 import com.muczynski.library.repository.PhotoRepository;
-import edu.byu.hbll.callnumber.CallNumber;
-import edu.byu.hbll.callnumber.CallNumberParser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -27,22 +25,25 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 /**
- * Service for bulk LOC call number lookup operations
+ * Service for bulk LOC call number lookup operations.
+ * Lookups hold no database connection while waiting on the LOC catalog or Grok: the books
+ * are read in one short transaction up front, and each call number found is saved in its own.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class LocBulkLookupService {
 
     private final BookRepository bookRepository;
     private final PhotoRepository photoRepository;
     private final LocCatalogService locCatalogService;
     private final AskGrok askGrok;
+    private final LookupTransactions transactions;
 
     /**
      * Get all books with their current LOC status, sorted by date added (most recent first)
      */
+    @Transactional(readOnly = true)
     public List<BookLocStatusDto> getAllBooksWithLocStatus() {
         List<Book> books = bookRepository.findAll();
         return books.stream()
@@ -54,6 +55,7 @@ public class LocBulkLookupService {
     /**
      * Get books that don't have LOC numbers, sorted by date added (most recent first)
      */
+    @Transactional(readOnly = true)
     public List<BookLocStatusDto> getBooksWithMissingLoc() {
         List<Book> books = bookRepository.findAll();
         return books.stream()
@@ -66,6 +68,7 @@ public class LocBulkLookupService {
     /**
      * Get books added on the most recent date, sorted by datetime (most recent first)
      */
+    @Transactional(readOnly = true)
     public List<BookLocStatusDto> getBooksFromMostRecentDate() {
         LocalDateTime mostRecentDateTime = bookRepository.findMaxDateAddedToLibrary();
         if (mostRecentDateTime == null) {
@@ -87,8 +90,9 @@ public class LocBulkLookupService {
      * Lookup and update LOC number for a single book
      */
     public LocLookupResultDto lookupAndUpdateBook(Long bookId) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new LibraryException("Book not found: " + bookId));
+        BookSnapshot book = transactions.read(status -> bookRepository.findById(bookId)
+                .map(BookSnapshot::of)
+                .orElseThrow(() -> new LibraryException("Book not found: " + bookId)));
 
         return performLocLookup(book);
     }
@@ -120,20 +124,21 @@ public class LocBulkLookupService {
      * Lookup and update all books that are missing LOC numbers
      */
     public List<LocLookupResultDto> lookupAllMissingLoc() {
-        List<Book> booksWithMissingLoc = bookRepository.findAll().stream()
-                .filter(book -> book.getLocNumber() == null || book.getLocNumber().trim().isEmpty())
-                .collect(Collectors.toList());
+        List<BookSnapshot> booksWithMissingLoc = transactions.read(status ->
+                bookRepository.findBooksWithoutLocNumber().stream()
+                        .map(BookSnapshot::of)
+                        .toList());
 
         List<LocLookupResultDto> results = new ArrayList<>();
 
-        for (Book book : booksWithMissingLoc) {
+        for (BookSnapshot book : booksWithMissingLoc) {
             try {
                 LocLookupResultDto result = performLocLookup(book);
                 results.add(result);
             } catch (Exception e) {
-                log.error("Error looking up LOC for book {}: {}", book.getId(), e.getMessage());
+                log.error("Error looking up LOC for book {}: {}", book.id(), e.getMessage());
                 results.add(LocLookupResultDto.builder()
-                        .bookId(book.getId())
+                        .bookId(book.id())
                         .success(false)
                         .errorMessage("Error: " + e.getMessage())
                         .build());
@@ -152,20 +157,20 @@ public class LocBulkLookupService {
      * 4. Truncated title at colon only (final fallback)
      * Skips temporary titles (those starting with date pattern).
      */
-    private LocLookupResultDto performLocLookup(Book book) {
+    private LocLookupResultDto performLocLookup(BookSnapshot book) {
         // Skip temporary titles (those starting with date pattern like 2025-01-15_...)
-        if (BooksFromFeedService.isTemporaryTitle(book.getTitle())) {
-            log.info("Skipping LOC lookup for temporary title: {}", book.getTitle());
+        if (BooksFromFeedService.isTemporaryTitle(book.title())) {
+            log.info("Skipping LOC lookup for temporary title: {}", book.title());
             return LocLookupResultDto.builder()
-                    .bookId(book.getId())
+                    .bookId(book.id())
                     .success(false)
                     .errorMessage("Not Ready - Temporary title")
                     .build();
         }
 
-        String originalTitle = book.getTitle();
-        boolean hasAuthor = book.getAuthor() != null;
-        String authorName = hasAuthor ? book.getAuthor().getName() : null;
+        String originalTitle = book.title();
+        String authorName = book.authorName();
+        boolean hasAuthor = authorName != null;
 
         // Strategy 1: Try with original title + author (if author exists)
         LocSearchRequest request = new LocSearchRequest();
@@ -178,14 +183,12 @@ public class LocBulkLookupService {
             LocCallNumberResponse response = locCatalogService.getLocCallNumber(request);
 
             // Update the book with the found LOC number
-            book.setLocNumber(response.getCallNumber());
-            book.setLastModified(LocalDateTime.now());
-            bookRepository.save(book);
+            saveLocNumber(book.id(), response.getCallNumber());
 
-            log.info("Successfully updated LOC number for book {}: {}", book.getId(), response.getCallNumber());
+            log.info("Successfully updated LOC number for book {}: {}", book.id(), response.getCallNumber());
 
             return LocLookupResultDto.builder()
-                    .bookId(book.getId())
+                    .bookId(book.id())
                     .success(true)
                     .locNumber(response.getCallNumber())
                     .matchCount(response.getMatchCount())
@@ -194,7 +197,7 @@ public class LocBulkLookupService {
         } catch (ResponseStatusException e) {
             // Strategy 2: If lookup with author failed and we have an author, try title-only
             if (hasAuthor) {
-                log.info("LOC lookup with title + author failed for book {}, trying title-only fallback", book.getId());
+                log.info("LOC lookup with title + author failed for book {}, trying title-only fallback", book.id());
 
                 try {
                     LocSearchRequest titleOnlyRequest = new LocSearchRequest();
@@ -203,21 +206,19 @@ public class LocBulkLookupService {
                     LocCallNumberResponse response = locCatalogService.getLocCallNumber(titleOnlyRequest);
 
                     // Update the book with the found LOC number
-                    book.setLocNumber(response.getCallNumber());
-                    book.setLastModified(LocalDateTime.now());
-                    bookRepository.save(book);
+                    saveLocNumber(book.id(), response.getCallNumber());
 
-                    log.info("Successfully updated LOC number for book {} using title-only fallback: {}", book.getId(), response.getCallNumber());
+                    log.info("Successfully updated LOC number for book {} using title-only fallback: {}", book.id(), response.getCallNumber());
 
                     return LocLookupResultDto.builder()
-                            .bookId(book.getId())
+                            .bookId(book.id())
                             .success(true)
                             .locNumber(response.getCallNumber())
                             .matchCount(response.getMatchCount())
                             .build();
 
                 } catch (Exception titleOnlyException) {
-                    log.warn("LOC title-only fallback also failed for book {}: {}", book.getId(), titleOnlyException.getMessage());
+                    log.warn("LOC title-only fallback also failed for book {}: {}", book.id(), titleOnlyException.getMessage());
                     // Continue to colon truncation strategy below
                 }
             }
@@ -237,21 +238,19 @@ public class LocBulkLookupService {
                         LocCallNumberResponse response = locCatalogService.getLocCallNumber(truncatedWithAuthorRequest);
 
                         // Update the book with the found LOC number
-                        book.setLocNumber(response.getCallNumber());
-                        book.setLastModified(LocalDateTime.now());
-                        bookRepository.save(book);
+                        saveLocNumber(book.id(), response.getCallNumber());
 
-                        log.info("Successfully updated LOC number for book {} using truncated title + author: {}", book.getId(), response.getCallNumber());
+                        log.info("Successfully updated LOC number for book {} using truncated title + author: {}", book.id(), response.getCallNumber());
 
                         return LocLookupResultDto.builder()
-                                .bookId(book.getId())
+                                .bookId(book.id())
                                 .success(true)
                                 .locNumber(response.getCallNumber())
                                 .matchCount(response.getMatchCount())
                                 .build();
 
                     } catch (Exception truncatedAuthorException) {
-                        log.warn("LOC truncated title + author fallback failed for book {}: {}", book.getId(), truncatedAuthorException.getMessage());
+                        log.warn("LOC truncated title + author fallback failed for book {}: {}", book.id(), truncatedAuthorException.getMessage());
                         // Continue to final fallback
                     }
                 }
@@ -264,21 +263,19 @@ public class LocBulkLookupService {
                     LocCallNumberResponse response = locCatalogService.getLocCallNumber(truncatedOnlyRequest);
 
                     // Update the book with the found LOC number
-                    book.setLocNumber(response.getCallNumber());
-                    book.setLastModified(LocalDateTime.now());
-                    bookRepository.save(book);
+                    saveLocNumber(book.id(), response.getCallNumber());
 
-                    log.info("Successfully updated LOC number for book {} using truncated title-only: {}", book.getId(), response.getCallNumber());
+                    log.info("Successfully updated LOC number for book {} using truncated title-only: {}", book.id(), response.getCallNumber());
 
                     return LocLookupResultDto.builder()
-                            .bookId(book.getId())
+                            .bookId(book.id())
                             .success(true)
                             .locNumber(response.getCallNumber())
                             .matchCount(response.getMatchCount())
                             .build();
 
                 } catch (Exception truncatedOnlyException) {
-                    log.warn("LOC truncated title-only fallback also failed for book {}: {}", book.getId(), truncatedOnlyException.getMessage());
+                    log.warn("LOC truncated title-only fallback also failed for book {}: {}", book.id(), truncatedOnlyException.getMessage());
 
                     // Strategy 5: Try AI suggestion as last resort
                     LocLookupResultDto aiResult = attemptAiSuggest(book);
@@ -287,7 +284,7 @@ public class LocBulkLookupService {
                     }
 
                     return LocLookupResultDto.builder()
-                            .bookId(book.getId())
+                            .bookId(book.id())
                             .success(false)
                             .errorMessage("All lookup strategies failed (including truncated title and AI suggest)")
                             .build();
@@ -295,7 +292,7 @@ public class LocBulkLookupService {
             }
 
             // No colon in title, all strategies exhausted - try AI suggestion
-            log.warn("LOC lookup failed for book {}: {}", book.getId(), e.getReason());
+            log.warn("LOC lookup failed for book {}: {}", book.id(), e.getReason());
 
             // Strategy 5: Try AI suggestion as last resort
             LocLookupResultDto aiResult = attemptAiSuggest(book);
@@ -304,14 +301,14 @@ public class LocBulkLookupService {
             }
 
             return LocLookupResultDto.builder()
-                    .bookId(book.getId())
+                    .bookId(book.id())
                     .success(false)
                     .errorMessage(e.getReason())
                     .build();
         } catch (Exception e) {
-            log.error("Unexpected error during LOC lookup for book {}: {}", book.getId(), e.getMessage());
+            log.error("Unexpected error during LOC lookup for book {}: {}", book.id(), e.getMessage());
             return LocLookupResultDto.builder()
-                    .bookId(book.getId())
+                    .bookId(book.id())
                     .success(false)
                     .errorMessage("Unexpected error: " + e.getMessage())
                     .build();
@@ -322,31 +319,46 @@ public class LocBulkLookupService {
      * Strategy 5: Attempt AI-based LOC suggestion using AskGrok as a last resort.
      * Returns a successful result if AI provides a suggestion, or null if AI also fails.
      */
-    private LocLookupResultDto attemptAiSuggest(Book book) {
+    private LocLookupResultDto attemptAiSuggest(BookSnapshot book) {
         try {
-            String authorName = book.getAuthor() != null ? book.getAuthor().getName() : null;
-            String suggestion = askGrok.suggestLocNumber(book.getTitle(), authorName);
+            String suggestion = askGrok.suggestLocNumber(book.title(), book.authorName());
 
             if (suggestion != null && !suggestion.trim().isEmpty()) {
-                book.setLocNumber(suggestion.trim());
-                book.setLastModified(LocalDateTime.now());
-                bookRepository.save(book);
+                saveLocNumber(book.id(), suggestion.trim());
 
-                log.info("AI suggested LOC number for book {}: {}", book.getId(), suggestion.trim());
+                log.info("AI suggested LOC number for book {}: {}", book.id(), suggestion.trim());
 
                 return LocLookupResultDto.builder()
-                        .bookId(book.getId())
+                        .bookId(book.id())
                         .success(true)
                         .locNumber(suggestion.trim())
                         .aiSuggested(true)
                         .build();
             }
         } catch (Exception aiException) {
-            log.warn("AI LOC suggestion also failed for book {}: {}", book.getId(), aiException.getMessage());
+            log.warn("AI LOC suggestion also failed for book {}: {}", book.id(), aiException.getMessage());
         }
         return null;
     }
 
+    /**
+     * Save a call number in its own short transaction, on the current state of the book.
+     */
+    private void saveLocNumber(Long bookId, String locNumber) {
+        transactions.updateBook(bookId, book -> book.setLocNumber(locNumber));
+    }
+
+    /**
+     * What a lookup needs from a book, read before any network call.
+     */
+    private record BookSnapshot(Long id, String title, String authorName) {
+
+        static BookSnapshot of(Book book) {
+            return new BookSnapshot(book.getId(), book.getTitle(),
+                    book.getAuthor() != null ? book.getAuthor().getName() : null);
+        }
+    }
+
     /**
      * Map Book entity to BookLocStatusDto
      */
@@ -399,43 +411,4 @@ public class LocBulkLookupService {
             return book1.getTitle().compareToIgnoreCase(book2.getTitle());
         };
     }
-
-    /**
-     * Create a comparator for sorting by call number
-     * Books with missing/blank call numbers are sorted to the top
-     */
-    private Comparator<BookLocStatusDto> createCallNumberComparator() {
-        return (book1, book2) -> {
-            String loc1 = book1.getCurrentLocNumber();
-            String loc2 = book2.getCurrentLocNumber();
-
-            // Handle null or blank call numbers - they should appear at the top
-            boolean isBlank1 = loc1 == null || loc1.trim().isEmpty();
-            boolean isBlank2 = loc2 == null || loc2.trim().isEmpty();
-
-            if (isBlank1 && isBlank2) {
-                // Both blank, sort by title
-                return book1.getTitle().compareToIgnoreCase(book2.getTitle());
-            }
-            if (isBlank1) {
-                return -1; // book1 comes first
-            }
-            if (isBlank2) {
-                return 1; // book2 comes first
-            }
-
-            // Both have call numbers, use BYU library to compare
-            try {
-                CallNumberParser parser = CallNumberParser.SYMPHONY_NONSTRICT;
-                CallNumber cn1 = parser.parse(loc1);
-                CallNumber cn2 = parser.parse(loc2);
-                return cn1.compareTo(cn2);
-            } catch (Exception e) {
-                // If parsing fails, fall back to string comparison
-                log.warn("Failed to parse call numbers for comparison: '{}' vs '{}': {}",
-                        loc1, loc2, e.getMessage());
-                return loc1.compareToIgnoreCase(loc2);
-            }
-        };
-    }
 }
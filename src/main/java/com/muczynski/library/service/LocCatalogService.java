@@ -2,12 +2,12 @@ package com.muczynski.library.service;
 
 import com.muczynski.library.model.LocCallNumberResponse;
 import com.muczynski.library.model.LocSearchRequest;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.marc4j.MarcXmlReader;
 import org.marc4j.marc.DataField;
 import org.marc4j.marc.Record;
 import org.marc4j.marc.VariableField;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -51,7 +51,6 @@ import java.util.Optional;
  * </pre>
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class LocCatalogService {
 
@@ -61,6 +60,10 @@ public class LocCatalogService {
 
     private final RestTemplate restTemplate;
 
+    public LocCatalogService(@Qualifier("lookupRestTemplate") RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
     /**
      * Searches the LOC catalog by title and/or author and returns the first valid LOC call number.
      *
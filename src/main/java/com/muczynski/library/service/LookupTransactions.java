@@ -0,0 +1,68 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.exception.LibraryException;
+import com.muczynski.library.repository.BookRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+
+/**
+ * Short transactions for the lookup services (free text, LOC call numbers, Grokipedia), which
+ * spend seconds on other sites per book. They read what they need in one read-only
+ * transaction, make their calls with no connection held, and save each result in a
+ * transaction of its own, so a slow site never ties up the small connection pool.
+ */
+@Component
+public class LookupTransactions {
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate readOnly;
+    private final TransactionTemplate readWrite;
+
+    public LookupTransactions(PlatformTransactionManager transactionManager, BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Run a read in its own read-only transaction and return its result.
+     */
+    public <T> T read(TransactionCallback<T> action) {
+        return readOnly.execute(action);
+    }
+
+    /**
+     * Run a change in its own transaction.
+     */
+    public void write(Consumer<TransactionStatus> action) {
+        readWrite.executeWithoutResult(action);
+    }
+
+    /**
+     * Apply a change to the current state of a book in its own transaction and stamp its
+     * lastModified, so a lookup never saves a copy read before its network calls.
+     *
+     * @throws LibraryException if the book no longer exists
+     */
+    public void updateBook(Long bookId, Consumer<Book> change) {
+        write(status -> {
+            Book book = bookRepository.findById(bookId)
+                    .orElseThrow(() -> new LibraryException("Book not found: " + bookId));
+            change.accept(book);
+            book.setLastModified(LocalDateTime.now(ZoneOffset.UTC));
+            bookRepository.save(book);
+        });
+    }
+}
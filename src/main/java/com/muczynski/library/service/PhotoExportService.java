@@ -19,6 +19,7 @@ import com.muczynski.library.photostorage.dto.SearchResponse;
 import com.muczynski.library.repository.BranchRepository;
 import com.muczynski.library.repository.PhotoRepository;
 import com.muczynski.library.repository.UserRepository;
+import com.muczynski.library.util.TextNormalizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import jakarta.persistence.EntityManager;
@@ -58,6 +59,9 @@ public class PhotoExportService {
     @Autowired
     private PhotoService photoService;
 
+    @Autowired
+    private CatalogCounterService catalogCounterService;
+
     @Autowired
     private GooglePhotosService googlePhotosService;
 
@@ -567,21 +571,26 @@ public class PhotoExportService {
 
     /**
      * Get export statistics
-     * Uses efficient COUNT queries to avoid loading image bytes into memory
+     * Reads the catalog counters in one query rather than counting photos
      */
     @Transactional(readOnly = true)
     public PhotoExportStatsDto getExportStats() {
         PhotoExportStatsDto stats = new PhotoExportStatsDto();
 
         try {
-            // Use efficient COUNT queries that don't load image bytes
-            long total = photoRepository.countActivePhotos();
-            long exported = photoRepository.countExportedPhotos();
-            long imported = photoRepository.countImportedPhotos();
-            long pendingExport = photoRepository.countPendingExportPhotos();
-            long pendingImport = photoRepository.countPendingImportPhotos();
-            long failed = photoRepository.countByExportStatus(Photo.ExportStatus.FAILED);
-            long inProgress = photoRepository.countByExportStatus(Photo.ExportStatus.IN_PROGRESS);
+            String failedCounter = CatalogCounterService.photoStatus(Photo.ExportStatus.FAILED);
+            String inProgressCounter = CatalogCounterService.photoStatus(Photo.ExportStatus.IN_PROGRESS);
+            Map<String, Long> counters = catalogCounterService.getAll(List.of(
+                    CatalogCounterService.PHOTOS, CatalogCounterService.PHOTOS_EXPORTED,
+                    CatalogCounterService.PHOTOS_IMPORTED, CatalogCounterService.PHOTOS_PENDING_EXPORT,
+                    CatalogCounterService.PHOTOS_PENDING_IMPORT, failedCounter, inProgressCounter));
+            long total = counters.get(CatalogCounterService.PHOTOS);
+            long exported = counters.get(CatalogCounterService.PHOTOS_EXPORTED);
+            long imported = counters.get(CatalogCounterService.PHOTOS_IMPORTED);
+            long pendingExport = counters.get(CatalogCounterService.PHOTOS_PENDING_EXPORT);
+            long pendingImport = counters.get(CatalogCounterService.PHOTOS_PENDING_IMPORT);
+            long failed = counters.get(failedCounter);
+            long inProgress = counters.get(inProgressCounter);
 
             stats.setTotal(total);
             stats.setExported(exported);
@@ -1653,8 +1662,6 @@ public class PhotoExportService {
      */
     private String sanitizeForLoanFilename(String name) {
         if (name == null) return "unknown";
-        return name.toLowerCase()
-                .trim()
-                .replaceAll("[^a-z0-9]", "");  // Remove everything except lowercase letters and digits
+        return TextNormalizer.alphanumeric(name);  // Remove everything except lowercase letters and digits
     }
 }
@@ -16,6 +16,7 @@ import com.muczynski.library.repository.BookRepository;
 import com.muczynski.library.repository.LoanRepository;
 import com.muczynski.library.repository.PhotoIdChecksumProjection;
 import com.muczynski.library.repository.PhotoRepository;
+import com.muczynski.library.util.TextNormalizer;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
@@ -702,22 +703,18 @@ public class PhotoZipImportService {
         }
 
         // Strip all non-alphanumeric to compare core content length
-        String searchNorm = searchLower.replaceAll("[^a-z0-9]", "");
-        int searchLen = searchNorm.length();
+        int searchLen = TextNormalizer.alphanumeric(searchLower).length();
 
         // Sort by how close the title length is to the search length (closest first)
         List<BookZipImportProjection> sorted = new java.util.ArrayList<>(candidates);
         sorted.sort(java.util.Comparator.comparingInt(b -> {
-            String titleNorm = b.getTitle().toLowerCase().replaceAll("[^a-z0-9]", "");
-            return Math.abs(titleNorm.length() - searchLen);
+            return Math.abs(TextNormalizer.alphanumeric(b.getTitle()).length() - searchLen);
         }));
 
         // Return only the best match (or ties)
-        int bestDiff = Math.abs(sorted.get(0).getTitle().toLowerCase()
-                .replaceAll("[^a-z0-9]", "").length() - searchLen);
+        int bestDiff = Math.abs(TextNormalizer.alphanumeric(sorted.get(0).getTitle()).length() - searchLen);
         return sorted.stream()
-                .filter(b -> Math.abs(b.getTitle().toLowerCase()
-                        .replaceAll("[^a-z0-9]", "").length() - searchLen) == bestDiff)
+                .filter(b -> Math.abs(TextNormalizer.alphanumeric(b.getTitle()).length() - searchLen) == bestDiff)
                 .toList();
     }
 
@@ -820,9 +817,7 @@ public class PhotoZipImportService {
      */
     public static String sanitizeName(String name) {
         if (name == null) return "";
-        return name.toLowerCase()
-                .replaceAll("[^a-z0-9]+", "-")
-                .replaceAll("^-+|-+$", ""); // Remove leading/trailing dashes
+        return TextNormalizer.sanitizeName(name);
     }
 
     /**
@@ -838,9 +833,7 @@ public class PhotoZipImportService {
      */
     static String sanitizeForLoanFilename(String name) {
         if (name == null) return "unknown";
-        return name.toLowerCase()
-                .trim()
-                .replaceAll("[^a-z0-9]", "");  // Remove everything except lowercase letters and digits
+        return TextNormalizer.alphanumeric(name);  // Remove everything except lowercase letters and digits
     }
 
     /**
@@ -7,20 +7,30 @@ import com.muczynski.library.domain.Author;
 import com.muczynski.library.domain.Book;
 import com.muczynski.library.dto.AuthorDto;
 import com.muczynski.library.dto.BookDto;
+import com.muczynski.library.dto.LabelCountDto;
 import com.muczynski.library.dto.PageInfoDto;
+import com.muczynski.library.dto.SearchFacetsDto;
 import com.muczynski.library.dto.SearchResponseDto;
+import com.muczynski.library.dto.SearchSuggestionDto;
 import com.muczynski.library.mapper.AuthorMapper;
 import com.muczynski.library.mapper.BookMapper;
 import com.muczynski.library.repository.AuthorRepository;
 import com.muczynski.library.repository.BookRepository;
+import com.muczynski.library.search.SearchCursor;
+import com.muczynski.library.search.SearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,6 +48,9 @@ public class SearchService {
     @Autowired
     private AuthorMapper authorMapper;
 
+    @Autowired
+    private SearchIndex searchIndex;
+
     /**
      * Search books and authors with AND-combined type filters.
      * A book must satisfy ALL active type filters (not any one of them).
@@ -59,9 +72,34 @@ public class SearchService {
             List<String> labels) {
 
         String trimmedQuery = (query == null) ? "" : query.trim();
-        Pageable pageable = PageRequest.of(page, size);
+        // Books in ID order and authors by name, the same order the in-memory index uses,
+        // so pages stay stable whichever path answers them.
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        Pageable authorPageable = PageRequest.of(page, size);
         boolean hasLabels = labels != null && !labels.isEmpty();
         long labelCount = hasLabels ? labels.size() : 0;
+        // When any filter chip or label is active, the author list shows only authors
+        // who have at least one book in the filtered book result set.  When no filters
+        // are active the author list is a name-based search (or all authors for a blank query).
+        boolean hasFilters = filterInLibrary || filterElectronic || filterFreeText || filterAudio || hasLabels;
+
+        if (searchIndex.isReady()) {
+            SearchIndex.IdPage bookIds = searchIndex.findBooks(trimmedQuery,
+                    filterInLibrary, filterElectronic, filterFreeText, filterAudio,
+                    hasLabels ? labels : null, page, size);
+            SearchIndex.IdPage authorIds = hasFilters
+                    ? searchIndex.findAuthorsOfMatchingBooks(trimmedQuery,
+                            filterInLibrary, filterElectronic, filterFreeText, filterAudio,
+                            hasLabels ? labels : null, page, size)
+                    : searchIndex.findAuthorsByName(trimmedQuery, page, size);
+            Page<Book> bookPage = new PageImpl<>(
+                    inOrder(bookIds.ids(), bookRepository.findAllById(bookIds.ids()), Book::getId),
+                    pageable, bookIds.total());
+            Page<Author> authorPage = new PageImpl<>(
+                    inOrder(authorIds.ids(), authorRepository.findAllById(authorIds.ids()), Author::getId),
+                    authorPageable, authorIds.total());
+            return toResponse(bookPage, authorPage);
+        }
 
         Page<Book> bookPage;
         if (hasLabels) {
@@ -74,33 +112,238 @@ public class SearchService {
                     pageable);
         }
 
-        // When any filter chip or label is active, the author list shows only authors
-        // who have at least one book in the filtered book result set.  When no filters
-        // are active the author list is a name-based search (or all authors for a blank query).
-        boolean hasFilters = filterInLibrary || filterElectronic || filterFreeText || filterAudio || hasLabels;
         Page<Author> authorPage;
         if (hasFilters) {
             if (hasLabels) {
                 authorPage = authorRepository.findAuthorsOfBooksMatchingFiltersAndLabels(
                         trimmedQuery, filterInLibrary, filterElectronic, filterFreeText, filterAudio,
-                        labels, labelCount, pageable);
+                        labels, labelCount, authorPageable);
             } else {
                 authorPage = authorRepository.findAuthorsOfBooksMatchingFilters(
                         trimmedQuery, filterInLibrary, filterElectronic, filterFreeText, filterAudio,
-                        pageable);
+                        authorPageable);
             }
-        } else if (!trimmedQuery.isEmpty()) {
-            authorPage = authorRepository.findByNameContainingIgnoreCase(trimmedQuery, pageable);
         } else {
-            authorPage = authorRepository.findAll(pageable);
+            Pageable byName = PageRequest.of(page, size,
+                    Sort.by(Sort.Order.asc("name").ignoreCase(), Sort.Order.asc("id")));
+            authorPage = trimmedQuery.isEmpty()
+                    ? authorRepository.findAll(byName)
+                    : authorRepository.findByNameContainingIgnoreCase(trimmedQuery, byName);
+        }
+
+        return toResponse(bookPage, authorPage);
+    }
+
+    /**
+     * Keyset ("cursor") variant of {@link #search}. Books are ordered by (title, id) and authors
+     * by (name, id); each page starts after the position encoded in {@code cursor}, so there
+     * is no OFFSET and deep pages cost the same as the first. COUNT queries only run when
+     * {@code includeTotals} is set.
+     *
+     * @param cursor        nextCursor from the previous response; null or blank for the first page
+     * @param includeTotals also fill bookPage/authorPage with totals (currentPage is -1 in cursor mode)
+     * @throws IllegalArgumentException if the cursor is malformed, came from the search index while
+     *                                  the index is unavailable, or size is less than 1
+     */
+    @Transactional(readOnly = true)
+    public SearchResponseDto searchAfter(String query, String cursor, int size,
+            boolean filterInLibrary, boolean filterElectronic,
+            boolean filterFreeText, boolean filterAudio,
+            List<String> labels, boolean includeTotals) {
+
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        String trimmedQuery = (query == null) ? "" : query.trim();
+        boolean hasLabels = labels != null && !labels.isEmpty();
+        boolean hasFilters = filterInLibrary || filterElectronic || filterFreeText || filterAudio || hasLabels;
+        boolean indexReady = searchIndex.isReady();
+        SearchCursor after = (cursor == null || cursor.isBlank())
+                ? SearchCursor.start(indexReady)
+                : SearchCursor.decode(cursor);
+
+        // Keys are only comparable within the path that issued them: an index cursor stays on
+        // the index and a database cursor on the database. The index sorts lowercase keys in
+        // Java order, not the database's collation, so an index cursor can't seek the database
+        // once the index is unavailable; the client has to start over.
+        if (after.fromIndex() && !indexReady) {
+            throw new IllegalArgumentException("Search cursor expired; request the first page again");
+        }
+        if (after.fromIndex()) {
+            SearchIndex.KeysetPage bookIds = searchIndex.findBooksAfter(trimmedQuery,
+                    filterInLibrary, filterElectronic, filterFreeText, filterAudio,
+                    hasLabels ? labels : null, after.bookKey(), after.bookId(), after.booksDone() ? 0 : size);
+            SearchIndex.KeysetPage authorIds = hasFilters
+                    ? searchIndex.findAuthorsOfMatchingBooksAfter(trimmedQuery,
+                            filterInLibrary, filterElectronic, filterFreeText, filterAudio,
+                            hasLabels ? labels : null, after.authorKey(), after.authorId(), after.authorsDone() ? 0 : size)
+                    : searchIndex.findAuthorsByNameAfter(trimmedQuery,
+                            after.authorKey(), after.authorId(), after.authorsDone() ? 0 : size);
+            List<Book> books = inOrder(bookIds.ids(), bookRepository.findAllById(bookIds.ids()), Book::getId);
+            List<Author> authors = inOrder(authorIds.ids(), authorRepository.findAllById(authorIds.ids()), Author::getId);
+            SearchCursor next = new SearchCursor(true,
+                    bookIds.ids().isEmpty() ? after.bookKey() : bookIds.lastKey(),
+                    bookIds.ids().isEmpty() ? after.bookId() : bookIds.ids().get(bookIds.ids().size() - 1),
+                    after.booksDone() || !bookIds.hasMore(),
+                    authorIds.ids().isEmpty() ? after.authorKey() : authorIds.lastKey(),
+                    authorIds.ids().isEmpty() ? after.authorId() : authorIds.ids().get(authorIds.ids().size() - 1),
+                    after.authorsDone() || !authorIds.hasMore());
+            return toKeysetResponse(books, authors, size,
+                    includeTotals ? bookIds.total() : null,
+                    includeTotals ? authorIds.total() : null,
+                    next);
         }
 
-        List<BookDto> books = bookPage.getContent().stream()
-                .map(bookMapper::toDto)
+        // Fetch one extra row to learn whether another page follows
+        Pageable probe = PageRequest.of(0, size + 1);
+        List<Book> books = List.of();
+        if (!after.booksDone()) {
+            books = hasLabels
+                    ? bookRepository.findWithFiltersAndLabelsAfter(trimmedQuery,
+                            filterInLibrary, filterElectronic, filterFreeText, filterAudio,
+                            labels, labels.size(), after.bookKey(), after.bookId(), probe)
+                    : bookRepository.findWithFiltersAfter(trimmedQuery,
+                            filterInLibrary, filterElectronic, filterFreeText, filterAudio,
+                            after.bookKey(), after.bookId(), probe);
+        }
+        boolean moreBooks = books.size() > size;
+        books = moreBooks ? books.subList(0, size) : books;
+
+        List<Author> authors = List.of();
+        if (!after.authorsDone()) {
+            if (!hasFilters) {
+                authors = authorRepository.findByNameContainingAfter(trimmedQuery,
+                        after.authorKey(), after.authorId(), probe);
+            } else if (hasLabels) {
+                authors = authorRepository.findAuthorsOfBooksMatchingFiltersAndLabelsAfter(trimmedQuery,
+                        filterInLibrary, filterElectronic, filterFreeText, filterAudio,
+                        labels, labels.size(), after.authorKey(), after.authorId(), probe);
+            } else {
+                authors = authorRepository.findAuthorsOfBooksMatchingFiltersAfter(trimmedQuery,
+                        filterInLibrary, filterElectronic, filterFreeText, filterAudio,
+                        after.authorKey(), after.authorId(), probe);
+            }
+        }
+        boolean moreAuthors = authors.size() > size;
+        authors = moreAuthors ? authors.subList(0, size) : authors;
+
+        Long bookTotal = null;
+        Long authorTotal = null;
+        if (includeTotals) {
+            // A one-row page still runs the same COUNT the offset mode uses
+            Pageable countOnly = PageRequest.of(0, 1);
+            bookTotal = (hasLabels
+                    ? bookRepository.findWithFiltersAndLabels(trimmedQuery,
+                            filterInLibrary, filterElectronic, filterFreeText, filterAudio,
+                            labels, labels.size(), countOnly)
+                    : bookRepository.findWithFilters(trimmedQuery,
+                            filterInLibrary, filterElectronic, filterFreeText, filterAudio, countOnly))
+                    .getTotalElements();
+            if (!hasFilters) {
+                authorTotal = trimmedQuery.isEmpty()
+                        ? authorRepository.count()
+                        : authorRepository.findByNameContainingIgnoreCase(trimmedQuery, countOnly).getTotalElements();
+            } else {
+                authorTotal = (hasLabels
+                        ? authorRepository.findAuthorsOfBooksMatchingFiltersAndLabels(trimmedQuery,
+                                filterInLibrary, filterElectronic, filterFreeText, filterAudio,
+                                labels, labels.size(), countOnly)
+                        : authorRepository.findAuthorsOfBooksMatchingFilters(trimmedQuery,
+                                filterInLibrary, filterElectronic, filterFreeText, filterAudio, countOnly))
+                        .getTotalElements();
+            }
+        }
+
+        Book lastBook = books.isEmpty() ? null : books.get(books.size() - 1);
+        Author lastAuthor = authors.isEmpty() ? null : authors.get(authors.size() - 1);
+        SearchCursor next = new SearchCursor(false,
+                lastBook != null ? Objects.requireNonNullElse(lastBook.getTitle(), "") : after.bookKey(),
+                lastBook != null ? lastBook.getId() : after.bookId(),
+                after.booksDone() || !moreBooks,
+                lastAuthor != null ? Objects.requireNonNullElse(lastAuthor.getName(), "") : after.authorKey(),
+                lastAuthor != null ? lastAuthor.getId() : after.authorId(),
+                after.authorsDone() || !moreAuthors);
+        return toKeysetResponse(books, authors, size, bookTotal, authorTotal, next);
+    }
+
+    private SearchResponseDto toKeysetResponse(List<Book> books, List<Author> authors, int size,
+                                               Long bookTotal, Long authorTotal, SearchCursor next) {
+        SearchResponseDto response = new SearchResponseDto(
+                bookMapper.toDtos(books),
+                authorMapper.toDtos(authors),
+                bookTotal == null ? null : new PageInfoDto((int) ((bookTotal + size - 1) / size), bookTotal, -1, size),
+                authorTotal == null ? null : new PageInfoDto((int) ((authorTotal + size - 1) / size), authorTotal, -1, size));
+        response.setNextCursor(next.isDone() ? null : next.encode());
+        return response;
+    }
+
+    /**
+     * Facet counts for the same query, filters and labels as {@link #search}: for each filter
+     * chip and each label, how many of the matching books have it. Computed in one pass over
+     * the in-memory index, or with one aggregate query for the chips and one grouped query
+     * for the labels when the index is not ready.
+     */
+    @Transactional(readOnly = true)
+    public SearchFacetsDto facets(String query,
+            boolean filterInLibrary, boolean filterElectronic,
+            boolean filterFreeText, boolean filterAudio,
+            List<String> labels) {
+
+        String trimmedQuery = (query == null) ? "" : query.trim();
+        boolean hasLabels = labels != null && !labels.isEmpty();
+
+        if (searchIndex.isReady()) {
+            SearchIndex.FacetCounts counts = searchIndex.countFacets(trimmedQuery,
+                    filterInLibrary, filterElectronic, filterFreeText, filterAudio,
+                    hasLabels ? labels : null);
+            List<LabelCountDto> labelCounts = counts.labels().entrySet().stream()
+                    .map(e -> new LabelCountDto(e.getKey(), e.getValue()))
+                    .collect(Collectors.toList());
+            return new SearchFacetsDto(counts.inLibrary(), counts.electronic(),
+                    counts.freeText(), counts.audio(), labelCounts);
+        }
+
+        List<Object[]> rows;
+        List<Object[]> labelRows;
+        if (hasLabels) {
+            rows = bookRepository.countFacetsWithLabels(trimmedQuery,
+                    filterInLibrary, filterElectronic, filterFreeText, filterAudio, labels, labels.size());
+            labelRows = bookRepository.countLabelFacetsWithLabels(trimmedQuery,
+                    filterInLibrary, filterElectronic, filterFreeText, filterAudio, labels, labels.size());
+        } else {
+            rows = bookRepository.countFacets(trimmedQuery,
+                    filterInLibrary, filterElectronic, filterFreeText, filterAudio);
+            labelRows = bookRepository.countLabelFacets(trimmedQuery,
+                    filterInLibrary, filterElectronic, filterFreeText, filterAudio);
+        }
+        // SUM over no rows is NULL
+        Object[] row = rows.isEmpty() ? new Object[5] : rows.get(0);
+        List<LabelCountDto> labelCounts = labelRows.stream()
+                .map(r -> new LabelCountDto((String) r[0], count(r[1])))
                 .collect(Collectors.toList());
-        List<AuthorDto> authors = authorPage.getContent().stream()
-                .map(authorMapper::toDto)
+        return new SearchFacetsDto(count(row[1]), count(row[2]), count(row[3]), count(row[4]), labelCounts);
+    }
+
+    /**
+     * Typeahead completions for a prefix, served entirely from the in-memory index.
+     * Returns an empty list while the index is not ready rather than querying the database.
+     */
+    public List<SearchSuggestionDto> suggest(String prefix, int limit) {
+        if (!searchIndex.isReady()) {
+            return List.of();
+        }
+        return searchIndex.suggest(prefix, limit).stream()
+                .map(s -> new SearchSuggestionDto(s.text(), s.type(), s.weight()))
                 .collect(Collectors.toList());
+    }
+
+    private static long count(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    private SearchResponseDto toResponse(Page<Book> bookPage, Page<Author> authorPage) {
+        List<BookDto> books = bookMapper.toDtos(bookPage.getContent());
+        List<AuthorDto> authors = authorMapper.toDtos(authorPage.getContent());
 
         PageInfoDto bookPageInfo = new PageInfoDto(
                 bookPage.getTotalPages(),
@@ -116,4 +359,13 @@ public class SearchService {
 
         return new SearchResponseDto(books, authors, bookPageInfo, authorPageInfo);
     }
+
+    /**
+     * Reorder entities loaded with findAllById to match the ID order chosen by the index,
+     * dropping any that were deleted in the meantime.
+     */
+    private static <T> List<T> inOrder(List<Long> ids, List<T> entities, Function<T, Long> idOf) {
+        Map<Long, T> byId = entities.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
 }
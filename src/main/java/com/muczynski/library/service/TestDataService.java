@@ -147,6 +147,7 @@ public class TestDataService {
         jdbcTemplate.execute("DROP TABLE IF EXISTS loan CASCADE");
         jdbcTemplate.execute("DROP TABLE IF EXISTS photo CASCADE");
         jdbcTemplate.execute("DROP TABLE IF EXISTS book CASCADE");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS book_detail CASCADE");
         jdbcTemplate.execute("DROP TABLE IF EXISTS users CASCADE");
         jdbcTemplate.execute("DROP TABLE IF EXISTS role CASCADE");
         jdbcTemplate.execute("DROP TABLE IF EXISTS author CASCADE");
@@ -23,6 +23,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -44,6 +45,9 @@ public class UserService {
     @Autowired
     private LoanRepository loanRepository;
 
+    @Autowired
+    private CatalogCounterService catalogCounterService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -51,8 +55,11 @@ public class UserService {
         List<UserDto> userDtos = userRepository.findAll().stream()
                 .map(userMapper::toDto)
                 .collect(Collectors.toList());
+        Map<String, Long> activeLoans = catalogCounterService.getAll(userDtos.stream()
+                .map(dto -> CatalogCounterService.userActiveLoans(dto.getId()))
+                .toList());
         for (UserDto dto : userDtos) {
-            dto.setActiveLoansCount((int) loanRepository.countByUserIdAndReturnDateIsNull(dto.getId()));
+            dto.setActiveLoansCount(activeLoans.get(CatalogCounterService.userActiveLoans(dto.getId())).intValue());
         }
         return userDtos;
     }
@@ -61,7 +68,7 @@ public class UserService {
         return userRepository.findById(id)
                 .map(user -> {
                     UserDto dto = userMapper.toDto(user);
-                    dto.setActiveLoansCount((int) loanRepository.countByUserIdAndReturnDateIsNull(id));
+                    dto.setActiveLoansCount((int) catalogCounterService.get(CatalogCounterService.userActiveLoans(id)));
                     return dto;
                 })
                 .orElse(null);
@@ -80,7 +87,7 @@ public class UserService {
                        users.size(), username, user.getId());
         }
         UserDto dto = userMapper.toDto(user);
-        dto.setActiveLoansCount((int) loanRepository.countByUserIdAndReturnDateIsNull(user.getId()));
+        dto.setActiveLoansCount((int) catalogCounterService.get(CatalogCounterService.userActiveLoans(user.getId())));
         return dto;
     }
 
@@ -158,7 +165,7 @@ public class UserService {
         }
         User savedUser = userRepository.save(user);
         UserDto dtoResponse = userMapper.toDto(savedUser);
-        dtoResponse.setActiveLoansCount((int) loanRepository.countByUserIdAndReturnDateIsNull(id));
+        dtoResponse.setActiveLoansCount((int) catalogCounterService.get(CatalogCounterService.userActiveLoans(id)));
         return dtoResponse;
     }
 
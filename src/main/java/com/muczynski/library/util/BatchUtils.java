@@ -0,0 +1,34 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.util;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits ID lists for queries that take them as an {@code IN} list, such as the photo, loan
+ * and book-count lookups behind the list mappers.
+ */
+public final class BatchUtils {
+
+    /**
+     * IDs per {@code IN} list. Keeps each query well under the database's bind parameter
+     * limit (32767 on PostgreSQL) while still covering a typical list page in one query.
+     */
+    public static final int IN_LIST_SIZE = 1000;
+
+    private BatchUtils() {
+        // Utility class
+    }
+
+    /**
+     * Call the action with consecutive chunks of at most {@value #IN_LIST_SIZE} IDs, in order.
+     * Each chunk is a view of the list, so the action must not keep it.
+     */
+    public static <T> void inChunks(List<T> ids, Consumer<List<T>> action) {
+        for (int i = 0; i < ids.size(); i += IN_LIST_SIZE) {
+            action.accept(ids.subList(i, Math.min(i + IN_LIST_SIZE, ids.size())));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.util;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds a sort key for a Library of Congress call number: a plain ASCII string whose
+ * character-by-character order (Java's {@code String.compareTo}, or PostgreSQL with
+ * {@code COLLATE "C"}) is shelf order. Stored on {@code Book.callNumberSortKey} so the database
+ * can sort, page and range-query call numbers from an index instead of parsing them on every
+ * comparison.
+ *
+ * The key is built as follows:
+ * 1. Class letters, padded with spaces to 3 characters ("B" before "BR" before "BX")
+ * 2. Class number, zero-padded to 5 digits, with its decimal part as written
+ *    ("BX 4705" before "BX 4705.5" before "BX 4706")
+ * 3. Each cutter as a letter followed by its digits, which compare as a decimal fraction
+ *    (".M124" before ".M13")
+ * 4. Anything after (dates, volumes, copies) as letter and number runs, numbers zero-padded
+ *    to 6 digits ("v. 2" before "v. 10")
+ *
+ * Parts are separated by a space, which sorts before every other key character, so a
+ * shorter call number comes before any longer one that starts the same way.
+ *
+ * Examples:
+ *   "BX 4705.M124 A77 2005"  becomes  "BX 04705 M124 A77 002005"
+ *   "BV210 .3 .B464 2013"    becomes  "BV 00210.3 B464 002013"
+ *
+ * Call numbers that don't start with class letters and a class number sort after all
+ * others, in the order of their letter and number runs.
+ */
+public class CallNumberSortKey {
+
+    public static final int MAX_LENGTH = 255;
+
+    /**
+     * Sorts after every key: use as the upper bound of an open-ended range.
+     */
+    public static final String MAX = "\u007f";
+
+    private static final String UNPARSED_PREFIX = "~";
+    private static final int CLASS_LETTERS_WIDTH = 3;
+    private static final int CLASS_NUMBER_WIDTH = 5;
+    private static final int NUMBER_WIDTH = 6;
+
+    private static final Pattern CLASS = Pattern.compile(
+            "([A-Z]{1,3})(?![A-Z])(?:\\s*(\\d{1,5})(?:\\s*(\\.\\d+))?)?");
+    private static final Pattern CUTTER = Pattern.compile("\\s*\\.?\\s*([A-Z])(\\d+)");
+    private static final Pattern RUN = Pattern.compile("[A-Z]+|\\d+");
+
+    /**
+     * The sort key for a call number, or null when it is null or blank.
+     */
+    public static String of(String locNumber) {
+        if (locNumber == null || locNumber.isBlank()) {
+            return null;
+        }
+        String callNumber = locNumber.trim().toUpperCase(Locale.ROOT);
+        StringBuilder key = new StringBuilder(callNumber.length() + 16);
+
+        Matcher classMatcher = CLASS.matcher(callNumber);
+        if (!classMatcher.lookingAt()) {
+            key.append(UNPARSED_PREFIX);
+            appendRuns(key, callNumber, false);
+            return truncate(key);
+        }
+        appendPadded(key, classMatcher.group(1), CLASS_LETTERS_WIDTH, ' ', false);
+        if (classMatcher.group(2) != null) {
+            appendPadded(key, classMatcher.group(2), CLASS_NUMBER_WIDTH, '0', true);
+            if (classMatcher.group(3) != null) {
+                key.append(classMatcher.group(3));
+            }
+        }
+
+        int position = classMatcher.end();
+        Matcher cutterMatcher = CUTTER.matcher(callNumber);
+        while (cutterMatcher.find(position) && cutterMatcher.start() == position) {
+            key.append(' ').append(cutterMatcher.group(1)).append(cutterMatcher.group(2));
+            position = cutterMatcher.end();
+        }
+        appendRuns(key, callNumber.substring(position), true);
+        return truncate(key);
+    }
+
+    /**
+     * Upper bound for every call number at or under {@code locNumber}: the range
+     * {@code [of("BX 4700"), upperBound("BX 4710"))} includes BX 4710, BX 4710.5 and
+     * BX 4710 .A1, but not BX 4711.
+     */
+    public static String upperBound(String locNumber) {
+        String key = of(locNumber);
+        return key == null ? MAX : key + MAX;
+    }
+
+    private static void appendRuns(StringBuilder key, String text, boolean separateFirst) {
+        Matcher runs = RUN.matcher(text);
+        boolean separate = separateFirst;
+        while (runs.find()) {
+            if (separate) {
+                key.append(' ');
+            }
+            separate = true;
+            String run = runs.group();
+            if (Character.isDigit(run.charAt(0))) {
+                appendPadded(key, run, NUMBER_WIDTH, '0', true);
+            } else {
+                key.append(run);
+            }
+        }
+    }
+
+    private static void appendPadded(StringBuilder key, String value, int width, char pad, boolean left) {
+        if (!left) {
+            key.append(value);
+        }
+        for (int i = value.length(); i < width; i++) {
+            key.append(pad);
+        }
+        if (left) {
+            key.append(value);
+        }
+    }
+
+    private static String truncate(StringBuilder key) {
+        return key.length() > MAX_LENGTH ? key.substring(0, MAX_LENGTH) : key.toString();
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Single-pass text normalizers for titles, author names, search terms and file names, shared
+ * by {@code TitleMatcher}, {@code FreeTextLookupCache}, the photo ZIP export and import, and
+ * the search index. These run for every candidate of every provider result and every indexed
+ * book, so instead of chains of {@code replaceAll} (a regex compile and an intermediate string
+ * per step) each one scans the text once into a per-thread buffer. The only allocation is the
+ * result, and not even that when the text is already in normal form.
+ * <p>
+ * Each gives exactly the output of the regex chain it replaced, as documented per method and
+ * checked by {@code TextNormalizerTest} against those chains. Lowercasing is that of
+ * {@link String#toLowerCase()} in any locale but Turkish and Azeri: of all non-ASCII
+ * characters only dotted capital I (U+0130) and the Kelvin sign (U+212A) lowercase to ASCII letters.
+ */
+public final class TextNormalizer {
+
+    private static final char[][] STOP_WORDS = {
+            "the".toCharArray(), "a".toCharArray(), "an".toCharArray(),
+            "in".toCharArray(), "at".toCharArray(), "to".toCharArray(), "of".toCharArray(),
+            "on".toCharArray(), "by".toCharArray(), "for".toCharArray(), "and".toCharArray(),
+            "or".toCharArray(), "with".toCharArray(), "from".toCharArray()
+    };
+
+    // Texts longer than this get a one-off buffer, so no thread keeps a large one
+    private static final int MAX_POOLED_LENGTH = 4096;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[256]);
+
+    private TextNormalizer() {
+        // Utility class
+    }
+
+    /**
+     * Title comparison key. Same as
+     * <pre>
+     * title.toLowerCase()
+     *         .replaceAll("\\s*\\([^)]*\\)\\s*$", "")
+     *         .replaceAll("^(the|a|an)\\s+", "")
+     *         .replaceAll("[^a-z0-9\\s]", "")
+     *         .replaceAll("\\s+", " ")
+     *         .trim()
+     * </pre>
+     * "The Imitation of Christ (1940)" becomes "imitation of christ".
+     */
+    public static String normalizeTitle(String title) {
+        int length = title.length();
+        int end = cutTrailingParenthetical(title);
+        int start = skipLeadingArticle(title, end);
+        char[] out = buffer(length);
+        int size = 0;
+        boolean space = false;
+        for (int i = start; i < end; i++) {
+            char c = lower(title.charAt(i));
+            if (isLetter(c) || isDigit(c)) {
+                if (space && size > 0) {
+                    out[size++] = ' ';
+                }
+                out[size++] = c;
+                space = false;
+            } else if (isSpace(c)) {
+                space = true;
+            }
+        }
+        return result(title, out, size);
+    }
+
+    /**
+     * Author comparison key. Same as
+     * {@code author.toLowerCase().replaceAll("[^a-z\\s]", "").replaceAll("\\s+", " ").trim()}:
+     * "Chesterton, G. K." becomes "chesterton g k".
+     */
+    public static String normalizeAuthor(String author) {
+        int length = author.length();
+        char[] out = buffer(length);
+        int size = 0;
+        boolean space = false;
+        for (int i = 0; i < length; i++) {
+            char c = lower(author.charAt(i));
+            if (isLetter(c)) {
+                if (space && size > 0) {
+                    out[size++] = ' ';
+                }
+                out[size++] = c;
+                space = false;
+            } else if (isSpace(c)) {
+                space = true;
+            }
+        }
+        return result(author, out, size);
+    }
+
+    /**
+     * Words for a provider's search box: lowercase letters and digits, without stop words
+     * (articles and short prepositions) or numbers. Same as lowercasing, removing
+     * {@code [^a-z0-9\s]}, splitting on {@code \s+} and dropping those words:
+     * "War and Peace 1952 Edition" becomes "war peace edition".
+     */
+    public static String searchTerms(String title) {
+        int length = title.length();
+        char[] out = buffer(length);
+        int size = 0;
+        int wordStart = 0;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? lower(title.charAt(i)) : ' ';
+            if (isLetter(c) || isDigit(c)) {
+                if (size == wordStart && size > 0) {
+                    out[size++] = ' ';
+                    wordStart = size;
+                }
+                out[size++] = c;
+            } else if (isSpace(c) && size > wordStart) {
+                if (isStopWord(out, wordStart, size) || isNumber(out, wordStart, size)) {
+                    // Drop the word and the space before it
+                    size = wordStart == 0 ? 0 : wordStart - 1;
+                }
+                wordStart = size;
+            }
+        }
+        return result(title, out, size);
+    }
+
+    /**
+     * File name form: lowercase letters and digits, each run of anything else a single dash,
+     * none at either end. Same as
+     * {@code name.toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("^-+|-+$", "")}:
+     * "Orthodoxy: The Romance of Faith" becomes "orthodoxy-the-romance-of-faith".
+     */
+    public static String sanitizeName(String name) {
+        int length = name.length();
+        char[] out = buffer(length);
+        int size = 0;
+        boolean dash = false;
+        for (int i = 0; i < length; i++) {
+            char original = name.charAt(i);
+            char c = lower(original);
+            if (isLetter(c) || isDigit(c)) {
+                if (dash && size > 0) {
+                    out[size++] = '-';
+                }
+                out[size++] = c;
+                // Dotted capital I lowercases to 'i' and a combining dot
+                dash = original == '\u0130';
+            } else {
+                dash = true;
+            }
+        }
+        return result(name, out, size);
+    }
+
+    /**
+     * Only the lowercase letters and digits. Same as
+     * {@code name.toLowerCase().trim().replaceAll("[^a-z0-9]", "")}:
+     * "St. Bernard's" becomes "stbernards".
+     */
+    public static String alphanumeric(String name) {
+        int length = name.length();
+        char[] out = buffer(length);
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            char c = lower(name.charAt(i));
+            if (isLetter(c) || isDigit(c)) {
+                out[size++] = c;
+            }
+        }
+        return result(name, out, size);
+    }
+
+    /**
+     * Same as {@code text.trim().toLowerCase(Locale.ROOT)}, returning the text itself when it
+     * is already trimmed and lowercase.
+     */
+    public static String lowerTrim(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        boolean lower = true;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                return text.trim().toLowerCase(Locale.ROOT);
+            }
+            lower &= c < 'A' || c > 'Z';
+        }
+        if (lower) {
+            return start == 0 && end == text.length() ? text : text.substring(start, end);
+        }
+        char[] out = buffer(end - start);
+        for (int i = start; i < end; i++) {
+            out[i - start] = lower(text.charAt(i));
+        }
+        return new String(out, 0, end - start);
+    }
+
+    /**
+     * End of the text once {@code \s*\([^)]*\)\s*$} is removed: the earliest "(" that closes
+     * with the last non-space character, and the spaces around it. Like {@code $}, the match
+     * may also end just before a final line separator, which later steps remove anyway.
+     */
+    private static int cutTrailingParenthetical(String text) {
+        int length = text.length();
+        int end = length;
+        if (end > 0 && isFinalTerminator(text.charAt(end - 1))) {
+            end--;
+        }
+        while (end > 0 && isSpace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (end == 0 || text.charAt(end - 1) != ')') {
+            return length;
+        }
+        int open = -1;
+        for (int i = end - 2; i >= 0 && text.charAt(i) != ')'; i--) {
+            if (text.charAt(i) == '(') {
+                open = i;
+            }
+        }
+        if (open < 0) {
+            return length;
+        }
+        while (open > 0 && isSpace(text.charAt(open - 1))) {
+            open--;
+        }
+        return open;
+    }
+
+    /**
+     * Start of the text once {@code ^(the|a|an)\s+} is removed.
+     */
+    private static int skipLeadingArticle(String text, int end) {
+        int article;
+        if (startsWithWord(text, end, "the")) {
+            article = 3;
+        } else if (startsWithWord(text, end, "an")) {
+            article = 2;
+        } else if (startsWithWord(text, end, "a")) {
+            article = 1;
+        } else {
+            return 0;
+        }
+        while (article < end && isSpace(text.charAt(article))) {
+            article++;
+        }
+        return article;
+    }
+
+    private static boolean startsWithWord(String text, int end, String word) {
+        int length = word.length();
+        if (end <= length || !isSpace(text.charAt(length))) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (lower(text.charAt(i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isStopWord(char[] text, int start, int end) {
+        for (char[] word : STOP_WORDS) {
+            if (word.length == end - start && Arrays.equals(text, start, end, word, 0, word.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNumber(char[] text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isDigit(text[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The character as it starts in {@link String#toLowerCase()}. Non-ASCII characters other
+     * than the two that lowercase to ASCII letters are returned as they are: every normalizer
+     * here drops them either way.
+     */
+    private static char lower(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        if (c == '\u0130') {
+            return 'i';
+        }
+        if (c == '\u212A') {
+            return 'k';
+        }
+        return c;
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * The regex {@code \s} class: space, tab, newline, vertical tab, form feed, carriage return.
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    /**
+     * Line separators that regex {@code $} may match before but {@code \s} does not include.
+     */
+    private static boolean isFinalTerminator(char c) {
+        return c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static char[] buffer(int length) {
+        if (length > MAX_POOLED_LENGTH) {
+            return new char[length];
+        }
+        char[] buffer = BUFFER.get();
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+            BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * The normalized text, reusing the input when nothing changed.
+     */
+    private static String result(String text, char[] out, int size) {
+        if (size == text.length()) {
+            boolean same = true;
+            for (int i = 0; i < size && same; i++) {
+                same = text.charAt(i) == out[i];
+            }
+            if (same) {
+                return text;
+            }
+        }
+        return new String(out, 0, size);
+    }
+}
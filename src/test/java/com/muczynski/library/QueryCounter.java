@@ -0,0 +1,73 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, so tests can fail on
+ * N+1 regressions in list endpoints. Registered for the test profile through
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ * <p>
+ * Counting is per thread, and service calls made from a test run on the test's thread, so
+ * tests running in parallel or background jobs don't disturb the count.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Run the action and return the SQL statements it issued, in order.
+     */
+    public static List<String> record(Runnable action) {
+        List<String> previous = STATEMENTS.get();
+        List<String> statements = new ArrayList<>();
+        STATEMENTS.set(statements);
+        try {
+            action.run();
+        } finally {
+            STATEMENTS.set(previous);
+        }
+        return statements;
+    }
+
+    public static int count(Runnable action) {
+        return record(action).size();
+    }
+
+    public static void assertQueryCountAtMost(int max, Runnable action) {
+        List<String> statements = record(action);
+        if (statements.size() > max) {
+            fail("Expected at most " + max + " queries but " + statements.size() + " ran:\n"
+                    + String.join("\n", statements));
+        }
+    }
+
+    /**
+     * Fail unless the larger call issues no more queries than the smaller one. Used to
+     * check that a list endpoint's query count doesn't grow with the number of rows it returns.
+     */
+    public static void assertQueryCountIndependentOfSize(Runnable smaller, Runnable larger) {
+        List<String> few = record(smaller);
+        List<String> many = record(larger);
+        if (many.size() > few.size()) {
+            fail("Query count grew with result size: " + few.size() + " queries for the smaller call, "
+                    + many.size() + " for the larger one:\n" + String.join("\n", many));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpResponseCacheTest {
+
+    private static final String BOOKS = "https://gutendex.com/books/?search=orthodoxy";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cache_servesFreshResponseWithoutSending() throws Exception {
+        HttpResponseCache cache = cache("cache");
+        Network network = new Network(HttpStatus.OK, "{\"count\":1}", headers -> headers.setCacheControl("max-age=60"));
+
+        assertEquals("{\"count\":1}", send(cache, HttpMethod.GET, BOOKS, network));
+        assertEquals("{\"count\":1}", send(cache, HttpMethod.GET, BOOKS, network));
+
+        assertEquals(1, network.requests.size());
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getStored());
+    }
+
+    @Test
+    void cache_keepsNothingMarkedNoStore() throws Exception {
+        HttpResponseCache cache = cache("cache");
+        Network network = new Network(HttpStatus.OK, "{}", headers -> headers.setCacheControl("no-store"));
+
+        send(cache, HttpMethod.GET, BOOKS, network);
+        send(cache, HttpMethod.GET, BOOKS, network);
+
+        assertEquals(2, network.requests.size());
+        assertEquals(0, cache.getStats().getStored());
+    }
+
+    @Test
+    void cache_revalidatesStaleEntryWithItsETag() throws Exception {
+        HttpResponseCache cache = cache("cache");
+        send(cache, HttpMethod.GET, BOOKS, new Network(HttpStatus.OK, "{\"count\":1}", headers -> {
+            headers.setCacheControl("no-cache");
+            headers.setETag("\"v1\"");
+        }));
+
+        Network network = new Network(HttpStatus.NOT_MODIFIED, "", headers -> headers.setCacheControl("max-age=60"));
+        assertEquals("{\"count\":1}", send(cache, HttpMethod.GET, BOOKS, network));
+        assertEquals("\"v1\"", network.requests.get(0).getHeaders().getIfNoneMatch().get(0));
+
+        // The 304 answer made the entry fresh for a minute
+        assertEquals("{\"count\":1}", send(cache, HttpMethod.GET, BOOKS, network));
+        assertEquals(1, network.requests.size());
+        assertEquals(1, cache.getStats().getRevalidated());
+    }
+
+    @Test
+    void cache_countsReplacedEntryOnce() throws Exception {
+        HttpResponseCache cache = cache("cache");
+        Network network = new Network(HttpStatus.OK, "{\"count\":1}", headers -> {
+            headers.setCacheControl("no-cache");
+            headers.setETag("\"v1\"");
+        });
+
+        for (int i = 0; i < 3; i++) {
+            send(cache, HttpMethod.GET, BOOKS, network);
+        }
+
+        assertEquals(3, cache.getStats().getStored());
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertEquals(files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum(),
+                    cache.getStats().getBytes());
+        }
+    }
+
+    @Test
+    void cache_usesHostTtlWithoutFreshnessHeaders() throws Exception {
+        HttpResponseCache cache = cache("cache", "gutendex.com:0");
+        Network network = new Network(HttpStatus.OK, "{}", headers -> { });
+
+        send(cache, HttpMethod.GET, BOOKS, network);
+        send(cache, HttpMethod.GET, BOOKS, network);
+        send(cache, HttpMethod.GET, "https://archive.org/advancedsearch.php?q=orthodoxy", network);
+        send(cache, HttpMethod.GET, "https://archive.org/advancedsearch.php?q=orthodoxy", network);
+
+        // gutendex.com has no TTL; archive.org has the one-hour default
+        assertEquals(3, network.requests.size());
+    }
+
+    @Test
+    void cache_passesRequestsWithCredentialsThrough() throws Exception {
+        HttpResponseCache cache = cache("cache");
+        Network network = new Network(HttpStatus.OK, "{}", headers -> headers.setCacheControl("max-age=60"));
+
+        for (int i = 0; i < 2; i++) {
+            MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create(BOOKS));
+            request.getHeaders().setBearerAuth("token");
+            cache.intercept(request, new byte[0], network).close();
+        }
+
+        assertEquals(2, network.requests.size());
+    }
+
+    @Test
+    void key_normalizesSchemeHostPortAndParameterOrder() {
+        assertEquals(
+                HttpResponseCache.key(HttpMethod.GET, URI.create("https://gutendex.com/books/?languages=en&search=x")),
+                HttpResponseCache.key(HttpMethod.GET, URI.create("HTTPS://Gutendex.COM:443/books/?search=x&languages=en")));
+        assertEquals("HEAD http://lx2.loc.gov:210/LCDB",
+                HttpResponseCache.key(HttpMethod.HEAD, URI.create("http://lx2.loc.gov:210/LCDB")));
+    }
+
+    @Test
+    void replay_answersOnlyFromRecordings() throws Exception {
+        HttpResponseCache recorder = cache("record");
+        send(recorder, HttpMethod.GET, BOOKS, new Network(HttpStatus.OK, "{\"count\":1}",
+                headers -> headers.setCacheControl("no-store")));
+        send(recorder, HttpMethod.HEAD, "https://grokipedia.com/page/Heretics",
+                new Network(HttpStatus.NOT_FOUND, "", headers -> { }));
+
+        HttpResponseCache replay = cache("replay");
+        Network offline = new Network(HttpStatus.OK, "", headers -> { });
+
+        assertEquals("{\"count\":1}", send(replay, HttpMethod.GET, BOOKS, offline));
+        MockClientHttpRequest head = new MockClientHttpRequest(HttpMethod.HEAD, URI.create("https://grokipedia.com/page/Heretics"));
+        try (ClientHttpResponse response = replay.intercept(head, new byte[0], offline)) {
+            assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        }
+        IOException missing = assertThrows(IOException.class,
+                () -> send(replay, HttpMethod.GET, "https://gutendex.com/books/?search=heretics", offline));
+        assertTrue(missing.getMessage().contains("No recorded response"));
+        assertTrue(offline.requests.isEmpty());
+    }
+
+    private HttpResponseCache cache(String mode) {
+        return cache(mode, "");
+    }
+
+    private HttpResponseCache cache(String mode, String hostTtls) {
+        HttpResponseCache cache = new HttpResponseCache();
+        ReflectionTestUtils.setField(cache, "modeName", mode);
+        ReflectionTestUtils.setField(cache, "dirName", dir.toString());
+        ReflectionTestUtils.setField(cache, "defaultTtlSeconds", 3600L);
+        ReflectionTestUtils.setField(cache, "hostTtls", hostTtls);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.setField(cache, "maxEntryBytes", 100_000);
+        cache.init();
+        return cache;
+    }
+
+    private static String send(HttpResponseCache cache, HttpMethod method, String url, Network network)
+            throws IOException {
+        MockClientHttpRequest request = new MockClientHttpRequest(method, URI.create(url));
+        try (ClientHttpResponse response = cache.intercept(request, new byte[0], network)) {
+            return new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Answers every request with the same response and remembers the requests sent.
+     */
+    private static final class Network implements ClientHttpRequestExecution {
+
+        private final HttpStatus status;
+        private final String body;
+        private final Consumer<HttpHeaders> headers;
+        private final List<HttpRequest> requests = new ArrayList<>();
+
+        Network(HttpStatus status, String body, Consumer<HttpHeaders> headers) {
+            this.status = status;
+            this.body = body;
+            this.headers = headers;
+        }
+
+        @Override
+        public ClientHttpResponse execute(HttpRequest request, byte[] requestBody) {
+            requests.add(request);
+            MockClientHttpResponse response = new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), status);
+            headers.accept(response.getHeaders());
+            return response;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.config;
+
+import com.muczynski.library.dto.OutboundHostStatsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundHttpInterceptorTest {
+
+    private OutboundHttpInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new OutboundHttpInterceptor();
+        ReflectionTestUtils.setField(interceptor, "maxPerHost", 1);
+        ReflectionTestUtils.setField(interceptor, "hostWaitMs", 50L);
+        ReflectionTestUtils.setField(interceptor, "compression", true);
+        ReflectionTestUtils.setField(interceptor, "metricsWindow", 10);
+    }
+
+    @Test
+    void asksForGzipAndUnzipsTheResponse() throws Exception {
+        MockClientHttpRequest request = request("https://gutendex.com/books/?search=orthodoxy");
+        MockClientHttpResponse gzipped = new MockClientHttpResponse(gzip("{\"count\":1}"), HttpStatus.OK);
+        gzipped.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        gzipped.getHeaders().setContentLength(42);
+
+        try (ClientHttpResponse response = interceptor.intercept(request, new byte[0], answer(gzipped))) {
+            assertEquals("gzip", request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+            assertEquals("{\"count\":1}", new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8));
+            assertFalse(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING));
+            assertFalse(response.getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH));
+        }
+    }
+
+    @Test
+    void emptyGzipBodyIsEmpty() throws Exception {
+        MockClientHttpResponse head = new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        head.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        try (ClientHttpResponse response = interceptor.intercept(
+                request("https://grokipedia.com/page/Orthodoxy"), new byte[0], answer(head))) {
+            assertEquals(0, response.getBody().readAllBytes().length);
+        }
+    }
+
+    @Test
+    void holdsTheHostSlotUntilTheResponseIsClosed() throws Exception {
+        ClientHttpResponse first = interceptor.intercept(
+                request("https://archive.org/advancedsearch.php"), new byte[0], answer(ok()));
+
+        assertThrows(IOException.class, () -> interceptor.intercept(
+                request("https://archive.org/advancedsearch.php"), new byte[0], answer(ok())));
+        // Another host has its own slots
+        interceptor.intercept(request("https://gutendex.com/books/"), new byte[0], answer(ok())).close();
+
+        first.close();
+        first.close();
+        interceptor.intercept(request("https://archive.org/advancedsearch.php"), new byte[0], answer(ok())).close();
+
+        OutboundHostStatsDto archive = stats("archive.org");
+        assertEquals(3, archive.getRequests());
+        assertEquals(1, archive.getErrors());
+        assertEquals(0, archive.getInFlight());
+        assertEquals(2, archive.getRecentSamples());
+    }
+
+    @Test
+    void countsServerErrorsAndFailuresPerHost() throws Exception {
+        interceptor.intercept(request("http://lx2.loc.gov:210/LCDB?query=x"), new byte[0],
+                answer(new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE))).close();
+        interceptor.intercept(request("http://lx2.loc.gov:210/LCDB?query=y"), new byte[0],
+                answer(new MockClientHttpResponse(new byte[0], HttpStatus.NOT_FOUND))).close();
+        assertThrows(IOException.class, () -> interceptor.intercept(
+                request("http://lx2.loc.gov:210/LCDB?query=z"), new byte[0],
+                (req, body) -> {
+                    throw new IOException("Connection refused");
+                }));
+
+        OutboundHostStatsDto loc = stats("lx2.loc.gov:210");
+        assertEquals(3, loc.getRequests());
+        assertEquals(2, loc.getErrors());
+        assertEquals(0, loc.getInFlight());
+        assertEquals(3, loc.getRecentSamples());
+        assertEquals("IOException: Connection refused", loc.getLastError());
+        assertTrue(loc.getP95Millis() >= loc.getMeanMillis());
+    }
+
+    private OutboundHostStatsDto stats(String host) {
+        List<OutboundHostStatsDto> hosts = interceptor.getHostStats();
+        return hosts.stream().filter(stats -> stats.getHost().equals(host)).findFirst().orElseThrow();
+    }
+
+    private static MockClientHttpRequest request(String url) {
+        return new MockClientHttpRequest(HttpMethod.GET, URI.create(url));
+    }
+
+    private static MockClientHttpResponse ok() {
+        return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+    }
+
+    private static ClientHttpRequestExecution answer(ClientHttpResponse response) {
+        return (request, body) -> response;
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
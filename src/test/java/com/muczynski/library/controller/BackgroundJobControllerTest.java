@@ -0,0 +1,123 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.controller;
+
+import com.muczynski.library.domain.BackgroundJob;
+import com.muczynski.library.domain.BackgroundJobItem;
+import com.muczynski.library.dto.BackgroundJobDto;
+import com.muczynski.library.dto.BackgroundJobItemDto;
+import com.muczynski.library.exception.LibraryException;
+import com.muczynski.library.exception.ResourceNotFoundException;
+import com.muczynski.library.service.BackgroundJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BackgroundJobControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private BackgroundJobService backgroundJobService;
+
+    @Test
+    @WithMockUser(authorities = "LIBRARIAN")
+    void startJob_returnsAcceptedWithLocation() throws Exception {
+        when(backgroundJobService.start(BackgroundJob.Type.FREE_TEXT_LOOKUP, List.of(1L, 2L)))
+                .thenReturn(job(7L, BackgroundJob.Status.QUEUED, List.of()));
+
+        mockMvc.perform(post("/api/jobs")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\": \"FREE_TEXT_LOOKUP\", \"ids\": [1, 2]}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/jobs/7"))
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    @WithMockUser(authorities = "LIBRARIAN")
+    void getJob_returnsItemsAfterGivenChange() throws Exception {
+        BackgroundJobItemDto item = new BackgroundJobItemDto(3, 42L, BackgroundJobItem.Status.SUCCEEDED, 1,
+                "{\"bookId\":42,\"success\":true}", null, 5);
+        when(backgroundJobService.getJob(7L, 2)).thenReturn(job(7L, BackgroundJob.Status.RUNNING, List.of(item)));
+
+        mockMvc.perform(get("/api/jobs/7").param("after", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.items[0].itemOrder").value(3))
+                .andExpect(jsonPath("$.items[0].result.bookId").value(42))
+                .andExpect(jsonPath("$.items[0].result.success").value(true))
+                .andExpect(jsonPath("$.items[0].changeSeq").value(5));
+    }
+
+    @Test
+    @WithMockUser(authorities = "LIBRARIAN")
+    void getJob_notFound() throws Exception {
+        when(backgroundJobService.getJob(99L, -1)).thenThrow(new ResourceNotFoundException("Background job", 99L));
+
+        mockMvc.perform(get("/api/jobs/99"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(authorities = "LIBRARIAN")
+    void cancelJob_returnsJob() throws Exception {
+        BackgroundJobDto cancelling = job(7L, BackgroundJob.Status.RUNNING, List.of());
+        cancelling.setCancelRequested(true);
+        when(backgroundJobService.cancel(7L)).thenReturn(cancelling);
+
+        mockMvc.perform(post("/api/jobs/7/cancel").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cancelRequested").value(true));
+    }
+
+    @Test
+    @WithMockUser(authorities = "LIBRARIAN")
+    void retryJob_rejectedWhileRunning() throws Exception {
+        when(backgroundJobService.retry(7L)).thenThrow(new LibraryException("Background job 7 has not finished"));
+
+        mockMvc.perform(post("/api/jobs/7/retry").with(csrf()))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    @WithMockUser(authorities = "USER")
+    void startJob_forbiddenForNonLibrarian() throws Exception {
+        mockMvc.perform(post("/api/jobs")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\": \"LOC_LOOKUP\"}"))
+                .andExpect(status().isForbidden());
+    }
+
+    private static BackgroundJobDto job(Long id, BackgroundJob.Status status, List<BackgroundJobItemDto> items) {
+        return BackgroundJobDto.builder()
+                .id(id)
+                .type(BackgroundJob.Type.FREE_TEXT_LOOKUP)
+                .status(status)
+                .total(5)
+                .items(items)
+                .build();
+    }
+}
@@ -6,6 +6,7 @@ package com.muczynski.library.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.muczynski.library.dto.BookDto;
 import com.muczynski.library.dto.BookSummaryDto;
+import com.muczynski.library.dto.ShelfPageDto;
 import com.muczynski.library.dto.BulkDeleteResultDto;
 import com.muczynski.library.dto.SavedBookDto;
 import com.muczynski.library.dto.GrokipediaLookupResultDto;
@@ -14,11 +15,13 @@ import com.muczynski.library.service.AskGrok;
 import com.muczynski.library.service.BookService;
 import com.muczynski.library.service.GrokipediaLookupService;
 import com.muczynski.library.service.PhotoService;
+import com.muczynski.library.util.SummaryCodec;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
@@ -32,12 +35,17 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -275,6 +283,49 @@ class BookControllerTest {
             : "lastModified should not be serialized as array: " + response;
     }
 
+    @Test
+    @WithMockUser
+    void getAllBookSummariesNotModifiedSkipsQuery() throws Exception {
+        when(bookService.getAllBookSummaries()).thenReturn(Collections.emptyList());
+
+        String etag = mockMvc.perform(get("/api/books/summaries"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        assert etag != null && etag.startsWith("W/\"") : "Expected a weak ETag, got: " + etag;
+
+        mockMvc.perform(get("/api/books/summaries").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        verify(bookService, times(1)).getAllBookSummaries();
+    }
+
+    @Test
+    @WithMockUser
+    void getAllBookSummariesBinaryWhenRequested() throws Exception {
+        SummaryCodec codec = new SummaryCodec();
+        codec.add(1L, LocalDateTime.of(2025, 1, 1, 12, 0));
+        codec.add(2L, LocalDateTime.of(2025, 1, 2, 12, 0));
+        when(bookService.getAllBookSummariesEncoded()).thenReturn(codec.toByteArray());
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/books/summaries").accept(SummaryCodec.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SummaryCodec.MEDIA_TYPE))
+                .andReturn()
+                .getResponse();
+        assert String.join(",", response.getHeaders("Vary")).contains("Accept")
+            : "Expected Vary: Accept, got: " + response.getHeaders("Vary");
+
+        List<SummaryCodec.Entry> entries = SummaryCodec.decode(response.getContentAsByteArray());
+        assertEquals(2, entries.size());
+        assertEquals(LocalDateTime.of(2025, 1, 2, 12, 0), entries.get(1).lastModified());
+        verify(bookService, never()).getAllBookSummaries();
+    }
+
     @Test
     @WithMockUser
     void getBooksByIds() throws Exception {
@@ -287,18 +338,21 @@ class BookControllerTest {
         book2.setTitle("Test Book 2");
 
         List<Long> ids = Arrays.asList(1L, 2L);
-        when(bookService.getBooksByIds(any(List.class))).thenReturn(Arrays.asList(book1, book2));
+        when(bookService.getBooksByIdsJson(any(List.class)))
+                .thenReturn(objectMapper.writeValueAsBytes(Arrays.asList(book1, book2)));
 
         mockMvc.perform(post("/api/books/by-ids")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(ids)))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[1].title").value("Test Book 2"));
     }
 
     @Test
     @WithMockUser
     void getBooksByIdsEmptyList() throws Exception {
-        when(bookService.getBooksByIds(any(List.class))).thenReturn(Collections.emptyList());
+        when(bookService.getBooksByIdsJson(any(List.class))).thenReturn("[]".getBytes());
 
         mockMvc.perform(post("/api/books/by-ids")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -378,6 +432,23 @@ class BookControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @WithMockUser
+    void getShelfPage() throws Exception {
+        BookSummaryDto summary = new BookSummaryDto();
+        summary.setId(7L);
+        summary.setLastModified(LocalDateTime.of(2025, 1, 1, 12, 0));
+
+        when(bookService.getShelfPage("BX 4700", "BX 4710", null, null, 50))
+                .thenReturn(new ShelfPageDto(List.of(summary), "BX  04705 M124", 7L));
+
+        mockMvc.perform(get("/api/books/shelf").param("from", "BX 4700").param("to", "BX 4710"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].id").value(7))
+                .andExpect(jsonPath("$.nextAfterKey").value("BX  04705 M124"))
+                .andExpect(jsonPath("$.nextAfterId").value(7));
+    }
+
     @Test
     @WithMockUser
     void getBooksWithoutGrokipediaUrl() throws Exception {
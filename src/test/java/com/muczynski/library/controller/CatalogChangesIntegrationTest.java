@@ -0,0 +1,209 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muczynski.library.TestEntityHelper;
+import com.muczynski.library.domain.Author;
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.repository.AuthorRepository;
+import com.muczynski.library.repository.BookRepository;
+import com.muczynski.library.service.CatalogChangeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for delta sync (/api/books/changes and /api/authors/changes) and the
+ * summary ETags derived from the same change sequence.
+ * Not @Transactional, because changes are recorded only after the writing transaction commits.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CatalogChangesIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CatalogChangeService catalogChangeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Author author;
+
+    @BeforeEach
+    void setUp() {
+        author = TestEntityHelper.findOrCreateAuthor(authorRepository, "Changes Test Author");
+    }
+
+    @Test
+    @WithMockUser
+    void bookChangesReportUpsertsThenTombstones() throws Exception {
+        long start = syncToEnd("/api/books/changes");
+        Book book = saveBook("Changes Test Book " + System.nanoTime());
+
+        JsonNode created = changes("/api/books/changes", start);
+        assertTrue(ids(created.get("upserted")).contains(book.getId()));
+        assertFalse(ids(created.get("deleted")).contains(book.getId()));
+        long afterCreate = created.get("token").asLong();
+        assertTrue(afterCreate > start);
+
+        book.setTitle(book.getTitle() + " (revised)");
+        bookRepository.save(book);
+        JsonNode updated = changes("/api/books/changes", afterCreate);
+        assertTrue(ids(updated.get("upserted")).contains(book.getId()));
+        long afterUpdate = updated.get("token").asLong();
+
+        bookRepository.deleteById(book.getId());
+        JsonNode deleted = changes("/api/books/changes", afterUpdate);
+        assertFalse(ids(deleted.get("upserted")).contains(book.getId()));
+        assertTrue(ids(deleted.get("deleted")).contains(book.getId()));
+
+        // Steady state: nothing new, same token back
+        long afterDelete = deleted.get("token").asLong();
+        JsonNode idle = changes("/api/books/changes", afterDelete);
+        assertTrue(idle.get("upserted").isEmpty());
+        assertTrue(idle.get("deleted").isEmpty());
+        assertEquals(afterDelete, idle.get("token").asLong());
+    }
+
+    @Test
+    @WithMockUser
+    void firstSyncListsLiveEntitiesWithoutTombstones() throws Exception {
+        Book kept = saveBook("Changes Kept " + System.nanoTime());
+        Book removed = saveBook("Changes Removed " + System.nanoTime());
+        bookRepository.deleteById(removed.getId());
+
+        List<Long> upserted = new ArrayList<>();
+        long token = 0;
+        JsonNode page;
+        do {
+            page = changes("/api/books/changes", token);
+            if (token == 0) {
+                assertTrue(page.get("deleted").isEmpty());
+            }
+            upserted.addAll(ids(page.get("upserted")));
+            token = page.get("token").asLong();
+        } while (page.get("hasMore").asBoolean());
+
+        assertTrue(upserted.contains(kept.getId()));
+        assertFalse(upserted.contains(removed.getId()));
+    }
+
+    @Test
+    @WithMockUser
+    void authorChangesReportNewAuthors() throws Exception {
+        long start = syncToEnd("/api/authors/changes");
+        Author created = TestEntityHelper.findOrCreateAuthor(authorRepository, "Changes Author " + System.nanoTime());
+
+        JsonNode changes = changes("/api/authors/changes", start);
+        assertTrue(ids(changes.get("upserted")).contains(created.getId()));
+    }
+
+    @Test
+    @WithMockUser
+    void reconcileRecordsWritesThatBypassJpa() throws Exception {
+        Book book = saveBook("Changes Raw SQL " + System.nanoTime());
+        long start = syncToEnd("/api/books/changes");
+
+        jdbcTemplate.update("DELETE FROM book WHERE id = ?", book.getId());
+        catalogChangeService.reconcile();
+
+        JsonNode changes = changes("/api/books/changes", start);
+        assertTrue(ids(changes.get("deleted")).contains(book.getId()));
+    }
+
+    @Test
+    @WithMockUser
+    void tokenFromAnotherDatabaseAsksForResync() throws Exception {
+        mockMvc.perform(get("/api/books/changes").param("since", String.valueOf(Long.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resync").value(true));
+        mockMvc.perform(get("/api/books/changes").param("since", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void summaryETagsChangeOnlyWhenTheirEntitiesChange() throws Exception {
+        String books = etag("/api/books/summaries");
+        String zeroBooks = etag("/api/authors/zero-books");
+        String authors = etag("/api/authors/summaries");
+        mockMvc.perform(get("/api/books/summaries").header("If-None-Match", books))
+                .andExpect(status().isNotModified());
+
+        saveBook("Changes ETag Book " + System.nanoTime());
+
+        mockMvc.perform(get("/api/books/summaries").header("If-None-Match", books))
+                .andExpect(status().isOk());
+        assertNotEquals(books, etag("/api/books/summaries"));
+        // Depends on books as well as authors
+        assertNotEquals(zeroBooks, etag("/api/authors/zero-books"));
+        mockMvc.perform(get("/api/authors/summaries").header("If-None-Match", authors))
+                .andExpect(status().isNotModified());
+    }
+
+    private Book saveBook(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        return bookRepository.save(book);
+    }
+
+    private JsonNode changes(String path, long since) throws Exception {
+        String body = mockMvc.perform(get(path).param("since", String.valueOf(since)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private String etag(String path) throws Exception {
+        return mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+    }
+
+    private long syncToEnd(String path) throws Exception {
+        long token = 0;
+        JsonNode page;
+        do {
+            page = changes(path, token);
+            token = page.get("token").asLong();
+        } while (page.get("hasMore").asBoolean());
+        return token;
+    }
+
+    private static List<Long> ids(JsonNode array) {
+        List<Long> ids = new ArrayList<>();
+        array.forEach(node -> ids.add(node.isObject() ? node.get("id").asLong() : node.asLong()));
+        return ids;
+    }
+}
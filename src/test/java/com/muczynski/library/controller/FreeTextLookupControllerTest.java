@@ -5,6 +5,8 @@ package com.muczynski.library.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.muczynski.library.dto.FreeTextBulkLookupResultDto;
+import com.muczynski.library.dto.FreeTextProviderStateDto;
+import com.muczynski.library.dto.FreeTextProviderStatsDto;
 import com.muczynski.library.freetext.FreeTextLookupService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -131,6 +133,34 @@ class FreeTextLookupControllerTest {
                 .andExpect(jsonPath("$[2]").value("LibriVox"));
     }
 
+    @Test
+    @WithMockUser(authorities = "LIBRARIAN")
+    void getProviderStats_returnsStatsPerProvider() throws Exception {
+        when(freeTextLookupService.getProviderStats()).thenReturn(List.of(
+                new FreeTextProviderStatsDto("Project Gutenberg", 10, 4, 1, 2, 1, 1, 0, 0, 0.25, 850.0, 2100.0)));
+
+        mockMvc.perform(get("/api/free-text/provider-stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].providerName").value("Project Gutenberg"))
+                .andExpect(jsonPath("$[0].hits").value(1))
+                .andExpect(jsonPath("$[0].timeouts").value(1))
+                .andExpect(jsonPath("$[0].averageMillis").value(850.0));
+    }
+
+    @Test
+    @WithMockUser(authorities = "LIBRARIAN")
+    void getProviderStates_returnsStatePerProvider() throws Exception {
+        when(freeTextLookupService.getProviderStates()).thenReturn(List.of(
+                new FreeTextProviderStateDto("Vatican", 30, 1, "OPEN", 3, 90000, 12, 40, 0.1, 9800.0)));
+
+        mockMvc.perform(get("/api/free-text/provider-state"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].providerName").value("Vatican"))
+                .andExpect(jsonPath("$[0].circuitState").value("OPEN"))
+                .andExpect(jsonPath("$[0].skipped").value(12))
+                .andExpect(jsonPath("$[0].p95Millis").value(9800.0));
+    }
+
     @Test
     @WithMockUser(authorities = "USER")
     void lookupBook_forbiddenForNonLibrarian() throws Exception {
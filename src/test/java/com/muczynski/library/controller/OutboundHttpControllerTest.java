@@ -0,0 +1,72 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.controller;
+
+import com.muczynski.library.config.HttpResponseCache;
+import com.muczynski.library.config.OutboundHttpInterceptor;
+import com.muczynski.library.dto.HttpCacheStatsDto;
+import com.muczynski.library.dto.OutboundHostStatsDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OutboundHttpControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private OutboundHttpInterceptor outboundHttpInterceptor;
+
+    @MockitoBean
+    private HttpResponseCache httpResponseCache;
+
+    @Test
+    @WithMockUser(authorities = "LIBRARIAN")
+    void getHostStats_returnsStatsPerHost() throws Exception {
+        when(outboundHttpInterceptor.getHostStats()).thenReturn(List.of(
+                new OutboundHostStatsDto("gutendex.com", 120, 3, 1, 120, 310.5, 1250.0, "HTTP 503")));
+
+        mockMvc.perform(get("/api/outbound-http/hosts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].host").value("gutendex.com"))
+                .andExpect(jsonPath("$[0].requests").value(120))
+                .andExpect(jsonPath("$[0].errors").value(3))
+                .andExpect(jsonPath("$[0].p95Millis").value(1250.0))
+                .andExpect(jsonPath("$[0].lastError").value("HTTP 503"));
+    }
+
+    @Test
+    @WithMockUser(authorities = "LIBRARIAN")
+    void getCacheStats_returnsCounts() throws Exception {
+        when(httpResponseCache.getStats()).thenReturn(new HttpCacheStatsDto("cache", 52000, 40, 12, 3, 9));
+
+        mockMvc.perform(get("/api/outbound-http/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mode").value("cache"))
+                .andExpect(jsonPath("$.hits").value(40))
+                .andExpect(jsonPath("$.revalidated").value(3));
+    }
+
+    @Test
+    @WithMockUser(authorities = "USER")
+    void getHostStats_forbiddenForNonLibrarian() throws Exception {
+        mockMvc.perform(get("/api/outbound-http/hosts"))
+                .andExpect(status().isForbidden());
+    }
+}
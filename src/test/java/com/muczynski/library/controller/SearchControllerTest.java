@@ -4,8 +4,11 @@
 package com.muczynski.library.controller;
 
 import com.muczynski.library.dto.BookDto;
+import com.muczynski.library.dto.LabelCountDto;
 import com.muczynski.library.dto.PageInfoDto;
+import com.muczynski.library.dto.SearchFacetsDto;
 import com.muczynski.library.dto.SearchResponseDto;
+import com.muczynski.library.dto.SearchSuggestionDto;
 import com.muczynski.library.service.SearchService;
 import io.restassured.module.mockmvc.RestAssuredMockMvc;
 import org.junit.jupiter.api.BeforeEach;
@@ -157,6 +160,93 @@ class SearchControllerTest {
             .body("bookPage.totalElements", equalTo(10));
     }
 
+    @Test
+    void testSearch_FacetsOnlyWhenRequested() {
+        when(searchService.search(eq("god"), eq(0), eq(10),
+                eq(true), eq(false), eq(false), eq(false), isNull()))
+                .thenReturn(emptyResponse(10));
+        when(searchService.facets(eq("god"), eq(true), eq(false), eq(false), eq(false), isNull()))
+                .thenReturn(new SearchFacetsDto(4, 1, 2, 1, List.of(new LabelCountDto("theology", 3))));
+
+        given()
+            .param("query", "god")
+            .param("page", 0)
+            .param("size", 10)
+            .param("filterInLibrary", true)
+        .when()
+            .get("/api/search")
+        .then()
+            .statusCode(200)
+            .body("$", not(hasKey("facets")));
+
+        given()
+            .param("query", "god")
+            .param("page", 0)
+            .param("size", 10)
+            .param("filterInLibrary", true)
+            .param("facets", true)
+        .when()
+            .get("/api/search")
+        .then()
+            .statusCode(200)
+            .body("facets.inLibrary", equalTo(4))
+            .body("facets.freeText", equalTo(2))
+            .body("facets.labels[0].label", equalTo("theology"))
+            .body("facets.labels[0].count", equalTo(3));
+    }
+
+    @Test
+    void testSuggest_ReturnsCompletions() {
+        when(searchService.suggest("aug", 5))
+                .thenReturn(List.of(new SearchSuggestionDto("Augustine of Hippo", "author", 3)));
+
+        given()
+            .param("prefix", "aug")
+            .param("limit", 5)
+        .when()
+            .get("/api/search/suggest")
+        .then()
+            .statusCode(200)
+            .body("", hasSize(1))
+            .body("[0].text", equalTo("Augustine of Hippo"))
+            .body("[0].type", equalTo("author"));
+    }
+
+    @Test
+    void testSearch_CursorSelectsKeysetMode() {
+        SearchResponseDto page = emptyResponse(10);
+        page.setNextCursor("abc");
+        when(searchService.searchAfter(eq("god"), eq(""), eq(10),
+                eq(false), eq(false), eq(false), eq(false), isNull(), eq(true)))
+                .thenReturn(page);
+
+        given()
+            .param("query", "god")
+            .param("size", 10)
+            .param("cursor", "")
+            .param("includeTotals", true)
+        .when()
+            .get("/api/search")
+        .then()
+            .statusCode(200)
+            .body("nextCursor", equalTo("abc"));
+    }
+
+    @Test
+    void testSearch_MalformedCursorReturnsBadRequest() {
+        when(searchService.searchAfter(anyString(), eq("garbage"), anyInt(),
+                anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(), isNull(), anyBoolean()))
+                .thenThrow(new IllegalArgumentException("Invalid search cursor"));
+
+        given()
+            .param("size", 10)
+            .param("cursor", "garbage")
+        .when()
+            .get("/api/search")
+        .then()
+            .statusCode(400);
+    }
+
     @Test
     void testSearch_MissingPageParameterReturnsBadRequest() {
         given()
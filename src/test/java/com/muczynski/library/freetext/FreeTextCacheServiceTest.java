@@ -0,0 +1,116 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class FreeTextCacheServiceTest {
+
+    @Autowired
+    private FreeTextCacheService cacheService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void seededEntriesAnswerLookups() {
+        assertTrue(cacheService.lookup("Louisa May Alcott", "Eight Cousins").contains("gutenberg.org"));
+        // Matched on last name, and the leading article is ignored
+        assertNotNull(cacheService.lookup("Stevenson", "The Kidnapped"));
+        assertEquals("", cacheService.lookup("John Anthony Hardon", "The Catholic Catechism"));
+        assertNull(cacheService.lookup("Unknown Author", "This Book Was Never Searched"));
+        assertTrue(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM free_text_cache WHERE source = 'SEED'", Integer.class) > 0);
+    }
+
+    @Test
+    void hitsAndMissesAreRemembered() {
+        String title = "Remembered Book " + UUID.randomUUID();
+        assertNull(cacheService.lookup("Cache Author", title));
+
+        cacheService.recordMiss("Cache Author", title);
+        assertEquals("", cacheService.lookup("Cache Author", title));
+
+        cacheService.recordHit("Cache Author", title, "https://example.com/remembered", "Project Gutenberg");
+        assertEquals("https://example.com/remembered", cacheService.lookup("Cache Author", title));
+        // Another spelling of the author's name is matched on last name
+        assertEquals("https://example.com/remembered", cacheService.lookup("C. Author", title));
+        assertEquals("Project Gutenberg", jdbcTemplate.queryForObject(
+                "SELECT provider_name FROM free_text_cache WHERE normalized_title = ?", String.class,
+                FreeTextLookupCache.normalizeTitle(title)));
+    }
+
+    @Test
+    void learnedHitIsNotServedForAnotherAuthorsBookWithTheSameTitle() {
+        String title = "Poems " + UUID.randomUUID();
+        cacheService.recordHit("Emily Dickinson", title, "https://example.com/dickinson", "Project Gutenberg");
+
+        assertNull(cacheService.lookup("John Keats", title));
+        assertNull(cacheService.lookup(null, title));
+
+        // Keats's own miss is answered before Dickinson's hit
+        cacheService.recordMiss("John Keats", title);
+        assertEquals("", cacheService.lookup("John Keats", title));
+        assertEquals("https://example.com/dickinson", cacheService.lookup("Emily Dickinson", title));
+    }
+
+    @Test
+    void seededHitAnswersForAnyAuthor() {
+        String title = "Seeded Book " + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO free_text_cache (normalized_author, normalized_title, urls, provider_version, "
+                + "source, checked_at) VALUES ('seed author', ?, 'https://example.com/seeded', 'x', 'SEED', "
+                + "now() + interval '1 second')", FreeTextLookupCache.normalizeTitle(title));
+        cacheService.refresh();
+
+        assertEquals("https://example.com/seeded", cacheService.lookup("Someone Else", title));
+    }
+
+    @Test
+    void missesExpireAndFollowTheProviderVersion() {
+        String expired = "Expired Miss " + UUID.randomUUID();
+        String current = "Current Miss " + UUID.randomUUID();
+        cacheService.recordMiss("Cache Author", expired);
+        cacheService.recordMiss("Cache Author", current);
+        jdbcTemplate.update("UPDATE free_text_cache SET expires_at = now() - interval '1 day', "
+                + "checked_at = now() + interval '1 second' WHERE normalized_title = ?",
+                FreeTextLookupCache.normalizeTitle(expired));
+        cacheService.refresh();
+
+        assertNull(cacheService.lookup("Cache Author", expired));
+        assertEquals("", cacheService.lookup("Cache Author", current));
+
+        String version = cacheService.getProviderVersion();
+        ReflectionTestUtils.setField(cacheService, "configuredVersion", "test-next");
+        try {
+            assertNotEquals(version, cacheService.getProviderVersion());
+            assertNull(cacheService.lookup("Cache Author", current));
+        } finally {
+            ReflectionTestUtils.setField(cacheService, "configuredVersion", "1");
+        }
+    }
+
+    @Test
+    void refreshPicksUpEntriesFromOtherInstances() {
+        String title = "Other Instance Book " + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO free_text_cache (normalized_author, normalized_title, urls, provider_version, "
+                + "source, checked_at) VALUES ('other author', ?, 'https://example.com/other', 'x', 'LOOKUP', "
+                + "now() + interval '1 second')", FreeTextLookupCache.normalizeTitle(title));
+        assertNull(cacheService.lookup("Other Author", title));
+
+        cacheService.refresh();
+
+        assertEquals("https://example.com/other", cacheService.lookup("Other Author", title));
+    }
+}
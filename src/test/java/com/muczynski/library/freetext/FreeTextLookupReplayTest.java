@@ -0,0 +1,138 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext;
+
+import com.muczynski.library.config.HttpResponseCache;
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.dto.FreeTextBulkLookupResultDto;
+import com.muczynski.library.freetext.providers.CatholicPlanetProvider;
+import com.muczynski.library.freetext.providers.CcelProvider;
+import com.muczynski.library.freetext.providers.GutenbergCatalog;
+import com.muczynski.library.freetext.providers.GutenbergProvider;
+import com.muczynski.library.freetext.providers.InternetArchiveProvider;
+import com.muczynski.library.freetext.providers.LibriVoxProvider;
+import com.muczynski.library.freetext.providers.LocCatalogOnlineProvider;
+import com.muczynski.library.freetext.providers.LocOnlineBooksPageProvider;
+import com.muczynski.library.freetext.providers.LocOpenAccessProvider;
+import com.muczynski.library.freetext.providers.VaticanProvider;
+import com.muczynski.library.repository.BookRepository;
+import com.muczynski.library.service.LookupTransactions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Bulk lookup through every real provider, answered by the recorded responses in
+ * src/test/resources/http-fixtures with the response cache in replay mode. Books are looked up
+ * in parallel with every provider asked at once, as in production, without touching the network.
+ */
+@ExtendWith(MockitoExtension.class)
+class FreeTextLookupReplayTest {
+
+    private static final Map<Long, String> TITLES = Map.of(
+            1L, "Orthodoxy",
+            2L, "The Imitation of Christ",
+            3L, "Introduction to the Devout Life",
+            4L, "Rerum Novarum",
+            5L, "The Book Nobody Wrote");
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private FreeTextCacheService cacheService;
+
+    private HttpResponseCache cache;
+
+    private FreeTextLookupService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new HttpResponseCache();
+        ReflectionTestUtils.setField(cache, "modeName", "replay");
+        ReflectionTestUtils.setField(cache, "dirName",
+                Path.of(getClass().getResource("/http-fixtures").toURI()).toString());
+        cache.init();
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setInterceptors(List.of(cache));
+
+        List<FreeTextProvider> providers = new ArrayList<>(List.of(new CatholicPlanetProvider(), new CcelProvider(),
+                new GutenbergProvider(), new InternetArchiveProvider(), new LibriVoxProvider(),
+                new LocCatalogOnlineProvider(), new LocOnlineBooksPageProvider(), new LocOpenAccessProvider(),
+                new VaticanProvider()));
+        for (FreeTextProvider provider : providers) {
+            ReflectionTestUtils.setField(provider, "restTemplate", restTemplate);
+        }
+        ReflectionTestUtils.setField(providers.get(2), "catalog", new GutenbergCatalog());
+
+        service = new FreeTextLookupService(bookRepository, providers,
+                new LookupTransactions(transactionManager, bookRepository), cacheService);
+        ReflectionTestUtils.setField(service, "fanOut", true);
+        ReflectionTestUtils.setField(service, "fanOutDeadlineMs", 10_000L);
+        ReflectionTestUtils.setField(service, "fanOutThreads", 16);
+        ReflectionTestUtils.setField(service, "bulkParallelism", 4);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void lookupBooks_takesHighestPriorityRecordedMatch() {
+        when(bookRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            Book book = new Book();
+            book.setId(id);
+            book.setTitle(TITLES.get(id));
+            return Optional.of(book);
+        });
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<FreeTextBulkLookupResultDto> results = service.lookupBooks(List.of(1L, 2L, 3L, 4L, 5L));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), results.stream().map(FreeTextBulkLookupResultDto::getBookId).toList());
+        // LibriVox and the LOC catalog also have Orthodoxy, but Gutenberg ranks higher
+        assertMatch(results.get(0), "Project Gutenberg", "https://www.gutenberg.org/ebooks/130");
+        assertMatch(results.get(1), "Internet Archive", "https://archive.org/details/imitationofchris00thomuoft");
+        assertMatch(results.get(2), "LOC Open Access Books", "https://www.loc.gov/item/09024016/");
+        assertMatch(results.get(3), "Vatican.va",
+                "https://www.vatican.va/content/leo-xiii/en/encyclicals/documents/hf_l-xiii_enc_15051891_rerum-novarum.html");
+        assertFalse(results.get(4).isSuccess());
+
+        // Every provider answered for the missing book, so the miss is cached
+        verify(cacheService).recordHit(null, "Orthodoxy", "https://www.gutenberg.org/ebooks/130", "Project Gutenberg");
+        verify(cacheService).recordMiss(null, "The Book Nobody Wrote");
+        verify(cacheService, times(1)).recordMiss(any(), anyString());
+        // Every request had a recording
+        assertTrue(cache.getStats().getHits() > 0);
+        assertEquals(0, cache.getStats().getMisses());
+    }
+
+    private static void assertMatch(FreeTextBulkLookupResultDto result, String provider, String url) {
+        assertTrue(result.isSuccess(), result.getBookTitle() + ": " + result.getErrorMessage());
+        assertEquals(provider, result.getProviderName());
+        assertEquals(url, result.getFreeTextUrl());
+    }
+}
@@ -6,18 +6,27 @@ package com.muczynski.library.freetext;
 import com.muczynski.library.domain.Author;
 import com.muczynski.library.domain.Book;
 import com.muczynski.library.dto.FreeTextBulkLookupResultDto;
+import com.muczynski.library.dto.FreeTextProviderStateDto;
+import com.muczynski.library.dto.FreeTextProviderStatsDto;
 import com.muczynski.library.exception.LibraryException;
 import com.muczynski.library.repository.BookRepository;
+import com.muczynski.library.service.LookupTransactions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -35,6 +44,12 @@ class FreeTextLookupServiceTest {
     @Mock
     private FreeTextProvider mockProvider2;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private FreeTextCacheService cacheService;
+
     private FreeTextLookupService service;
 
     @BeforeEach
@@ -48,7 +63,7 @@ class FreeTextLookupServiceTest {
 
         // Create service with mocked providers
         List<FreeTextProvider> providers = new ArrayList<>(Arrays.asList(mockProvider1, mockProvider2));
-        service = new FreeTextLookupService(bookRepository, providers);
+        service = new FreeTextLookupService(bookRepository, providers, new LookupTransactions(transactionManager, bookRepository), cacheService);
         service.init(); // This sorts providers by priority
     }
 
@@ -76,7 +91,7 @@ class FreeTextLookupServiceTest {
 
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
         when(mockProvider1.search(eq("Some Book"), eq("Some Author")))
-                .thenReturn(FreeTextLookupResult.error("Provider1", "Not found"));
+                .thenReturn(FreeTextLookupResult.notFound("Provider1", "Not found"));
         when(mockProvider2.search(eq("Some Book"), eq("Some Author")))
                 .thenReturn(FreeTextLookupResult.success("Provider2", "https://example2.com/book"));
         when(bookRepository.save(any(Book.class))).thenReturn(book);
@@ -95,9 +110,9 @@ class FreeTextLookupServiceTest {
 
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
         when(mockProvider1.search(anyString(), anyString()))
-                .thenReturn(FreeTextLookupResult.error("Provider1", "Not found"));
+                .thenReturn(FreeTextLookupResult.notFound("Provider1", "Not found"));
         when(mockProvider2.search(anyString(), anyString()))
-                .thenReturn(FreeTextLookupResult.error("Provider2", "Not found"));
+                .thenReturn(FreeTextLookupResult.notFound("Provider2", "Not found"));
 
         FreeTextBulkLookupResultDto result = service.lookupBook(1L);
 
@@ -159,9 +174,9 @@ class FreeTextLookupServiceTest {
         when(mockProvider1.search(eq("Book One"), eq("Author One")))
                 .thenReturn(FreeTextLookupResult.success("Provider1", "https://example.com/book1"));
         when(mockProvider1.search(eq("Book Two"), eq("Author Two")))
-                .thenReturn(FreeTextLookupResult.error("Provider1", "Not found"));
+                .thenReturn(FreeTextLookupResult.notFound("Provider1", "Not found"));
         when(mockProvider2.search(eq("Book Two"), eq("Author Two")))
-                .thenReturn(FreeTextLookupResult.error("Provider2", "Not found"));
+                .thenReturn(FreeTextLookupResult.notFound("Provider2", "Not found"));
 
         when(bookRepository.save(any(Book.class))).thenReturn(book1);
 
@@ -183,6 +198,108 @@ class FreeTextLookupServiceTest {
         assertTrue(results.get(0).getErrorMessage().contains("Error"));
     }
 
+    @Test
+    void lookupBooks_runsBooksInParallelWithinProviderConcurrencyCap() {
+        List<Long> bookIds = List.of(1L, 2L, 3L, 4L, 5L, 6L);
+        String prefix = "Parallel Test " + UUID.randomUUID() + " ";
+        when(bookRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            return Optional.of(createBook(id, prefix + id, "Test Author"));
+        });
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(mockProvider1.getRateLimit()).thenReturn(new FreeTextProvider.RateLimit(1000, 10, 2));
+        when(mockProvider2.getRateLimit()).thenReturn(FreeTextProvider.RateLimit.DEFAULT);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(mockProvider1.search(anyString(), anyString())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(200);
+            inFlight.decrementAndGet();
+            return FreeTextLookupResult.success("Provider1", "https://example.com/" + invocation.getArgument(0));
+        });
+
+        FreeTextLookupService bulk = new FreeTextLookupService(bookRepository,
+                new ArrayList<>(Arrays.asList(mockProvider1, mockProvider2)), new LookupTransactions(transactionManager, bookRepository), cacheService);
+        ReflectionTestUtils.setField(bulk, "rateLimit", true);
+        ReflectionTestUtils.setField(bulk, "rateLimitMaxWaitMs", 5000L);
+        ReflectionTestUtils.setField(bulk, "bulkParallelism", 4);
+        bulk.init();
+        try {
+            long start = System.currentTimeMillis();
+            List<FreeTextBulkLookupResultDto> results = bulk.lookupBooks(bookIds);
+
+            // Six 200 ms searches, two at a time
+            assertTrue(System.currentTimeMillis() - start < 1100, "Books were not looked up in parallel");
+            assertEquals(2, maxInFlight.get());
+            assertEquals(bookIds, results.stream().map(FreeTextBulkLookupResultDto::getBookId).toList());
+            assertTrue(results.stream().allMatch(FreeTextBulkLookupResultDto::isSuccess));
+        } finally {
+            bulk.shutdown();
+        }
+    }
+
+    @Test
+    void lookupBook_usesCacheWithoutSearching() {
+        Book book = createBook(1L, "Cached Book", "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(cacheService.lookup("Test Author", "Cached Book")).thenReturn("https://example.com/cached");
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+
+        FreeTextBulkLookupResultDto result = service.lookupBook(1L);
+
+        assertTrue(result.isSuccess());
+        assertEquals("https://example.com/cached", result.getFreeTextUrl());
+        assertEquals("Cache", result.getProviderName());
+        verify(mockProvider1, never()).search(anyString(), anyString());
+        verify(mockProvider2, never()).search(anyString(), anyString());
+    }
+
+    @Test
+    void lookupBook_recordsHitsAndMissesInCache() {
+        Book found = createBook(1L, "Found Book", "Test Author");
+        Book missing = createBook(2L, "Missing Book", "Test Author");
+        Book failed = createBook(3L, "Failed Book", "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(found));
+        when(bookRepository.findById(2L)).thenReturn(Optional.of(missing));
+        when(bookRepository.findById(3L)).thenReturn(Optional.of(failed));
+        when(bookRepository.save(any(Book.class))).thenReturn(found);
+        when(mockProvider1.search(eq("Found Book"), anyString()))
+                .thenReturn(FreeTextLookupResult.success("Provider1", "https://example.com/found"));
+        when(mockProvider1.search(eq("Missing Book"), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider1", "Not found"));
+        when(mockProvider2.search(eq("Missing Book"), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider2", "Not found"));
+        when(mockProvider1.search(eq("Failed Book"), anyString()))
+                .thenReturn(FreeTextLookupResult.error("Provider1", "Search error: SocketTimeoutException: Read timed out"));
+        when(mockProvider2.search(eq("Failed Book"), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider2", "Not found"));
+
+        service.lookupBooks(List.of(1L, 2L, 3L));
+
+        verify(cacheService).recordHit("Test Author", "Found Book", "https://example.com/found", "Provider1");
+        verify(cacheService).recordMiss("Test Author", "Missing Book");
+        // A provider that failed might have found it
+        verify(cacheService, never()).recordMiss("Test Author", "Failed Book");
+    }
+
+    @Test
+    void lookupBook_doesNotCacheMissWhenProviderGotNoResponse() {
+        Book book = createBook(1L, "Unanswered Book", "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(mockProvider1.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.error("Provider1", "No response from catalog"));
+        when(mockProvider2.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider2", "Not found"));
+
+        FreeTextBulkLookupResultDto result = service.lookupBook(1L);
+
+        assertFalse(result.isSuccess());
+        verify(cacheService, never()).recordMiss(anyString(), anyString());
+    }
+
     @Test
     void lookupBook_updatesBookWithFoundUrl() {
         Book book = createBook(1L, "Test Book", "Test Author");
@@ -289,6 +406,336 @@ class FreeTextLookupServiceTest {
         verify(bookRepository, never()).save(any());
     }
 
+    @Test
+    void getProviderStats_countsHitsAndMissesPerProvider() {
+        Book book = createBook(1L, "Stats Test " + UUID.randomUUID(), "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(mockProvider1.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider1", "Not found"));
+        when(mockProvider2.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.success("Provider2", "https://example.com/book"));
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+
+        service.lookupBook(1L);
+
+        List<FreeTextProviderStatsDto> stats = service.getProviderStats();
+        assertEquals("Provider1", stats.get(0).getProviderName());
+        assertEquals(1, stats.get(0).getCalls());
+        assertEquals(1, stats.get(0).getMisses());
+        assertEquals(0.0, stats.get(0).getHitRate());
+        assertEquals(1, stats.get(1).getHits());
+        assertEquals(1.0, stats.get(1).getHitRate());
+    }
+
+    // ==================== Circuit breakers and ordering ====================
+
+    @Test
+    void circuitBreaker_skipsProviderAfterRepeatedFailures() {
+        Book book = createBook(1L, "Breaker Test " + UUID.randomUUID(), "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(mockProvider1.search(anyString(), anyString())).thenThrow(new RuntimeException("Connection refused"));
+        when(mockProvider2.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider2", "Not found"));
+        ReflectionTestUtils.setField(service, "circuitBreaker", true);
+        ReflectionTestUtils.setField(service, "circuitFailureThreshold", 2);
+        ReflectionTestUtils.setField(service, "circuitOpenMs", 60_000L);
+        service.init();
+
+        for (int i = 0; i < 3; i++) {
+            service.lookupBook(1L);
+        }
+
+        verify(mockProvider1, times(2)).search(anyString(), anyString());
+        verify(mockProvider2, times(3)).search(anyString(), anyString());
+        // A lookup that failed or skipped a provider is not a miss
+        verify(cacheService, never()).recordMiss(any(), any());
+        FreeTextProviderStateDto state = service.getProviderStates().get(0);
+        assertEquals("Provider1", state.getProviderName());
+        assertEquals("OPEN", state.getCircuitState());
+        assertEquals(1, state.getSkipped());
+        assertTrue(state.getRetryInMillis() > 0);
+        assertEquals("CLOSED", service.getProviderStates().get(1).getCircuitState());
+    }
+
+    @Test
+    void circuitBreaker_opensForProviderThatKeepsGettingNoResponse() {
+        Book book = createBook(1L, "No Response Test " + UUID.randomUUID(), "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(mockProvider1.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.error("Provider1", "No response from catalog"));
+        when(mockProvider2.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider2", "Not found"));
+        ReflectionTestUtils.setField(service, "circuitBreaker", true);
+        ReflectionTestUtils.setField(service, "circuitFailureThreshold", 2);
+        ReflectionTestUtils.setField(service, "circuitOpenMs", 60_000L);
+        service.init();
+
+        for (int i = 0; i < 3; i++) {
+            service.lookupBook(1L);
+        }
+
+        // An empty answer counts as a failure, not a miss
+        verify(mockProvider1, times(2)).search(anyString(), anyString());
+        assertEquals("OPEN", service.getProviderStates().get(0).getCircuitState());
+        assertEquals("CLOSED", service.getProviderStates().get(1).getCircuitState());
+        verify(cacheService, never()).recordMiss(any(), any());
+    }
+
+    @Test
+    void adaptiveOrder_prefersProviderWithHigherRecentHitRate() {
+        Book book = createBook(1L, "Adaptive Test " + UUID.randomUUID(), "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(mockProvider1.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider1", "Not found"));
+        when(mockProvider2.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.success("Provider2", "https://example.com/book"));
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+        ReflectionTestUtils.setField(service, "adaptiveOrder", true);
+        ReflectionTestUtils.setField(service, "adaptiveWindow", 10);
+        ReflectionTestUtils.setField(service, "adaptiveMinSamples", 2);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Provider2", service.lookupBook(1L).getProviderName());
+        }
+
+        // Asked first until both had enough searches to rank them
+        verify(mockProvider1, times(2)).search(anyString(), anyString());
+        List<FreeTextProviderStateDto> states = service.getProviderStates();
+        assertEquals("Provider2", states.get(0).getProviderName());
+        assertEquals(1, states.get(0).getPosition());
+        assertEquals(1.0, states.get(0).getRecentHitRate());
+        assertEquals(0.0, states.get(1).getRecentHitRate());
+        assertEquals(2, states.get(1).getRecentSamples());
+    }
+
+    // ==================== Fan-out ====================
+
+    @Test
+    void fanOut_waitsForHigherPriorityProvider() {
+        Book book = createBook(1L, "Fan Out Test " + UUID.randomUUID(), "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        // Provider2 answers first, but Provider1 has priority
+        when(mockProvider1.search(anyString(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return FreeTextLookupResult.success("Provider1", "https://example.com/first");
+        });
+        when(mockProvider2.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.success("Provider2", "https://example.com/second"));
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+
+        FreeTextLookupService fanOut = fanOutService(5000);
+        try {
+            FreeTextBulkLookupResultDto result = fanOut.lookupBook(1L);
+
+            assertTrue(result.isSuccess());
+            assertEquals("Provider1", result.getProviderName());
+            assertEquals("https://example.com/first", result.getFreeTextUrl());
+            assertEquals(List.of("Provider1"), result.getProvidersSearched());
+        } finally {
+            fanOut.shutdown();
+        }
+    }
+
+    @Test
+    void fanOut_takesLowerPriorityMatchWhenHigherPriorityTimesOut() {
+        Book book = createBook(1L, "Fan Out Test " + UUID.randomUUID(), "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(mockProvider1.search(anyString(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return FreeTextLookupResult.success("Provider1", "https://example.com/slow");
+        });
+        when(mockProvider2.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.success("Provider2", "https://example.com/fast"));
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+
+        FreeTextLookupService fanOut = fanOutService(300);
+        try {
+            long start = System.currentTimeMillis();
+            FreeTextBulkLookupResultDto result = fanOut.lookupBook(1L);
+
+            assertTrue(System.currentTimeMillis() - start < 5000, "Lookup waited past the deadline");
+            assertTrue(result.isSuccess());
+            assertEquals("Provider2", result.getProviderName());
+            assertEquals(List.of("Provider1", "Provider2"), result.getProvidersSearched());
+            FreeTextProviderStatsDto slow = fanOut.getProviderStats().get(0);
+            assertEquals(1, slow.getTimeouts());
+            assertEquals(0, slow.getErrors());
+        } finally {
+            fanOut.shutdown();
+        }
+    }
+
+    @Test
+    void fanOut_doesNotCountSearchThatNeverReachedTheSiteAsTimeout() {
+        Book book = createBook(1L, "Fan Out Test " + UUID.randomUUID(), "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(mockProvider1.getRateLimit()).thenReturn(new FreeTextProvider.RateLimit(1000, 10, 1));
+        when(mockProvider2.getRateLimit()).thenReturn(FreeTextProvider.RateLimit.DEFAULT);
+        // Stands for a search still waiting for its first request token
+        when(mockProvider1.search(anyString(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return FreeTextLookupResult.success("Provider1", "https://example.com/slow");
+        });
+        when(mockProvider2.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider2", "Not found"));
+
+        FreeTextLookupService fanOut = throttledFanOutService(300);
+        try {
+            fanOut.lookupBook(1L);
+
+            FreeTextProviderStatsDto waiting = fanOut.getProviderStats().get(0);
+            assertEquals(0, waiting.getTimeouts());
+            assertEquals(1, waiting.getCancelled());
+            assertEquals("CLOSED", fanOut.getProviderStates().get(0).getCircuitState());
+            assertEquals(0, fanOut.getProviderStates().get(0).getRecentSamples());
+            verify(cacheService, never()).recordMiss(any(), any());
+        } finally {
+            fanOut.shutdown();
+        }
+    }
+
+    @Test
+    void fanOut_countsTimeoutOnceRequestWasSent() {
+        Book book = createBook(1L, "Fan Out Test " + UUID.randomUUID(), "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(mockProvider1.getRateLimit()).thenReturn(new FreeTextProvider.RateLimit(1000, 10, 1));
+        when(mockProvider2.getRateLimit()).thenReturn(FreeTextProvider.RateLimit.DEFAULT);
+        when(mockProvider1.search(anyString(), anyString())).thenAnswer(invocation -> {
+            ProviderThrottle.current().acquire();
+            Thread.sleep(10_000);
+            return FreeTextLookupResult.success("Provider1", "https://example.com/slow");
+        });
+        when(mockProvider2.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider2", "Not found"));
+
+        FreeTextLookupService fanOut = throttledFanOutService(300);
+        try {
+            fanOut.lookupBook(1L);
+
+            FreeTextProviderStatsDto slow = fanOut.getProviderStats().get(0);
+            assertEquals(1, slow.getTimeouts());
+            assertEquals(0, slow.getCancelled());
+            // Threshold 1: the timeout opened the circuit
+            assertEquals("OPEN", fanOut.getProviderStates().get(0).getCircuitState());
+        } finally {
+            fanOut.shutdown();
+        }
+    }
+
+    @Test
+    void getProviderStats_countsRateLimitedSearchesApartFromMisses() {
+        Book book = createBook(1L, "Rate Limit Test " + UUID.randomUUID(), "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(mockProvider1.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.rateLimited("Provider1", "Rate limited: too many searches waiting"));
+        when(mockProvider2.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider2", "Not found"));
+
+        service.lookupBook(1L);
+
+        FreeTextProviderStatsDto limited = service.getProviderStats().get(0);
+        assertEquals(1, limited.getRateLimited());
+        assertEquals(0, limited.getMisses());
+        assertEquals(0, limited.getCalls());
+        assertEquals(1, service.getProviderStats().get(1).getMisses());
+    }
+
+    @Test
+    void fanOut_cancelsLowerPrioritySearchesOnceWinnerIsKnown() {
+        Book book = createBook(1L, "Fan Out Test " + UUID.randomUUID(), "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        CountDownLatch provider2Started = new CountDownLatch(1);
+        when(mockProvider1.search(anyString(), anyString())).thenAnswer(invocation -> {
+            provider2Started.await(5, TimeUnit.SECONDS);
+            return FreeTextLookupResult.success("Provider1", "https://example.com/first");
+        });
+        when(mockProvider2.search(anyString(), anyString())).thenAnswer(invocation -> {
+            provider2Started.countDown();
+            Thread.sleep(10_000);
+            return FreeTextLookupResult.success("Provider2", "https://example.com/second");
+        });
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+
+        FreeTextLookupService fanOut = fanOutService(20_000);
+        try {
+            long start = System.currentTimeMillis();
+            FreeTextBulkLookupResultDto result = fanOut.lookupBook(1L);
+
+            assertTrue(System.currentTimeMillis() - start < 5000, "Lookup waited for a lower-priority provider");
+            assertEquals("Provider1", result.getProviderName());
+            FreeTextProviderStatsDto cancelled = fanOut.getProviderStats().get(1);
+            assertEquals(1, cancelled.getCancelled());
+            assertEquals(0, cancelled.getErrors());
+        } finally {
+            fanOut.shutdown();
+        }
+    }
+
+    @Test
+    void fanOut_returnsNotFoundWhenNoProviderMatches() {
+        Book book = createBook(1L, "Fan Out Test " + UUID.randomUUID(), "Test Author");
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(mockProvider1.search(anyString(), anyString()))
+                .thenReturn(FreeTextLookupResult.notFound("Provider1", "Not found"));
+        when(mockProvider2.search(anyString(), anyString())).thenThrow(new RuntimeException("Connection refused"));
+
+        FreeTextLookupService fanOut = fanOutService(5000);
+        try {
+            FreeTextBulkLookupResultDto result = fanOut.lookupBook(1L);
+
+            assertFalse(result.isSuccess());
+            assertEquals("Not found in any provider", result.getErrorMessage());
+            assertEquals(2, result.getProvidersSearched().size());
+            assertEquals(1, fanOut.getProviderStats().get(1).getErrors());
+            verify(bookRepository, never()).save(any());
+        } finally {
+            fanOut.shutdown();
+        }
+    }
+
+    /**
+     * A service that asks both providers at once. Providers are passed lowest priority first
+     * to check they are still ranked by priority.
+     */
+    private FreeTextLookupService fanOutService(long deadlineMs) {
+        FreeTextLookupService fanOut = new FreeTextLookupService(bookRepository,
+                new ArrayList<>(Arrays.asList(mockProvider2, mockProvider1)), new LookupTransactions(transactionManager, bookRepository), cacheService);
+        ReflectionTestUtils.setField(fanOut, "fanOut", true);
+        ReflectionTestUtils.setField(fanOut, "fanOutDeadlineMs", deadlineMs);
+        ReflectionTestUtils.setField(fanOut, "fanOutThreads", 4);
+        fanOut.init();
+        return fanOut;
+    }
+
+    /**
+     * A fan-out service with rate limits and circuit breakers that open after one failure.
+     */
+    private FreeTextLookupService throttledFanOutService(long deadlineMs) {
+        FreeTextLookupService fanOut = new FreeTextLookupService(bookRepository,
+                new ArrayList<>(Arrays.asList(mockProvider1, mockProvider2)), new LookupTransactions(transactionManager, bookRepository), cacheService);
+        ReflectionTestUtils.setField(fanOut, "fanOut", true);
+        ReflectionTestUtils.setField(fanOut, "fanOutDeadlineMs", deadlineMs);
+        ReflectionTestUtils.setField(fanOut, "fanOutThreads", 4);
+        ReflectionTestUtils.setField(fanOut, "rateLimit", true);
+        ReflectionTestUtils.setField(fanOut, "rateLimitMaxWaitMs", 5000L);
+        ReflectionTestUtils.setField(fanOut, "circuitBreaker", true);
+        ReflectionTestUtils.setField(fanOut, "circuitFailureThreshold", 1);
+        ReflectionTestUtils.setField(fanOut, "circuitOpenMs", 60_000L);
+        fanOut.init();
+        return fanOut;
+    }
+
     private Book createBook(Long id, String title, String authorName) {
         Book book = new Book();
         book.setId(id);
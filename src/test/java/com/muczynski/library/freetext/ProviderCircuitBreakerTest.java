@@ -0,0 +1,65 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderCircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailuresOnly() {
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker("Test", 3, 60_000);
+
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(ProviderCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+
+        breaker.recordFailure();
+
+        assertEquals(ProviderCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(3, breaker.getConsecutiveFailures());
+        assertFalse(breaker.tryAcquire());
+        assertTrue(breaker.getRetryInMillis() > 0);
+    }
+
+    @Test
+    void halfOpenLetsOneProbeThrough() {
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker("Test", 1, 0);
+        breaker.recordFailure();
+
+        assertEquals(ProviderCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        // A cancelled probe frees the slot for another
+        breaker.release();
+        assertTrue(breaker.tryAcquire());
+
+        breaker.recordSuccess();
+        assertEquals(ProviderCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedProbeOpensAgain() throws Exception {
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker("Test", 2, 200);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertFalse(breaker.tryAcquire());
+
+        Thread.sleep(250);
+        assertTrue(breaker.tryAcquire());
+        breaker.recordFailure();
+
+        assertEquals(ProviderCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+}
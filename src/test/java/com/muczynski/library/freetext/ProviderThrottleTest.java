@@ -0,0 +1,142 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ProviderThrottleTest {
+
+    @Test
+    void acquire_waitsForTokensOnceBurstIsSpent() throws Exception {
+        ProviderThrottle throttle = new ProviderThrottle("Test", new FreeTextProvider.RateLimit(10, 2, 1), 5000);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Two from the burst, then one every 100 ms
+        assertTrue(elapsedMs >= 250, "Took only " + elapsedMs + " ms");
+        assertTrue(elapsedMs < 1000, "Took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void acquire_failsFastWhilePausedLongerThanMaxWait() {
+        ProviderThrottle throttle = new ProviderThrottle("Test", FreeTextProvider.RateLimit.DEFAULT, 1000);
+        throttle.pause(Duration.ofMinutes(5));
+
+        IOException e = assertThrows(IOException.class, throttle::acquire);
+        assertTrue(e.getMessage().contains("rate limited"));
+    }
+
+    @Test
+    void search_isBoundToTheThreadOnlyWhileRunning() throws Exception {
+        ProviderThrottle throttle = new ProviderThrottle("Test", FreeTextProvider.RateLimit.DEFAULT, 1000);
+
+        FreeTextLookupResult result = throttle.search(() -> {
+            assertSame(throttle, ProviderThrottle.current());
+            return FreeTextLookupResult.success("Test", "https://example.com");
+        });
+
+        assertTrue(result.isFound());
+        assertNull(ProviderThrottle.current());
+    }
+
+    @Test
+    void search_reportsEachRequestLetThrough() throws Exception {
+        ProviderThrottle throttle = new ProviderThrottle("Test", FreeTextProvider.RateLimit.DEFAULT, 1000);
+        throttle.pause(Duration.ofMinutes(5));
+        AtomicInteger requests = new AtomicInteger();
+
+        FreeTextLookupResult result = throttle.search(() -> {
+            assertThrows(IOException.class, throttle::acquire);
+            return FreeTextLookupResult.rateLimited("Test", "Paused");
+        }, requests::incrementAndGet);
+
+        // Still paused: nothing was sent
+        assertFalse(result.isFound());
+        assertEquals(0, requests.get());
+
+        ProviderThrottle open = new ProviderThrottle("Open", new FreeTextProvider.RateLimit(100, 10, 1), 1000);
+        open.search(() -> {
+            try {
+                open.acquire();
+                open.acquire();
+            } catch (IOException e) {
+                fail(e);
+            }
+            return FreeTextLookupResult.notFound("Open", "Not found");
+        }, requests::incrementAndGet);
+        assertEquals(2, requests.get());
+        open.acquire();
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void interceptor_retriesAfterTooManyRequests() throws Exception {
+        RestTemplate restTemplate = throttledRestTemplate(1);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo("https://example.com/search"))
+                .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1"));
+        server.expect(requestTo("https://example.com/search"))
+                .andRespond(withSuccess("found", null));
+        ProviderThrottle throttle = new ProviderThrottle("Test", new FreeTextProvider.RateLimit(100, 10, 1), 5000);
+
+        long start = System.nanoTime();
+        FreeTextLookupResult result = throttle.search(() -> FreeTextLookupResult.success("Test",
+                restTemplate.getForObject("https://example.com/search", String.class)));
+
+        assertEquals("found", result.getUrl());
+        assertTrue(System.nanoTime() - start >= 900_000_000L, "Retry-After was not honored");
+        server.verify();
+    }
+
+    @Test
+    void interceptor_givesUpAfterMaxRetries() throws Exception {
+        RestTemplate restTemplate = throttledRestTemplate(0);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo("https://example.com/search"))
+                .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "120"));
+        ProviderThrottle throttle = new ProviderThrottle("Test", FreeTextProvider.RateLimit.DEFAULT, 5000);
+
+        assertThrows(HttpClientErrorException.TooManyRequests.class, () -> throttle.search(() ->
+                FreeTextLookupResult.success("Test", restTemplate.getForObject("https://example.com/search", String.class))));
+        // The provider stays paused for the Retry-After time
+        assertThrows(IOException.class, throttle::acquire);
+        server.verify();
+    }
+
+    @Test
+    void retryAfter_readsSecondsDatesOrBacksOff() {
+        assertEquals(Duration.ofSeconds(30), ProviderRateLimitInterceptor.retryAfter("30", 0));
+        assertEquals(Duration.ZERO, ProviderRateLimitInterceptor.retryAfter("Wed, 21 Oct 2015 07:28:00 GMT", 0));
+        assertEquals(Duration.ofSeconds(2), ProviderRateLimitInterceptor.retryAfter(null, 0));
+        assertEquals(Duration.ofSeconds(8), ProviderRateLimitInterceptor.retryAfter("soon", 2));
+    }
+
+    private static RestTemplate throttledRestTemplate(int maxRetries) {
+        ProviderRateLimitInterceptor interceptor = new ProviderRateLimitInterceptor();
+        ReflectionTestUtils.setField(interceptor, "maxRetries", maxRetries);
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setInterceptors(List.of(interceptor));
+        return restTemplate;
+    }
+}
@@ -49,6 +49,8 @@ class CcelProviderTest {
 
         assertFalse(result.isFound());
         assertEquals("Christian Classics Ethereal Library", result.getProviderName());
+        // No answer is not a miss
+        assertEquals(FreeTextLookupResult.Outcome.ERROR, result.getOutcome());
     }
 
     @Test
@@ -60,6 +62,7 @@ class CcelProviderTest {
 
         assertFalse(result.isFound());
         assertTrue(result.getErrorMessage().contains("Search error"));
+        assertEquals(FreeTextLookupResult.Outcome.ERROR, result.getOutcome());
     }
 
     /**
@@ -0,0 +1,109 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext.providers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.OptionalInt;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GutenbergCatalogTest {
+
+    private static final String HEADER = "Text#,Type,Issued,Title,Language,Authors,Subjects,LoCC,Bookshelves\n";
+
+    private static final String CATALOG = HEADER
+            + "130,Text,1994-01-01,Orthodoxy,en,\"Chesterton, G. K. (Gilbert Keith), 1874-1936\",Apologetics,BT,\n"
+            + "1342,Sound,2008-01-01,Pride and Prejudice,en,\"Austen, Jane, 1775-1817\",,,\n"
+            + "1400,Text,1998-07-01,Pride and Prejudice,en,\"Austen, Jane, 1775-1817\",\"Courtship -- Fiction; \"\"Quoted\"\"\",PR,\n"
+            + "1695,Text,1999-04-01,\"The Man Who Was Thursday\nA Nightmare\",en,\"Chesterton, G. K. (Gilbert Keith), 1874-1936\",,,\n"
+            + "2600,Text,2001-04-01,War and Peace,en,\"Tolstoy, Leo, graf, 1828-1910; Maude, Louise, 1855-1939 [Translator]\",,,\n"
+            + "9999,Text,2001-04-01,Us,en,\"Doe, John\",,,\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void find_matchesTitleAndAuthor() throws Exception {
+        GutenbergCatalog catalog = catalog(write("pg_catalog.csv", CATALOG));
+
+        assertEquals(5, catalog.size());
+        // The audiobook row comes first but only texts are indexed
+        assertEquals(OptionalInt.of(1400), catalog.find("Pride and Prejudice", "Jane Austen"));
+        assertEquals(OptionalInt.of(130), catalog.find("Orthodoxy", null));
+        assertEquals(OptionalInt.empty(), catalog.find("Heretics", null));
+    }
+
+    @Test
+    void find_readsMultiLineTitles() throws Exception {
+        GutenbergCatalog catalog = catalog(write("pg_catalog.csv", CATALOG));
+
+        assertEquals(OptionalInt.of(1695), catalog.find("The Man Who Was Thursday", null));
+    }
+
+    @Test
+    void find_ignoresTranslators() throws Exception {
+        GutenbergCatalog catalog = catalog(write("pg_catalog.csv", CATALOG));
+
+        assertEquals(OptionalInt.of(2600), catalog.find("War and Peace", "Leo Tolstoy"));
+        assertEquals(OptionalInt.empty(), catalog.find("War and Peace", "Louise Maude"));
+    }
+
+    @Test
+    void find_matchesTitlesWithoutSignificantWords() throws Exception {
+        GutenbergCatalog catalog = catalog(write("pg_catalog.csv", CATALOG));
+
+        assertEquals(OptionalInt.of(9999), catalog.find("Us", null));
+    }
+
+    @Test
+    void refresh_reloadsOnlyWhenTheFileChanges() throws Exception {
+        Path file = write("pg_catalog.csv", HEADER + "130,Text,1994-01-01,Orthodoxy,en,\"Chesterton, G. K.\",,,\n");
+        GutenbergCatalog catalog = catalog(file);
+        assertFalse(catalog.refresh());
+
+        Files.writeString(file, CATALOG);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+        assertTrue(catalog.refresh());
+        assertEquals(OptionalInt.of(2600), catalog.find("War and Peace", null));
+    }
+
+    @Test
+    void refresh_readsGzippedCatalog() throws Exception {
+        Path file = dir.resolve("pg_catalog.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(CATALOG.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(5, catalog(file).size());
+    }
+
+    @Test
+    void find_withoutCatalogFileFindsNothing() {
+        GutenbergCatalog catalog = catalog(dir.resolve("missing.csv"));
+
+        assertEquals(0, catalog.size());
+        assertEquals(OptionalInt.empty(), catalog.find("Orthodoxy", null));
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.writeString(dir.resolve(name), content);
+    }
+
+    private static GutenbergCatalog catalog(Path file) {
+        GutenbergCatalog catalog = new GutenbergCatalog();
+        ReflectionTestUtils.setField(catalog, "fileName", file.toString());
+        catalog.refresh();
+        return catalog;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext.providers;
+
+import com.muczynski.library.config.HttpResponseCache;
+import com.muczynski.library.freetext.FreeTextLookupResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the real Gutendex parsing against recorded responses in src/test/resources/http-fixtures,
+ * with the response cache in replay mode, so nothing is sent over the network.
+ * New fixtures can be recorded with app.http.cache.mode=record and app.http.cache.dir pointing
+ * at that directory.
+ */
+class GutenbergProviderReplayTest {
+
+    private GutenbergProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        HttpResponseCache cache = new HttpResponseCache();
+        ReflectionTestUtils.setField(cache, "modeName", "replay");
+        ReflectionTestUtils.setField(cache, "dirName",
+                Path.of(getClass().getResource("/http-fixtures").toURI()).toString());
+        cache.init();
+
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setInterceptors(List.of(cache));
+        provider = new GutenbergProvider();
+        ReflectionTestUtils.setField(provider, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(provider, "catalog", new GutenbergCatalog());
+    }
+
+    @Test
+    void search_findsTitleInRecordedResults() {
+        FreeTextLookupResult result = provider.search("Orthodoxy", null);
+
+        assertTrue(result.isFound());
+        assertEquals("https://www.gutenberg.org/ebooks/130", result.getUrl());
+    }
+
+    @Test
+    void search_reportsEmptyRecordedResults() {
+        FreeTextLookupResult result = provider.search("The Nonexistent Book Title", null);
+
+        assertFalse(result.isFound());
+        assertEquals("No results found", result.getErrorMessage());
+    }
+
+    @Test
+    void search_withoutRecordingFailsWithoutNetwork() {
+        FreeTextLookupResult result = provider.search("Heretics", null);
+
+        assertFalse(result.isFound());
+        assertTrue(result.getErrorMessage().startsWith("Search error"));
+        assertTrue(result.getErrorMessage().contains("No recorded response"));
+    }
+}
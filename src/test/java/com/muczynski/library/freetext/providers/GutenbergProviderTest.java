@@ -11,6 +11,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.OptionalInt;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -21,6 +23,9 @@ class GutenbergProviderTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private GutenbergCatalog catalog;
+
     @InjectMocks
     private GutenbergProvider provider;
 
@@ -55,6 +60,17 @@ class GutenbergProviderTest {
         assertTrue(result.getErrorMessage().contains("Search error"));
     }
 
+    @Test
+    void search_usesCatalogMatchWithoutCallingApi() {
+        when(catalog.find("Orthodoxy", "G. K. Chesterton")).thenReturn(OptionalInt.of(130));
+
+        FreeTextLookupResult result = provider.search("Orthodoxy", "G. K. Chesterton");
+
+        assertTrue(result.isFound());
+        assertEquals("https://www.gutenberg.org/ebooks/130", result.getUrl());
+        verifyNoInteractions(restTemplate);
+    }
+
     @Test
     void search_constructsCorrectSearchUrl() {
         // Verify the search URL is correctly constructed
@@ -0,0 +1,140 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.freetext.providers;
+
+import com.muczynski.library.config.HttpResponseCache;
+import com.muczynski.library.freetext.FreeTextLookupResult;
+import com.muczynski.library.freetext.FreeTextProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs each provider's real request building and parsing against the recorded responses in
+ * src/test/resources/http-fixtures, with the response cache in replay mode, so nothing is sent
+ * over the network. {@link GutenbergProviderReplayTest} covers Gutendex.
+ */
+class ProviderReplayTest {
+
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        HttpResponseCache cache = new HttpResponseCache();
+        ReflectionTestUtils.setField(cache, "modeName", "replay");
+        ReflectionTestUtils.setField(cache, "dirName",
+                Path.of(getClass().getResource("/http-fixtures").toURI()).toString());
+        cache.init();
+
+        restTemplate = new RestTemplate();
+        restTemplate.setInterceptors(List.of(cache));
+    }
+
+    @Test
+    void internetArchive_findsReadableScan() {
+        FreeTextProvider provider = replaying(new InternetArchiveProvider());
+
+        FreeTextLookupResult result = provider.search("The Imitation of Christ", null);
+
+        assertTrue(result.isFound());
+        assertEquals("https://archive.org/details/imitationofchris00thomuoft", result.getUrl());
+    }
+
+    @Test
+    void internetArchive_skipsLendingOnlyScan() {
+        FreeTextProvider provider = replaying(new InternetArchiveProvider());
+
+        FreeTextLookupResult result = provider.search("Orthodoxy", null);
+
+        assertEquals(FreeTextLookupResult.Outcome.NOT_FOUND, result.getOutcome());
+    }
+
+    @Test
+    void locOpenAccess_findsOnlineText() {
+        FreeTextProvider provider = replaying(new LocOpenAccessProvider());
+
+        FreeTextLookupResult result = provider.search("Introduction to the Devout Life", null);
+
+        assertTrue(result.isFound());
+        assertEquals("https://www.loc.gov/item/09024016/", result.getUrl());
+        assertEquals(FreeTextLookupResult.Outcome.NOT_FOUND, provider.search("Orthodoxy", null).getOutcome());
+    }
+
+    @Test
+    void locCatalog_skipsRelatedResourceLinks() {
+        FreeTextProvider provider = replaying(new LocCatalogOnlineProvider());
+
+        FreeTextLookupResult result = provider.search("Orthodoxy", null);
+
+        assertTrue(result.isFound());
+        assertEquals("http://hdl.handle.net/2027/hvd.32044014416224", result.getUrl());
+        assertEquals(FreeTextLookupResult.Outcome.NOT_FOUND, provider.search("Rerum Novarum", null).getOutcome());
+    }
+
+    @Test
+    void libriVox_findsAudiobook() {
+        FreeTextProvider provider = replaying(new LibriVoxProvider());
+
+        FreeTextLookupResult result = provider.search("Orthodoxy", null);
+
+        assertTrue(result.isFound());
+        assertEquals("https://librivox.org/orthodoxy-by-gk-chesterton/", result.getUrl());
+        // An empty search answers with an error object rather than an empty list
+        assertEquals(FreeTextLookupResult.Outcome.NOT_FOUND, provider.search("Rerum Novarum", null).getOutcome());
+    }
+
+    @Test
+    void ccel_findsTitleInSearchCards() {
+        FreeTextProvider provider = replaying(new CcelProvider());
+
+        FreeTextLookupResult result = provider.search("Introduction to the Devout Life", null);
+
+        assertTrue(result.isFound());
+        assertEquals("https://ccel.org/ccel/desales/devout_life/devout_life", result.getUrl());
+        assertEquals(FreeTextLookupResult.Outcome.NOT_FOUND, provider.search("Orthodoxy", null).getOutcome());
+    }
+
+    @Test
+    void onlineBooksPage_findsTitleOnAuthorPage() {
+        FreeTextProvider provider = replaying(new LocOnlineBooksPageProvider());
+
+        FreeTextLookupResult result = provider.search("Orthodoxy", "Chesterton");
+
+        assertTrue(result.isFound());
+        assertEquals("https://www.gutenberg.org/ebooks/130", result.getUrl());
+    }
+
+    @Test
+    void catholicPlanet_resolvesRelativeLinkAndSkipsOtherSites() {
+        FreeTextProvider provider = replaying(new CatholicPlanetProvider());
+
+        FreeTextLookupResult result = provider.search("The Imitation of Christ", null);
+
+        assertTrue(result.isFound());
+        assertEquals("https://www.catholicplanet.com/ebooks/Imitation-of-Christ.pdf", result.getUrl());
+    }
+
+    @Test
+    void vatican_searchesEveryIndexWithoutAuthor() {
+        FreeTextProvider provider = replaying(new VaticanProvider());
+
+        FreeTextLookupResult result = provider.search("Rerum Novarum", null);
+
+        assertTrue(result.isFound());
+        assertEquals("https://www.vatican.va/content/leo-xiii/en/encyclicals/documents/hf_l-xiii_enc_15051891_rerum-novarum.html",
+                result.getUrl());
+        assertEquals(FreeTextLookupResult.Outcome.NOT_FOUND, provider.search("Orthodoxy", null).getOutcome());
+    }
+
+    private <T extends FreeTextProvider> T replaying(T provider) {
+        ReflectionTestUtils.setField(provider, "restTemplate", restTemplate);
+        return provider;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IdBitmap, checked against a TreeSet across both chunk representations.
+ */
+class IdBitmapTest {
+
+    private static List<Integer> members(IdBitmap bitmap) {
+        List<Integer> ids = new ArrayList<>();
+        bitmap.forEach(ids::add);
+        return ids;
+    }
+
+    @Test
+    void addRemoveContainsAcrossChunks() {
+        IdBitmap bitmap = new IdBitmap();
+        assertTrue(bitmap.isEmpty());
+        assertTrue(bitmap.add(70000));
+        assertTrue(bitmap.add(5));
+        assertFalse(bitmap.add(5));
+        assertTrue(bitmap.contains(70000));
+        assertFalse(bitmap.contains(6));
+        assertEquals(List.of(5, 70000), members(bitmap));
+
+        assertTrue(bitmap.remove(70000));
+        assertFalse(bitmap.remove(70000));
+        assertEquals(1, bitmap.cardinality());
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+    }
+
+    @Test
+    void denseChunkSwitchesToBitmapAndBack() {
+        IdBitmap bitmap = new IdBitmap();
+        for (int id = 0; id < IdBitmap.ARRAY_MAX * 2; id++) {
+            bitmap.add(id);
+        }
+        assertEquals(IdBitmap.ARRAY_MAX * 2, bitmap.cardinality());
+        for (int id = 0; id < IdBitmap.ARRAY_MAX * 2; id += 2) {
+            bitmap.remove(id);
+        }
+        for (int id = 1; id < IdBitmap.ARRAY_MAX * 2 - 2; id += 2) {
+            bitmap.remove(id);
+        }
+        assertEquals(List.of(IdBitmap.ARRAY_MAX * 2 - 1), members(bitmap));
+    }
+
+    @Test
+    void matchesTreeSetOnRandomData() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int range = round % 2 == 0 ? 70_000 : 300_000;
+            IdBitmap a = new IdBitmap();
+            IdBitmap b = new IdBitmap();
+            TreeSet<Integer> expectedA = new TreeSet<>();
+            TreeSet<Integer> expectedB = new TreeSet<>();
+            int operations = random.nextInt(20_000);
+            for (int i = 0; i < operations; i++) {
+                int id = random.nextInt(range);
+                if (random.nextInt(4) == 0) {
+                    assertEquals(expectedA.remove(id), a.remove(id));
+                } else {
+                    assertEquals(expectedA.add(id), a.add(id));
+                }
+                int other = random.nextInt(range);
+                assertEquals(expectedB.add(other), b.add(other));
+            }
+
+            assertEquals(new ArrayList<>(expectedA), members(a));
+            assertEquals(expectedA.size(), a.cardinality());
+
+            TreeSet<Integer> both = new TreeSet<>(expectedA);
+            both.retainAll(expectedB);
+            assertEquals(new ArrayList<>(both), members(IdBitmap.and(a, b)));
+            assertEquals(new ArrayList<>(both), members(IdBitmap.and(b, a)));
+        }
+    }
+}
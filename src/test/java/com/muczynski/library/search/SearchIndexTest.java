@@ -0,0 +1,258 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.search;
+
+import com.muczynski.library.domain.Author;
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.domain.CatalogChangeEvent;
+import com.muczynski.library.repository.AuthorRepository;
+import com.muczynski.library.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SearchIndex. The index is loaded from mocked repository rows and then
+ * queried directly; results must match what the JPQL search queries would return.
+ */
+@ExtendWith(MockitoExtension.class)
+class SearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private AuthorRepository authorRepository;
+
+    private SearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new SearchIndex(bookRepository, authorRepository);
+        ReflectionTestUtils.setField(searchIndex, "enabled", true);
+
+        // id, title, authorId, locNumber, electronicResource, freeTextUrl
+        List<Object[]> books = new ArrayList<>();
+        books.add(new Object[]{1L, "Summa Theologica", 1L, "BX1749 .A6", false, null});
+        books.add(new Object[]{2L, "Confessions", 2L, "BR65 .A9", false, null});
+        books.add(new Object[]{3L, "City of God", 2L, "", false, "https://www.gutenberg.org/ebooks/45304"});
+        books.add(new Object[]{4L, "The Way of Perfection", 3L, null, true, "https://librivox.org/way-of-perfection"});
+        books.add(new Object[]{5L, "Go", null, null, false, null});
+        when(bookRepository.findSearchIndexRows()).thenReturn(books);
+        when(bookRepository.findAllBookTags()).thenReturn(List.of(
+                new Object[]{2L, "theology"},
+                new Object[]{3L, "theology"},
+                new Object[]{3L, "history"}));
+        when(authorRepository.findSearchIndexRows()).thenReturn(List.of(
+                new Object[]{1L, "Thomas Aquinas"},
+                new Object[]{2L, "augustine of Hippo"},
+                new Object[]{3L, "Teresa of Avila"}));
+
+        searchIndex.rebuild();
+    }
+
+    private static List<Long> ids(SearchIndex.IdPage page) {
+        return page.ids();
+    }
+
+    @Test
+    void notReadyUntilBuilt() {
+        SearchIndex fresh = new SearchIndex(bookRepository, authorRepository);
+        ReflectionTestUtils.setField(fresh, "enabled", true);
+        assertFalse(fresh.isReady());
+        assertTrue(searchIndex.isReady());
+    }
+
+    @Test
+    void blankQueryMatchesAllBooksInIdOrder() {
+        SearchIndex.IdPage page = searchIndex.findBooks("", false, false, false, false, null, 0, 20);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(page));
+        assertEquals(5, page.total());
+    }
+
+    @Test
+    void titleMatchIsCaseInsensitiveSubstring() {
+        assertEquals(List.of(3L), ids(searchIndex.findBooks("OF GOD", false, false, false, false, null, 0, 20)));
+        assertEquals(List.of(1L), ids(searchIndex.findBooks("theo", false, false, false, false, null, 0, 20)));
+        // Shorter than a trigram: falls back to scanning every title
+        assertEquals(List.of(3L, 5L), ids(searchIndex.findBooks("go", false, false, false, false, null, 0, 20)));
+        assertTrue(ids(searchIndex.findBooks("xyz", false, false, false, false, null, 0, 20)).isEmpty());
+    }
+
+    @Test
+    void filtersUseAndLogic() {
+        assertEquals(List.of(1L, 2L), ids(searchIndex.findBooks("", true, false, false, false, null, 0, 20)));
+        assertEquals(List.of(4L), ids(searchIndex.findBooks("", false, true, false, false, null, 0, 20)));
+        assertEquals(List.of(3L, 4L), ids(searchIndex.findBooks("", false, false, true, false, null, 0, 20)));
+        assertEquals(List.of(4L), ids(searchIndex.findBooks("", false, false, true, true, null, 0, 20)));
+        assertTrue(ids(searchIndex.findBooks("", true, true, false, false, null, 0, 20)).isEmpty());
+    }
+
+    @Test
+    void labelsMustAllMatch() {
+        assertEquals(List.of(2L, 3L), ids(searchIndex.findBooks("", false, false, false, false, List.of("theology"), 0, 20)));
+        assertEquals(List.of(3L), ids(searchIndex.findBooks("", false, false, false, false, List.of("theology", "history"), 0, 20)));
+        assertTrue(ids(searchIndex.findBooks("", false, false, false, false, List.of("unknown"), 0, 20)).isEmpty());
+    }
+
+    @Test
+    void bookIdsWithAllLabelsIntersectsLabelBitmaps() {
+        assertEquals(List.of(2L, 3L), searchIndex.findBookIdsWithAllLabels(List.of("theology")));
+        assertEquals(List.of(3L), searchIndex.findBookIdsWithAllLabels(List.of("history", "theology", "history")));
+        assertTrue(searchIndex.findBookIdsWithAllLabels(List.of("theology", "unknown")).isEmpty());
+        assertTrue(searchIndex.findBookIdsWithAllLabels(List.of()).isEmpty());
+    }
+
+    @Test
+    void facetCountsCoverTheCurrentMatches() {
+        SearchIndex.FacetCounts all = searchIndex.countFacets("", false, false, false, false, null);
+        assertEquals(2, all.inLibrary());
+        assertEquals(1, all.electronic());
+        assertEquals(2, all.freeText());
+        assertEquals(1, all.audio());
+        assertEquals(Map.of("history", 1L, "theology", 2L), all.labels());
+
+        SearchIndex.FacetCounts inLibrary = searchIndex.countFacets("", true, false, false, false, null);
+        assertEquals(2, inLibrary.inLibrary());
+        assertEquals(0, inLibrary.freeText());
+        assertEquals(Map.of("theology", 1L), inLibrary.labels());
+    }
+
+    private List<String> suggestionTexts(String prefix) {
+        return searchIndex.suggest(prefix, 10).stream().map(SearchIndex.Suggestion::text).toList();
+    }
+
+    @Test
+    void suggestMatchesWordStartsHeaviestFirst() {
+        // Label "theology" is on two books, outweighing the single "Summa Theologica"
+        assertEquals(List.of("theology", "Summa Theologica"), suggestionTexts("Theo"));
+        List<SearchIndex.Suggestion> authors = searchIndex.suggest("aug", 10);
+        assertEquals(List.of(new SearchIndex.Suggestion("augustine of Hippo", "author", 3)), authors);
+        // Leading articles are dropped by the TitleMatcher normalization
+        assertEquals(List.of("The Way of Perfection"), suggestionTexts("the way"));
+        assertEquals(List.of("augustine of Hippo", "Teresa of Avila", "City of God", "The Way of Perfection"),
+                suggestionTexts("of"));
+        assertEquals(List.of("augustine of Hippo"), searchIndex.suggest("of", 1).stream()
+                .map(SearchIndex.Suggestion::text).toList());
+        assertTrue(suggestionTexts("").isEmpty());
+        assertTrue(suggestionTexts("zzz").isEmpty());
+    }
+
+    @Test
+    void suggestFollowsCommittedChanges() {
+        Author teresa = new Author();
+        teresa.setId(3L);
+        Book book = new Book();
+        book.setId(6L);
+        book.setTitle("Theology for Beginners");
+        book.setAuthor(teresa);
+        book.setTagsList(new ArrayList<>(List.of("theology")));
+        searchIndex.onCatalogChange(new CatalogChangeEvent(book, false));
+
+        assertEquals(List.of("theology", "Summa Theologica", "Theology for Beginners"), suggestionTexts("theo"));
+        // Short prefixes are cached; the change must have cleared the cache
+        assertEquals("Teresa of Avila", suggestionTexts("te").get(0));
+        assertEquals(3, searchIndex.suggest("teresa", 1).get(0).weight());
+
+        searchIndex.onCatalogChange(new CatalogChangeEvent(book, true));
+        assertEquals(List.of("theology", "Summa Theologica"), suggestionTexts("theo"));
+        assertEquals(2, searchIndex.suggest("teresa", 1).get(0).weight());
+    }
+
+    @Test
+    void keysetPagesWalkBooksInTitleOrder() {
+        SearchIndex.KeysetPage first = searchIndex.findBooksAfter("", false, false, false, false, null, "", -1, 2);
+        assertEquals(List.of(3L, 2L), first.ids());
+        assertTrue(first.hasMore());
+        assertEquals("confessions", first.lastKey());
+        assertEquals(5, first.total());
+
+        SearchIndex.KeysetPage second = searchIndex.findBooksAfter("", false, false, false, false, null,
+                first.lastKey(), 2L, 2);
+        assertEquals(List.of(5L, 1L), second.ids());
+        SearchIndex.KeysetPage last = searchIndex.findBooksAfter("", false, false, false, false, null,
+                second.lastKey(), 1L, 2);
+        assertEquals(List.of(4L), last.ids());
+        assertFalse(last.hasMore());
+
+        // Filters apply to the walk without changing the positions
+        assertEquals(List.of(1L), searchIndex.findBooksAfter("", true, false, false, false, null,
+                "confessions", 2L, 2).ids());
+    }
+
+    @Test
+    void keysetPagesWalkAuthorsInNameOrder() {
+        SearchIndex.KeysetPage first = searchIndex.findAuthorsByNameAfter("", "", -1, 1);
+        assertEquals(List.of(2L), first.ids());
+        assertEquals("augustine of hippo", first.lastKey());
+        assertEquals(List.of(3L, 1L), searchIndex.findAuthorsByNameAfter("", first.lastKey(), 2L, 5).ids());
+        assertEquals(List.of(1L), searchIndex.findAuthorsOfMatchingBooksAfter("", true, false, false, false, null,
+                "augustine of hippo", 2L, 5).ids());
+    }
+
+    @Test
+    void cursorRoundTripsAndRejectsGarbage() {
+        SearchCursor cursor = new SearchCursor(true, "city of god", 3L, false, "", -1, true);
+        assertEquals(cursor, SearchCursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("AAAA"));
+    }
+
+    @Test
+    void paginationReturnsSliceAndTotal() {
+        SearchIndex.IdPage page = searchIndex.findBooks("", false, false, false, false, null, 1, 2);
+        assertEquals(List.of(3L, 4L), ids(page));
+        assertEquals(5, page.total());
+        assertTrue(ids(searchIndex.findBooks("", false, false, false, false, null, 9, 2)).isEmpty());
+    }
+
+    @Test
+    void authorsByNameAreSortedCaseInsensitively() {
+        assertEquals(List.of(2L, 3L, 1L), ids(searchIndex.findAuthorsByName("", 0, 20)));
+        assertEquals(List.of(2L, 3L), ids(searchIndex.findAuthorsByName(" OF ", 0, 20)));
+        assertEquals(List.of(3L), ids(searchIndex.findAuthorsByName("", 1, 1)));
+    }
+
+    @Test
+    void authorsOfMatchingBooksFollowTheBookFilter() {
+        SearchIndex.IdPage page = searchIndex.findAuthorsOfMatchingBooks("", true, false, false, false, null, 0, 20);
+        assertEquals(List.of(2L, 1L), ids(page));
+        assertEquals(2, page.total());
+    }
+
+    @Test
+    void committedChangesUpdateTheIndex() {
+        Book book = new Book();
+        book.setId(3L);
+        book.setTitle("The City of God, Vol. 1");
+        book.setLocNumber("BR65 .A65");
+        // Tags untouched by this update are kept from the previous entry
+        book.setTagsList(null);
+        searchIndex.onCatalogChange(new CatalogChangeEvent(book, false));
+
+        assertEquals(List.of(1L, 2L, 3L), ids(searchIndex.findBooks("", true, false, false, false, null, 0, 20)));
+        assertEquals(List.of(3L), ids(searchIndex.findBooks("vol. 1", false, false, false, false, List.of("history"), 0, 20)));
+        assertTrue(ids(searchIndex.findBooks("", false, false, true, false, null, 0, 20)).contains(4L));
+        assertFalse(ids(searchIndex.findBooks("", false, false, true, false, null, 0, 20)).contains(3L));
+
+        searchIndex.onCatalogChange(new CatalogChangeEvent(book, true));
+        assertEquals(List.of(1L, 2L, 4L, 5L), ids(searchIndex.findBooks("", false, false, false, false, null, 0, 20)));
+
+        Author author = new Author();
+        author.setId(4L);
+        author.setName("Francis of Assisi");
+        searchIndex.onCatalogChange(new CatalogChangeEvent(author, false));
+        assertEquals(List.of(2L, 4L, 3L), ids(searchIndex.findAuthorsByName("of", 0, 20)));
+    }
+}
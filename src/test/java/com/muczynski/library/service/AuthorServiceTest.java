@@ -14,6 +14,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -63,11 +64,15 @@ class AuthorServiceTest {
         Author author = new Author();
         author.setId(1L);
         AuthorDto authorDto = new AuthorDto();
+        authorDto.setId(1L);
         when(authorRepository.findAll()).thenReturn(Collections.singletonList(author));
-        when(authorMapper.toDto(any(Author.class))).thenReturn(authorDto);
-        when(bookRepository.countByAuthorId(1L)).thenReturn(0L);
+        when(authorMapper.toDtos(List.of(author))).thenReturn(new ArrayList<>(List.of(authorDto)));
+        when(bookRepository.countBooksByAuthorIds(List.of(1L))).thenReturn(List.<Object[]>of(new Object[]{1L, 4L}));
+
+        List<AuthorDto> result = authorService.getAllAuthors();
 
-        assertEquals(1, authorService.getAllAuthors().size());
+        assertEquals(1, result.size());
+        assertEquals(4L, result.get(0).getBookCount());
     }
 
     @Test
@@ -133,16 +138,16 @@ class AuthorServiceTest {
         dtoWithEmptyUrl.setId(3L);
         dtoWithEmptyUrl.setName("Author Empty Url");
 
-        when(authorMapper.toDto(authorWithoutUrl)).thenReturn(dtoWithoutUrl);
-        when(authorMapper.toDto(authorWithEmptyUrl)).thenReturn(dtoWithEmptyUrl);
-        when(bookRepository.countByAuthorId(2L)).thenReturn(3L);
-        when(bookRepository.countByAuthorId(3L)).thenReturn(1L);
+        when(authorMapper.toDtos(List.of(authorWithoutUrl, authorWithEmptyUrl)))
+                .thenReturn(new ArrayList<>(List.of(dtoWithoutUrl, dtoWithEmptyUrl)));
+        when(bookRepository.countBooksByAuthorIds(List.of(2L, 3L)))
+                .thenReturn(List.of(new Object[]{2L, 3L}, new Object[]{3L, 1L}));
 
         List<AuthorDto> result = authorService.getAuthorsWithoutGrokipedia();
 
         assertEquals(2, result.size());
-        assertTrue(result.stream().anyMatch(a -> a.getId() == 2L));
-        assertTrue(result.stream().anyMatch(a -> a.getId() == 3L));
+        assertTrue(result.stream().anyMatch(a -> a.getId() == 2L && a.getBookCount() == 3L));
+        assertTrue(result.stream().anyMatch(a -> a.getId() == 3L && a.getBookCount() == 1L));
     }
 
 }
@@ -0,0 +1,218 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.TestEntityHelper;
+import com.muczynski.library.domain.BackgroundJob;
+import com.muczynski.library.domain.BackgroundJobItem;
+import com.muczynski.library.domain.User;
+import com.muczynski.library.dto.BackgroundJobDto;
+import com.muczynski.library.dto.BackgroundJobItemDto;
+import com.muczynski.library.repository.AuthorityRepository;
+import com.muczynski.library.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Jobs run on the engine's worker threads against a real database, with the lookups
+ * themselves mocked. Each test waits for the job to reach the status it expects.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BackgroundJobServiceTest {
+
+    private static final String USERNAME = "job-librarian";
+
+    @MockitoBean
+    private BackgroundJobTasks tasks;
+
+    @Autowired
+    private BackgroundJobService backgroundJobService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User librarian;
+
+    @BeforeEach
+    void setUp() {
+        deleteJobs();
+        userRepository.deleteAll(userRepository.findAllByUsernameOrderByIdAsc(USERNAME));
+        User user = new User();
+        user.setUsername(USERNAME);
+        user.setPassword("{bcrypt}$2a$10$...");
+        user.setUserIdentifier(USERNAME + "-id");
+        user.setAuthorities(Set.of(TestEntityHelper.findOrCreateAuthority(authorityRepository, "LIBRARIAN")));
+        librarian = userRepository.save(user);
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                librarian.getId().toString(), null, List.of(new SimpleGrantedAuthority("LIBRARIAN"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        deleteJobs();
+    }
+
+    @Test
+    void runsItemsInOrderAsTheStartingUser() throws Exception {
+        Map<Long, String> principals = new ConcurrentHashMap<>();
+        when(tasks.process(eq(BackgroundJob.Type.LOC_LOOKUP), anyLong())).thenAnswer(invocation -> {
+            Long bookId = invocation.getArgument(1);
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            principals.put(bookId, authentication == null ? "none" : authentication.getName());
+            return bookId == 2L
+                    ? new BackgroundJobTasks.Outcome(false, Map.of("bookId", bookId), "No call number found")
+                    : new BackgroundJobTasks.Outcome(true, Map.of("bookId", bookId), null);
+        });
+
+        BackgroundJobDto started = backgroundJobService.start(BackgroundJob.Type.LOC_LOOKUP, List.of(3L, 2L, 1L));
+        assertEquals(3, started.getTotal());
+        BackgroundJobDto job = awaitStatus(started.getId(), BackgroundJob.Status.COMPLETED);
+
+        assertEquals(2, job.getSucceeded());
+        assertEquals(1, job.getFailed());
+        List<BackgroundJobItemDto> items = job.getItems();
+        assertEquals(List.of(3L, 2L, 1L), items.stream().map(BackgroundJobItemDto::getTargetId).toList());
+        assertEquals(BackgroundJobItem.Status.FAILED, items.get(1).getStatus());
+        assertEquals("No call number found", items.get(1).getErrorMessage());
+        assertEquals("{\"bookId\":3}", items.get(0).getResult());
+
+        // Polls fetch only the items that finished after the last one seen
+        assertEquals(List.of(1L), backgroundJobService.getJob(started.getId(), items.get(1).getChangeSeq())
+                .getItems().stream().map(BackgroundJobItemDto::getTargetId).toList());
+
+        String librarianId = librarian.getId().toString();
+        assertEquals(Map.of(1L, librarianId, 2L, librarianId, 3L, librarianId), principals);
+    }
+
+    @Test
+    void cancelStopsRunningJobBeforeItsNextItem() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(tasks.process(eq(BackgroundJob.Type.FREE_TEXT_LOOKUP), anyLong())).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return new BackgroundJobTasks.Outcome(true, null, null);
+        });
+
+        Long jobId = backgroundJobService.start(BackgroundJob.Type.FREE_TEXT_LOOKUP, List.of(1L, 2L, 3L)).getId();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(backgroundJobService.cancel(jobId).isCancelRequested());
+        release.countDown();
+
+        BackgroundJobDto job = awaitStatus(jobId, BackgroundJob.Status.CANCELLED);
+        assertEquals(1, job.getSucceeded());
+        assertEquals(2, job.getCancelled());
+        assertFalse(job.isCancelRequested());
+        verify(tasks, times(1)).process(any(), anyLong());
+    }
+
+    @Test
+    void retryRunsOnlyFailedItemsAgain() throws Exception {
+        BackgroundJobTasks.Outcome success = new BackgroundJobTasks.Outcome(true, null, null);
+        when(tasks.process(BackgroundJob.Type.GENRE_LOOKUP, 1L)).thenReturn(success);
+        when(tasks.process(BackgroundJob.Type.GENRE_LOOKUP, 2L))
+                .thenThrow(new RuntimeException("Grok unavailable"))
+                .thenReturn(success);
+
+        Long jobId = backgroundJobService.start(BackgroundJob.Type.GENRE_LOOKUP, List.of(2L, 1L)).getId();
+        BackgroundJobDto job = awaitStatus(jobId, BackgroundJob.Status.COMPLETED);
+        assertEquals(1, job.getFailed());
+        assertEquals("Grok unavailable", job.getItems().get(0).getErrorMessage());
+        long seen = job.getItems().stream().mapToLong(BackgroundJobItemDto::getChangeSeq).max().orElseThrow();
+
+        backgroundJobService.retry(jobId);
+        job = awaitStatus(jobId, BackgroundJob.Status.COMPLETED);
+        assertEquals(2, job.getSucceeded());
+        assertEquals(0, job.getFailed());
+        assertEquals(List.of(1, 2), job.getItems().stream().map(BackgroundJobItemDto::getAttempts).toList());
+
+        // A poll after the last change seen gets the retried first item, below the last item seen
+        List<BackgroundJobItemDto> changed = backgroundJobService.getJob(jobId, seen).getItems();
+        assertEquals(List.of(2L), changed.stream().map(BackgroundJobItemDto::getTargetId).toList());
+        assertEquals(BackgroundJobItem.Status.SUCCEEDED, changed.get(0).getStatus());
+        verify(tasks, times(1)).process(BackgroundJob.Type.GENRE_LOOKUP, 1L);
+    }
+
+    @Test
+    void resumesJobWhoseOwnerStoppedHeartbeating() throws Exception {
+        when(tasks.process(eq(BackgroundJob.Type.GROKIPEDIA_AUTHORS), anyLong()))
+                .thenReturn(new BackgroundJobTasks.Outcome(true, null, null));
+        Long abandoned = insertRunningJob("dead-instance", "now() - interval '1 hour'", List.of(10L, 11L, 12L), 1);
+        Long alive = insertRunningJob("live-instance", "now()", List.of(20L), 0);
+
+        backgroundJobService.dispatch();
+
+        BackgroundJobDto job = awaitStatus(abandoned, BackgroundJob.Status.COMPLETED);
+        assertEquals(3, job.getSucceeded());
+        verify(tasks, never()).process(any(), eq(10L));
+        verify(tasks).process(BackgroundJob.Type.GROKIPEDIA_AUTHORS, 11L);
+        verify(tasks).process(BackgroundJob.Type.GROKIPEDIA_AUTHORS, 12L);
+        // A job whose owner is still heartbeating is left alone
+        verify(tasks, never()).process(any(), eq(20L));
+        assertEquals("live-instance", jdbcTemplate.queryForObject(
+                "SELECT owner FROM background_job WHERE id = ?", String.class, alive));
+    }
+
+    /**
+     * A job as an instance leaves it mid-run, with its first {@code processed} items done.
+     */
+    private Long insertRunningJob(String owner, String heartbeatAt, List<Long> targets, int processed) {
+        Long jobId = jdbcTemplate.queryForObject("INSERT INTO background_job (type, status, total, succeeded, failed, "
+                + "cancelled, cancel_requested, owner, heartbeat_at, created_at, started_at) "
+                + "VALUES ('GROKIPEDIA_AUTHORS', 'RUNNING', ?, ?, 0, 0, false, ?, " + heartbeatAt + ", now(), now()) "
+                + "RETURNING id", Long.class, targets.size(), processed, owner);
+        for (int i = 0; i < targets.size(); i++) {
+            jdbcTemplate.update("INSERT INTO background_job_item (job_id, item_order, target_id, status, attempts) "
+                    + "VALUES (?, ?, ?, ?, ?)", jobId, i, targets.get(i), i < processed ? "SUCCEEDED" : "PENDING",
+                    i < processed ? 1 : 0);
+        }
+        return jobId;
+    }
+
+    private BackgroundJobDto awaitStatus(Long jobId, BackgroundJob.Status status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        BackgroundJobDto job = backgroundJobService.getJob(jobId, -1);
+        while (job.getStatus() != status && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            job = backgroundJobService.getJob(jobId, -1);
+        }
+        assertEquals(status, job.getStatus(), "status of job " + jobId);
+        return job;
+    }
+
+    private void deleteJobs() {
+        jdbcTemplate.update("DELETE FROM background_job_item");
+        jdbcTemplate.update("DELETE FROM background_job");
+    }
+}
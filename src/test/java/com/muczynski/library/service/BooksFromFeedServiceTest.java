@@ -204,20 +204,29 @@ class BooksFromFeedServiceTest {
         branch.setId(10L);
         when(branchService.getOrCreateDefaultBranch()).thenReturn(branch);
 
-        // Photo without description (not already processed), but download will fail
-        // since we can't actually download in unit tests - instead test the error path
+        // Photo without description (not already processed) whose bytes are already saved
         Map<String, Object> photo = new HashMap<>();
         photo.put("id", "photo-2");
         photo.put("name", "duplicate.jpg");
         photo.put("url", "https://example.com/photo.jpg");
+        when(googlePhotosService.downloadPhotoFromUrl("https://example.com/photo.jpg", "token"))
+                .thenReturn(new byte[]{1, 2, 3});
+
+        Book existingBook = new Book();
+        existingBook.setId(5L);
+        existingBook.setTitle("The Great Gatsby");
+        Photo existing = new Photo();
+        existing.setBook(existingBook);
+        when(photoRepository.findAllByImageChecksumOrderByIdAsc(anyString())).thenReturn(List.of(existing));
 
-        // The download will throw since we can't mock the private HTTP method,
-        // but the error should be caught and returned gracefully
         Map<String, Object> result = booksFromFeedService.saveSinglePhotoFromPicker(photo);
 
-        assertEquals(false, result.get("success"));
-        assertNotNull(result.get("error"));
+        assertEquals(true, result.get("success"));
+        assertEquals(true, result.get("skipped"));
+        assertEquals(true, result.get("existingPhoto"));
+        assertEquals(5L, result.get("bookId"));
         assertEquals("duplicate.jpg", result.get("photoName"));
+        verify(bookService, never()).createBook(any());
     }
 
     @Test
@@ -235,6 +244,8 @@ class BooksFromFeedServiceTest {
         photo.put("id", "photo-3");
         photo.put("name", "failed.jpg");
         photo.put("url", "https://invalid-url.example.com/photo.jpg");
+        when(googlePhotosService.downloadPhotoFromUrl("https://invalid-url.example.com/photo.jpg", "token"))
+                .thenThrow(new LibraryException("Failed to download photo: 404 Not Found"));
 
         Map<String, Object> result = booksFromFeedService.saveSinglePhotoFromPicker(photo);
 
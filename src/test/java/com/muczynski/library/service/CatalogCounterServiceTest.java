@@ -0,0 +1,233 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.TestEntityHelper;
+import com.muczynski.library.domain.*;
+import com.muczynski.library.dto.BranchStatisticsDto;
+import com.muczynski.library.dto.PhotoExportStatsDto;
+import com.muczynski.library.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The counters behind the branch statistics, user loan counts, label counts and photo export
+ * stats must follow every kind of write. Each test ends with a reconcile that finds nothing
+ * to correct, which checks every counter against a fresh count.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogCounterServiceTest {
+
+    private static final String BORROWER = "counter-borrower";
+
+    @Autowired
+    private CatalogCounterService catalogCounterService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PhotoExportService photoExportService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Library north;
+    private Library south;
+    private Author author;
+    private User borrower;
+
+    @BeforeEach
+    void setUp() {
+        photoRepository.deleteAll();
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+        userRepository.deleteAll(userRepository.findAllByUsernameOrderByIdAsc(BORROWER));
+
+        north = TestEntityHelper.findOrCreateLibrary(branchRepository, "Counter North", "System");
+        south = TestEntityHelper.findOrCreateLibrary(branchRepository, "Counter South", "System");
+        author = TestEntityHelper.findOrCreateAuthor(authorRepository, "Counter Author");
+        User user = new User();
+        user.setUsername(BORROWER);
+        user.setPassword("{bcrypt}$2a$10$...");
+        user.setUserIdentifier(BORROWER + "-id");
+        user.setAuthorities(Set.of(TestEntityHelper.findOrCreateAuthority(authorityRepository, "USER")));
+        borrower = userRepository.save(user);
+    }
+
+    @Test
+    void branchAndUserCountsFollowLoansAndBranchMoves() {
+        Book lent = saveBook("Lent Book", north, List.of("fiction"));
+        saveBook("Shelved Book", north, List.of("history"));
+        Loan loan = saveLoan(lent);
+
+        assertBranch(north, 2, 1);
+        assertBranch(south, 0, 0);
+        assertEquals(1, userService.getUserById(borrower.getId()).getActiveLoansCount());
+
+        // The open loan moves with its book
+        lent.setLibrary(south);
+        lent = bookRepository.save(lent);
+        assertBranch(north, 1, 0);
+        assertBranch(south, 1, 1);
+
+        loan.setReturnDate(LocalDate.now());
+        loanRepository.save(loan);
+        assertBranch(south, 1, 0);
+        assertEquals(0, userService.getUserById(borrower.getId()).getActiveLoansCount());
+        assertTrue(userService.getAllUsers().stream()
+                .filter(user -> user.getId().equals(borrower.getId()))
+                .allMatch(user -> user.getActiveLoansCount() == 0));
+
+        loanRepository.delete(loan);
+        bookRepository.delete(lent);
+        assertBranch(south, 0, 0);
+        assertEquals(0, catalogCounterService.reconcile());
+    }
+
+    @Test
+    void labelsCountBooksNotTagRows() {
+        Book book = saveBook("Tagged Book", north, List.of("fiction", "fiction", "poetry"));
+        saveBook("Other Book", north, List.of("fiction"));
+
+        assertEquals(2, catalogCounterService.get(CatalogCounterService.label("fiction")));
+        assertEquals(1, catalogCounterService.get(CatalogCounterService.label("poetry")));
+
+        // Collection changes rewrite the book's tag rows
+        book.setTagsList(new ArrayList<>(List.of("fiction", "history")));
+        book = bookRepository.save(book);
+        assertEquals(2, catalogCounterService.get(CatalogCounterService.label("fiction")));
+        assertEquals(0, catalogCounterService.get(CatalogCounterService.label("poetry")));
+        assertEquals(1, catalogCounterService.get(CatalogCounterService.label("history")));
+
+        // Writes that bypass JPA are counted too
+        jdbcTemplate.update("UPDATE book_tags SET tag = 'poetry' WHERE book_id = ? AND tag = 'history'", book.getId());
+        jdbcTemplate.update("INSERT INTO book_tags (book_id, tag) VALUES (?, 'poetry')", book.getId());
+        assertEquals(0, catalogCounterService.get(CatalogCounterService.label("history")));
+        assertEquals(1, catalogCounterService.get(CatalogCounterService.label("poetry")));
+
+        bookRepository.delete(book);
+        assertEquals(1, catalogCounterService.get(CatalogCounterService.label("fiction")));
+        assertEquals(0, catalogCounterService.get(CatalogCounterService.label("poetry")));
+        assertEquals(0, catalogCounterService.reconcile());
+    }
+
+    @Test
+    void photoStatsFollowExportState() {
+        Book book = saveBook("Photographed Book", north, List.of());
+        Photo photo = new Photo();
+        photo.setBook(book);
+        photo.setContentType("image/jpeg");
+        photo.setPhotoOrder(0);
+        photo.setImageChecksum("counter-checksum");
+        photo.setExportStatus(Photo.ExportStatus.PENDING);
+        photo = photoRepository.save(photo);
+
+        PhotoExportStatsDto stats = photoExportService.getExportStats();
+        assertEquals(1, stats.getTotal());
+        assertEquals(1, stats.getPendingExport());
+        assertEquals(0, stats.getExported());
+
+        photo.setPermanentId("counter-permanent-id");
+        photo.setExportStatus(Photo.ExportStatus.COMPLETED);
+        photo = photoRepository.save(photo);
+        stats = photoExportService.getExportStats();
+        assertEquals(0, stats.getPendingExport());
+        assertEquals(1, stats.getExported());
+        assertEquals(1, stats.getImported());
+
+        jdbcTemplate.update("UPDATE photo SET image_checksum = NULL, export_status = 'FAILED' WHERE id = ?", photo.getId());
+        stats = photoExportService.getExportStats();
+        assertEquals(0, stats.getImported());
+        assertEquals(0, stats.getPendingImport());
+        assertEquals(1, stats.getFailed());
+
+        photo = photoRepository.findById(photo.getId()).orElseThrow();
+        photo.setDeletedAt(LocalDateTime.now());
+        photoRepository.save(photo);
+        stats = photoExportService.getExportStats();
+        assertEquals(0, stats.getTotal());
+        assertEquals(0, stats.getFailed());
+        assertEquals(0, catalogCounterService.reconcile());
+    }
+
+    @Test
+    void reconcileCorrectsDrift() {
+        saveBook("Counted Book", north, List.of("fiction"));
+        long books = bookRepository.count();
+        // Counter writes don't fire the triggers, so this is drift the triggers can't see
+        jdbcTemplate.update("UPDATE catalog_counter SET value = value + 5 WHERE name = ?", CatalogCounterService.BOOKS);
+        jdbcTemplate.update("INSERT INTO catalog_counter (name, value) VALUES (?, 3)",
+                CatalogCounterService.branchBooks(-1L));
+
+        assertEquals(2, catalogCounterService.reconcile());
+        assertEquals(books, catalogCounterService.get(CatalogCounterService.BOOKS));
+        assertEquals(0, catalogCounterService.get(CatalogCounterService.branchBooks(-1L)));
+        assertFalse(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM catalog_counter WHERE value = 0)",
+                Boolean.class));
+        assertEquals(0, catalogCounterService.reconcile());
+    }
+
+    private void assertBranch(Library branch, long books, long activeLoans) {
+        BranchStatisticsDto stats = branchService.getBranchStatistics().stream()
+                .filter(s -> s.getBranchId().equals(branch.getId()))
+                .findFirst().orElseThrow();
+        assertEquals(books, stats.getBookCount(), "books in " + branch.getBranchName());
+        assertEquals(activeLoans, stats.getActiveLoansCount(), "active loans in " + branch.getBranchName());
+    }
+
+    private Book saveBook(String title, Library branch, List<String> tags) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setLibrary(branch);
+        book.setTagsList(new ArrayList<>(tags));
+        return bookRepository.save(book);
+    }
+
+    private Loan saveLoan(Book book) {
+        Loan loan = new Loan();
+        loan.setBook(book);
+        loan.setUser(borrower);
+        return loanRepository.save(loan);
+    }
+}
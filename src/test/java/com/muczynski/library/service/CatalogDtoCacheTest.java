@@ -0,0 +1,177 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.muczynski.library.domain.Author;
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.domain.CatalogChangeEvent;
+import com.muczynski.library.domain.Loan;
+import com.muczynski.library.domain.Photo;
+import com.muczynski.library.dto.AuthorDto;
+import com.muczynski.library.dto.BookDto;
+import com.muczynski.library.dto.DtoCacheStatsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CatalogDtoCache}.
+ */
+class CatalogDtoCacheTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2025, 1, 1, 12, 0);
+    private static final LocalDateTime T2 = LocalDateTime.of(2025, 1, 2, 12, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private CatalogDtoCache cache;
+    private List<List<Long>> bookLoads;
+    private LocalDateTime bookLastModified;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CatalogDtoCache(objectMapper, 1 << 20, 10);
+        bookLoads = new ArrayList<>();
+        bookLastModified = T1;
+    }
+
+    @Test
+    void secondFetchIsServedFromCache() {
+        cache.getBooks(Map.of(1L, T1, 2L, T1), bookLoader());
+        List<CatalogDtoCache.Entry<BookDto>> entries = cache.getBooks(Map.of(1L, T1, 2L, T1), bookLoader());
+
+        assertEquals(List.of(List.of(1L, 2L)), sorted(bookLoads));
+        assertEquals(2, entries.size());
+        DtoCacheStatsDto stats = cache.getStats().get(0);
+        assertEquals("books", stats.getName());
+        assertEquals(2, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(0.5, stats.getHitRate());
+        assertTrue(stats.getWeightedBytes() > 0);
+    }
+
+    @Test
+    void newerLastModifiedReloads() {
+        cache.getBooks(Map.of(1L, T1), bookLoader());
+        bookLastModified = T2;
+        List<CatalogDtoCache.Entry<BookDto>> entries = cache.getBooks(Map.of(1L, T2), bookLoader());
+
+        assertEquals(2, bookLoads.size());
+        assertEquals(T2, entries.get(0).lastModified());
+        assertEquals(T2, entries.get(0).dto().getLastModified());
+    }
+
+    @Test
+    void jsonMatchesTheDtoAndJoinsIntoAnArray() throws Exception {
+        List<CatalogDtoCache.Entry<BookDto>> entries = new ArrayList<>(cache.getBooks(Map.of(1L, T1, 2L, T1), bookLoader()));
+        entries.sort((a, b) -> Long.compare(a.dto().getId(), b.dto().getId()));
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(entries.get(0).dto()), entries.get(0).json());
+        String array = new String(CatalogDtoCache.toJsonArray(entries), StandardCharsets.UTF_8);
+        assertEquals(objectMapper.writeValueAsString(List.of(entries.get(0).dto(), entries.get(1).dto())), array);
+        assertEquals("[]", new String(CatalogDtoCache.toJsonArray(List.of()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void loanAndPhotoChangesEvictTheirBook() {
+        cache.getBooks(Map.of(1L, T1, 2L, T1), bookLoader());
+
+        Loan loan = new Loan();
+        loan.setBook(book(1L));
+        cache.onCatalogChange(new CatalogChangeEvent(loan, false));
+        Photo photo = new Photo();
+        photo.setBook(book(2L));
+        cache.onCatalogChange(new CatalogChangeEvent(photo, true));
+        cache.getBooks(Map.of(1L, T1, 2L, T1), bookLoader());
+
+        assertEquals(List.of(List.of(1L, 2L), List.of(1L, 2L)), sorted(bookLoads));
+    }
+
+    @Test
+    void authorChangeEvictsTheAuthorsBooksOnly() {
+        cache.getBooks(Map.of(1L, T1, 2L, T1), bookLoader());
+
+        Author author = new Author();
+        author.setId(101L);
+        cache.onCatalogChange(new CatalogChangeEvent(author, false));
+        cache.getBooks(Map.of(1L, T1, 2L, T1), bookLoader());
+
+        assertEquals(List.of(List.of(1L, 2L), List.of(1L)), sorted(bookLoads));
+    }
+
+    @Test
+    void bookChangeEvictsAuthorsForTheirBookCounts() {
+        List<List<Long>> authorLoads = new ArrayList<>();
+        Function<List<Long>, List<AuthorDto>> authorLoader = ids -> {
+            authorLoads.add(List.copyOf(ids));
+            return ids.stream().map(id -> {
+                AuthorDto dto = new AuthorDto();
+                dto.setId(id);
+                dto.setLastModified(T1);
+                return dto;
+            }).toList();
+        };
+        cache.getAuthors(Map.of(101L, T1), authorLoader);
+
+        cache.onCatalogChange(new CatalogChangeEvent(book(1L), true));
+        cache.getAuthors(Map.of(101L, T1), authorLoader);
+
+        assertEquals(2, authorLoads.size());
+    }
+
+    /**
+     * A load that overlaps an invalidation may have read the old state: it is returned to its
+     * caller but not cached.
+     */
+    @Test
+    void loadOverlappingAnInvalidationIsNotCached() {
+        Loan loan = new Loan();
+        loan.setBook(book(1L));
+        cache.getBooks(Map.of(1L, T1), ids -> {
+            cache.onCatalogChange(new CatalogChangeEvent(loan, false));
+            return bookLoader().apply(ids);
+        });
+        cache.getBooks(Map.of(1L, T1), bookLoader());
+
+        assertEquals(2, bookLoads.size());
+        assertEquals(0, cache.getStats().get(0).getHitCount());
+    }
+
+    private Function<List<Long>, List<BookDto>> bookLoader() {
+        return ids -> {
+            bookLoads.add(List.copyOf(ids));
+            return ids.stream().map(id -> {
+                BookDto dto = new BookDto();
+                dto.setId(id);
+                dto.setTitle("Book " + id);
+                dto.setAuthorId(id == 1L ? 101L : 102L);
+                dto.setLastModified(bookLastModified);
+                return dto;
+            }).toList();
+        };
+    }
+
+    private static Book book(long id) {
+        Book book = new Book();
+        book.setId(id);
+        return book;
+    }
+
+    private static List<List<Long>> sorted(List<List<Long>> loads) {
+        return loads.stream().map(ids -> ids.stream().sorted().toList()).toList();
+    }
+}
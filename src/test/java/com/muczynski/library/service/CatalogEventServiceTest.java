@@ -0,0 +1,201 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.domain.Author;
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.domain.CatalogChangeEvent;
+import com.muczynski.library.domain.Loan;
+import com.muczynski.library.dto.CatalogEventDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CatalogEventService}, with emitters that record what would be written
+ * to the connection.
+ */
+class CatalogEventServiceTest {
+
+    private CatalogEventService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CatalogEventService(60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void changesArePushedInCommitOrder() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        service.subscribe(emitter, false);
+
+        service.onCatalogChange(new CatalogChangeEvent(book(1L), false));
+        service.onCatalogChange(new CatalogChangeEvent(author(7L), false));
+        service.onCatalogChange(new CatalogChangeEvent(book(1L), true));
+
+        waitFor(() -> emitter.changes().size() == 3);
+        List<CatalogEventDto> changes = emitter.changes();
+        assertEquals("book", changes.get(0).getType());
+        assertEquals(1L, changes.get(0).getId());
+        assertEquals(101L, changes.get(0).getAuthorId());
+        assertFalse(changes.get(0).isDeleted());
+        assertEquals("author", changes.get(1).getType());
+        assertTrue(changes.get(2).isDeleted());
+        assertEquals("ping", emitter.events.get(0), "Connection opens with a heartbeat");
+    }
+
+    @Test
+    void loansGoToLibrariansOnly() throws Exception {
+        RecordingEmitter anonymous = new RecordingEmitter();
+        RecordingEmitter librarian = new RecordingEmitter();
+        service.subscribe(anonymous, false);
+        service.subscribe(librarian, true);
+
+        Loan loan = new Loan();
+        loan.setId(5L);
+        loan.setBook(book(1L));
+        service.onCatalogChange(new CatalogChangeEvent(loan, false));
+        service.onCatalogChange(new CatalogChangeEvent(book(1L), false));
+
+        waitFor(() -> librarian.changes().size() == 2 && anonymous.changes().size() == 1);
+        assertEquals("loan", librarian.changes().get(0).getType());
+        assertEquals(1L, librarian.changes().get(0).getBookId());
+        assertEquals("book", anonymous.changes().get(0).getType());
+    }
+
+    /**
+     * A client that stops reading loses its backlog and gets a resync; a client on the other
+     * sender thread still gets every event.
+     */
+    @Test
+    void slowSubscriberGetsResyncWithoutHoldingUpOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter();
+        service.subscribe(slow, false);
+        waitFor(() -> slow.blocked);
+        service.subscribe(fast, false);
+
+        int published = CatalogEventService.QUEUE_CAPACITY * 2;
+        for (long id = 1; id <= published; id++) {
+            service.onCatalogChange(new CatalogChangeEvent(book(id), false));
+        }
+        waitFor(() -> fast.changes().size() == published);
+        release.countDown();
+
+        waitFor(() -> slow.events.contains("resync"));
+        assertTrue(slow.changes().size() < published);
+        assertEquals(2, service.getSubscriberCount());
+    }
+
+    @Test
+    void failedSendDropsTheSubscriber() throws Exception {
+        RecordingEmitter broken = new RecordingEmitter();
+        broken.fail = true;
+        service.subscribe(broken, false);
+
+        waitFor(() -> service.getSubscriberCount() == 0);
+        service.onCatalogChange(new CatalogChangeEvent(book(1L), false));
+        assertTrue(broken.changes().isEmpty());
+    }
+
+    @Test
+    void unrelatedEntitiesAreIgnored() {
+        assertNull(CatalogEventService.toDto(new CatalogChangeEvent("not an entity", false)));
+        assertNull(CatalogEventService.toDto(new CatalogChangeEvent(new Book(), false)), "Unsaved entity");
+    }
+
+    private static Book book(long id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setAuthor(author(101L));
+        return book;
+    }
+
+    private static Author author(long id) {
+        Author author = new Author();
+        author.setId(id);
+        return author;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for condition");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Records each event's kind ("ping", "change" or "resync") and change payloads instead of
+     * writing them. Optionally blocks its first send until released, like a client that has
+     * stopped reading.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final List<Object> data = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        volatile boolean blocked;
+        volatile boolean fail;
+
+        RecordingEmitter() {
+            this(null);
+        }
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fail) {
+                throw new IOException("Broken pipe");
+            }
+            if (release != null && release.getCount() > 0) {
+                blocked = true;
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> parts = builder.build();
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : parts) {
+                if (part.getData() instanceof String s) {
+                    text.append(s);
+                } else {
+                    data.add(part.getData());
+                }
+            }
+            events.add(text.toString().startsWith(":") ? "ping"
+                    : text.toString().contains("event:resync") ? "resync" : "change");
+        }
+
+        List<CatalogEventDto> changes() {
+            return data.stream()
+                    .filter(CatalogEventDto.class::isInstance)
+                    .map(CatalogEventDto.class::cast)
+                    .toList();
+        }
+    }
+}
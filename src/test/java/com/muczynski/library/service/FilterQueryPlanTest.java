@@ -0,0 +1,230 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.domain.Author;
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.dto.AuthorSummaryDto;
+import com.muczynski.library.dto.BookSummaryDto;
+import com.muczynski.library.dto.ShelfPageDto;
+import com.muczynski.library.repository.AuthorRepository;
+import com.muczynski.library.repository.BookRepository;
+import com.muczynski.library.repository.LoanRepository;
+import com.muczynski.library.repository.PhotoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.muczynski.library.QueryCounter.record;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The book and author filter endpoints, and the shelf browse, must be answerable from
+ * indexes. Each test checks what a query returns, then runs EXPLAIN on the SQL it issued with
+ * sequential scans disabled: a plan that still scans the table means the predicate can't use
+ * an index.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FilterQueryPlanTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static final LocalDateTime LATEST = LocalDateTime.of(2025, 6, 10, 9, 30);
+
+    private Author describedAuthor;
+    private Author bareAuthor;
+    private Author authorWithoutBooks;
+    private Book placeholderBook;
+    private Book catalogedBook;
+    private Book oldBook;
+    private Book blankBook;
+
+    @BeforeEach
+    void setUp() {
+        photoRepository.deleteAll();
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        describedAuthor = saveAuthor("Described Author", "A biography", "https://grokipedia.com/page/Described");
+        bareAuthor = saveAuthor("Bare Author", "   ", "");
+        authorWithoutBooks = saveAuthor("Author Without Books", null, null);
+
+        placeholderBook = saveBook("2025-01-05 10:15", describedAuthor, LATEST.minusDays(30), null, null);
+        catalogedBook = saveBook("Cataloged Book", describedAuthor, LATEST, "BXS 1234", "https://grokipedia.com/page/Cataloged");
+        oldBook = saveBook("Old Book", bareAuthor, LATEST.minusDays(30), "PS 3545", "https://grokipedia.com/page/Old");
+        blankBook = saveBook("Blank Book", bareAuthor, LATEST.minusDays(1).withHour(0), " ", "");
+    }
+
+    @Test
+    void blankValuesAreStoredAsNull() {
+        Book book = bookRepository.findById(blankBook.getId()).orElseThrow();
+        assertNull(book.getLocNumber());
+        assertNull(book.getGrokipediaUrl());
+        Author author = authorRepository.findById(bareAuthor.getId()).orElseThrow();
+        assertNull(author.getBriefBiography());
+        assertNull(author.getGrokipediaUrl());
+    }
+
+    @Test
+    void generatedColumnsFollowTitleAndLocNumber() {
+        Book book = bookRepository.findById(placeholderBook.getId()).orElseThrow();
+        assertTrue(book.getTemporaryTitle());
+        assertNull(book.getThreeLetterLocClass());
+        assertEquals("BXS", bookRepository.findById(catalogedBook.getId()).orElseThrow().getThreeLetterLocClass());
+
+        book.setTitle("Real Title");
+        book.setLocNumber("QAB 76.73");
+        book = bookRepository.save(book);
+        assertFalse(book.getTemporaryTitle());
+        assertEquals("QAB", book.getThreeLetterLocClass());
+    }
+
+    @Test
+    void bookFiltersUseIndexes() {
+        assertEquals(Set.of(blankBook.getId()), bookIds(bookService::getSummariesWithoutLocNumber));
+        assertEquals(Set.of(placeholderBook.getId(), blankBook.getId()), bookIds(bookService::getSummariesWithoutGrokipediaUrl));
+        assertEquals(Set.of(catalogedBook.getId()), bookIds(bookService::getSummariesWith3LetterLocStart));
+        // The latest day and the day before, plus placeholder titles from any day
+        assertEquals(Set.of(placeholderBook.getId(), catalogedBook.getId(), blankBook.getId()),
+                bookIds(bookService::getSummariesFromMostRecentDay));
+        assertEquals(List.of(placeholderBook.getId()), bookRepository.findBookIdsWithTemporaryTitles());
+
+        assertNoSeqScan("book", bookService::getSummariesWithoutLocNumber);
+        assertNoSeqScan("book", bookService::getSummariesWithoutGrokipediaUrl);
+        assertNoSeqScan("book", bookService::getSummariesWith3LetterLocStart);
+        assertNoSeqScan("book", bookService::getSummariesFromMostRecentDay);
+        assertNoSeqScan("book", bookRepository::findBookIdsWithTemporaryTitles);
+    }
+
+    @Test
+    void authorFiltersUseIndexes() {
+        assertEquals(Set.of(bareAuthor.getId(), authorWithoutBooks.getId()),
+                authorIds(authorService::getSummariesWithoutDescription));
+        assertEquals(Set.of(bareAuthor.getId(), authorWithoutBooks.getId()),
+                authorIds(authorService::getSummariesWithoutGrokipedia));
+        assertEquals(Set.of(authorWithoutBooks.getId()), authorIds(authorService::getSummariesWithZeroBooks));
+        assertEquals(Set.of(describedAuthor.getId()), authorIds(authorService::getSummariesFromMostRecentDay));
+
+        assertNoSeqScan("author", authorService::getSummariesWithoutDescription);
+        assertNoSeqScan("author", authorService::getSummariesWithoutGrokipedia);
+        // Every author is a candidate for zero books; the book side must be an index probe
+        assertNoSeqScan("book", authorService::getSummariesWithZeroBooks);
+        assertNoSeqScan("book", authorService::getSummariesFromMostRecentDay);
+    }
+
+    @Test
+    void shelfPagesFollowCallNumbersAndUseTheIndex() {
+        Book first = saveBook("Shelf One", bareAuthor, LATEST, "BX 4705.M124", null);
+        Book second = saveBook("Shelf Two", bareAuthor, LATEST, "BX 4705.5 .A1", null);
+        Book third = saveBook("Shelf Three", bareAuthor, LATEST, "BX 4710", null);
+        saveBook("Shelf Four", bareAuthor, LATEST, "BX 4711", null);
+
+        ShelfPageDto page = bookService.getShelfPage("BX 4700", "BX 4710", null, null, 2);
+        assertEquals(List.of(first.getId(), second.getId()), shelfIds(page));
+        ShelfPageDto next = bookService.getShelfPage("BX 4700", "BX 4710", page.getNextAfterKey(), page.getNextAfterId(), 2);
+        assertEquals(List.of(third.getId()), shelfIds(next));
+        assertNull(next.getNextAfterKey());
+
+        // BX before BXS before PS; books without a LOC number aren't on the shelf
+        List<Long> shelf = shelfIds(bookService.getShelfPage(null, null, null, null, 50));
+        assertEquals(List.of(first.getId(), second.getId(), third.getId()), shelf.subList(0, 3));
+        assertEquals(List.of(catalogedBook.getId(), oldBook.getId()), shelf.subList(4, 6));
+        assertEquals(6, shelf.size());
+
+        assertNoSeqScan("book", () -> bookService.getShelfPage("BX 4700", "BX 4710",
+                page.getNextAfterKey(), page.getNextAfterId(), 2));
+    }
+
+    private void assertNoSeqScan(String table, Runnable query) {
+        for (String sql : record(query)) {
+            String plan = explain(sql);
+            assertFalse(plan.contains("Seq Scan on " + table + " "), "Sequential scan on " + table + " for:\n"
+                    + sql + "\n" + plan);
+        }
+    }
+
+    /**
+     * The generic plan for the statement, with sequential scans priced out so the planner
+     * picks any index that the predicates allow, even for the few rows in this test.
+     */
+    private String explain(String sql) {
+        // Hibernate's JDBC placeholders to the numbered parameters EXPLAIN (GENERIC_PLAN) accepts
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numbered, String.class));
+        });
+    }
+
+    private static Set<Long> bookIds(java.util.function.Supplier<List<BookSummaryDto>> summaries) {
+        return summaries.get().stream().map(BookSummaryDto::getId).collect(Collectors.toSet());
+    }
+
+    private static List<Long> shelfIds(ShelfPageDto page) {
+        return page.getBooks().stream().map(BookSummaryDto::getId).toList();
+    }
+
+    private static Set<Long> authorIds(java.util.function.Supplier<List<AuthorSummaryDto>> summaries) {
+        return summaries.get().stream().map(AuthorSummaryDto::getId).collect(Collectors.toSet());
+    }
+
+    private Author saveAuthor(String name, String biography, String grokipediaUrl) {
+        Author author = new Author();
+        author.setName(name);
+        author.setBriefBiography(biography);
+        author.setGrokipediaUrl(grokipediaUrl);
+        return authorRepository.save(author);
+    }
+
+    private Book saveBook(String title, Author author, LocalDateTime dateAdded, String locNumber, String grokipediaUrl) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setDateAddedToLibrary(dateAdded);
+        book.setLocNumber(locNumber);
+        book.setGrokipediaUrl(grokipediaUrl);
+        return bookRepository.save(book);
+    }
+}
@@ -5,6 +5,7 @@ package com.muczynski.library.service;
 
 import com.muczynski.library.domain.User;
 import com.muczynski.library.dto.UserDto;
+import com.muczynski.library.exception.LibraryException;
 import com.muczynski.library.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,12 +14,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Instant;
@@ -122,6 +125,32 @@ class GooglePhotosServiceTest {
         );
     }
 
+    @Test
+    void downloadPhotoFromUrl_sendsBearerTokenThroughRestTemplate() {
+        byte[] expectedBytes = new byte[]{1, 2, 3};
+        when(restTemplate.exchange(
+                eq("https://example.com/picked=d"),
+                eq(HttpMethod.GET),
+                argThat((HttpEntity<?> entity) -> "Bearer picker-token".equals(
+                        entity.getHeaders().getFirst(HttpHeaders.AUTHORIZATION))),
+                eq(byte[].class)
+        )).thenReturn(new ResponseEntity<>(expectedBytes, HttpStatus.OK));
+
+        assertArrayEquals(expectedBytes,
+                googlePhotosService.downloadPhotoFromUrl("https://example.com/picked", "picker-token"));
+    }
+
+    @Test
+    void downloadPhotoFromUrl_wrapsHttpErrors() {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(byte[].class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN));
+
+        LibraryException exception = assertThrows(LibraryException.class,
+                () -> googlePhotosService.downloadPhotoFromUrl("https://example.com/picked", "picker-token"));
+
+        assertTrue(exception.getMessage().contains("403"), exception.getMessage());
+    }
+
     @Test
     void downloadPhoto_withoutApiKeyOrRefreshToken_throwsNotConnected() {
         // Arrange - no access token, no refresh token
@@ -8,15 +8,16 @@ import com.muczynski.library.domain.Book;
 import com.muczynski.library.dto.GrokipediaLookupResultDto;
 import com.muczynski.library.repository.AuthorRepository;
 import com.muczynski.library.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Arrays;
@@ -39,9 +40,17 @@ class GrokipediaLookupServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private GrokipediaLookupService grokipediaLookupService;
 
+    @BeforeEach
+    void setUp() {
+        grokipediaLookupService = new GrokipediaLookupService(bookRepository, authorRepository, restTemplate,
+                new LookupTransactions(transactionManager, bookRepository));
+    }
+
     @Test
     void generateGrokipediaUrl_replacesSpacesWithUnderscores() {
         String url = grokipediaLookupService.generateGrokipediaUrl("Little Women");
@@ -0,0 +1,219 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.TestEntityHelper;
+import com.muczynski.library.domain.*;
+import com.muczynski.library.dto.AuthorDto;
+import com.muczynski.library.dto.BookDto;
+import com.muczynski.library.dto.LoanDto;
+import com.muczynski.library.dto.SearchResponseDto;
+import com.muczynski.library.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.muczynski.library.QueryCounter.assertQueryCountIndependentOfSize;
+import static com.muczynski.library.QueryCounter.record;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the list endpoints against N+1 queries: DTO assembly must use a fixed number of
+ * grouped queries however many rows are returned.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ListQueryCountTest {
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    private Author soloAuthor;
+    private Author prolificAuthor;
+    private User soloBorrower;
+    private User busyBorrower;
+
+    @BeforeEach
+    void setUp() {
+        // Photos first: loan photos reference loans
+        photoRepository.deleteAll();
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+        userRepository.deleteAll();
+
+        Library branch = TestEntityHelper.findOrCreateLibrary(branchRepository, "Query Count Branch", "System");
+        Authority authority = TestEntityHelper.findOrCreateAuthority(authorityRepository, "USER");
+        soloBorrower = saveUser("solo", authority);
+        busyBorrower = saveUser("busy", authority);
+
+        // One author with a single book, one with eight, and three more with a book each,
+        // every book and author with a photo and every book on loan
+        soloAuthor = saveAuthor("Solo Author");
+        prolificAuthor = saveAuthor("Prolific Author");
+        saveBook("Solo Book", soloAuthor, branch, soloBorrower);
+        for (int i = 0; i < 8; i++) {
+            saveBook("Prolific Book " + i, prolificAuthor, branch, busyBorrower);
+        }
+        for (int i = 0; i < 3; i++) {
+            saveBook("Other Book " + i, saveAuthor("Other Author " + i), branch, busyBorrower);
+        }
+    }
+
+    @Test
+    void searchQueryCountDoesNotGrowWithPageSize() {
+        assertQueryCountIndependentOfSize(
+                () -> searchService.search("", 0, 1, false, false, false, false, null),
+                () -> searchService.search("", 0, 20, false, false, false, false, null));
+
+        SearchResponseDto results = searchService.search("", 0, 20, false, false, false, false, null);
+        assertEquals(12, results.getBooks().size());
+        BookDto book = results.getBooks().get(0);
+        assertNotNull(book.getFirstPhotoId());
+        assertEquals("checksum-" + book.getTitle(), book.getFirstPhotoChecksum());
+        assertEquals(1L, book.getLoanCount());
+        assertEquals(List.of("query-count"), book.getTagsList());
+        assertNotNull(results.getAuthors().get(0).getFirstPhotoId());
+    }
+
+    /**
+     * Book lists never read the long-form text in book_detail; the single-book endpoint does.
+     */
+    @Test
+    void bookListsSkipLongFormText() {
+        Book book = bookRepository.findAll().stream()
+                .filter(b -> b.getTitle().equals("Solo Book"))
+                .findFirst().orElseThrow();
+        book.setPlotSummary("A long plot summary");
+        book.setDetailedDescription("A long description");
+        bookRepository.save(book);
+        List<Long> allIds = bookRepository.findAll().stream().map(Book::getId).toList();
+
+        List<String> statements = new ArrayList<>();
+        statements.addAll(record(() -> searchService.search("", 0, 20, false, false, false, false, null)));
+        statements.addAll(record(() -> bookService.getBooksByIds(allIds)));
+        statements.addAll(record(() -> bookService.getBooksByAuthorId(soloAuthor.getId())));
+        statements.addAll(record(() -> authorService.getAuthorsByIds(List.of(soloAuthor.getId()))));
+        assertTrue(statements.stream().noneMatch(sql -> sql.contains("book_detail")),
+                "List queries read book_detail:\n" + String.join("\n", statements));
+        assertNull(bookService.getBooksByIds(List.of(book.getId())).get(0).getPlotSummary());
+
+        BookDto full = bookService.getBookById(book.getId());
+        assertEquals("A long plot summary", full.getPlotSummary());
+        assertEquals("A long description", full.getDetailedDescription());
+        assertNull(full.getRelatedWorks());
+    }
+
+    @Test
+    void authorsByIdsQueryCountDoesNotGrowWithIdCount() {
+        List<Long> allIds = authorRepository.findAll().stream().map(Author::getId).toList();
+        assertQueryCountIndependentOfSize(
+                () -> authorService.getAuthorsByIds(List.of(soloAuthor.getId())),
+                () -> authorService.getAuthorsByIds(allIds));
+
+        AuthorDto prolific = authorService.getAuthorsByIds(List.of(prolificAuthor.getId())).get(0);
+        assertEquals(8L, prolific.getBookCount());
+        assertEquals("checksum-Prolific Author", prolific.getFirstPhotoChecksum());
+    }
+
+    @Test
+    void booksByAuthorQueryCountDoesNotGrowWithBookCount() {
+        assertQueryCountIndependentOfSize(
+                () -> bookService.getBooksByAuthorId(soloAuthor.getId()),
+                () -> bookService.getBooksByAuthorId(prolificAuthor.getId()));
+
+        assertEquals(8, bookService.getBooksByAuthorId(prolificAuthor.getId()).size());
+    }
+
+    @Test
+    void loansQueryCountDoesNotGrowWithLoanCount() {
+        assertQueryCountIndependentOfSize(
+                () -> loanService.getLoansByUserId(soloBorrower.getId(), true),
+                () -> loanService.getLoansByUserId(busyBorrower.getId(), true));
+
+        List<LoanDto> loans = loanService.getLoansByUserId(busyBorrower.getId(), true);
+        assertEquals(11, loans.size());
+        assertTrue(loans.stream().allMatch(loan -> loan.getPhotoId() != null
+                && ("checksum-loan-" + loan.getBookTitle()).equals(loan.getPhotoChecksum())));
+    }
+
+    private User saveUser(String username, Authority authority) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{bcrypt}$2a$10$...");
+        user.setUserIdentifier(username + "-id");
+        user.setAuthorities(Set.of(authority));
+        return userRepository.save(user);
+    }
+
+    private Author saveAuthor(String name) {
+        Author author = TestEntityHelper.findOrCreateAuthor(authorRepository, name);
+        savePhoto("checksum-" + name, author, null, null);
+        return author;
+    }
+
+    private void saveBook(String title, Author author, Library branch, User borrower) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setLibrary(branch);
+        book.setTagsList(new ArrayList<>(List.of("query-count")));
+        book = bookRepository.save(book);
+        savePhoto("checksum-" + title, null, book, null);
+
+        Loan loan = new Loan();
+        loan.setBook(book);
+        loan.setUser(borrower);
+        loan = loanRepository.save(loan);
+        savePhoto("checksum-loan-" + title, null, null, loan);
+    }
+
+    private void savePhoto(String checksum, Author author, Book book, Loan loan) {
+        Photo photo = new Photo();
+        photo.setImage(new byte[]{1, 2, 3});
+        photo.setContentType("image/jpeg");
+        photo.setImageChecksum(checksum);
+        photo.setAuthor(author);
+        photo.setBook(book);
+        photo.setLoan(loan);
+        photo.setPhotoOrder(0);
+        photoRepository.save(photo);
+    }
+}
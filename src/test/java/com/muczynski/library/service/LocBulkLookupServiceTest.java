@@ -10,12 +10,13 @@ import com.muczynski.library.model.LocCallNumberResponse;
 import com.muczynski.library.model.LocSearchRequest;
 import com.muczynski.library.repository.BookRepository;
 import com.muczynski.library.repository.PhotoRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Optional;
@@ -40,9 +41,17 @@ class LocBulkLookupServiceTest {
     @Mock
     private AskGrok askGrok;
 
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private LocBulkLookupService locBulkLookupService;
 
+    @BeforeEach
+    void setUp() {
+        locBulkLookupService = new LocBulkLookupService(bookRepository, photoRepository, locCatalogService, askGrok,
+                new LookupTransactions(transactionManager, bookRepository));
+    }
+
     @Test
     void lookupAndUpdateBook_aiSuggestFallback_whenAllStrategiesFail() {
         // Arrange - book without colon in title (skips strategies 3 & 4)
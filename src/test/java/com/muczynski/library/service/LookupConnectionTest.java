@@ -0,0 +1,174 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.TestEntityHelper;
+import com.muczynski.library.domain.Author;
+import com.muczynski.library.domain.Book;
+import com.muczynski.library.dto.FreeTextBulkLookupResultDto;
+import com.muczynski.library.dto.GrokipediaLookupResultDto;
+import com.muczynski.library.dto.LocLookupResultDto;
+import com.muczynski.library.freetext.FreeTextCacheService;
+import com.muczynski.library.freetext.FreeTextLookupResult;
+import com.muczynski.library.freetext.FreeTextLookupService;
+import com.muczynski.library.freetext.FreeTextProvider;
+import com.muczynski.library.model.LocCallNumberResponse;
+import com.muczynski.library.model.LocSearchRequest;
+import com.muczynski.library.repository.AuthorRepository;
+import com.muczynski.library.repository.BookRepository;
+import com.muczynski.library.repository.LoanRepository;
+import com.muczynski.library.repository.PhotoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The pool has only three connections, so the bulk lookups must not hold one while they wait
+ * on other sites. Each test stubs the remote call with one that sleeps and records whether
+ * the calling thread had a transaction or connection bound at the time.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class LookupConnectionTest {
+
+    @MockitoBean
+    private LocCatalogService locCatalogService;
+
+    @MockitoBean
+    private AskGrok askGrok;
+
+    @MockitoBean(name = "lookupRestTemplate")
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private LocBulkLookupService locBulkLookupService;
+
+    @Autowired
+    private GrokipediaLookupService grokipediaLookupService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private LookupTransactions lookupTransactions;
+
+    @Autowired
+    private FreeTextCacheService freeTextCacheService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final AtomicBoolean heldDuringCall = new AtomicBoolean();
+
+    private Author author;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        photoRepository.deleteAll();
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        author = TestEntityHelper.findOrCreateAuthor(authorRepository, "Connection Author");
+        Book newBook = new Book();
+        // Unique, so the free text cache can't answer it
+        newBook.setTitle("Connection Test " + UUID.randomUUID());
+        newBook.setAuthor(author);
+        book = bookRepository.save(newBook);
+    }
+
+    @Test
+    void locLookupHoldsNoConnectionDuringCatalogCall() {
+        when(locCatalogService.getLocCallNumber(any(LocSearchRequest.class))).thenAnswer(invocation -> {
+            recordAndWait();
+            return LocCallNumberResponse.builder().callNumber("PS 3545 .A1").matchCount(1).build();
+        });
+
+        List<LocLookupResultDto> results = locBulkLookupService.lookupAndUpdateBooks(List.of(book.getId()));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(heldDuringCall.get(), "A connection was held during the LOC catalog call");
+        assertEquals("PS 3545 .A1", bookRepository.findById(book.getId()).orElseThrow().getLocNumber());
+    }
+
+    @Test
+    void grokipediaLookupHoldsNoConnectionDuringHttpCall() {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.HEAD), isNull(), eq(Void.class))).thenAnswer(invocation -> {
+            recordAndWait();
+            return new ResponseEntity<Void>(HttpStatus.OK);
+        });
+
+        List<GrokipediaLookupResultDto> books = grokipediaLookupService.lookupBooks(List.of(book.getId()));
+        List<GrokipediaLookupResultDto> authors = grokipediaLookupService.lookupAuthors(List.of(author.getId()));
+
+        assertTrue(books.get(0).isSuccess());
+        assertTrue(authors.get(0).isSuccess());
+        assertFalse(heldDuringCall.get(), "A connection was held during the Grokipedia request");
+        assertEquals(books.get(0).getGrokipediaUrl(),
+                bookRepository.findById(book.getId()).orElseThrow().getGrokipediaUrl());
+        assertEquals(authors.get(0).getGrokipediaUrl(),
+                authorRepository.findById(author.getId()).orElseThrow().getGrokipediaUrl());
+    }
+
+    @Test
+    void freeTextLookupHoldsNoConnectionDuringProviderSearch() {
+        FreeTextProvider provider = mock(FreeTextProvider.class);
+        when(provider.getProviderName()).thenReturn("Sleepy Provider");
+        when(provider.search(anyString(), anyString())).thenAnswer(invocation -> {
+            recordAndWait();
+            return FreeTextLookupResult.success("Sleepy Provider", "https://example.com/text");
+        });
+        // Sequential, so the provider runs on the calling thread
+        FreeTextLookupService service = new FreeTextLookupService(bookRepository,
+                new ArrayList<>(List.of(provider)), lookupTransactions, freeTextCacheService);
+        service.init();
+
+        List<FreeTextBulkLookupResultDto> results = service.lookupBooks(List.of(book.getId()));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(heldDuringCall.get(), "A connection was held during the provider search");
+        assertEquals("https://example.com/text", bookRepository.findById(book.getId()).orElseThrow().getFreeTextUrl());
+    }
+
+    private void recordAndWait() throws InterruptedException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.hasResource(entityManagerFactory)
+                || TransactionSynchronizationManager.hasResource(dataSource)) {
+            heldDuringCall.set(true);
+        }
+        Thread.sleep(100);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.service;
+
+import com.muczynski.library.dto.SearchResponseDto;
+import com.muczynski.library.search.SearchCursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares OFFSET pagination with keyset (cursor) pagination for /api/search at increasing
+ * depths on the database path (the in-memory index is disabled in the test profile).
+ * <p>
+ * Run with: ./gradlew test --tests "*.SearchPaginationBenchmarkTest" -DincludeTags=manual
+ * after removing the @Disabled annotation.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("manual")
+@Disabled("Benchmark - run manually with: ./gradlew test --tests '*.SearchPaginationBenchmarkTest'")
+class SearchPaginationBenchmarkTest {
+
+    private static final int BOOKS = 100_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int[] PAGES = {0, 100, 1_000, 4_999};
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void insertBooks() {
+        jdbcTemplate.update("INSERT INTO book (title, electronic_resource, last_modified) " +
+                "SELECT 'Benchmark Book ' || lpad(g::text, 6, '0'), false, now() " +
+                "FROM generate_series(1, ?) g", BOOKS);
+        jdbcTemplate.execute("ANALYZE book");
+    }
+
+    @AfterEach
+    void deleteBooks() {
+        jdbcTemplate.update("DELETE FROM book WHERE title LIKE 'Benchmark Book %'");
+    }
+
+    @Test
+    void offsetVersusKeysetAtDeepPages() {
+        System.out.printf("%-8s %14s %14s %14s%n", "page", "offset+count", "keyset", "keyset+count");
+        for (int page : PAGES) {
+            // Position the cursor where the offset page starts; titles sort by their zero-padded number
+            Map<String, Object> previous = page == 0 ? null : jdbcTemplate.queryForMap(
+                    "SELECT id, title FROM book WHERE title = ?",
+                    String.format("Benchmark Book %06d", page * PAGE_SIZE));
+            String cursor = previous == null ? "" : new SearchCursor(false,
+                    (String) previous.get("title"), ((Number) previous.get("id")).longValue(), false,
+                    "", -1, true).encode();
+
+            long offsetNanos = time(() -> searchService.search("benchmark", page, PAGE_SIZE,
+                    false, false, false, false, null));
+            long keysetNanos = time(() -> searchService.searchAfter("benchmark", cursor, PAGE_SIZE,
+                    false, false, false, false, null, false));
+            long keysetCountNanos = time(() -> searchService.searchAfter("benchmark", cursor, PAGE_SIZE,
+                    false, false, false, false, null, true));
+
+            SearchResponseDto keysetPage = searchService.searchAfter("benchmark", cursor, PAGE_SIZE,
+                    false, false, false, false, null, false);
+            assertEquals(String.format("Benchmark Book %06d", page * PAGE_SIZE + 1),
+                    keysetPage.getBooks().get(0).getTitle());
+
+            System.out.printf("%-8d %11.2f ms %11.2f ms %11.2f ms%n", page,
+                    offsetNanos / 1e6, keysetNanos / 1e6, keysetCountNanos / 1e6);
+        }
+    }
+
+    /**
+     * Best of ROUNDS runs after one warm-up, in nanoseconds.
+     */
+    private static long time(Supplier<SearchResponseDto> search) {
+        search.get();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            search.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -7,11 +7,16 @@ import com.muczynski.library.domain.Author;
 import com.muczynski.library.domain.Book;
 import com.muczynski.library.dto.AuthorDto;
 import com.muczynski.library.dto.BookDto;
+import com.muczynski.library.dto.LabelCountDto;
+import com.muczynski.library.dto.SearchFacetsDto;
 import com.muczynski.library.dto.SearchResponseDto;
 import com.muczynski.library.mapper.AuthorMapper;
 import com.muczynski.library.mapper.BookMapper;
 import com.muczynski.library.repository.AuthorRepository;
 import com.muczynski.library.repository.BookRepository;
+import com.muczynski.library.search.SearchCursor;
+import com.muczynski.library.search.SearchIndex;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -25,9 +30,15 @@ import org.springframework.data.domain.Pageable;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,9 +56,23 @@ class SearchServiceTest {
     @Mock
     private AuthorMapper authorMapper;
 
+    // Not ready unless a test says otherwise, so the repository path is exercised by default
+    @Mock
+    private SearchIndex searchIndex;
+
     @InjectMocks
     private SearchService searchService;
 
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void mapListsThroughSingleRowStubs() {
+        // The service maps result lists in bulk; route them through the per-row stubs below
+        lenient().when(bookMapper.toDtos(anyList())).thenAnswer(inv ->
+                ((List<Book>) inv.getArgument(0)).stream().map(bookMapper::toDto).collect(Collectors.toList()));
+        lenient().when(authorMapper.toDtos(anyList())).thenAnswer(inv ->
+                ((List<Author>) inv.getArgument(0)).stream().map(authorMapper::toDto).collect(Collectors.toList()));
+    }
+
     // ── Helper to create a stubbed book page ──────────────────────────────
 
     private Page<Book> bookPageOf(Pageable pageable, Book... books) {
@@ -485,4 +510,182 @@ class SearchServiceTest {
         assertNotNull(result);
         assertEquals(0, result.getBooks().size());
     }
+
+    // ── In-memory index tests ─────────────────────────────────────────────
+
+    @Test
+    void searchUsesIndexWhenReady() {
+        Book first = new Book();
+        first.setId(3L);
+        first.setTitle("City of God");
+        Book second = new Book();
+        second.setId(7L);
+        second.setTitle("God and Man");
+        Author author = new Author();
+        author.setId(2L);
+        author.setName("Augustine of Hippo");
+        BookDto firstDto = new BookDto();
+        firstDto.setId(3L);
+        BookDto secondDto = new BookDto();
+        secondDto.setId(7L);
+
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.findBooks("god", true, false, false, false, null, 0, 2))
+                .thenReturn(new SearchIndex.IdPage(List.of(3L, 7L), 5));
+        when(searchIndex.findAuthorsOfMatchingBooks("god", true, false, false, false, null, 0, 2))
+                .thenReturn(new SearchIndex.IdPage(List.of(2L), 1));
+        // findAllById returns rows in arbitrary order; the service restores index order
+        when(bookRepository.findAllById(List.of(3L, 7L))).thenReturn(Arrays.asList(second, first));
+        when(authorRepository.findAllById(List.of(2L))).thenReturn(List.of(author));
+        when(bookMapper.toDto(first)).thenReturn(firstDto);
+        when(bookMapper.toDto(second)).thenReturn(secondDto);
+        when(authorMapper.toDto(author)).thenReturn(new AuthorDto());
+
+        SearchResponseDto result = searchService.search(" god ", 0, 2, true, false, false, false, null);
+
+        assertEquals(List.of(3L, 7L), result.getBooks().stream().map(BookDto::getId).toList());
+        assertEquals(5, result.getBookPage().getTotalElements());
+        assertEquals(3, result.getBookPage().getTotalPages());
+        assertEquals(1, result.getAuthors().size());
+        verify(bookRepository, never()).findWithFilters(anyString(), anyBoolean(), anyBoolean(),
+                anyBoolean(), anyBoolean(), any(Pageable.class));
+    }
+
+    // ── Facet tests ───────────────────────────────────────────────────────
+
+    @Test
+    void facetsFromRepositoryAggregates() {
+        List<Object[]> chipRow = Collections.singletonList(new Object[]{6L, 4L, 1L, 2L, null});
+        when(bookRepository.countFacetsWithLabels("god", false, false, false, false, List.of("theology"), 1L))
+                .thenReturn(chipRow);
+        when(bookRepository.countLabelFacetsWithLabels("god", false, false, false, false, List.of("theology"), 1L))
+                .thenReturn(List.of(new Object[]{"history", 2L}, new Object[]{"theology", 6L}));
+
+        SearchFacetsDto facets = searchService.facets(" god ", false, false, false, false, List.of("theology"));
+
+        assertEquals(4, facets.getInLibrary());
+        assertEquals(1, facets.getElectronic());
+        assertEquals(2, facets.getFreeText());
+        assertEquals(0, facets.getAudio());
+        assertEquals(List.of(new LabelCountDto("history", 2), new LabelCountDto("theology", 6)), facets.getLabels());
+    }
+
+    @Test
+    void facetsFromIndexWhenReady() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.countFacets("", true, false, false, false, null))
+                .thenReturn(new SearchIndex.FacetCounts(3, 0, 1, 1, new TreeMap<>(Map.of("history", 1L))));
+
+        SearchFacetsDto facets = searchService.facets(null, true, false, false, false, List.of());
+
+        assertEquals(3, facets.getInLibrary());
+        assertEquals(List.of(new LabelCountDto("history", 1)), facets.getLabels());
+        verify(bookRepository, never()).countFacets(anyString(), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean());
+    }
+
+    // ── Keyset (cursor) tests ─────────────────────────────────────────────
+
+    private static Book book(long id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        return book;
+    }
+
+    @Test
+    void searchAfterFromDatabaseSeeksAndIssuesNextCursor() {
+        Pageable probe = PageRequest.of(0, 3);
+        when(bookRepository.findWithFiltersAfter("god", false, false, false, false, "", -1L, probe))
+                .thenReturn(List.of(book(3, "City of God"), book(7, "God and Man"), book(9, "Gods of Rome")));
+        when(authorRepository.findByNameContainingAfter("god", "", -1L, probe)).thenReturn(List.of());
+        when(bookMapper.toDto(any(Book.class))).thenReturn(new BookDto());
+
+        SearchResponseDto first = searchService.searchAfter("god", null, 2, false, false, false, false, null, false);
+
+        assertEquals(2, first.getBooks().size());
+        assertNull(first.getBookPage());
+        SearchCursor next = SearchCursor.decode(first.getNextCursor());
+        assertEquals(new SearchCursor(false, "God and Man", 7L, false, "", -1L, true), next);
+        verify(bookRepository, never()).findWithFilters(anyString(), anyBoolean(), anyBoolean(),
+                anyBoolean(), anyBoolean(), any(Pageable.class));
+
+        when(bookRepository.findWithFiltersAfter("god", false, false, false, false, "God and Man", 7L, probe))
+                .thenReturn(List.of(book(9, "Gods of Rome")));
+
+        SearchResponseDto second = searchService.searchAfter("god", first.getNextCursor(), 2,
+                false, false, false, false, null, false);
+
+        assertEquals(1, second.getBooks().size());
+        assertNull(second.getNextCursor());
+        // Authors were exhausted on the first page and are not queried again
+        verify(authorRepository).findByNameContainingAfter(anyString(), anyString(), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void searchAfterCountsOnlyWhenAsked() {
+        Pageable probe = PageRequest.of(0, 21);
+        when(bookRepository.findWithFiltersAfter("", true, false, false, false, "", -1L, probe)).thenReturn(List.of());
+        when(authorRepository.findAuthorsOfBooksMatchingFiltersAfter("", true, false, false, false, "", -1L, probe))
+                .thenReturn(List.of());
+        when(bookRepository.findWithFilters("", true, false, false, false, PageRequest.of(0, 1)))
+                .thenReturn(new PageImpl<>(List.of(book(1, "A")), PageRequest.of(0, 1), 45));
+        when(authorRepository.findAuthorsOfBooksMatchingFilters("", true, false, false, false, PageRequest.of(0, 1)))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 1), 0));
+
+        SearchResponseDto result = searchService.searchAfter("", "", 20, true, false, false, false, null, true);
+
+        assertEquals(45, result.getBookPage().getTotalElements());
+        assertEquals(3, result.getBookPage().getTotalPages());
+        assertEquals(0, result.getAuthorPage().getTotalElements());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void searchAfterUsesIndexForIndexCursors() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.findBooksAfter("", false, false, false, false, null, "", -1L, 2))
+                .thenReturn(new SearchIndex.KeysetPage(List.of(3L, 2L), 5, true, "confessions"));
+        when(searchIndex.findAuthorsByNameAfter("", "", -1L, 2))
+                .thenReturn(new SearchIndex.KeysetPage(List.of(), 0, false, null));
+        when(bookRepository.findAllById(List.of(3L, 2L))).thenReturn(List.of(book(2, "Confessions"), book(3, "City of God")));
+        when(authorRepository.findAllById(List.of())).thenReturn(List.of());
+        when(bookMapper.toDto(any(Book.class))).thenAnswer(inv -> {
+            BookDto dto = new BookDto();
+            dto.setId(((Book) inv.getArgument(0)).getId());
+            return dto;
+        });
+
+        SearchResponseDto result = searchService.searchAfter("", null, 2, false, false, false, false, null, false);
+
+        assertEquals(List.of(3L, 2L), result.getBooks().stream().map(BookDto::getId).toList());
+        assertEquals(new SearchCursor(true, "confessions", 2L, false, "", -1L, true),
+                SearchCursor.decode(result.getNextCursor()));
+    }
+
+    @Test
+    void searchAfterRejectsIndexCursorOnceIndexIsNotReady() {
+        when(searchIndex.isReady()).thenReturn(true, false);
+        when(searchIndex.findBooksAfter("", false, false, false, false, null, "", -1L, 2))
+                .thenReturn(new SearchIndex.KeysetPage(List.of(3L), 5, true, "confessions"));
+        when(searchIndex.findAuthorsByNameAfter("", "", -1L, 2))
+                .thenReturn(new SearchIndex.KeysetPage(List.of(), 0, false, null));
+        when(bookRepository.findAllById(List.of(3L))).thenReturn(List.of(book(3, "Confessions")));
+        when(authorRepository.findAllById(List.of())).thenReturn(List.of());
+        when(bookMapper.toDto(any(Book.class))).thenReturn(new BookDto());
+
+        SearchResponseDto first = searchService.searchAfter("", null, 2, false, false, false, false, null, false);
+
+        // The index is rebuilding: its lowercase keys must not be used to seek the database
+        String cursor = first.getNextCursor();
+        assertThrows(IllegalArgumentException.class,
+                () -> searchService.searchAfter("", cursor, 2, false, false, false, false, null, false));
+        verify(bookRepository, never()).findWithFiltersAfter(anyString(), anyBoolean(), anyBoolean(),
+                anyBoolean(), anyBoolean(), anyString(), anyLong(), any());
+    }
+
+    @Test
+    void searchAfterRejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> searchService.searchAfter("", "%%%", 20, false, false, false, false, null, false));
+    }
 }
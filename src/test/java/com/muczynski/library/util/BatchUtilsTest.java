@@ -0,0 +1,36 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchUtilsTest {
+
+    @Test
+    void inChunks_splitsIntoInListSizedChunksInOrder() {
+        List<Long> ids = LongStream.range(0, 2 * BatchUtils.IN_LIST_SIZE + 5).boxed().collect(Collectors.toList());
+        List<Integer> sizes = new ArrayList<>();
+        List<Long> seen = new ArrayList<>();
+
+        BatchUtils.inChunks(ids, chunk -> {
+            sizes.add(chunk.size());
+            seen.addAll(chunk);
+        });
+
+        assertEquals(List.of(BatchUtils.IN_LIST_SIZE, BatchUtils.IN_LIST_SIZE, 5), sizes);
+        assertEquals(ids, seen);
+    }
+
+    @Test
+    void inChunks_callsNothingForEmptyList() {
+        BatchUtils.inChunks(List.<Long>of(), chunk -> fail("No chunk expected"));
+    }
+}
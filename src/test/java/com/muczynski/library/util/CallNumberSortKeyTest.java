@@ -0,0 +1,98 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CallNumberSortKey}.
+ */
+class CallNumberSortKeyTest {
+
+    // In shelf order
+    private static final List<String> SHELF = List.of(
+            "B 210",
+            "BR 115 .C5",
+            "BV210 .3 .B464 2013",
+            "BV 4501.2 .L4",
+            "BX 4700 .F6",
+            "BX 4705",
+            "BX 4705 .C2",
+            "BX 4705.M124",
+            "BX 4705.M124 A77 2005",
+            "BX 4705.M124 A77 2010",
+            "BX 4705.M13",
+            "BX 4705.5 .A1",
+            "BX 4710",
+            "BX 4710.5",
+            "BX 4711",
+            "BX 17000",
+            "FIC SMITH",
+            "PS 3545 .H16 v. 2",
+            "PS 3545 .H16 v. 10",
+            "PS3566.O5",
+            "Z 1003",
+            "2024-05 donation");
+
+    @Test
+    void keysSortInShelfOrder() {
+        List<String> shuffled = new ArrayList<>(SHELF);
+        Collections.shuffle(shuffled, new Random(42));
+
+        shuffled.sort(Comparator.comparing(CallNumberSortKey::of));
+
+        assertEquals(SHELF, shuffled);
+    }
+
+    @Test
+    void buildsKeysFromEachPart() {
+        assertEquals("BX 04705 M124 A77 002005", CallNumberSortKey.of("BX 4705.M124 A77 2005"));
+        assertEquals("BV 00210.3 B464 002013", CallNumberSortKey.of("BV210 .3 .B464 2013"));
+        assertEquals("PS 03566 O5", CallNumberSortKey.of("ps3566.o5"));
+        assertEquals("BX ", CallNumberSortKey.of("BX"));
+        assertEquals("FIC SMITH", CallNumberSortKey.of("FIC SMITH"));
+        assertEquals("~002024 000005 DONATION", CallNumberSortKey.of("2024-05 donation"));
+    }
+
+    @Test
+    void blankHasNoKey() {
+        assertNull(CallNumberSortKey.of(null));
+        assertNull(CallNumberSortKey.of("  "));
+    }
+
+    @Test
+    void keysAreAsciiAndBounded() {
+        String key = CallNumberSortKey.of("BX 4705 " + "Ü 1 ".repeat(200));
+
+        assertTrue(key.length() <= CallNumberSortKey.MAX_LENGTH);
+        assertTrue(key.chars().allMatch(c -> c >= ' ' && c < 0x7f), key);
+    }
+
+    /**
+     * The upper bound takes in everything shelved under the given call number.
+     */
+    @Test
+    void rangeIncludesEverythingUnderItsEnd() {
+        String from = CallNumberSortKey.of("BX 4700");
+        String to = CallNumberSortKey.upperBound("BX 4710");
+
+        List<String> inRange = SHELF.stream()
+                .filter(callNumber -> {
+                    String key = CallNumberSortKey.of(callNumber);
+                    return key.compareTo(from) >= 0 && key.compareTo(to) < 0;
+                })
+                .toList();
+
+        assertEquals(SHELF.subList(SHELF.indexOf("BX 4700 .F6"), SHELF.indexOf("BX 4711")), inRange);
+        assertTrue(CallNumberSortKey.of("~ANYTHING").compareTo(CallNumberSortKey.MAX) < 0);
+    }
+}
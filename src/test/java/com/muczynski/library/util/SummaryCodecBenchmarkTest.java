@@ -0,0 +1,108 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.muczynski.library.dto.BookSummaryDto;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares payload size and serialization time of the JSON summaries list with
+ * {@link SummaryCodec} at 100k entries. Both start from the same (id, lastModified) rows, as
+ * the repository returns them: JSON builds the DTO list the endpoint serializes, the codec
+ * appends rows directly.
+ * <p>
+ * Run with: ./gradlew test --tests "*.SummaryCodecBenchmarkTest" -DincludeTags=manual
+ * after removing the @Disabled annotation.
+ */
+@Tag("manual")
+@Disabled("Benchmark - run manually with: ./gradlew test --tests '*.SummaryCodecBenchmarkTest'")
+class SummaryCodecBenchmarkTest {
+
+    private static final int ENTRIES = 100_000;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 20;
+
+    // Configured like Spring Boot's ObjectMapper: ISO-8601 strings for LocalDateTime
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void jsonVersusBinaryAt100kEntries() throws Exception {
+        List<Object[]> rows = rows();
+
+        byte[] json = json(rows);
+        byte[] binary = binary(rows);
+        assertEquals(ENTRIES, SummaryCodec.decode(binary).size());
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            json(rows);
+            binary(rows);
+        }
+        long jsonNanos = 0;
+        long binaryNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            json(rows);
+            jsonNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            binary(rows);
+            binaryNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("%-8s %12s %10s %12s%n", "format", "bytes", "per entry", "ms/encode");
+        System.out.printf("%-8s %12d %10.1f %12.2f%n", "json", json.length,
+                (double) json.length / ENTRIES, jsonNanos / 1e6 / ROUNDS);
+        System.out.printf("%-8s %12d %10.1f %12.2f%n", "binary", binary.length,
+                (double) binary.length / ENTRIES, binaryNanos / 1e6 / ROUNDS);
+    }
+
+    private byte[] json(List<Object[]> rows) throws Exception {
+        List<BookSummaryDto> summaries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            BookSummaryDto dto = new BookSummaryDto();
+            dto.setId((Long) row[0]);
+            dto.setLastModified((LocalDateTime) row[1]);
+            summaries.add(dto);
+        }
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+
+    private static byte[] binary(List<Object[]> rows) {
+        SummaryCodec codec = new SummaryCodec();
+        for (Object[] row : rows) {
+            codec.add((Long) row[0], (LocalDateTime) row[1]);
+        }
+        return codec.toByteArray();
+    }
+
+    /**
+     * Ids with occasional gaps (deleted books); lastModified spread over two years with
+     * microsecond precision, as PostgreSQL returns it.
+     */
+    private static List<Object[]> rows() {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>(ENTRIES);
+        long id = 0;
+        for (int i = 0; i < ENTRIES; i++) {
+            id += 1 + (random.nextInt(10) == 0 ? random.nextInt(5) : 0);
+            long micros = (long) (random.nextDouble() * 2 * 365 * 24 * 3600 * 1_000_000L);
+            rows.add(new Object[]{id, start.plusNanos(micros * 1000)});
+        }
+        return rows;
+    }
+}
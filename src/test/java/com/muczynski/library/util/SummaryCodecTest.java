@@ -0,0 +1,113 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SummaryCodec}.
+ */
+class SummaryCodecTest {
+
+    @Test
+    void roundTripsIdsAndTimestamps() {
+        SummaryCodec codec = new SummaryCodec();
+        codec.add(3, LocalDateTime.of(2025, 1, 2, 12, 0, 0, 123_000_000));
+        codec.add(4, LocalDateTime.of(2024, 6, 30, 8, 15, 59));
+        codec.add(1_000_000, LocalDateTime.of(2025, 1, 2, 12, 0, 1));
+
+        List<SummaryCodec.Entry> entries = SummaryCodec.decode(codec.toByteArray());
+
+        assertEquals(List.of(
+                new SummaryCodec.Entry(3, LocalDateTime.of(2025, 1, 2, 12, 0, 0, 123_000_000)),
+                new SummaryCodec.Entry(4, LocalDateTime.of(2024, 6, 30, 8, 15, 59)),
+                new SummaryCodec.Entry(1_000_000, LocalDateTime.of(2025, 1, 2, 12, 0, 1))), entries);
+        assertEquals(3, codec.count());
+    }
+
+    /**
+     * Timestamps are kept to the millisecond, so edits within the same second still differ.
+     */
+    @Test
+    void truncatesToMilliseconds() {
+        SummaryCodec codec = new SummaryCodec();
+        codec.add(1, LocalDateTime.of(2025, 3, 4, 5, 6, 7, 891_234_567));
+
+        assertEquals(LocalDateTime.of(2025, 3, 4, 5, 6, 7, 891_000_000),
+                SummaryCodec.decode(codec.toByteArray()).get(0).lastModified());
+    }
+
+    @Test
+    void keepsNullLastModified() {
+        SummaryCodec codec = new SummaryCodec();
+        codec.add(1, null);
+        codec.add(2, LocalDateTime.of(2025, 1, 1, 0, 0));
+        codec.add(3, null);
+
+        List<SummaryCodec.Entry> entries = SummaryCodec.decode(codec.toByteArray());
+
+        assertNull(entries.get(0).lastModified());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 0, 0), entries.get(1).lastModified());
+        assertNull(entries.get(2).lastModified());
+    }
+
+    @Test
+    void emptyListIsOnlyTheVersionByte() {
+        byte[] encoded = new SummaryCodec().toByteArray();
+
+        assertArrayEquals(new byte[]{SummaryCodec.VERSION}, encoded);
+        assertTrue(SummaryCodec.decode(encoded).isEmpty());
+    }
+
+    @Test
+    void rejectsIdsOutOfOrder() {
+        SummaryCodec codec = new SummaryCodec();
+        codec.add(5, null);
+
+        assertThrows(IllegalArgumentException.class, () -> codec.add(5, null));
+        assertThrows(IllegalArgumentException.class, () -> codec.add(4, null));
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        SummaryCodec codec = new SummaryCodec();
+        codec.add(1, LocalDateTime.of(2025, 1, 1, 0, 0));
+        byte[] encoded = codec.toByteArray();
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+
+        assertThrows(IllegalArgumentException.class, () -> SummaryCodec.decode(truncated));
+        assertThrows(IllegalArgumentException.class, () -> SummaryCodec.decode(new byte[]{9}));
+    }
+
+    /**
+     * Consecutive ids with timestamps close together take a few bytes each, far below JSON.
+     */
+    @Test
+    void consecutiveEntriesAreCompact() {
+        SummaryCodec codec = new SummaryCodec();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 1; i <= 1000; i++) {
+            codec.add(i, start.plusSeconds(i));
+        }
+
+        int size = codec.toByteArray().length;
+        assertTrue(size <= 1 + 1000 * 4, "Expected at most 4 bytes per entry, got " + size);
+    }
+
+    @Test
+    void isAcceptedMatchesOnlyTheBinaryMediaType() {
+        assertTrue(SummaryCodec.isAccepted(SummaryCodec.MEDIA_TYPE_VALUE));
+        assertTrue(SummaryCodec.isAccepted("application/json;q=0.5, " + SummaryCodec.MEDIA_TYPE_VALUE));
+        assertFalse(SummaryCodec.isAccepted("application/json"));
+        assertFalse(SummaryCodec.isAccepted("*/*"));
+        assertFalse(SummaryCodec.isAccepted(null));
+        assertFalse(SummaryCodec.isAccepted("not a media type"));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.util;
+
+import com.muczynski.library.freetext.FreeTextLookupCache;
+import com.muczynski.library.freetext.TitleMatcher;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Compares throughput and allocation of {@link TextNormalizer} with the regex chains it
+ * replaced, on the known free text titles and authors: title and author normalization, and
+ * {@link TitleMatcher#titleMatches} of each title against the next. Allocation is the
+ * thread's allocated bytes, as reported by the HotSpot thread MX bean.
+ * <p>
+ * Run with: ./gradlew test --tests "*.TextNormalizerBenchmarkTest" -DincludeTags=manual
+ * after removing the @Disabled annotation.
+ */
+@Tag("manual")
+@Disabled("Benchmark - run manually with: ./gradlew test --tests '*.TextNormalizerBenchmarkTest'")
+class TextNormalizerBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int ROUNDS = 500;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void regexChainsVersusSinglePass() {
+        List<String> titles = FreeTextLookupCache.seedEntries().stream().map(FreeTextLookupCache.SeedEntry::title).toList();
+        List<String> authors = FreeTextLookupCache.seedEntries().stream().map(FreeTextLookupCache.SeedEntry::author).toList();
+        List<String[]> pairs = IntStream.range(0, titles.size())
+                .mapToObj(i -> new String[]{titles.get(i), titles.get((i + 1) % titles.size())})
+                .toList();
+
+        System.out.printf("%-20s %12s %12s %12s %12s%n", "operation", "regex ns/op", "ns/op", "regex B/op", "B/op");
+        report("normalize title", titles,
+                title -> regexTitle(title).hashCode(),
+                title -> TextNormalizer.normalizeTitle(title).hashCode());
+        report("normalize author", authors,
+                author -> regexAuthor(author).hashCode(),
+                author -> TextNormalizer.normalizeAuthor(author).hashCode());
+        report("title matches", pairs,
+                pair -> regexWordMatches(pair[0], pair[1]),
+                pair -> TitleMatcher.titleMatches(pair[0], pair[1]) ? 1 : 0);
+    }
+
+    private <T> void report(String operation, List<T> inputs, ToIntFunction<T> regex, ToIntFunction<T> singlePass) {
+        Measurement before = measure(inputs, regex);
+        Measurement after = measure(inputs, singlePass);
+        System.out.printf("%-20s %12.0f %12.0f %12.0f %12.0f%n", operation,
+                before.nanosPerOp(), after.nanosPerOp(), before.bytesPerOp(), after.bytesPerOp());
+    }
+
+    private <T> Measurement measure(List<T> inputs, ToIntFunction<T> operation) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (T input : inputs) {
+                sink += operation.applyAsInt(input);
+            }
+        }
+        long threadId = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            for (T input : inputs) {
+                sink += operation.applyAsInt(input);
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        bytes = threads.getThreadAllocatedBytes(threadId) - bytes;
+        long ops = (long) ROUNDS * inputs.size();
+        // Use the results so the JIT cannot drop the work
+        assertNotEquals(Integer.MIN_VALUE, sink);
+        return new Measurement((double) nanos / ops, (double) bytes / ops);
+    }
+
+    private record Measurement(double nanosPerOp, double bytesPerOp) {
+    }
+
+    // The regex chains TextNormalizer replaced
+
+    private static String regexTitle(String title) {
+        return title.toLowerCase()
+                .replaceAll("\\s*\\([^)]*\\)\\s*$", "")
+                .replaceAll("^(the|a|an)\\s+", "")
+                .replaceAll("[^a-z0-9\\s]", "")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    private static String regexAuthor(String author) {
+        return author.toLowerCase()
+                .replaceAll("[^a-z\\s]", "")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    /**
+     * The bulk of the old title comparison: both sides normalized by regex, split into words,
+     * and their significant words matched.
+     */
+    private static int regexWordMatches(String candidate, String target) {
+        String[] candidateWords = regexTitle(candidate).split("\\s+");
+        String[] targetWords = regexTitle(target).split("\\s+");
+        int matches = 0;
+        for (String word : candidateWords) {
+            if (word.length() > 2 && !word.matches("\\d+")) {
+                for (String targetWord : targetWords) {
+                    if (word.equals(targetWord)) {
+                        matches++;
+                        break;
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+}
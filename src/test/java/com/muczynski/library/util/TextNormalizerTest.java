@@ -0,0 +1,168 @@
+/*
+ * (c) Copyright 2025 by Muczynski
+ */
+package com.muczynski.library.util;
+
+import com.muczynski.library.freetext.FreeTextLookupCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks each {@link TextNormalizer} method against the regex chain it replaced, on the
+ * known titles and authors and on random text built from the pieces those chains treat
+ * specially: articles, parentheses, every kind of {@code \s}, line separators, punctuation,
+ * digits, and the non-ASCII characters that lowercase to ASCII.
+ */
+class TextNormalizerTest {
+
+    private static final long SEED = 20251019L;
+    private static final int SAMPLES = 200_000;
+
+    private static final String[] PIECES = {
+            "The", "the", "THE", "a", "A", "an", "An", "and", "of", "Of", "to", "with", "from",
+            "War", "peace", "Tale", "x", "Q", "1952", "7", "0", "2nd",
+            " ", " ", " ", "  ", "\t", "\n", "\r", "\r\n", "\u000B", "\f", "\u00A0",
+            "\u0085", "\u2028", "\u2029", "\u2028 ",
+            "(", ")", "(", ")", "(1940)", " (2nd ed.)", "[", "]",
+            ":", "-", "--", "'", ".", ",", "!", "&", "/", "_",
+            "\u0130", "\u212A", "\u00E9", "\u00DF", "\u03A3", "\u00C9", "\uD83D\uDE00", "\u0307"
+    };
+
+    @Test
+    void normalizeTitle_matchesRegexChain() {
+        assertEquivalent(TextNormalizerTest::regexTitle, TextNormalizer::normalizeTitle);
+    }
+
+    @Test
+    void normalizeAuthor_matchesRegexChain() {
+        assertEquivalent(TextNormalizerTest::regexAuthor, TextNormalizer::normalizeAuthor);
+    }
+
+    @Test
+    void searchTerms_matchesRegexChain() {
+        assertEquivalent(TextNormalizerTest::regexSearchTerms, TextNormalizer::searchTerms);
+    }
+
+    @Test
+    void sanitizeName_matchesRegexChain() {
+        assertEquivalent(TextNormalizerTest::regexSanitizeName, TextNormalizer::sanitizeName);
+    }
+
+    @Test
+    void alphanumeric_matchesRegexChain() {
+        assertEquivalent(TextNormalizerTest::regexAlphanumeric, TextNormalizer::alphanumeric);
+    }
+
+    @Test
+    void lowerTrim_matchesTrimAndLowerCase() {
+        assertEquivalent(text -> text.trim().toLowerCase(Locale.ROOT), TextNormalizer::lowerTrim);
+    }
+
+    @Test
+    void examples() {
+        assertEquals("imitation of christ", TextNormalizer.normalizeTitle("The Imitation of Christ (1940)"));
+        assertEquals("tale of two cities", TextNormalizer.normalizeTitle("A Tale of Two Cities"));
+        assertEquals("orthodoxy the romance of faith", TextNormalizer.normalizeTitle("Orthodoxy: The Romance of Faith"));
+        assertEquals("chesterton g k", TextNormalizer.normalizeAuthor("Chesterton, G. K."));
+        assertEquals("war peace edition", TextNormalizer.searchTerms("War and Peace 1952 Edition"));
+        assertEquals("orthodoxy-the-romance-of-faith", TextNormalizer.sanitizeName("Orthodoxy: The Romance of Faith"));
+        assertEquals("stbernards", TextNormalizer.alphanumeric("St. Bernard's"));
+    }
+
+    @Test
+    void textAlreadyInNormalFormIsReturnedAsIs() {
+        String title = "imitation of christ";
+        assertSame(title, TextNormalizer.normalizeTitle(title));
+        assertSame(title, TextNormalizer.normalizeAuthor(title));
+        assertSame(title, TextNormalizer.lowerTrim(title));
+    }
+
+    private static void assertEquivalent(UnaryOperator<String> regex, UnaryOperator<String> normalizer) {
+        for (FreeTextLookupCache.SeedEntry seed : FreeTextLookupCache.seedEntries()) {
+            assertMatches(seed.title(), regex, normalizer);
+            assertMatches(seed.author(), regex, normalizer);
+        }
+        Random random = new Random(SEED);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertMatches(randomText(random), regex, normalizer);
+        }
+    }
+
+    private static void assertMatches(String text, UnaryOperator<String> regex, UnaryOperator<String> normalizer) {
+        assertEquals(regex.apply(text), normalizer.apply(text), () -> "Input: " + escape(text));
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int pieces = random.nextInt(12);
+        for (int i = 0; i < pieces; i++) {
+            text.append(PIECES[random.nextInt(PIECES.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            escaped.append(c >= 0x20 && c < 0x7F ? String.valueOf(c) : String.format("\\u%04X", (int) c));
+        }
+        return escaped.append('"').toString();
+    }
+
+    // The regex chains TextNormalizer replaced
+
+    private static String regexTitle(String title) {
+        return title.toLowerCase()
+                .replaceAll("\\s*\\([^)]*\\)\\s*$", "")
+                .replaceAll("^(the|a|an)\\s+", "")
+                .replaceAll("[^a-z0-9\\s]", "")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    private static String regexAuthor(String author) {
+        return author.toLowerCase()
+                .replaceAll("[^a-z\\s]", "")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    private static String regexSearchTerms(String title) {
+        if (title.isBlank()) {
+            return "";
+        }
+        String[] words = title.toLowerCase()
+                .replaceAll("[^a-z0-9\\s]", "")
+                .split("\\s+");
+        Set<String> stopWords = Set.of("the", "a", "an", "in", "at", "to", "of",
+                "on", "by", "for", "and", "or", "with", "from");
+        StringBuilder result = new StringBuilder();
+        for (String word : words) {
+            if (!word.isEmpty() && !stopWords.contains(word) && !word.matches("\\d+")) {
+                if (result.length() > 0) {
+                    result.append(" ");
+                }
+                result.append(word);
+            }
+        }
+        return result.toString();
+    }
+
+    private static String regexSanitizeName(String name) {
+        return name.toLowerCase()
+                .replaceAll("[^a-z0-9]+", "-")
+                .replaceAll("^-+|-+$", "");
+    }
+
+    private static String regexAlphanumeric(String name) {
+        return name.toLowerCase()
+                .trim()
+                .replaceAll("[^a-z0-9]", "");
+    }
+}